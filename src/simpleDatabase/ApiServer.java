@@ -0,0 +1,470 @@
+package simpleDatabase;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/***
+ * HTTP/JSON front end to DatabaseHelper, so many users can share one process
+ * and one connection pool instead of one console JVM each.
+ * <p>
+ * Built on the JDK's HttpServer. Every request runs on its own virtual
+ * thread, so a request waiting on the database or the pool costs a few
+ * hundred bytes rather than a platform thread, and hundreds of students can
+ * be served at once. The number of requests using the database at the same
+ * time is still bounded by the connection pool.
+ * </p>
+ * <p>
+ * POST /api/login returns a bearer token for a Session; every other call
+ * sends it as "Authorization: Bearer &lt;token&gt;". Tokens expire after
+ * SESSION_IDLE_MS without use.
+ * </p>
+ *
+ * <pre>
+ * POST   /api/login                   {"userName", "password"}
+ * POST   /api/logout
+ * GET    /api/articles                ?group=&amp;level=&amp;after=&amp;size=  (keyset pages)
+ * GET    /api/articles/search         ?q=&amp;level=&amp;group=
+ * GET    /api/articles/{id}
+ * GET    /api/groups
+ * POST   /api/groups                  {"name", "special"}
+ * DELETE /api/groups/{name}
+ * POST   /api/groups/{name}/articles  {"articleId"}
+ * </pre>
+ *
+ * @author Abhave Abhilash and Aditya Gupta
+ * @version 1.0
+ * @since 10/9/2024
+ */
+class ApiServer {
+
+	static final int DEFAULT_PORT = 8080;
+
+	/** How long a login token lasts without being used */
+	static final long SESSION_IDLE_MS = 30 * 60 * 1000;
+
+	/** Largest page a listing returns */
+	static final int MAX_PAGE_SIZE = 100;
+
+	// request bodies are small JSON objects
+	private static final int MAX_BODY_BYTES = 64 * 1024;
+
+	private final DatabaseHelper databaseHelper;
+	private final HttpServer server;
+	private final ExecutorService executor;
+	private final Map<String, ApiSession> sessions = new ConcurrentHashMap<>();
+	private final SecureRandom random = new SecureRandom();
+
+	/**
+	 * @param databaseHelper connected helper shared by every request
+	 * @param port port to listen on, 0 for any free port
+	 * @throws IOException if the port cannot be bound
+	 */
+	ApiServer(DatabaseHelper databaseHelper, int port) throws IOException {
+		this.databaseHelper = databaseHelper;
+		this.server = HttpServer.create(new InetSocketAddress(port), 0);
+		this.executor = Executors.newVirtualThreadPerTaskExecutor();
+		server.setExecutor(executor);
+		server.createContext("/api/", this::handle);
+	}
+
+	void start() {
+		server.start();
+		System.out.println("API listening on port " + getPort());
+	}
+
+	/**
+	 * @return the port the server is bound to
+	 */
+	int getPort() {
+		return server.getAddress().getPort();
+	}
+
+	/**
+	 * Stop accepting requests, give the ones in progress a moment to finish,
+	 * and drop every session
+	 */
+	void stop() {
+		server.stop(1);
+		executor.shutdown();
+		try {
+			executor.awaitTermination(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		sessions.clear();
+	}
+
+	public static void main(String[] args) throws Exception {
+		int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+		DatabaseHelper databaseHelper = new DatabaseHelper();
+		databaseHelper.connectToDatabase();
+		ApiServer api = new ApiServer(databaseHelper, port);
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+			api.stop();
+			databaseHelper.closeConnection();
+		}));
+		api.start();
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		try {
+			route(exchange);
+		} catch (ApiException e) {
+			send(exchange, e.status, new Json.Writer().beginObject().field("error", e.getMessage()).endObject());
+		} catch (SQLException e) {
+			System.err.println("DB issue in API request " + exchange.getRequestURI().getPath() + ": " + e.getMessage());
+			send(exchange, 500, new Json.Writer().beginObject().field("error", "Database error").endObject());
+		} catch (RuntimeException e) {
+			System.err.println("API request " + exchange.getRequestURI().getPath() + " failed: " + e);
+			send(exchange, 500, new Json.Writer().beginObject().field("error", "Internal error").endObject());
+		} finally {
+			exchange.close();
+		}
+	}
+
+	private void route(HttpExchange exchange) throws IOException, SQLException {
+		String method = exchange.getRequestMethod();
+		String[] path = segments(exchange.getRequestURI().getRawPath());
+		Map<String, String> query = queryParameters(exchange.getRequestURI().getRawQuery());
+
+		if (path.length == 1 && path[0].equals("login")) {
+			requireMethod(method, "POST");
+			login(exchange);
+			return;
+		}
+
+		ApiSession session = authenticate(exchange);
+		if (path.length == 1 && path[0].equals("logout")) {
+			requireMethod(method, "POST");
+			sessions.remove(session.token);
+			send(exchange, 204, null);
+		} else if (path.length == 1 && path[0].equals("articles")) {
+			requireMethod(method, "GET");
+			listArticles(exchange, session.session, query);
+		} else if (path.length == 2 && path[0].equals("articles") && path[1].equals("search")) {
+			requireMethod(method, "GET");
+			searchArticles(exchange, query);
+		} else if (path.length == 2 && path[0].equals("articles")) {
+			requireMethod(method, "GET");
+			viewArticle(exchange, session.session, parseId(path[1]));
+		} else if (path.length == 1 && path[0].equals("groups")) {
+			if (method.equals("GET")) {
+				listGroups(exchange);
+			} else {
+				requireMethod(method, "POST");
+				createGroup(exchange, session.session);
+			}
+		} else if (path.length == 2 && path[0].equals("groups")) {
+			requireMethod(method, "DELETE");
+			deleteGroup(exchange, session.session, path[1]);
+		} else if (path.length == 3 && path[0].equals("groups") && path[2].equals("articles")) {
+			requireMethod(method, "POST");
+			linkArticle(exchange, session.session, path[1]);
+		} else {
+			throw new ApiException(404, "No such resource");
+		}
+	}
+
+	private void login(HttpExchange exchange) throws IOException, SQLException {
+		Map<String, Object> body = readBody(exchange);
+		Session session = databaseHelper.openSession(string(body, "userName"), string(body, "password"));
+		if (session == null) {
+			throw new ApiException(401, "Invalid username or password");
+		}
+		purgeExpiredSessions();
+		byte[] bytes = new byte[24];
+		random.nextBytes(bytes);
+		String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+		sessions.put(token, new ApiSession(token, session));
+
+		User user = session.getUser();
+		send(exchange, 200, new Json.Writer().beginObject()
+				.field("token", token)
+				.field("userName", user.getUsername())
+				.field("admin", session.isAdmin())
+				.field("instructor", session.isInstructor())
+				.field("student", session.isStudent())
+				.endObject());
+	}
+
+	private void listArticles(HttpExchange exchange, Session session, Map<String, String> query)
+			throws IOException, SQLException {
+		int after = query.containsKey("after") ? parseInt(query.get("after"), "after") : ArticlePage.START;
+		int size = query.containsKey("size") ? parseInt(query.get("size"), "size") : 20;
+		if (size < 1 || size > MAX_PAGE_SIZE) {
+			throw new ApiException(400, "size must be between 1 and " + MAX_PAGE_SIZE);
+		}
+		ArticlePage page = databaseHelper.listArticles(session.getUserId(), query.get("group"), query.get("level"), after, size);
+		Json.Writer json = new Json.Writer().beginObject().name("articles").beginArray();
+		for (Article article : page.articles) {
+			json.beginObject()
+					.field("id", article.getId())
+					.field("title", article.getTitle())
+					.field("authors", article.getAuthors())
+					.field("shortDescription", article.getShortDescription())
+					.endObject();
+		}
+		json.endArray().field("nextCursor", page.nextCursor).field("hasMore", page.hasMore).endObject();
+		send(exchange, 200, json);
+	}
+
+	private void searchArticles(HttpExchange exchange, Map<String, String> query) throws IOException, SQLException {
+		String level = query.getOrDefault("level", "ALL");
+		String group = query.getOrDefault("group", "ALL");
+		SearchIndex.SearchResult result = databaseHelper.findArticles(level.isEmpty() ? "ALL" : level,
+				group.isEmpty() ? "ALL" : group, query.getOrDefault("q", ""));
+		Json.Writer json = new Json.Writer().beginObject().field("total", result.total).name("articles").beginArray();
+		for (Article article : databaseHelper.getArticleSummaries(result.ids)) {
+			summary(json.beginObject(), article).endObject();
+		}
+		send(exchange, 200, json.endArray().endObject());
+	}
+
+	private void viewArticle(HttpExchange exchange, Session session, int id) throws IOException, SQLException {
+		Article article = databaseHelper.getArticleSummary(id);
+		if (article == null) {
+			throw new ApiException(404, "No article " + id);
+		}
+		List<String> groups = databaseHelper.getGroupsForAnArticle(id);
+		if (groups == null) {
+			throw new SQLException("could not load the groups of article " + id);
+		}
+		if (!session.canViewArticle(groups)) {
+			throw new ApiException(403, "You do not have access rights to one or more of the article's groups");
+		}
+		StringBuilder body = new StringBuilder();
+		try (Reader reader = databaseHelper.openArticleBody(id, session.seesDecrypted(groups))) {
+			if (reader != null) {
+				char[] buffer = new char[8192];
+				int count;
+				while ((count = reader.read(buffer)) != -1) {
+					body.append(buffer, 0, count);
+				}
+			}
+		}
+
+		Json.Writer json = summary(new Json.Writer().beginObject(), article).name("groups").beginArray();
+		for (String group : groups) {
+			json.value(group);
+		}
+		send(exchange, 200, json.endArray().field("body", body.toString()).endObject());
+	}
+
+	private void listGroups(HttpExchange exchange) throws IOException {
+		List<String> names = databaseHelper.listGroupNames();
+		names.sort(null);
+		Json.Writer json = new Json.Writer().beginObject().name("groups").beginArray();
+		for (String name : names) {
+			json.beginObject().field("name", name).field("special", databaseHelper.isGroupSpecial(name)).endObject();
+		}
+		send(exchange, 200, json.endArray().endObject());
+	}
+
+	private void createGroup(HttpExchange exchange, Session session) throws IOException, SQLException {
+		requireStaff(session);
+		Map<String, Object> body = readBody(exchange);
+		String name = string(body, "name").strip();
+		boolean special = Boolean.TRUE.equals(body.get("special"));
+		if (name.isEmpty()) {
+			throw new ApiException(400, "name must not be blank");
+		}
+		if (!databaseHelper.insertGroup(name, special)) {
+			throw new ApiException(409, "Group " + name + " already exists");
+		}
+		send(exchange, 201, new Json.Writer().beginObject().field("name", name).field("special", special).endObject());
+	}
+
+	private void deleteGroup(HttpExchange exchange, Session session, String name) throws IOException, SQLException {
+		if (!session.isAdmin() && !(databaseHelper.isGroupSpecial(name) && session.canAdmin(name))) {
+			throw new ApiException(403, "Only admins and the group's own admins can delete a group");
+		}
+		if (!databaseHelper.deleteGroup(name)) {
+			throw new ApiException(404, "No group " + name);
+		}
+		send(exchange, 204, null);
+	}
+
+	private void linkArticle(HttpExchange exchange, Session session, String name) throws IOException, SQLException {
+		requireStaff(session);
+		if (!databaseHelper.groupExist(name)) {
+			throw new ApiException(404, "No group " + name);
+		}
+		if (databaseHelper.isGroupSpecial(name) && !session.canAdmin(name)) {
+			throw new ApiException(403, "You do not have admin rights to " + name);
+		}
+		Map<String, Object> body = readBody(exchange);
+		Object articleId = body.get("articleId");
+		if (!(articleId instanceof Long)) {
+			throw new ApiException(400, "articleId must be a number");
+		}
+		int id = ((Long) articleId).intValue();
+		if (databaseHelper.getArticleSummary(id) == null) {
+			throw new ApiException(404, "No article " + id);
+		}
+		if (!databaseHelper.addArticleToGroup(name, id)) {
+			throw new ApiException(409, "Article " + id + " is already in " + name);
+		}
+		send(exchange, 204, null);
+	}
+
+	// the fields of an article summary, inside an object the caller opens
+	private static Json.Writer summary(Json.Writer json, Article article) {
+		return json.field("id", article.getId())
+				.field("level", article.getLevel())
+				.field("title", article.getTitle())
+				.field("authors", article.getAuthors())
+				.field("shortDescription", article.getShortDescription())
+				.field("keywords", article.getKeywords())
+				.field("referenceLinks", article.getReferenceLinks());
+	}
+
+	private ApiSession authenticate(HttpExchange exchange) {
+		String header = exchange.getRequestHeaders().getFirst("Authorization");
+		if (header == null || !header.startsWith("Bearer ")) {
+			throw new ApiException(401, "Log in first");
+		}
+		ApiSession session = sessions.get(header.substring("Bearer ".length()).strip());
+		long now = System.currentTimeMillis();
+		if (session == null || now - session.lastUsed > SESSION_IDLE_MS) {
+			if (session != null) {
+				sessions.remove(session.token);
+			}
+			throw new ApiException(401, "Session expired, log in again");
+		}
+		session.lastUsed = now;
+		return session;
+	}
+
+	private void purgeExpiredSessions() {
+		long cutoff = System.currentTimeMillis() - SESSION_IDLE_MS;
+		sessions.values().removeIf(session -> session.lastUsed < cutoff);
+	}
+
+	private static void requireMethod(String method, String expected) {
+		if (!method.equals(expected)) {
+			throw new ApiException(405, "Use " + expected);
+		}
+	}
+
+	private static void requireStaff(Session session) {
+		if (!session.isAdmin() && !session.isInstructor()) {
+			throw new ApiException(403, "Only admins and instructors can manage groups");
+		}
+	}
+
+	private static Map<String, Object> readBody(HttpExchange exchange) throws IOException {
+		try (InputStream in = exchange.getRequestBody()) {
+			byte[] bytes = in.readNBytes(MAX_BODY_BYTES + 1);
+			if (bytes.length > MAX_BODY_BYTES) {
+				throw new ApiException(413, "Request body is too large");
+			}
+			return Json.parseObject(new String(bytes, StandardCharsets.UTF_8));
+		} catch (IllegalArgumentException e) {
+			throw new ApiException(400, e.getMessage());
+		}
+	}
+
+	private static String string(Map<String, Object> body, String name) {
+		Object value = body.get(name);
+		if (!(value instanceof String)) {
+			throw new ApiException(400, name + " is required");
+		}
+		return (String) value;
+	}
+
+	private static int parseId(String text) {
+		return parseInt(text, "article id");
+	}
+
+	private static int parseInt(String text, String what) {
+		try {
+			return Integer.parseInt(text);
+		} catch (NumberFormatException e) {
+			throw new ApiException(400, what + " must be a number");
+		}
+	}
+
+	// "/api/groups/CSE360/articles" -> [groups, CSE360, articles]
+	private static String[] segments(String rawPath) {
+		List<String> segments = new ArrayList<>();
+		for (String segment : rawPath.substring("/api/".length()).split("/")) {
+			if (!segment.isEmpty()) {
+				segments.add(URLDecoder.decode(segment, StandardCharsets.UTF_8));
+			}
+		}
+		return segments.toArray(new String[0]);
+	}
+
+	private static Map<String, String> queryParameters(String rawQuery) {
+		Map<String, String> parameters = new HashMap<>();
+		if (rawQuery == null) {
+			return parameters;
+		}
+		for (String pair : rawQuery.split("&")) {
+			int eq = pair.indexOf('=');
+			String name = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+			String value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+			parameters.put(name, value);
+		}
+		return parameters;
+	}
+
+	private static void send(HttpExchange exchange, int status, Json.Writer json) throws IOException {
+		if (json == null) {
+			exchange.sendResponseHeaders(status, -1);
+			return;
+		}
+		byte[] bytes = json.toString().getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+		exchange.sendResponseHeaders(status, bytes.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+
+	/**
+	 * A logged in API client
+	 */
+	private static final class ApiSession {
+		private final String token;
+		private final Session session;
+		private volatile long lastUsed = System.currentTimeMillis();
+
+		private ApiSession(String token, Session session) {
+			this.token = token;
+			this.session = session;
+		}
+	}
+
+	/**
+	 * Ends a request with an HTTP error status and a JSON error message
+	 */
+	private static final class ApiException extends RuntimeException {
+		private static final long serialVersionUID = 1L;
+		private final int status;
+
+		private ApiException(int status, String message) {
+			super(message);
+			this.status = status;
+		}
+	}
+}
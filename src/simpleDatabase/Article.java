@@ -25,6 +25,9 @@ public class Article {
     /** Technical complexity level (beginner/intermediate/advanced/expert) */
     private String level;
     
+    /** Comma-separated list of the article's authors */
+    private String authors;
+    
     /** Comma-separated list of group IDs this article belongs to */
     private String groupId;
     
@@ -67,6 +70,24 @@ public class Article {
         this.referenceLinks = referenceLinks;
     }
 
+    /**
+     * Creates a new Article with the specified attributes, including its authors.
+     *
+     * @param id Unique identifier for the article
+     * @param level Technical complexity level 
+     * @param authors Comma-separated list of authors
+     * @param groupId Comma-separated list of group IDs
+     * @param title Article title/heading
+     * @param shortDescription Brief summary of content
+     * @param keywords Search keywords
+     * @param body Main article text
+     * @param referenceLinks Reference URLs
+     */
+    public Article(int id, String level, String authors, String groupId, String title, String shortDescription, String keywords, String body, String referenceLinks) {
+        this(id, level, groupId, title, shortDescription, keywords, body, referenceLinks);
+        this.authors = authors;
+    }
+
     /**
      * Gets the unique identifier of this article.
      *
@@ -104,6 +125,24 @@ public class Article {
         this.level = level;
     }
 
+    /**
+     * Gets the comma-separated list of authors of this article.
+     *
+     * @return The authors
+     */
+    public String getAuthors() {
+        return authors;
+    }
+
+    /**
+     * Sets the comma-separated list of authors of this article.
+     *
+     * @param authors The authors to set
+     */
+    public void setAuthors(String authors) {
+        this.authors = authors;
+    }
+
     /**
      * Gets the comma-separated list of group IDs this article belongs to.
      *
@@ -221,6 +260,7 @@ public class Article {
     public String toString() {
         return "ID: " + id + "\n" +
             "Level: " + level + "\n" +
+            (authors != null ? "Authors: " + authors + "\n" : "") +
             "Group ID: " + groupId + "\n" +
             "Title: " + title + "\n" +
             "Short Description: " + shortDescription + "\n" +
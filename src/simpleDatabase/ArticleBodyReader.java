@@ -0,0 +1,83 @@
+package simpleDatabase;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/***
+ * Streams one article body straight out of its CLOB.
+ * <p>
+ * The body is read through the driver's character stream, so it is never
+ * loaded into the heap as one String. The reader holds on to the pooled
+ * connection, statement and result set the stream comes from; closing the
+ * reader releases all three, so it must always be closed (try-with-resources).
+ * </p>
+ *
+ * @author Abhave Abhilash and Aditya Gupta
+ * @version 1.0
+ * @since 10/9/2024
+ */
+class ArticleBodyReader extends FilterReader {
+
+	private final Connection conn;
+	private final PreparedStatement pstmt;
+	private final ResultSet rs;
+
+	private ArticleBodyReader(Reader body, Connection conn, PreparedStatement pstmt, ResultSet rs) {
+		super(body);
+		this.conn = conn;
+		this.pstmt = pstmt;
+		this.rs = rs;
+	}
+
+	/**
+	 * @param pool pool to borrow the connection from
+	 * @param articleId article whose body to read
+	 * @return a reader over the stored body, or null if the article does not
+	 *         exist or has no body
+	 * @throws SQLException
+	 */
+	static ArticleBodyReader open(ConnectionPool pool, int articleId) throws SQLException {
+		Connection conn = pool.borrow();
+		PreparedStatement pstmt = null;
+		ResultSet rs = null;
+		try {
+			pstmt = conn.prepareStatement("SELECT body FROM articles WHERE id = ?");
+			pstmt.setInt(1, articleId);
+			rs = pstmt.executeQuery();
+			Reader body = rs.next() ? rs.getCharacterStream(1) : null;
+			if (body != null) {
+				return new ArticleBodyReader(body, conn, pstmt, rs);
+			}
+		} catch (SQLException e) {
+			closeQuietly(rs, pstmt, conn);
+			throw e;
+		}
+		closeQuietly(rs, pstmt, conn);
+		return null;
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			super.close();
+		} finally {
+			closeQuietly(rs, pstmt, conn);
+		}
+	}
+
+	private static void closeQuietly(AutoCloseable... resources) {
+		for (AutoCloseable resource : resources) {
+			if (resource == null) continue;
+			try {
+				resource.close();
+			} catch (Exception e) {
+				System.err.println("DB issue releasing article body: " + e.getMessage());
+			}
+		}
+	}
+}
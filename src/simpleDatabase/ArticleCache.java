@@ -0,0 +1,171 @@
+package simpleDatabase;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/***
+ * Read-through cache of whole articles, keyed by article id.
+ * <p>
+ * Entries are kept in least recently used order and evicted when either the
+ * entry count or the total weight goes over its limit. An article weighs as
+ * many units as its body has characters (at least 1), so a few huge articles
+ * cannot push out hundreds of small ones. Bodies heavier than maxEntryWeight
+ * are never cached - DatabaseHelper streams those straight from the database.
+ * </p>
+ * <p>
+ * DatabaseHelper invalidates an article whenever it is updated or deleted and
+ * clears the cache on deleteAllArticles and restores. A load that started
+ * before an invalidation is not cached when it finishes (see generation()),
+ * so a stale copy can never be put back.
+ * </p>
+ *
+ * @author Abhave Abhilash and Aditya Gupta
+ * @version 1.0
+ * @since 10/9/2024
+ */
+class ArticleCache {
+
+	/** Default most articles held */
+	static final int DEFAULT_MAX_ENTRIES = 1000;
+
+	/** Default most characters of body text held in total */
+	static final long DEFAULT_MAX_WEIGHT = 16L * 1024 * 1024;
+
+	private final int maxEntries;
+	private final long maxWeight;
+	private final long maxEntryWeight;
+	private final Map<Integer, Article> entries = new LinkedHashMap<>(16, 0.75f, true);
+	private long weight = 0;
+
+	// bumped by every invalidation so a load that raced with a write is not cached
+	private long generation = 0;
+
+	final LongAdder hits = new LongAdder();
+	final LongAdder misses = new LongAdder();
+	final LongAdder evictions = new LongAdder();
+
+	ArticleCache() {
+		this(DEFAULT_MAX_ENTRIES, DEFAULT_MAX_WEIGHT);
+	}
+
+	/**
+	 * @param maxEntries most articles held
+	 * @param maxWeight most characters of body text held in total
+	 */
+	ArticleCache(int maxEntries, long maxWeight) {
+		this.maxEntries = maxEntries;
+		this.maxWeight = maxWeight;
+		this.maxEntryWeight = maxWeight / 8;
+	}
+
+	/**
+	 * @param id article id
+	 * @return the cached article, or null on a miss
+	 */
+	synchronized Article get(int id) {
+		Article article = entries.get(id);
+		if (article == null) {
+			misses.increment();
+		} else {
+			hits.increment();
+		}
+		return article;
+	}
+
+	/**
+	 * @return a token to pass to put(); read it before loading the article
+	 */
+	synchronized long generation() {
+		return generation;
+	}
+
+	/**
+	 * @param bodyLength length of an article body
+	 * @return true if an article with that body is small enough to cache
+	 */
+	boolean accepts(long bodyLength) {
+		return weigh(bodyLength) <= maxEntryWeight;
+	}
+
+	/**
+	 * Cache a freshly loaded article, unless it was invalidated since the load
+	 * started or is too heavy to cache
+	 *
+	 * @param article article with its body
+	 * @param loadedAt generation() read before the article was loaded
+	 */
+	synchronized void put(Article article, long loadedAt) {
+		long w = weigh(article.getBody() == null ? 0 : article.getBody().length());
+		if (loadedAt != generation || w > maxEntryWeight) {
+			return;
+		}
+		Article old = entries.put(article.getId(), article);
+		if (old != null) {
+			weight -= weigh(old);
+		}
+		weight += w;
+
+		Iterator<Article> eldest = entries.values().iterator();
+		while ((entries.size() > maxEntries || weight > maxWeight) && eldest.hasNext()) {
+			Article evicted = eldest.next();
+			eldest.remove();
+			weight -= weigh(evicted);
+			evictions.increment();
+		}
+	}
+
+	/**
+	 * Drop one article, e.g. after it was updated or deleted
+	 *
+	 * @param id article id
+	 */
+	synchronized void invalidate(int id) {
+		generation++;
+		Article old = entries.remove(id);
+		if (old != null) {
+			weight -= weigh(old);
+		}
+	}
+
+	/**
+	 * Drop every article, e.g. after a restore
+	 */
+	synchronized void clear() {
+		generation++;
+		entries.clear();
+		weight = 0;
+	}
+
+	/**
+	 * @return number of cached articles
+	 */
+	synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * @return total weight of the cached articles
+	 */
+	synchronized long weight() {
+		return weight;
+	}
+
+	/**
+	 * @return fraction of lookups that were hits, 0 before the first lookup
+	 */
+	double hitRate() {
+		long h = hits.sum();
+		long total = h + misses.sum();
+		return total == 0 ? 0 : (double) h / total;
+	}
+
+	private static long weigh(Article article) {
+		return weigh(article.getBody() == null ? 0 : article.getBody().length());
+	}
+
+	private static long weigh(long bodyLength) {
+		return Math.max(1, bodyLength);
+	}
+}
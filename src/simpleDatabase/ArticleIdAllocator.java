@@ -0,0 +1,110 @@
+package simpleDatabase;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/***
+ * Hands out article ids using hi/lo block reservation.
+ * <p>
+ * The article_id_block_seq sequence hands out block numbers. Each call to
+ * NEXT VALUE FOR reserves a whole block of BLOCK_SIZE ids (block * BLOCK_SIZE
+ * up to block * BLOCK_SIZE + BLOCK_SIZE - 1) for this process, which then
+ * assigns them from memory. Because the database never returns the same
+ * sequence value twice, two allocators - in this JVM or in another instance
+ * sharing the database - can never hand out the same id, and only one in
+ * BLOCK_SIZE articles costs a round trip.
+ * </p>
+ * <p>
+ * Restores insert articles with the ids stored in the backup, so they call
+ * resync() afterwards to move the sequence past the largest id in the table.
+ * </p>
+ *
+ * @author Abhave Abhilash and Aditya Gupta
+ * @version 1.0
+ * @since 10/9/2024
+ */
+class ArticleIdAllocator {
+
+	/** Ids per reserved block. Every instance sharing a database must use the same value. */
+	static final int BLOCK_SIZE = 100;
+
+	static final String SEQUENCE = "article_id_block_seq";
+
+	private final ConnectionPool pool;
+
+	// next id to hand out and the first id past the current block
+	private long next = 0;
+	private long limit = 0;
+
+	/**
+	 * @param pool pool used to reserve new blocks
+	 */
+	ArticleIdAllocator(ConnectionPool pool) {
+		this.pool = pool;
+	}
+
+	/**
+	 * @return an article id no other allocator has handed out
+	 * @throws SQLException if a new block cannot be reserved or ids have run out
+	 */
+	synchronized int next() throws SQLException {
+		if (next >= limit) {
+			long block = reserveBlock();
+			next = block * BLOCK_SIZE;
+			limit = next + BLOCK_SIZE;
+		}
+		long id = next++;
+		if (id > Integer.MAX_VALUE) {
+			throw new SQLException("Article ids exhausted");
+		}
+		return (int) id;
+	}
+
+	private long reserveBlock() throws SQLException {
+		try (Connection conn = pool.borrow(); Statement stmt = conn.createStatement();
+				ResultSet rs = stmt.executeQuery("SELECT NEXT VALUE FOR " + SEQUENCE)) {
+			rs.next();
+			return rs.getLong(1);
+		}
+	}
+
+	/**
+	 * Move the sequence past every id currently in the articles table and drop
+	 * the rest of this allocator's block. Called after ids were inserted without
+	 * going through the allocator.
+	 *
+	 * @throws SQLException
+	 */
+	synchronized void resync() throws SQLException {
+		try (Connection conn = pool.borrow(); Statement stmt = conn.createStatement()) {
+			long firstFree = firstFreeBlock(stmt);
+			// burning one block to read the sequence's position is cheaper than the
+			// version-specific INFORMATION_SCHEMA columns
+			long current;
+			try (ResultSet rs = stmt.executeQuery("SELECT NEXT VALUE FOR " + SEQUENCE)) {
+				rs.next();
+				current = rs.getLong(1);
+			}
+			// never move the sequence backwards - other instances may hold blocks below it
+			if (firstFree > current) {
+				stmt.execute("ALTER SEQUENCE " + SEQUENCE + " RESTART WITH " + firstFree);
+			}
+		}
+		next = 0;
+		limit = 0;
+	}
+
+	/**
+	 * @param stmt statement to query with
+	 * @return the first block that lies entirely above the largest article id
+	 * @throws SQLException
+	 */
+	static long firstFreeBlock(Statement stmt) throws SQLException {
+		try (ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(id), 0) FROM articles")) {
+			rs.next();
+			return rs.getLong(1) / BLOCK_SIZE + 1;
+		}
+	}
+}
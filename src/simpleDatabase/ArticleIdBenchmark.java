@@ -0,0 +1,113 @@
+package simpleDatabase;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/***
+ * Measures concurrent article creation through ArticleIdAllocator.
+ * <p>
+ * Several threads insert articles into a scratch H2 database, each one taking
+ * its ids from an allocator. Half the threads share one allocator and the
+ * other half get one each, which is what two app instances on the same
+ * database look like. At the end every insert must have succeeded and the
+ * number of distinct ids must equal the number of rows. Usage:
+ * </p>
+ *
+ * <pre>
+ * java simpleDatabase.ArticleIdBenchmark [threads] [articlesPerThread]
+ * </pre>
+ *
+ * @author Abhave Abhilash and Aditya Gupta
+ * @version 1.0
+ * @since 10/9/2024
+ */
+class ArticleIdBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		int threads = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+		int perThread = args.length > 1 ? Integer.parseInt(args[1]) : 25_000;
+
+		File dir = new File(System.getProperty("java.io.tmpdir"), "cse360-id-bench-" + System.nanoTime());
+		String url = "jdbc:h2:" + new File(dir, "bench").getAbsolutePath();
+		Class.forName(DatabaseHelper.JDBC_DRIVER);
+		ConnectionPool pool = new ConnectionPool(url, DatabaseHelper.USER, DatabaseHelper.PASS, threads, threads + 2);
+		ExecutorService workers = Executors.newFixedThreadPool(threads);
+		try {
+			try (Connection conn = pool.borrow()) {
+				SchemaMigrations.migrate(conn);
+			}
+
+			ArticleIdAllocator shared = new ArticleIdAllocator(pool);
+			AtomicLong failed = new AtomicLong();
+			List<Future<?>> running = new ArrayList<>();
+			long start = System.nanoTime();
+			for (int t = 0; t < threads; t++) {
+				ArticleIdAllocator allocator = t % 2 == 0 ? shared : new ArticleIdAllocator(pool);
+				running.add(workers.submit(() -> {
+					insertArticles(pool, allocator, perThread, failed);
+					return null;
+				}));
+			}
+			for (Future<?> f : running) {
+				f.get();
+			}
+			double seconds = (System.nanoTime() - start) / 1e9;
+
+			long rows;
+			long distinct;
+			try (Connection conn = pool.borrow(); Statement stmt = conn.createStatement();
+					ResultSet rs = stmt.executeQuery("SELECT COUNT(*), COUNT(DISTINCT id) FROM articles")) {
+				rs.next();
+				rows = rs.getLong(1);
+				distinct = rs.getLong(2);
+			}
+			long expected = (long) threads * perThread;
+			System.out.printf("%d threads created %d articles in %.2f s (%d articles/s)%n", threads, rows, seconds,
+					Math.round(rows / seconds));
+			System.out.println("Failed inserts: " + failed.get() + ", duplicate ids: " + (rows - distinct));
+			if (failed.get() != 0 || rows != expected || distinct != rows) {
+				System.err.println("Id allocation was not collision free");
+				System.exit(1);
+			}
+		} finally {
+			workers.shutdownNow();
+			pool.close();
+			for (File f : dir.listFiles() == null ? new File[0] : dir.listFiles()) {
+				f.delete();
+			}
+			dir.delete();
+		}
+	}
+
+	// same INSERT as createArticle, one autocommit row per article
+	private static void insertArticles(ConnectionPool pool, ArticleIdAllocator allocator, int count, AtomicLong failed)
+			throws SQLException {
+		String insertArticle = "INSERT INTO articles (level, title, short_description, keywords, body, reference_links, id, authors) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+		for (int i = 0; i < count; i++) {
+			int id = allocator.next();
+			try (Connection conn = pool.borrow(); PreparedStatement pstmt = conn.prepareStatement(insertArticle)) {
+				pstmt.setString(1, "beginner");
+				pstmt.setString(2, "Article " + id);
+				pstmt.setString(3, "abstract");
+				pstmt.setString(4, "keys");
+				pstmt.setString(5, "body");
+				pstmt.setString(6, "links");
+				pstmt.setInt(7, id);
+				pstmt.setString(8, "bench");
+				pstmt.executeUpdate();
+			} catch (SQLException e) {
+				failed.incrementAndGet();
+			}
+		}
+	}
+}
@@ -0,0 +1,207 @@
+package simpleDatabase;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/***
+ * Merges backed up articles into the live articles table.
+ * <p>
+ * Articles are collected a lookup batch at a time. For each batch one query
+ * fetches the content_hash and updated_on of the live rows with those ids.
+ * An article that does not exist is inserted; one whose hash matches the
+ * backup's is skipped without being written; one that differs is a conflict,
+ * settled by the Policy. The articles that are to be written go through a
+ * BulkArticleLoader in UPSERT mode, so they are MERGEd in batches and
+ * committed in chunks, and their group links from the backup are added.
+ * </p>
+ * <p>
+ * The hash covers the stored columns but not the group links, so an article
+ * whose only difference is its groups counts as unchanged.
+ * </p>
+ *
+ * @author Abhave Abhilash and Aditya Gupta
+ * @version 1.0
+ * @since 10/9/2024
+ */
+class ArticleMerger implements AutoCloseable {
+
+	/**
+	 * What to do with an article that exists with different content
+	 */
+	enum Policy {
+		/** leave the live article as it is */
+		KEEP_EXISTING,
+		/** replace it with the backed up one */
+		OVERWRITE,
+		/**
+		 * replace it only if the backed up one was updated later; if either
+		 * update time is unknown the live article is kept
+		 */
+		KEEP_NEWER
+	}
+
+	/** Ids looked up per query */
+	static final int LOOKUP_SIZE = 500;
+
+	private final Policy policy;
+	private final BulkArticleLoader loader;
+	private final PreparedStatement lookup;
+	private final List<Article> pending = new ArrayList<>(LOOKUP_SIZE);
+	private final List<Long> pendingUpdated = new ArrayList<>(LOOKUP_SIZE);
+
+	private long inserted = 0;
+	private long overwritten = 0;
+	private long unchanged = 0;
+	private long kept = 0;
+
+	/**
+	 * Start a merge. The connection stays in manual commit until the merger is
+	 * closed.
+	 *
+	 * @param conn connection to merge through
+	 * @param policy how conflicts are settled
+	 * @throws SQLException
+	 */
+	ArticleMerger(Connection conn, Policy policy) throws SQLException {
+		this.policy = policy;
+		StringBuilder query = new StringBuilder("SELECT id, content_hash, updated_on FROM articles WHERE id IN (");
+		for (int i = 0; i < LOOKUP_SIZE; i++) {
+			query.append(i == 0 ? "?" : ", ?");
+		}
+		query.append(')');
+		this.lookup = conn.prepareStatement(query.toString());
+		try {
+			this.loader = new BulkArticleLoader(conn, BulkArticleLoader.DEFAULT_BATCH_SIZE,
+					BulkArticleLoader.DEFAULT_BATCHES_PER_COMMIT, null, 0, BulkArticleLoader.Mode.UPSERT);
+		} catch (SQLException e) {
+			lookup.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Queue one backed up article
+	 *
+	 * @param article the article, with its group names in groupId
+	 * @param updatedMillis epoch milliseconds it was last updated, 0 if unknown
+	 * @throws SQLException
+	 */
+	void add(Article article, long updatedMillis) throws SQLException {
+		pending.add(article);
+		pendingUpdated.add(updatedMillis);
+		if (pending.size() == LOOKUP_SIZE) {
+			resolve();
+		}
+	}
+
+	/**
+	 * Merge whatever is left and commit
+	 *
+	 * @throws SQLException
+	 */
+	void finish() throws SQLException {
+		resolve();
+		loader.finish();
+	}
+
+	/**
+	 * @return e.g. "12 inserted, 3 overwritten, 480 unchanged, 5 kept"
+	 */
+	String summary() {
+		return inserted + " inserted, " + overwritten + " overwritten, " + unchanged + " unchanged, " + kept + " kept";
+	}
+
+	long getInserted() {
+		return inserted;
+	}
+
+	long getOverwritten() {
+		return overwritten;
+	}
+
+	long getUnchanged() {
+		return unchanged;
+	}
+
+	long getKept() {
+		return kept;
+	}
+
+	@Override
+	public void close() throws SQLException {
+		try {
+			lookup.close();
+		} finally {
+			loader.close();
+		}
+	}
+
+	// look up the pending articles and pass on the ones to be written
+	private void resolve() throws SQLException {
+		if (pending.isEmpty()) {
+			return;
+		}
+		Map<Integer, Live> live = new HashMap<>();
+		for (int i = 0; i < LOOKUP_SIZE; i++) {
+			// unused slots get an id no article has
+			lookup.setInt(i + 1, i < pending.size() ? pending.get(i).getId() : -1);
+		}
+		try (ResultSet rs = lookup.executeQuery()) {
+			while (rs.next()) {
+				Timestamp updated = rs.getTimestamp("updated_on");
+				live.put(rs.getInt("id"), new Live(rs.getString("content_hash"), updated == null ? 0 : updated.getTime()));
+			}
+		}
+
+		for (int i = 0; i < pending.size(); i++) {
+			Article article = pending.get(i);
+			long updated = pendingUpdated.get(i);
+			Live current = live.get(article.getId());
+			if (current == null) {
+				loader.add(article, updated);
+				inserted++;
+			} else if (ArticleVersions.contentHash(article).equals(current.hash)) {
+				unchanged++;
+			} else if (overwrites(updated, current.updated)) {
+				loader.add(article, updated);
+				overwritten++;
+			} else {
+				kept++;
+			}
+		}
+		pending.clear();
+		pendingUpdated.clear();
+	}
+
+	private boolean overwrites(long backupUpdated, long liveUpdated) {
+		switch (policy) {
+			case OVERWRITE:
+				return true;
+			case KEEP_NEWER:
+				return backupUpdated != 0 && liveUpdated != 0 && backupUpdated > liveUpdated;
+			case KEEP_EXISTING:
+			default:
+				return false;
+		}
+	}
+
+	/**
+	 * Hash and update time of a live article
+	 */
+	private static final class Live {
+		private final String hash;
+		private final long updated;
+
+		private Live(String hash, long updated) {
+			this.hash = hash;
+			this.updated = updated;
+		}
+	}
+}
@@ -0,0 +1,37 @@
+package simpleDatabase;
+
+import java.util.List;
+
+/***
+ * One page of an article listing.
+ * <p>
+ * Listings are paged by article id (keyset pagination): a page holds the
+ * first pageSize matching articles with an id greater than the cursor, in id
+ * order, and nextCursor is the id to pass in to get the page after it. Unlike
+ * OFFSET paging, fetching page 1000 costs the same as fetching page 1, and
+ * only one page is ever held in memory.
+ * </p>
+ * <p>
+ * The articles only carry their id, authors, title and short description -
+ * the fields the listings show.
+ * </p>
+ *
+ * @author Abhave Abhilash and Aditya Gupta
+ * @version 1.0
+ * @since 10/9/2024
+ */
+class ArticlePage {
+
+	/** Cursor for the first page; article ids are never negative */
+	static final int START = -1;
+
+	final List<Article> articles;
+	final int nextCursor;
+	final boolean hasMore;
+
+	ArticlePage(List<Article> articles, int nextCursor, boolean hasMore) {
+		this.articles = articles;
+		this.nextCursor = nextCursor;
+		this.hasMore = hasMore;
+	}
+}
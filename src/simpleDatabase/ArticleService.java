@@ -0,0 +1,377 @@
+package simpleDatabase;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/***
+ * Non-interactive article API.
+ * <p>
+ * Takes Article objects instead of reading from the console, so articles can be
+ * created, updated and deleted from code (services, loaders, tests). Every call
+ * handles a whole list as one batch: all articles are validated first, then
+ * missing groups are created, the rows are written with JDBC batches and the
+ * group links inserted, all in a single transaction. Either every article in
+ * the batch is written or none are. Once committed, the search index and
+ * article cache are brought up to date.
+ * </p>
+ * <p>
+ * Problems with the input - a missing title, an unknown level, a special
+ * access group the caller has no admin rights for - are reported with an
+ * IllegalArgumentException before anything is written. The article's groupId
+ * holds its comma separated group names. Bodies of articles in a special
+ * access group are stored encrypted.
+ * </p>
+ *
+ * @author Abhave Abhilash and Aditya Gupta
+ * @version 1.0
+ * @since 10/9/2024
+ */
+class ArticleService {
+
+	/** Author id for callers without any special access group rights, e.g. admins */
+	static final int NO_SPECIAL_RIGHTS = -1;
+
+	private static final Set<String> LEVELS = Set.of("beginner", "intermediate", "advanced", "expert");
+
+	private static final String INSERT_ARTICLE = "INSERT INTO articles (level, title, short_description, keywords, body, reference_links, id, authors, content_hash, updated_on) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, CURRENT_TIMESTAMP)";
+	private static final String UPDATE_ARTICLE = "UPDATE articles SET level = ?, title = ?, short_description = ?, keywords = ?, body = ?, reference_links = ?, authors = ?, content_hash = ?, "
+			+ "updated_on = CURRENT_TIMESTAMP, version = " + ArticleVersions.NEXT_VERSION + " WHERE id = ?";
+	private static final String INSERT_LINK = "MERGE INTO articleGroups (group_name, article_id) KEY(group_name, article_id) VALUES (?, ?)";
+
+	private final ConnectionPool pool;
+	private final ArticleIdAllocator ids;
+	private final GroupRegistry registry;
+	private final SearchIndex searchIndex;
+	private final ArticleCache articleCache;
+	private final PermissionIndex permissions;
+	private final EncryptionHelper encryptionHelper;
+
+	ArticleService(ConnectionPool pool, ArticleIdAllocator ids, GroupRegistry registry, SearchIndex searchIndex,
+			ArticleCache articleCache, PermissionIndex permissions, EncryptionHelper encryptionHelper) {
+		this.pool = pool;
+		this.ids = ids;
+		this.registry = registry;
+		this.searchIndex = searchIndex;
+		this.articleCache = articleCache;
+		this.permissions = permissions;
+		this.encryptionHelper = encryptionHelper;
+	}
+
+	/**
+	 * Create one article
+	 *
+	 * @param article article to create; its id is ignored and replaced
+	 * @param authorId id of the creating user, or NO_SPECIAL_RIGHTS
+	 * @return the new article's id
+	 * @throws SQLException
+	 */
+	int createArticle(Article article, int authorId) throws SQLException {
+		return createArticles(List.of(article), authorId).get(0);
+	}
+
+	/**
+	 * Create a batch of articles in one transaction. Groups that do not exist yet
+	 * are created as general groups. An article may only be placed in a special
+	 * access group if authorId has admin rights for it.
+	 *
+	 * @param articles articles to create; their ids are ignored and set to the
+	 *        allocated ones
+	 * @param authorId id of the creating user, or NO_SPECIAL_RIGHTS
+	 * @return the new ids, in the same order as the articles
+	 * @throws SQLException if the batch could not be written; nothing was saved
+	 */
+	List<Integer> createArticles(List<Article> articles, int authorId) throws SQLException {
+		List<Integer> created = new ArrayList<>(articles.size());
+		List<List<String>> groups = new ArrayList<>(articles.size());
+		List<Boolean> encrypt = new ArrayList<>(articles.size());
+		Set<String> newGroups = new LinkedHashSet<>();
+		try (Connection conn = pool.borrow()) {
+			for (int i = 0; i < articles.size(); i++) {
+				Article article = articles.get(i);
+				validate(article, i);
+				List<String> names = groupNames(article);
+				boolean special = false;
+				for (String group : names) {
+					if (registry.isSpecial(group)) {
+						if (authorId == NO_SPECIAL_RIGHTS || !permissions.canAdmin(authorId, group)) {
+							throw new IllegalArgumentException("Article " + (i + 1) + ": no admin rights for special group: " + group);
+						}
+						special = true;
+					}
+				}
+				groups.add(names);
+				encrypt.add(special);
+			}
+			for (int i = 0; i < articles.size(); i++) {
+				created.add(ids.next());
+			}
+
+			inTransaction(conn, () -> {
+				createMissingGroups(conn, groups, newGroups);
+				try (PreparedStatement insert = conn.prepareStatement(INSERT_ARTICLE)) {
+					for (int i = 0; i < articles.size(); i++) {
+						Article article = articles.get(i);
+						String body = encrypt.get(i) ? encryptionHelper.encrypt(article.getBody()) : article.getBody();
+						insert.setString(1, article.getLevel());
+						insert.setString(2, article.getTitle());
+						insert.setString(3, article.getShortDescription());
+						insert.setString(4, article.getKeywords());
+						insert.setString(5, body);
+						insert.setString(6, article.getReferenceLinks());
+						insert.setInt(7, created.get(i));
+						insert.setString(8, article.getAuthors());
+						insert.setString(9, ArticleVersions.contentHash(article, body));
+						insert.addBatch();
+					}
+					insert.executeBatch();
+				}
+				linkGroups(conn, created, groups);
+			});
+		}
+
+		registerGroups(newGroups);
+		for (int i = 0; i < articles.size(); i++) {
+			Article article = articles.get(i);
+			article.setId(created.get(i));
+			searchIndex.index(created.get(i), article.getLevel(), article.getTitle(), article.getShortDescription(),
+					article.getKeywords(), article.getAuthors());
+			for (String group : groups.get(i)) {
+				searchIndex.addGroup(created.get(i), group);
+			}
+		}
+		return created;
+	}
+
+	/**
+	 * Update a batch of existing articles in one transaction. Articles cannot be
+	 * moved into special access groups this way; groups that are listed but not
+	 * yet linked are linked, existing links are kept.
+	 *
+	 * @param articles articles to update, matched by id
+	 * @return number of articles that existed and were updated
+	 * @throws SQLException if the batch could not be written; nothing was saved
+	 */
+	int updateArticles(List<Article> articles) throws SQLException {
+		List<Integer> updated = new ArrayList<>();
+		List<List<String>> groups = new ArrayList<>(articles.size());
+		Set<String> newGroups = new LinkedHashSet<>();
+		try (Connection conn = pool.borrow()) {
+			for (int i = 0; i < articles.size(); i++) {
+				Article article = articles.get(i);
+				validate(article, i);
+				List<String> names = groupNames(article);
+				for (String group : names) {
+					if (registry.isSpecial(group)) {
+						throw new IllegalArgumentException("Article " + (i + 1) + ": articles cannot be assigned to special access group: " + group);
+					}
+				}
+				groups.add(names);
+			}
+
+			inTransaction(conn, () -> {
+				createMissingGroups(conn, groups, newGroups);
+				List<List<String>> toLink = new ArrayList<>();
+				try (PreparedStatement update = conn.prepareStatement(UPDATE_ARTICLE)) {
+					for (Article article : articles) {
+						update.setString(1, article.getLevel());
+						update.setString(2, article.getTitle());
+						update.setString(3, article.getShortDescription());
+						update.setString(4, article.getKeywords());
+						update.setString(5, article.getBody());
+						update.setString(6, article.getReferenceLinks());
+						update.setString(7, article.getAuthors());
+						update.setString(8, ArticleVersions.contentHash(article));
+						update.setInt(9, article.getId());
+						update.addBatch();
+					}
+					int[] counts = update.executeBatch();
+					for (int i = 0; i < counts.length; i++) {
+						// SUCCESS_NO_INFO counts as updated
+						if (counts[i] != 0) {
+							updated.add(i);
+							toLink.add(groups.get(i));
+						}
+					}
+				}
+				List<Integer> updatedIds = new ArrayList<>(updated.size());
+				for (int i : updated) {
+					updatedIds.add(articles.get(i).getId());
+				}
+				linkGroups(conn, updatedIds, toLink);
+			});
+		}
+
+		registerGroups(newGroups);
+		for (int i : updated) {
+			Article article = articles.get(i);
+			articleCache.invalidate(article.getId());
+			searchIndex.index(article.getId(), article.getLevel(), article.getTitle(), article.getShortDescription(),
+					article.getKeywords(), article.getAuthors());
+			for (String group : groups.get(i)) {
+				searchIndex.addGroup(article.getId(), group);
+			}
+		}
+		return updated.size();
+	}
+
+	/**
+	 * Delete a batch of articles in one transaction. The user must have admin
+	 * rights on every special access group each article belongs to.
+	 *
+	 * @param articleIds articles to delete
+	 * @param userId id of the deleting user, or NO_SPECIAL_RIGHTS
+	 * @return number of articles deleted
+	 * @throws SQLException if the batch could not be written; nothing was deleted
+	 */
+	int deleteArticles(List<Integer> articleIds, int userId) throws SQLException {
+		int[] deleted = { 0 };
+		try (Connection conn = pool.borrow()) {
+			try (PreparedStatement pstmt = conn.prepareStatement("SELECT group_name FROM articleGroups WHERE article_id = ?")) {
+				for (int id : articleIds) {
+					List<String> articleGroups = new ArrayList<>();
+					pstmt.setInt(1, id);
+					try (ResultSet rs = pstmt.executeQuery()) {
+						while (rs.next()) {
+							articleGroups.add(rs.getString(1));
+						}
+					}
+					if (!permissions.canAdminAllSpecial(userId, articleGroups)) {
+						throw new IllegalArgumentException("Not authorized to delete article " + id);
+					}
+				}
+			}
+
+			inTransaction(conn, () -> {
+				try (PreparedStatement delete = conn.prepareStatement("DELETE FROM articles WHERE id = ?");
+						PreparedStatement tombstone = conn.prepareStatement(ArticleVersions.TOMBSTONE)) {
+					for (int id : articleIds) {
+						delete.setInt(1, id);
+						delete.addBatch();
+					}
+					int[] counts = delete.executeBatch();
+					for (int i = 0; i < counts.length; i++) {
+						if (counts[i] != 0) {
+							deleted[0]++;
+							tombstone.setInt(1, articleIds.get(i));
+							tombstone.addBatch();
+						}
+					}
+					tombstone.executeBatch();
+				}
+			});
+		}
+
+		for (int id : articleIds) {
+			articleCache.invalidate(id);
+			searchIndex.remove(id);
+		}
+		return deleted[0];
+	}
+
+	// title is NOT NULL, and the VARCHAR columns would otherwise fail part way through the batch
+	static void validate(Article article, int index) {
+		String prefix = "Article " + (index + 1) + ": ";
+		if (article.getTitle() == null || article.getTitle().isBlank()) {
+			throw new IllegalArgumentException(prefix + "a title is required");
+		}
+		if (article.getLevel() == null || !LEVELS.contains(article.getLevel().trim().toLowerCase())) {
+			throw new IllegalArgumentException(prefix + "level must be beginner, intermediate, advanced or expert");
+		}
+		checkLength(prefix, "title", article.getTitle(), 255);
+		checkLength(prefix, "authors", article.getAuthors(), 100);
+		checkLength(prefix, "keywords", article.getKeywords(), 255);
+		checkLength(prefix, "reference links", article.getReferenceLinks(), 255);
+		for (String group : groupNames(article)) {
+			checkLength(prefix, "group name", group, 255);
+		}
+	}
+
+	private static void checkLength(String prefix, String field, String value, int max) {
+		if (value != null && value.length() > max) {
+			throw new IllegalArgumentException(prefix + field + " is longer than " + max + " characters");
+		}
+	}
+
+	/**
+	 * @param article
+	 * @return the article's group names, trimmed, without blanks or repeats
+	 */
+	static List<String> groupNames(Article article) {
+		Set<String> names = new LinkedHashSet<>();
+		if (article.getGroupId() != null) {
+			for (String group : article.getGroupId().split(",")) {
+				if (!group.isBlank()) {
+					names.add(group.trim());
+				}
+			}
+		}
+		return new ArrayList<>(names);
+	}
+
+	// insert the batch's groups that do not exist yet, collecting their names
+	private void createMissingGroups(Connection conn, List<List<String>> groups, Set<String> created)
+			throws SQLException {
+		Set<String> missing = new LinkedHashSet<>();
+		for (List<String> names : groups) {
+			for (String group : names) {
+				if (!registry.exists(group)) missing.add(group);
+			}
+		}
+		if (missing.isEmpty()) return;
+		try (PreparedStatement pstmt = conn.prepareStatement("INSERT INTO groups (name, specialFlag) VALUES (?, FALSE)")) {
+			for (String group : missing) {
+				pstmt.setString(1, group);
+				pstmt.addBatch();
+			}
+			pstmt.executeBatch();
+		}
+		created.addAll(missing);
+	}
+
+	// only called once the groups are committed
+	private void registerGroups(Set<String> created) {
+		for (String group : created) {
+			registry.added(group, false);
+		}
+	}
+
+	private static void linkGroups(Connection conn, List<Integer> articleIds, List<List<String>> groups) throws SQLException {
+		try (PreparedStatement pstmt = conn.prepareStatement(INSERT_LINK)) {
+			boolean any = false;
+			for (int i = 0; i < articleIds.size(); i++) {
+				for (String group : groups.get(i)) {
+					pstmt.setString(1, group);
+					pstmt.setInt(2, articleIds.get(i));
+					pstmt.addBatch();
+					any = true;
+				}
+			}
+			if (any) pstmt.executeBatch();
+		}
+	}
+
+	private interface Work {
+		void run() throws SQLException;
+	}
+
+	// run the writes as one transaction, rolling everything back on failure
+	private static void inTransaction(Connection conn, Work work) throws SQLException {
+		boolean autoCommit = conn.getAutoCommit();
+		conn.setAutoCommit(false);
+		try {
+			work.run();
+			conn.commit();
+		} catch (SQLException | RuntimeException e) {
+			conn.rollback();
+			throw e;
+		} finally {
+			conn.setAutoCommit(autoCommit);
+		}
+	}
+}
@@ -0,0 +1,192 @@
+package simpleDatabase;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/***
+ * Change tracking for articles, used by incremental backups.
+ * <p>
+ * Every article row carries a version taken from article_version_seq. Inserts
+ * get one from the column default; every path that changes an article or its
+ * group links - ArticleService, linkArticleGroup, delEntireGroup and restores -
+ * gives the row a new one. Deleting an article leaves a tombstone row with its
+ * id and the version of the delete.
+ * </p>
+ * <p>
+ * A backup records mark(), the sequence position it started at. The next
+ * incremental backup exports the articles and tombstones with a version above
+ * scanFrom(mark), which reaches OVERLAP versions below the mark. A writer draws
+ * its version before it commits, so a change numbered just under the mark can
+ * still be uncommitted while the backup scans and only become visible after
+ * it; the overlap makes the next incremental pick it up. Changes that fall in
+ * the overlap and were already backed up are exported twice, which a restore
+ * absorbs since it overwrites articles and tombstones with MERGE.
+ * </p>
+ * <p>
+ * Rows also carry a content_hash of their stored columns and the time they
+ * were last written (updated_on), so a merge restore can tell an unchanged
+ * article from a changed one without reading its body.
+ * </p>
+ *
+ * @author Abhave Abhilash and Aditya Gupta
+ * @version 1.0
+ * @since 10/9/2024
+ */
+final class ArticleVersions {
+
+	static final String SEQUENCE = "article_version_seq";
+
+	/** SQL expression for a new version */
+	static final String NEXT_VERSION = "NEXT VALUE FOR " + SEQUENCE;
+
+	/** Versions below a backup's mark that the next incremental backup reads again */
+	static final long OVERLAP = 50_000;
+
+	/** Record the deletion of one article, parameter 1 is its id */
+	static final String TOMBSTONE = "MERGE INTO article_tombstones (article_id, version, deleted_on) KEY(article_id) VALUES (?, "
+			+ NEXT_VERSION + ", CURRENT_TIMESTAMP)";
+
+	private ArticleVersions() {
+	}
+
+	/**
+	 * @param conn connection to use
+	 * @return a version higher than that of every change made so far
+	 * @throws SQLException
+	 */
+	static long mark(Connection conn) throws SQLException {
+		try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery("SELECT " + NEXT_VERSION)) {
+			rs.next();
+			return rs.getLong(1);
+		}
+	}
+
+	/**
+	 * @param mark the mark recorded by the previous backup
+	 * @return the version an incremental backup built on it exports changes above
+	 */
+	static long scanFrom(long mark) {
+		return Math.max(0, mark - OVERLAP);
+	}
+
+	/**
+	 * Give one article a new version
+	 *
+	 * @param conn connection to use
+	 * @param articleId the article
+	 * @throws SQLException
+	 */
+	static void touch(Connection conn, int articleId) throws SQLException {
+		try (PreparedStatement pstmt = conn.prepareStatement("UPDATE articles SET version = " + NEXT_VERSION + " WHERE id = ?")) {
+			pstmt.setInt(1, articleId);
+			pstmt.executeUpdate();
+		}
+	}
+
+	/**
+	 * Give every article linked to a group a new version, before the group's
+	 * links change
+	 *
+	 * @param conn connection to use
+	 * @param group the group
+	 * @throws SQLException
+	 */
+	static void touchGroup(Connection conn, String group) throws SQLException {
+		try (PreparedStatement pstmt = conn.prepareStatement("UPDATE articles SET version = " + NEXT_VERSION
+				+ " WHERE id IN (SELECT article_id FROM articleGroups WHERE group_name = ?)")) {
+			pstmt.setString(1, group);
+			pstmt.executeUpdate();
+		}
+	}
+
+	/**
+	 * SHA-256 of an article's stored columns, as hex. Group links are not
+	 * included. Empty strings hash like nulls, since the loaders store them as
+	 * nulls.
+	 *
+	 * @param article the article as stored - with an encrypted body if it is encrypted
+	 * @return the hash
+	 */
+	static String contentHash(Article article) {
+		return contentHash(article, article.getBody());
+	}
+
+	/**
+	 * @param article the article
+	 * @param body its body as stored
+	 * @return the hash, as for contentHash(Article)
+	 */
+	static String contentHash(Article article, String body) {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not available", e);
+		}
+		String[] fields = { article.getLevel(), article.getAuthors(), article.getTitle(), article.getShortDescription(),
+				article.getKeywords(), body, article.getReferenceLinks() };
+		ByteBuffer length = ByteBuffer.allocate(4);
+		for (String field : fields) {
+			byte[] bytes = field == null || field.isEmpty() ? null : field.getBytes(StandardCharsets.UTF_8);
+			length.clear();
+			length.putInt(bytes == null ? -1 : bytes.length);
+			digest.update(length.array());
+			if (bytes != null) {
+				digest.update(bytes);
+			}
+		}
+		StringBuilder hex = new StringBuilder(64);
+		for (byte b : digest.digest()) {
+			hex.append(String.format("%02x", b));
+		}
+		return hex.toString();
+	}
+
+	/**
+	 * Fill in content_hash for every article that has none
+	 *
+	 * @param conn connection to use
+	 * @throws SQLException
+	 */
+	static void backfillHashes(Connection conn) throws SQLException {
+		try (Statement stmt = conn.createStatement();
+				ResultSet rs = stmt.executeQuery("SELECT id, level, authors, title, short_description, keywords, body, "
+						+ "reference_links FROM articles WHERE content_hash IS NULL");
+				PreparedStatement update = conn.prepareStatement("UPDATE articles SET content_hash = ? WHERE id = ?")) {
+			int pending = 0;
+			while (rs.next()) {
+				Article article = new Article(rs.getInt("id"), rs.getString("level"), rs.getString("authors"), null,
+						rs.getString("title"), rs.getString("short_description"), rs.getString("keywords"),
+						rs.getString("body"), rs.getString("reference_links"));
+				update.setString(1, contentHash(article));
+				update.setInt(2, article.getId());
+				update.addBatch();
+				if (++pending == 1000) {
+					update.executeBatch();
+					pending = 0;
+				}
+			}
+			if (pending > 0) {
+				update.executeBatch();
+			}
+		}
+	}
+
+	/**
+	 * Leave a tombstone for every article, before they are all deleted
+	 *
+	 * @param stmt statement to use
+	 * @throws SQLException
+	 */
+	static void tombstoneAll(Statement stmt) throws SQLException {
+		stmt.execute("MERGE INTO article_tombstones (article_id, version, deleted_on) KEY(article_id) SELECT id, "
+				+ NEXT_VERSION + ", CURRENT_TIMESTAMP FROM articles");
+	}
+}
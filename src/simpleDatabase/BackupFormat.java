@@ -0,0 +1,172 @@
+package simpleDatabase;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/***
+ * Layout of the binary article backup files written by BackupWriter and read
+ * by BackupReader.
+ * <p>
+ * A backup starts with a fixed 32 byte header:
+ * </p>
+ *
+ * <pre>
+ * magic        8 bytes  "CSE360BK"
+ * version      short    FORMAT_VERSION
+ * flags        short    FLAG_DEFLATE if the records are compressed
+ * header crc   int      CRC32 of the other 28 header bytes
+ * records      long     number of records in the file
+ * created      long     epoch milliseconds the backup was started
+ * </pre>
+ * <p>
+ * followed by one record per article:
+ * </p>
+ *
+ * <pre>
+ * length       int      payload length in bytes
+ * payload      id (int), then level, authors, groups, title, short
+ *              description, keywords, body and reference links, each an
+ *              int byte length (-1 for null) followed by that many UTF-8 bytes,
+ *              then (from version 2) the epoch milliseconds the article was
+ *              last updated as a long, 0 if unknown
+ * crc          int      CRC32C of the payload
+ * </pre>
+ * <p>
+ * A record whose payload is only the id (length 4) is a tombstone: the
+ * article was deleted. Incremental backups write their tombstones before
+ * their articles.
+ * </p>
+ * <p>
+ * Every field carries its own length, so bodies may contain newlines or any
+ * other character. All numbers are big-endian. The groups field holds the
+ * article's group names comma separated, so a restore can link the articles
+ * back to their groups. From version 3 the name of a special access group is
+ * written with a leading SPECIAL_GROUP_MARK, so a restore that has to recreate
+ * the group recreates it as a special group; older backups can only recreate
+ * general groups.
+ * </p>
+ * <p>
+ * When FLAG_DEFLATE is set, everything after the header is one zlib (Deflater)
+ * stream of the records above. The header itself is never compressed, so the
+ * record count can be filled in once the backup is complete.
+ * </p>
+ *
+ * @author Abhave Abhilash and Aditya Gupta
+ * @version 1.0
+ * @since 10/9/2024
+ */
+final class BackupFormat {
+
+	static final byte[] MAGIC = "CSE360BK".getBytes(StandardCharsets.US_ASCII);
+	static final short FORMAT_VERSION = 3;
+	static final int HEADER_SIZE = 32;
+
+	/** Header flag: the records are Deflater compressed */
+	static final short FLAG_DEFLATE = 1;
+
+	/**
+	 * Compression level used unless one is given. Article text compresses well
+	 * even at the fastest level, which keeps backups close to disk speed.
+	 */
+	static final int DEFAULT_COMPRESSION_LEVEL = Deflater.BEST_SPEED;
+
+	/** Size of the I/O buffers used by the reader and writer */
+	static final int BUFFER_SIZE = 1 << 20;
+
+	/** Marks a special access group in the groups field */
+	static final String SPECIAL_GROUP_MARK = "*";
+
+	private BackupFormat() {
+	}
+
+	/**
+	 * @param group a group name as written in the groups field
+	 * @return true if it names a special access group
+	 */
+	static boolean isSpecialGroup(String group) {
+		return group.startsWith(SPECIAL_GROUP_MARK);
+	}
+
+	/**
+	 * @param group a group name as written in the groups field
+	 * @return the group name without any special access mark
+	 */
+	static String groupName(String group) {
+		return isSpecialGroup(group) ? group.substring(SPECIAL_GROUP_MARK.length()) : group;
+	}
+
+	/**
+	 * @param file file to check
+	 * @return true if the file starts with the binary backup magic, false for
+	 *         anything else (such as an old line-per-field backup)
+	 * @throws IOException
+	 */
+	static boolean isBinaryBackup(File file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			ByteBuffer magic = ByteBuffer.allocate(MAGIC.length);
+			while (magic.hasRemaining() && channel.read(magic) != -1) {
+			}
+			return !magic.hasRemaining() && Arrays.equals(magic.array(), MAGIC);
+		}
+	}
+
+	/**
+	 * Fill in a header
+	 *
+	 * @param header buffer of at least HEADER_SIZE bytes, written from position 0
+	 * @param flags header flags
+	 * @param records number of records
+	 * @param createdMillis when the backup was started
+	 */
+	static void putHeader(ByteBuffer header, short flags, long records, long createdMillis) {
+		header.clear();
+		header.put(MAGIC);
+		header.putShort(FORMAT_VERSION);
+		header.putShort(flags);
+		header.putInt(0);
+		header.putLong(records);
+		header.putLong(createdMillis);
+		header.putInt(12, headerCrc(header));
+		header.flip();
+	}
+
+	/**
+	 * @param header a full header, from position 0
+	 * @return the CRC32 of every header byte except the crc field itself
+	 */
+	static int headerCrc(ByteBuffer header) {
+		CRC32 crc = new CRC32();
+		for (int i = 0; i < HEADER_SIZE; i++) {
+			if (i < 12 || i >= 16) {
+				crc.update(header.get(i));
+			}
+		}
+		return (int) crc.getValue();
+	}
+
+	/**
+	 * Describe a finished backup or restore, e.g.
+	 * "12.0 MB (48.5 MB uncompressed, 4.0x) at 210.3 MB/s"
+	 *
+	 * @param stored bytes in the file
+	 * @param raw bytes before compression
+	 * @param nanos time taken
+	 * @return the description
+	 */
+	static String describe(long stored, long raw, long nanos) {
+		double mb = 1024.0 * 1024.0;
+		double seconds = Math.max(nanos, 1) / 1e9;
+		String size = String.format("%.1f MB", stored / mb);
+		if (raw != stored) {
+			size += String.format(" (%.1f MB uncompressed, %.1fx)", raw / mb, stored == 0 ? 0 : (double) raw / stored);
+		}
+		return size + String.format(" at %.1f MB/s", raw / mb / seconds);
+	}
+}
@@ -0,0 +1,156 @@
+package simpleDatabase;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+/***
+ * Manifest written next to every full and incremental backup, as
+ * &lt;backup&gt;.manifest.
+ * <p>
+ * It records which article versions the backup covers: a full backup covers
+ * everything up to its version mark, an incremental one the changes after its
+ * parent's mark up to its own. Following the parent links from any backup back
+ * to a full one gives the chain a restore has to replay. Parents are stored
+ * relative to the backup's directory.
+ * </p>
+ *
+ * @author Abhave Abhilash and Aditya Gupta
+ * @version 1.0
+ * @since 10/9/2024
+ */
+class BackupManifest {
+
+	static final String FULL = "full";
+	static final String INCREMENTAL = "incremental";
+
+	/** full or incremental */
+	final String type;
+	/** the backup file this manifest describes */
+	final File backup;
+	/** the backup this one builds on, null for a full backup */
+	final File parent;
+	/** the parent's mark; changes above ArticleVersions.scanFrom(since) are included (0 for a full backup) */
+	final long since;
+	/** the version mark taken when the backup started */
+	final long version;
+	final long articles;
+	final long tombstones;
+
+	BackupManifest(String type, File backup, File parent, long since, long version, long articles, long tombstones) {
+		this.type = type;
+		this.backup = backup;
+		this.parent = parent;
+		this.since = since;
+		this.version = version;
+		this.articles = articles;
+		this.tombstones = tombstones;
+	}
+
+	/**
+	 * @param backup a backup file
+	 * @return its manifest file
+	 */
+	static File fileFor(File backup) {
+		return new File(backup.getPath() + ".manifest");
+	}
+
+	/**
+	 * @param backup a backup file
+	 * @return its manifest, or null if it has none
+	 * @throws IOException if the manifest exists but cannot be read
+	 */
+	static BackupManifest load(File backup) throws IOException {
+		File file = fileFor(backup);
+		if (!file.exists()) {
+			return null;
+		}
+		Properties props = new Properties();
+		try (Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+			props.load(reader);
+		}
+		try {
+			String parent = props.getProperty("parent");
+			return new BackupManifest(props.getProperty("type"), backup,
+					parent == null ? null : new File(directoryOf(backup), parent),
+					Long.parseLong(props.getProperty("since", "0")), Long.parseLong(props.getProperty("version")),
+					Long.parseLong(props.getProperty("articles", "0")),
+					Long.parseLong(props.getProperty("tombstones", "0")));
+		} catch (NumberFormatException | NullPointerException e) {
+			throw new IOException("Backup manifest " + file + " is damaged");
+		}
+	}
+
+	/**
+	 * Write the manifest next to its backup
+	 *
+	 * @throws IOException
+	 */
+	void save() throws IOException {
+		Properties props = new Properties();
+		props.setProperty("type", type);
+		if (parent != null) {
+			// relative, so a chain can be moved as a whole
+			props.setProperty("parent", directoryOf(backup).toPath().relativize(parent.getAbsoluteFile().toPath()).toString());
+		}
+		props.setProperty("since", String.valueOf(since));
+		props.setProperty("version", String.valueOf(version));
+		props.setProperty("articles", String.valueOf(articles));
+		props.setProperty("tombstones", String.valueOf(tombstones));
+
+		File file = fileFor(backup);
+		File tmp = new File(file.getPath() + ".tmp");
+		try (Writer writer = Files.newBufferedWriter(tmp.toPath(), StandardCharsets.UTF_8)) {
+			props.store(writer, "article backup manifest");
+		}
+		Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	private static File directoryOf(File backup) {
+		return backup.getAbsoluteFile().getParentFile();
+	}
+
+	/**
+	 * Follow the parent links back to the full backup
+	 *
+	 * @param backup the newest backup to restore
+	 * @return the manifests to replay, full backup first; a backup without a
+	 *         manifest is treated as a full backup on its own
+	 * @throws IOException if a manifest in the chain is missing or broken
+	 */
+	static List<BackupManifest> chain(File backup) throws IOException {
+		List<BackupManifest> chain = new ArrayList<>();
+		BackupManifest manifest = load(backup);
+		if (manifest == null) {
+			chain.add(new BackupManifest(FULL, backup, null, 0, 0, 0, 0));
+			return chain;
+		}
+		while (true) {
+			chain.add(manifest);
+			if (FULL.equals(manifest.type)) {
+				break;
+			}
+			if (manifest.parent == null || chain.size() > 10_000) {
+				throw new IOException("Backup chain of " + backup + " does not lead back to a full backup");
+			}
+			BackupManifest parent = load(manifest.parent);
+			if (parent == null) {
+				throw new IOException("Backup " + manifest.parent + " in the chain of " + backup + " has no manifest");
+			}
+			if (parent.version != manifest.since) {
+				throw new IOException("Backup " + manifest.backup + " does not follow on from " + manifest.parent);
+			}
+			manifest = parent;
+		}
+		Collections.reverse(chain);
+		return chain;
+	}
+}
@@ -0,0 +1,386 @@
+package simpleDatabase;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32C;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/***
+ * Streams articles back out of a backup file.
+ * <p>
+ * Binary backups (see BackupFormat) are read through a FileChannel into a 1MB
+ * direct buffer. The header is checked before the first record, every record's
+ * checksum is verified before it is decoded, and reaching the end of the file
+ * before the number of records promised by the header is reported as a
+ * truncated backup, so a damaged file is never restored silently. Compressed
+ * backups are inflated a buffer at a time on the way in.
+ * </p>
+ * <p>
+ * Backups written before the binary format existed hold one field per line.
+ * They are still read, line by line, so old backups can be restored.
+ * </p>
+ *
+ * @author Abhave Abhilash and Aditya Gupta
+ * @version 1.0
+ * @since 10/9/2024
+ */
+class BackupReader implements AutoCloseable {
+
+	private final FileChannel channel;
+	private final BufferedReader legacy;
+	private final ByteBuffer in;
+	private final CRC32C crc = new CRC32C();
+	private final long startNanos = System.nanoTime();
+	private Inflater inflater;
+	private ByteBuffer compressed;
+
+	private byte[] scratch = new byte[64 * 1024];
+	private short version = 0;
+	private long expected = -1;
+	private long read = 0;
+	private long rawBytes = 0;
+	private boolean tombstone = false;
+	private long updated = 0;
+
+	/**
+	 * Open a backup, binary or line per field
+	 *
+	 * @param file backup to read
+	 * @throws IOException if the file cannot be read or its header is damaged
+	 */
+	BackupReader(File file) throws IOException {
+		if (BackupFormat.isBinaryBackup(file)) {
+			channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+			legacy = null;
+			in = ByteBuffer.allocateDirect(BackupFormat.BUFFER_SIZE);
+			in.limit(0);
+			try {
+				readHeader();
+			} catch (IOException e) {
+				close();
+				throw e;
+			}
+		} else {
+			channel = null;
+			legacy = new BufferedReader(new FileReader(file));
+			in = null;
+		}
+	}
+
+	/**
+	 * @return number of records the header promises, or -1 for a line per field
+	 *         backup
+	 */
+	long getExpectedRecords() {
+		return expected;
+	}
+
+	/**
+	 * @return number of records read or skipped so far
+	 */
+	long getRecordsRead() {
+		return read;
+	}
+
+	/**
+	 * @return size, compression ratio and speed of the backup read so far
+	 */
+	String describe() throws IOException {
+		long stored = channel == null ? rawBytes : channel.position();
+		return BackupFormat.describe(stored, rawBytes, System.nanoTime() - startNanos);
+	}
+
+	/**
+	 * @return true if the record last returned by next() is a tombstone, in which
+	 *         case only its id is set
+	 */
+	boolean wasTombstone() {
+		return tombstone;
+	}
+
+	/**
+	 * @return epoch milliseconds the record last returned by next() was updated,
+	 *         or 0 if the backup did not record it
+	 */
+	long lastUpdated() {
+		return updated;
+	}
+
+	/**
+	 * Read the next article. Its groupId holds the comma separated names of the
+	 * groups it belonged to, special access groups marked as described in
+	 * BackupFormat, or null if the backup did not record them.
+	 *
+	 * @return the next article, or null at the end of the backup
+	 * @throws IOException if the backup is damaged or truncated
+	 */
+	Article next() throws IOException {
+		if (legacy != null) {
+			return nextLegacy();
+		}
+		int length = nextRecordLength();
+		if (length < 0) {
+			return null;
+		}
+		if (scratch.length < length) {
+			scratch = new byte[Math.max(length, scratch.length * 2)];
+		}
+		get(scratch, length);
+		int stored = getInt();
+		crc.reset();
+		crc.update(scratch, 0, length);
+		if ((int) crc.getValue() != stored) {
+			throw new IOException("Backup record " + (read + 1) + " failed its checksum");
+		}
+		read++;
+
+		ByteBuffer payload = ByteBuffer.wrap(scratch, 0, length);
+		int id = payload.getInt();
+		tombstone = length == 4;
+		updated = 0;
+		if (tombstone) {
+			return new Article(id, null, null, null, null, null, null, null, null);
+		}
+		String level = string(payload);
+		String authors = string(payload);
+		String groups = string(payload);
+		String title = string(payload);
+		String shortDescription = string(payload);
+		String keywords = string(payload);
+		String body = string(payload);
+		String referenceLinks = string(payload);
+		if (version >= 2) {
+			if (payload.remaining() < 8) {
+				throw new IOException("Backup record " + read + " is too short");
+			}
+			updated = payload.getLong();
+		}
+		return new Article(id, level, authors, groups, title, shortDescription, keywords, body, referenceLinks);
+	}
+
+	/**
+	 * Skip records without decoding them, to resume an interrupted restore
+	 *
+	 * @param records number of records to skip
+	 * @return number actually skipped, less if the backup ended first
+	 * @throws IOException
+	 */
+	long skip(long records) throws IOException {
+		long skipped = 0;
+		if (legacy != null) {
+			while (skipped < records && nextLegacy() != null) {
+				skipped++;
+			}
+			return skipped;
+		}
+		while (skipped < records) {
+			int length = nextRecordLength();
+			if (length < 0) {
+				break;
+			}
+			discard(length + 4L);
+			read++;
+			skipped++;
+		}
+		return skipped;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (inflater != null) {
+			inflater.end();
+		}
+		if (channel != null) {
+			channel.close();
+		}
+		if (legacy != null) {
+			legacy.close();
+		}
+	}
+
+	private void readHeader() throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(BackupFormat.HEADER_SIZE);
+		while (header.hasRemaining()) {
+			if (channel.read(header) == -1) {
+				throw new IOException("Backup header is truncated");
+			}
+		}
+		header.flip();
+		byte[] magic = new byte[BackupFormat.MAGIC.length];
+		header.get(magic);
+		version = header.getShort();
+		short flags = header.getShort();
+		int stored = header.getInt();
+		expected = header.getLong();
+		if (!Arrays.equals(magic, BackupFormat.MAGIC) || stored != BackupFormat.headerCrc(header)) {
+			throw new IOException("Backup header is damaged");
+		}
+		if (version < 1 || version > BackupFormat.FORMAT_VERSION) {
+			throw new IOException("Unsupported backup format version " + version);
+		}
+		rawBytes = BackupFormat.HEADER_SIZE;
+		if ((flags & BackupFormat.FLAG_DEFLATE) != 0) {
+			inflater = new Inflater();
+			compressed = ByteBuffer.allocateDirect(BackupFormat.BUFFER_SIZE);
+			compressed.limit(0);
+		}
+	}
+
+	/**
+	 * @return the next record's payload length, or -1 at a clean end of file
+	 */
+	private int nextRecordLength() throws IOException {
+		if (read == expected) {
+			return -1;
+		}
+		if (!fill(4)) {
+			throw new IOException("Backup is truncated: expected " + expected + " records, found " + read);
+		}
+		int length = in.getInt();
+		if (length < 4) {
+			throw new IOException("Backup record " + (read + 1) + " has a bad length");
+		}
+		return length;
+	}
+
+	private int getInt() throws IOException {
+		if (!fill(4)) {
+			throw new IOException("Backup record " + (read + 1) + " is truncated");
+		}
+		return in.getInt();
+	}
+
+	private void get(byte[] dst, int length) throws IOException {
+		int offset = 0;
+		while (offset < length) {
+			if (!in.hasRemaining() && !fill(1)) {
+				throw new IOException("Backup record " + (read + 1) + " is truncated");
+			}
+			int chunk = Math.min(in.remaining(), length - offset);
+			in.get(dst, offset, chunk);
+			offset += chunk;
+		}
+	}
+
+	private void discard(long bytes) throws IOException {
+		if (inflater != null) {
+			// compressed data has to be inflated to find the next record
+			while (bytes > 0) {
+				if (!in.hasRemaining() && !fill(1)) {
+					throw new IOException("Backup record " + (read + 1) + " is truncated");
+				}
+				int chunk = (int) Math.min(in.remaining(), bytes);
+				in.position(in.position() + chunk);
+				bytes -= chunk;
+			}
+			return;
+		}
+		long buffered = Math.min(bytes, in.remaining());
+		in.position(in.position() + (int) buffered);
+		long rest = bytes - buffered;
+		if (rest > 0) {
+			if (channel.position() + rest > channel.size()) {
+				throw new IOException("Backup record " + (read + 1) + " is truncated");
+			}
+			channel.position(channel.position() + rest);
+			rawBytes += rest;
+		}
+	}
+
+	/**
+	 * Make sure at least n bytes are buffered, reading more from the channel
+	 *
+	 * @return false if the file ends first
+	 */
+	private boolean fill(int n) throws IOException {
+		if (in.remaining() >= n) {
+			return true;
+		}
+		in.compact();
+		try {
+			while (in.position() < n) {
+				int count = readMore();
+				if (count == -1) {
+					return false;
+				}
+				rawBytes += count;
+			}
+			return true;
+		} finally {
+			in.flip();
+		}
+	}
+
+	// read (and inflate if needed) more record data into the buffer
+	private int readMore() throws IOException {
+		if (inflater == null) {
+			return channel.read(in);
+		}
+		int before = in.position();
+		try {
+			while (in.position() == before && in.hasRemaining()) {
+				if (inflater.finished()) {
+					return -1;
+				}
+				if (inflater.needsInput()) {
+					compressed.clear();
+					int count = channel.read(compressed);
+					compressed.flip();
+					if (count == -1) {
+						return -1;
+					}
+					inflater.setInput(compressed);
+				}
+				inflater.inflate(in);
+			}
+		} catch (DataFormatException e) {
+			throw new IOException("Backup data is damaged: " + e.getMessage());
+		}
+		return in.position() - before;
+	}
+
+	private static String string(ByteBuffer payload) throws IOException {
+		int length = payload.getInt();
+		if (length == -1) {
+			return null;
+		}
+		if (length < 0 || length > payload.remaining()) {
+			throw new IOException("Backup record has a bad field length");
+		}
+		String value = new String(payload.array(), payload.arrayOffset() + payload.position(), length,
+				StandardCharsets.UTF_8);
+		payload.position(payload.position() + length);
+		return value;
+	}
+
+	// id, level, authors, title, short description, keywords, body, reference links
+	private Article nextLegacy() throws IOException {
+		String id = legacy.readLine();
+		if (id == null) {
+			return null;
+		}
+		String level = legacy.readLine();
+		String authors = legacy.readLine();
+		String title = legacy.readLine();
+		String shortDescription = legacy.readLine();
+		String keywords = legacy.readLine();
+		String body = legacy.readLine();
+		String referenceLinks = legacy.readLine();
+		read++;
+		updated = 0;
+		try {
+			return new Article(Integer.parseInt(id.trim()), level, authors, null, title, shortDescription, keywords,
+					body, referenceLinks);
+		} catch (NumberFormatException e) {
+			throw new IOException("Backup record " + read + " has a bad id: " + id);
+		}
+	}
+}
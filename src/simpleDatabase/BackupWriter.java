@@ -0,0 +1,333 @@
+package simpleDatabase;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.zip.CRC32C;
+import java.util.zip.Deflater;
+
+/***
+ * Streams articles into a binary backup file (see BackupFormat).
+ * <p>
+ * Records are encoded into a reusable scratch array and copied into a 1MB
+ * direct buffer that is written to a FileChannel whenever it fills, so
+ * memory use does not depend on the size of the backup and the disk sees
+ * large sequential writes. With a compression level above 0 each full buffer
+ * is passed through a Deflater on its way to the channel, so compression
+ * streams too and never holds more than a buffer of output.
+ * </p>
+ * <p>
+ * The backup is written to &lt;file&gt;.tmp. finish() fills in the record count in
+ * the header, forces the data to disk and moves the file into place, so the
+ * target file is either the previous backup or a complete new one. Closing a
+ * writer that was not finished deletes the temporary file.
+ * </p>
+ *
+ * @author Abhave Abhilash and Aditya Gupta
+ * @version 1.0
+ * @since 10/9/2024
+ */
+class BackupWriter implements AutoCloseable {
+
+	/** Article columns a backup query has to select for writeArticles() */
+	static final String COLUMNS = "id, level, authors, title, short_description, keywords, body, reference_links, updated_on";
+
+	/** Link columns a backup query over articleGroups l has to select for writeArticles() */
+	static final String LINK_COLUMNS = "l.article_id, l.group_name, "
+			+ "(SELECT specialFlag FROM groups WHERE groups.name = l.group_name)";
+
+	private final Path target;
+	private final Path tmp;
+	private final FileChannel channel;
+	private final ByteBuffer out = ByteBuffer.allocateDirect(BackupFormat.BUFFER_SIZE);
+	private final Deflater deflater;
+	private final ByteBuffer compressed;
+	private final CRC32C crc = new CRC32C();
+	private final long createdMillis = System.currentTimeMillis();
+	private final long startNanos = System.nanoTime();
+	private final byte[][] fields = new byte[8][];
+
+	private byte[] scratch = new byte[64 * 1024];
+	private long records = 0;
+	private long rawBytes = BackupFormat.HEADER_SIZE;
+	private long bytesWritten = 0;
+	private boolean finished = false;
+
+	/**
+	 * Start a new backup, compressed at the default level
+	 *
+	 * @param file where the finished backup goes
+	 * @throws IOException
+	 */
+	BackupWriter(File file) throws IOException {
+		this(file, BackupFormat.DEFAULT_COMPRESSION_LEVEL);
+	}
+
+	/**
+	 * Start a new backup
+	 *
+	 * @param file where the finished backup goes
+	 * @param compressionLevel Deflater level from 0 (not compressed) to 9 (smallest)
+	 * @throws IOException
+	 */
+	BackupWriter(File file, int compressionLevel) throws IOException {
+		if (compressionLevel < Deflater.NO_COMPRESSION || compressionLevel > Deflater.BEST_COMPRESSION) {
+			throw new IllegalArgumentException("Compression level must be between 0 and 9");
+		}
+		this.target = file.toPath();
+		this.tmp = new File(file.getPath() + ".tmp").toPath();
+		this.channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+				StandardOpenOption.WRITE);
+		if (compressionLevel > Deflater.NO_COMPRESSION) {
+			deflater = new Deflater(compressionLevel);
+			compressed = ByteBuffer.allocateDirect(BackupFormat.BUFFER_SIZE);
+		} else {
+			deflater = null;
+			compressed = null;
+		}
+		// placeholder header - the record count is filled in by finish()
+		writeHeader();
+		channel.position(BackupFormat.HEADER_SIZE);
+	}
+
+	/**
+	 * Append one article. Its groupId holds the article's comma separated group
+	 * names, or null.
+	 *
+	 * @param article article to write
+	 * @throws IOException
+	 */
+	void write(Article article) throws IOException {
+		write(article, 0);
+	}
+
+	/**
+	 * Append one article with the time it was last updated
+	 *
+	 * @param article article to write
+	 * @param updatedMillis epoch milliseconds of its last update, 0 if unknown
+	 * @throws IOException
+	 */
+	void write(Article article, long updatedMillis) throws IOException {
+		fields[0] = utf8(article.getLevel());
+		fields[1] = utf8(article.getAuthors());
+		fields[2] = utf8(article.getGroupId());
+		fields[3] = utf8(article.getTitle());
+		fields[4] = utf8(article.getShortDescription());
+		fields[5] = utf8(article.getKeywords());
+		fields[6] = utf8(article.getBody());
+		fields[7] = utf8(article.getReferenceLinks());
+
+		int length = 4 + 8;
+		for (byte[] field : fields) {
+			length += 4 + (field == null ? 0 : field.length);
+		}
+		if (scratch.length < length) {
+			scratch = new byte[Math.max(length, scratch.length * 2)];
+		}
+
+		ByteBuffer payload = ByteBuffer.wrap(scratch, 0, length);
+		payload.putInt(article.getId());
+		for (byte[] field : fields) {
+			if (field == null) {
+				payload.putInt(-1);
+			} else {
+				payload.putInt(field.length);
+				payload.put(field);
+			}
+		}
+		payload.putLong(updatedMillis);
+		crc.reset();
+		crc.update(scratch, 0, length);
+
+		putInt(length);
+		put(scratch, length);
+		putInt((int) crc.getValue());
+		records++;
+	}
+
+	/**
+	 * Write every article in the result set, with its group names. Both result
+	 * sets must be ordered by article id - articles selects COLUMNS, links
+	 * LINK_COLUMNS - so the links are matched to their articles in one pass
+	 * without holding either in memory. Special access groups are marked.
+	 *
+	 * @param articles the articles to write
+	 * @param links their group links
+	 * @throws SQLException
+	 * @throws IOException
+	 */
+	void writeArticles(ResultSet articles, ResultSet links) throws SQLException, IOException {
+		boolean moreLinks = links.next();
+		while (articles.next()) {
+			int id = articles.getInt("id");
+			StringBuilder groups = new StringBuilder();
+			while (moreLinks && links.getInt(1) < id) {
+				moreLinks = links.next();
+			}
+			while (moreLinks && links.getInt(1) == id) {
+				if (groups.length() > 0) {
+					groups.append(',');
+				}
+				if (links.getBoolean(3)) {
+					groups.append(BackupFormat.SPECIAL_GROUP_MARK);
+				}
+				groups.append(links.getString(2));
+				moreLinks = links.next();
+			}
+			Timestamp updated = articles.getTimestamp("updated_on");
+			write(new Article(id, articles.getString("level"), articles.getString("authors"),
+					groups.length() == 0 ? null : groups.toString(), articles.getString("title"),
+					articles.getString("short_description"), articles.getString("keywords"),
+					articles.getString("body"), articles.getString("reference_links")),
+					updated == null ? 0 : updated.getTime());
+		}
+	}
+
+	/**
+	 * Append a tombstone for a deleted article
+	 *
+	 * @param articleId the deleted article
+	 * @throws IOException
+	 */
+	void writeTombstone(int articleId) throws IOException {
+		ByteBuffer.wrap(scratch, 0, 4).putInt(articleId);
+		crc.reset();
+		crc.update(scratch, 0, 4);
+		putInt(4);
+		put(scratch, 4);
+		putInt((int) crc.getValue());
+		records++;
+	}
+
+	/**
+	 * @return number of records written so far
+	 */
+	long getRecords() {
+		return records;
+	}
+
+	/**
+	 * @return bytes written to disk so far
+	 */
+	long getBytesWritten() {
+		return bytesWritten;
+	}
+
+	/**
+	 * @return bytes of backup data so far, before compression
+	 */
+	long getRawBytes() {
+		return rawBytes;
+	}
+
+	/**
+	 * @return size, compression ratio and speed of the backup so far
+	 */
+	String describe() {
+		return BackupFormat.describe(bytesWritten, rawBytes, System.nanoTime() - startNanos);
+	}
+
+	/**
+	 * Write the header, flush everything to disk and move the backup into place
+	 *
+	 * @throws IOException
+	 */
+	void finish() throws IOException {
+		flush();
+		if (deflater != null) {
+			deflater.finish();
+			while (!deflater.finished()) {
+				drain();
+			}
+			deflater.end();
+		}
+		writeHeader();
+		channel.force(true);
+		channel.close();
+		Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		finished = true;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (!finished) {
+			if (deflater != null) {
+				deflater.end();
+			}
+			channel.close();
+			Files.deleteIfExists(tmp);
+		}
+	}
+
+	private void putInt(int value) throws IOException {
+		if (out.remaining() < 4) {
+			flush();
+		}
+		out.putInt(value);
+	}
+
+	private void put(byte[] bytes, int length) throws IOException {
+		int offset = 0;
+		while (offset < length) {
+			if (!out.hasRemaining()) {
+				flush();
+			}
+			int chunk = Math.min(out.remaining(), length - offset);
+			out.put(bytes, offset, chunk);
+			offset += chunk;
+		}
+	}
+
+	private void flush() throws IOException {
+		out.flip();
+		rawBytes += out.remaining();
+		if (deflater == null) {
+			while (out.hasRemaining()) {
+				bytesWritten += channel.write(out);
+			}
+		} else {
+			// a slice, so the deflater is not left holding the buffer once it is cleared
+			deflater.setInput(out.slice());
+			while (!deflater.needsInput()) {
+				drain();
+			}
+		}
+		out.clear();
+	}
+
+	// compress what the deflater has and write it out
+	private void drain() throws IOException {
+		deflater.deflate(compressed);
+		compressed.flip();
+		while (compressed.hasRemaining()) {
+			bytesWritten += channel.write(compressed);
+		}
+		compressed.clear();
+	}
+
+	// the header is never compressed, and is rewritten in place once the count is known
+	private void writeHeader() throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(BackupFormat.HEADER_SIZE);
+		short flags = deflater == null ? 0 : BackupFormat.FLAG_DEFLATE;
+		BackupFormat.putHeader(header, flags, records, createdMillis);
+		long position = 0;
+		while (header.hasRemaining()) {
+			position += channel.write(header, position);
+		}
+		bytesWritten = Math.max(bytesWritten, position);
+	}
+
+	private static byte[] utf8(String value) {
+		return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+	}
+}
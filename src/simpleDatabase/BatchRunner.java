@@ -0,0 +1,545 @@
+package simpleDatabase;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/***
+ * Runs a provisioning script: the groups, invitations, group links and
+ * articles an administrator would otherwise enter through the menus one at a
+ * time.
+ * <p>
+ * The script is CSV with one command per record. Blank lines and lines
+ * starting with # are skipped. A field in double quotes may hold commas, line
+ * breaks and doubled quotes.
+ * </p>
+ * <pre>
+ * group,&lt;name&gt;[,special]
+ * invite,&lt;label&gt;,&lt;roles, any of a i s&gt;[,&lt;minutes the code stays valid&gt;]
+ * link,&lt;group&gt;,&lt;label or user id&gt;,&lt;access role a, i or s&gt;,&lt;admin rights&gt;,&lt;view rights&gt;
+ * article,&lt;level&gt;,&lt;groups&gt;,&lt;title&gt;,&lt;authors&gt;,&lt;abstract&gt;,&lt;keywords&gt;,&lt;body&gt;,&lt;references&gt;
+ * </pre>
+ * <p>
+ * A label names the user an invite creates, so that later link commands can
+ * refer to them before they have an id. Each command is checked as it is
+ * read; one that is malformed, or that names a label or group not defined yet,
+ * is reported and skipped. The rest run CHUNK_SIZE commands at a time. A
+ * chunk's groups, invitations (see Invitations) and group links are written
+ * with JDBC batches on one connection and committed together, so if any of
+ * them fails the whole chunk is rolled back and reported as failed. The
+ * chunk's articles then go to ArticleService as one batch, which is a
+ * transaction of its own.
+ * </p>
+ * <p>
+ * Every command gets one line in the results log: a JSON object with its line
+ * number, command and status (ok, skipped, error or failed), plus what it
+ * produced, such as the user id and one time password of an invite. The last
+ * line is a summary of the run.
+ * </p>
+ *
+ * @author Abhave Abhilash and Aditya Gupta
+ * @version 1.0
+ * @since 10/9/2024
+ */
+class BatchRunner {
+
+	/** Commands written per transaction */
+	static final int CHUNK_SIZE = 500;
+
+	/** How long an invitation code stays valid unless the script says otherwise */
+	static final int DEFAULT_INVITE_MINUTES = 7 * 24 * 60;
+
+	private static final String INSERT_GROUP = "INSERT INTO groups (name, specialFlag) VALUES (?, ?)";
+	private static final String INSERT_LINK = "INSERT INTO groupRights (user_id, group_name, accessRole, adminRightsFlag, viewRightsFlag) VALUES (?, ?, ?, ?, ?)";
+
+	private final ConnectionPool pool;
+	private final GroupRegistry registry;
+	private final PermissionIndex permissions;
+	private final ArticleService articleService;
+
+	// what the script has defined so far, for checking later commands
+	private final Map<String, Command> labels = new HashMap<>();
+	private final Map<String, Boolean> declaredGroups = new HashMap<>();
+
+	// lines read so far, and the line the current record starts on
+	private int line = 0;
+	private int recordLine = 0;
+	private long ok = 0;
+	private long skipped = 0;
+	private long errors = 0;
+	private long failed = 0;
+
+	BatchRunner(ConnectionPool pool, GroupRegistry registry, PermissionIndex permissions, ArticleService articleService) {
+		this.pool = pool;
+		this.registry = registry;
+		this.permissions = permissions;
+		this.articleService = articleService;
+	}
+
+	/**
+	 * Run a script
+	 *
+	 * @param script the commands
+	 * @param results where the results log is written
+	 * @throws IOException if the script cannot be read or the log written
+	 */
+	void run(Reader script, Writer results) throws IOException {
+		long start = System.nanoTime();
+		BufferedReader in = script instanceof BufferedReader ? (BufferedReader) script : new BufferedReader(script);
+		List<Command> chunk = new ArrayList<>(CHUNK_SIZE);
+		List<String> record;
+		while ((record = readRecord(in)) != null) {
+			if (record.size() == 1 && record.get(0).isBlank() || record.get(0).strip().startsWith("#")) {
+				continue;
+			}
+			chunk.add(check(record));
+			if (chunk.size() == CHUNK_SIZE) {
+				runChunk(chunk);
+				log(chunk, results);
+				chunk.clear();
+			}
+		}
+		runChunk(chunk);
+		log(chunk, results);
+
+		results.write(new Json.Writer().beginObject()
+				.field("commands", ok + skipped + errors + failed)
+				.field("ok", ok)
+				.field("skipped", skipped)
+				.field("errors", errors)
+				.field("failed", failed)
+				.field("millis", (System.nanoTime() - start) / 1_000_000)
+				.endObject().toString());
+		results.write('\n');
+		results.flush();
+	}
+
+	/**
+	 * @return e.g. "4980 ok, 12 skipped, 3 errors, 0 failed"
+	 */
+	String summary() {
+		return ok + " ok, " + skipped + " skipped, " + errors + " errors, " + failed + " failed";
+	}
+
+	long getOk() {
+		return ok;
+	}
+
+	long getSkipped() {
+		return skipped;
+	}
+
+	long getErrors() {
+		return errors;
+	}
+
+	long getFailed() {
+		return failed;
+	}
+
+	// turn one record into a command, or into an error if it cannot run
+	private Command check(List<String> record) {
+		Command command = new Command(recordLine, record.get(0).strip().toLowerCase());
+		try {
+			switch (command.name) {
+				case "group":
+					checkGroup(command, record);
+					break;
+				case "invite":
+					checkInvite(command, record);
+					break;
+				case "link":
+					checkLink(command, record);
+					break;
+				case "article":
+					checkArticle(command, record);
+					break;
+				default:
+					throw new IllegalArgumentException("unknown command");
+			}
+		} catch (IllegalArgumentException e) {
+			command.status = "error";
+			command.message = e.getMessage();
+		}
+		return command;
+	}
+
+	private void checkGroup(Command command, List<String> record) {
+		fieldCount(record, 2, 3);
+		command.group = required(record, 1, "group name");
+		if (record.size() == 3) {
+			if (!record.get(2).strip().equalsIgnoreCase("special")) {
+				throw new IllegalArgumentException("the third field of a group must be special or left out");
+			}
+			command.special = true;
+		}
+		if (registry.exists(command.group) || declaredGroups.containsKey(command.group)) {
+			command.status = "skipped";
+			command.message = "group already exists";
+			return;
+		}
+		declaredGroups.put(command.group, command.special);
+	}
+
+	private void checkInvite(Command command, List<String> record) {
+		fieldCount(record, 3, 4);
+		command.label = required(record, 1, "label");
+		if (labels.containsKey(command.label)) {
+			throw new IllegalArgumentException("label " + command.label + " is already used");
+		}
+		command.roles = roles(required(record, 2, "roles"));
+		command.minutes = DEFAULT_INVITE_MINUTES;
+		if (record.size() == 4) {
+			try {
+				command.minutes = Integer.parseInt(record.get(3).strip());
+			} catch (NumberFormatException e) {
+				command.minutes = 0;
+			}
+			if (command.minutes < 1) {
+				throw new IllegalArgumentException("minutes must be a positive whole number");
+			}
+		}
+		labels.put(command.label, command);
+	}
+
+	private void checkLink(Command command, List<String> record) {
+		fieldCount(record, 6, 6);
+		command.group = required(record, 1, "group name");
+		if (!registry.exists(command.group) && !declaredGroups.containsKey(command.group)) {
+			throw new IllegalArgumentException("no group named " + command.group);
+		}
+		String user = required(record, 2, "user");
+		command.invite = labels.get(user);
+		if (command.invite == null) {
+			try {
+				command.userId = Integer.parseInt(user);
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException("no invite labelled " + user);
+			}
+		}
+		command.accessRole = required(record, 3, "access role").toLowerCase();
+		if (!command.accessRole.equals("a") && !command.accessRole.equals("i") && !command.accessRole.equals("s")) {
+			throw new IllegalArgumentException("access role must be a, i or s");
+		}
+		command.adminRights = bool(record.get(4));
+		command.viewRights = bool(record.get(5));
+	}
+
+	private void checkArticle(Command command, List<String> record) {
+		fieldCount(record, 9, 9);
+		Article article = new Article(0, record.get(1).strip(), record.get(4).strip(), record.get(2).strip(),
+				record.get(3).strip(), record.get(5).strip(), record.get(6).strip(), record.get(7).strip(),
+				record.get(8).strip());
+		ArticleService.validate(article, 0);
+		for (String group : ArticleService.groupNames(article)) {
+			if (registry.isSpecial(group) || declaredGroups.getOrDefault(group, false)) {
+				throw new IllegalArgumentException("articles cannot be imported into special access group " + group);
+			}
+		}
+		command.article = article;
+	}
+
+	private static void fieldCount(List<String> record, int min, int max) {
+		if (record.size() < min || record.size() > max) {
+			throw new IllegalArgumentException(min == max ? "expected " + min + " fields"
+					: "expected " + min + " to " + max + " fields");
+		}
+	}
+
+	private static String required(List<String> record, int index, String field) {
+		String value = record.get(index).strip();
+		if (value.isEmpty()) {
+			throw new IllegalArgumentException("a " + field + " is required");
+		}
+		return value;
+	}
+
+	// e.g. "is" -> instructor and student
+	private static boolean[] roles(String letters) {
+		boolean[] roles = new boolean[3];
+		for (char c : letters.toLowerCase().toCharArray()) {
+			int role = "ais".indexOf(c);
+			if (role == -1) {
+				throw new IllegalArgumentException("roles must be letters from a, i and s");
+			}
+			roles[role] = true;
+		}
+		return roles;
+	}
+
+	private static boolean bool(String value) {
+		switch (value.strip().toLowerCase()) {
+			case "true":
+			case "yes":
+				return true;
+			case "false":
+			case "no":
+				return false;
+			default:
+				throw new IllegalArgumentException("rights must be true or false");
+		}
+	}
+
+	private void runChunk(List<Command> chunk) {
+		List<Command> groups = new ArrayList<>();
+		List<Command> invites = new ArrayList<>();
+		List<Command> links = new ArrayList<>();
+		List<Command> articles = new ArrayList<>();
+		for (Command command : chunk) {
+			if (command.status != null) {
+				continue;
+			}
+			switch (command.name) {
+				case "group":
+					groups.add(command);
+					break;
+				case "invite":
+					invites.add(command);
+					break;
+				case "link":
+					if (command.invite != null && "failed".equals(command.invite.status)) {
+						// its invite was in an earlier chunk that failed
+						command.status = "failed";
+						command.message = "the invite for " + command.invite.label + " failed";
+					} else {
+						links.add(command);
+					}
+					break;
+				default:
+					articles.add(command);
+			}
+		}
+		if (!groups.isEmpty() || !invites.isEmpty() || !links.isEmpty()) {
+			writeUsersAndGroups(groups, invites, links);
+		}
+		if (!articles.isEmpty()) {
+			importArticles(articles);
+		}
+	}
+
+	// groups, then users and their codes, then the links that reference both; one transaction
+	private void writeUsersAndGroups(List<Command> groups, List<Command> invites, List<Command> links) {
+		try (Connection conn = pool.borrow()) {
+			boolean autoCommit = conn.getAutoCommit();
+			conn.setAutoCommit(false);
+			try (PreparedStatement insertGroup = conn.prepareStatement(INSERT_GROUP);
+					PreparedStatement insertLink = conn.prepareStatement(INSERT_LINK)) {
+				for (Command group : groups) {
+					insertGroup.setString(1, group.group);
+					insertGroup.setBoolean(2, group.special);
+					insertGroup.addBatch();
+				}
+				insertGroup.executeBatch();
+
+				List<Invitations.Invitation> invitations = new ArrayList<>(invites.size());
+				for (Command invite : invites) {
+					invitations.add(new Invitations.Invitation(invite.roles[0], invite.roles[1], invite.roles[2],
+							LocalDateTime.now().plusMinutes(invite.minutes)));
+				}
+				Invitations.insert(conn, invitations);
+				for (int i = 0; i < invites.size(); i++) {
+					invites.get(i).userId = invitations.get(i).getUserId();
+					invites.get(i).otp = invitations.get(i).getCode();
+				}
+
+				for (Command link : links) {
+					insertLink.setInt(1, link.invite != null ? link.invite.userId : link.userId);
+					insertLink.setString(2, link.group);
+					insertLink.setString(3, link.accessRole);
+					insertLink.setBoolean(4, link.adminRights);
+					insertLink.setBoolean(5, link.viewRights);
+					insertLink.addBatch();
+				}
+				insertLink.executeBatch();
+				conn.commit();
+			} catch (SQLException e) {
+				conn.rollback();
+				throw e;
+			} finally {
+				conn.setAutoCommit(autoCommit);
+			}
+		} catch (SQLException e) {
+			System.err.println("DB issue running a batch chunk: " + e.getMessage());
+			for (Command invite : invites) {
+				invite.userId = -1;
+				invite.otp = null;
+			}
+			failAll(groups, e.getMessage());
+			failAll(invites, e.getMessage());
+			failAll(links, e.getMessage());
+			for (Command group : groups) {
+				declaredGroups.remove(group.group);
+			}
+			return;
+		}
+
+		for (Command group : groups) {
+			registry.added(group.group, group.special);
+			if (group.special) {
+				permissions.specialGroupCreated(group.group);
+			}
+			succeed(group);
+		}
+		for (Command invite : invites) {
+			succeed(invite);
+		}
+		for (Command link : links) {
+			permissions.invalidateUser(link.invite != null ? link.invite.userId : link.userId);
+			succeed(link);
+		}
+	}
+
+	private void importArticles(List<Command> commands) {
+		List<Article> articles = new ArrayList<>(commands.size());
+		for (Command command : commands) {
+			articles.add(command.article);
+		}
+		try {
+			List<Integer> ids = articleService.createArticles(articles, ArticleService.NO_SPECIAL_RIGHTS);
+			for (int i = 0; i < commands.size(); i++) {
+				commands.get(i).articleId = ids.get(i);
+				succeed(commands.get(i));
+			}
+		} catch (SQLException | IllegalArgumentException e) {
+			System.err.println("DB issue importing a batch of articles: " + e.getMessage());
+			failAll(commands, e.getMessage());
+		}
+	}
+
+	private static void succeed(Command command) {
+		command.status = "ok";
+	}
+
+	private static void failAll(List<Command> commands, String message) {
+		for (Command command : commands) {
+			command.status = "failed";
+			command.message = message;
+		}
+	}
+
+	private void log(List<Command> chunk, Writer results) throws IOException {
+		for (Command command : chunk) {
+			Json.Writer json = new Json.Writer().beginObject()
+					.field("line", command.line)
+					.field("command", command.name)
+					.field("status", command.status);
+			if (command.message != null) {
+				json.field("message", command.message);
+			}
+			if (command.status.equals("ok")) {
+				if (command.name.equals("invite")) {
+					json.field("label", command.label).field("userId", command.userId).field("otp", command.otp);
+				} else if (command.name.equals("article")) {
+					json.field("articleId", command.articleId);
+				}
+			}
+			results.write(json.endObject().toString());
+			results.write('\n');
+
+			switch (command.status) {
+				case "ok":
+					ok++;
+					break;
+				case "skipped":
+					skipped++;
+					break;
+				case "error":
+					errors++;
+					break;
+				default:
+					failed++;
+			}
+		}
+	}
+
+	// next CSV record, or null at the end of the script; recordLine is where it starts
+	private List<String> readRecord(BufferedReader in) throws IOException {
+		int c = in.read();
+		if (c == -1) {
+			return null;
+		}
+		line++;
+		int startLine = line;
+		List<String> fields = new ArrayList<>();
+		StringBuilder field = new StringBuilder();
+		boolean quoted = false;
+		while (true) {
+			if (quoted) {
+				if (c == -1) {
+					throw new IOException("Line " + startLine + ": a quoted field is never closed");
+				}
+				if (c == '"') {
+					in.mark(1);
+					if (in.read() == '"') {
+						field.append('"');
+					} else {
+						in.reset();
+						quoted = false;
+					}
+				} else {
+					if (c == '\n') {
+						line++;
+					}
+					field.append((char) c);
+				}
+			} else if (c == -1 || c == '\n') {
+				break;
+			} else if (c == ',') {
+				fields.add(field.toString());
+				field.setLength(0);
+			} else if (c == '"' && field.toString().isBlank()) {
+				field.setLength(0);
+				quoted = true;
+			} else if (c != '\r') {
+				field.append((char) c);
+			}
+			c = in.read();
+		}
+		fields.add(field.toString());
+		recordLine = startLine;
+		return fields;
+	}
+
+	/**
+	 * One script command: what was read, and once run, what became of it
+	 */
+	private static final class Command {
+		private final int line;
+		private final String name;
+		private String status;
+		private String message;
+
+		// group and link
+		private String group;
+		private boolean special;
+		// invite
+		private String label;
+		private boolean[] roles;
+		private int minutes;
+		private String otp;
+		// invite once written, or link by user id
+		private int userId = -1;
+		// link to a user invited by this script
+		private Command invite;
+		private String accessRole;
+		private boolean adminRights;
+		private boolean viewRights;
+		// article
+		private Article article;
+		private int articleId;
+
+		private Command(int line, String name) {
+			this.line = line;
+			this.name = name;
+		}
+	}
+}
@@ -0,0 +1,389 @@
+package simpleDatabase;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/***
+ * Loads articles into the articles table in bulk.
+ * <p>
+ * One INSERT statement is prepared up front and reused for every article.
+ * Rows are sent with addBatch/executeBatch and committed in chunks of
+ * batchSize * batchesPerCommit rows, so a restore does a handful of round
+ * trips and commits instead of one autocommit insert per article.
+ * </p>
+ * <p>
+ * After every commit the number of committed articles is written to a
+ * Checkpoint file next to the backup. If a restore dies part way through,
+ * the next restore of the same file resumes after the last committed chunk.
+ * </p>
+ * <p>
+ * Articles that carry group names (in groupId, as read from a binary backup)
+ * are linked back to those groups in the same batches. A group that no longer
+ * exists is recreated, as a special access group if the backup marked it as
+ * one (see BackupFormat) and as a general group otherwise. Groups that exist
+ * keep their flag.
+ * </p>
+ * <p>
+ * The Mode decides what happens to articles that already exist. INSERT (a
+ * full restore into an emptied table) simply inserts. REPLACE (replaying an
+ * incremental backup) overwrites them with MERGE and replaces their group
+ * links. UPSERT (a group restore) overwrites them too but only adds links,
+ * keeping the article's links to other groups. delete() removes the articles
+ * named by tombstones, leaving tombstones of its own. Every row written gets a
+ * new article version, so the next incremental backup picks up the restored
+ * state.
+ * </p>
+ *
+ * @author Abhave Abhilash and Aditya Gupta
+ * @version 1.0
+ * @since 10/9/2024
+ */
+class BulkArticleLoader implements AutoCloseable {
+
+	/**
+	 * How articles that already exist are treated
+	 */
+	enum Mode {
+		/** plain inserts; an existing id fails the batch */
+		INSERT,
+		/** overwrite the article and replace its group links */
+		REPLACE,
+		/** overwrite the article and add its group links, keeping any others */
+		UPSERT
+	}
+
+	/** Rows sent to H2 per executeBatch() */
+	static final int DEFAULT_BATCH_SIZE = 1000;
+
+	/** Batches per commit */
+	static final int DEFAULT_BATCHES_PER_COMMIT = 10;
+
+	private static final String INSERT_ARTICLE = "INSERT INTO articles (id, level, authors, title, short_description, keywords, body, reference_links, content_hash, updated_on) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+	private static final String UPSERT_ARTICLE = "MERGE INTO articles (id, level, authors, title, short_description, keywords, body, reference_links, content_hash, updated_on, version) KEY(id) "
+			+ "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, " + ArticleVersions.NEXT_VERSION + ")";
+	private static final String DELETE_ARTICLE = "DELETE FROM articles WHERE id = ?";
+	private static final String DELETE_LINKS = "DELETE FROM articleGroups WHERE article_id = ?";
+	private static final String INSERT_GROUP = "INSERT INTO groups (name, specialFlag) SELECT ?, ? WHERE NOT EXISTS (SELECT 1 FROM groups WHERE name = ?)";
+	private static final String INSERT_LINK = "MERGE INTO articleGroups (group_name, article_id) KEY(group_name, article_id) VALUES (?, ?)";
+
+	private final Connection conn;
+	private final PreparedStatement insert;
+	private final PreparedStatement insertGroup;
+	private final PreparedStatement insertLink;
+	private final PreparedStatement delete;
+	private final PreparedStatement tombstone;
+	private final PreparedStatement deleteLinks;
+	private final Set<String> groupsSeen = new HashSet<>();
+	private final int batchSize;
+	private final int batchesPerCommit;
+	private final Checkpoint checkpoint;
+	private final boolean autoCommit;
+
+	private long committed;
+	private long resumedFrom;
+	private int pendingRows = 0;
+	private int pendingBatches = 0;
+	private boolean pendingLinks = false;
+	private boolean pendingDeletes = false;
+	private final long startNanos = System.nanoTime();
+
+	/**
+	 * Start a bulk load on the given connection. The connection is switched to
+	 * manual commit until the loader is closed.
+	 *
+	 * @param conn connection to load through
+	 * @param batchSize rows per executeBatch()
+	 * @param batchesPerCommit batches per commit
+	 * @param checkpoint where to record progress, or null for no resume support
+	 * @param alreadyCommitted articles committed by an earlier, interrupted run
+	 * @throws SQLException
+	 */
+	BulkArticleLoader(Connection conn, int batchSize, int batchesPerCommit, Checkpoint checkpoint,
+			long alreadyCommitted) throws SQLException {
+		this(conn, batchSize, batchesPerCommit, checkpoint, alreadyCommitted, Mode.INSERT);
+	}
+
+	/**
+	 * Start a bulk load that may overwrite existing articles
+	 *
+	 * @param conn connection to load through
+	 * @param batchSize rows per executeBatch()
+	 * @param batchesPerCommit batches per commit
+	 * @param checkpoint where to record progress, or null for no resume support
+	 * @param alreadyCommitted articles committed by an earlier, interrupted run
+	 * @param mode how existing articles are treated
+	 * @throws SQLException
+	 */
+	BulkArticleLoader(Connection conn, int batchSize, int batchesPerCommit, Checkpoint checkpoint,
+			long alreadyCommitted, Mode mode) throws SQLException {
+		if (batchSize < 1 || batchesPerCommit < 1) {
+			throw new IllegalArgumentException("Batch size and batches per commit must be positive");
+		}
+		this.conn = conn;
+		this.batchSize = batchSize;
+		this.batchesPerCommit = batchesPerCommit;
+		this.checkpoint = checkpoint;
+		this.committed = alreadyCommitted;
+		this.resumedFrom = alreadyCommitted;
+		this.autoCommit = conn.getAutoCommit();
+		conn.setAutoCommit(false);
+		this.insert = conn.prepareStatement(mode == Mode.INSERT ? INSERT_ARTICLE : UPSERT_ARTICLE);
+		this.delete = conn.prepareStatement(DELETE_ARTICLE);
+		this.tombstone = conn.prepareStatement(ArticleVersions.TOMBSTONE);
+		this.deleteLinks = mode == Mode.REPLACE ? conn.prepareStatement(DELETE_LINKS) : null;
+		this.insertGroup = conn.prepareStatement(INSERT_GROUP);
+		this.insertLink = conn.prepareStatement(INSERT_LINK);
+	}
+
+	/**
+	 * Queue one article. Sends the batch and commits when the chunk is full.
+	 *
+	 * @param article article to insert, with its id set
+	 * @throws SQLException
+	 */
+	void add(Article article) throws SQLException {
+		add(article, 0);
+	}
+
+	/**
+	 * Queue one article that keeps its update time, as restores do
+	 *
+	 * @param article article to insert, with its id set
+	 * @param updatedMillis epoch milliseconds it was last updated, 0 for now
+	 * @throws SQLException
+	 */
+	void add(Article article, long updatedMillis) throws SQLException {
+		insert.setInt(1, article.getId());
+		insert.setString(2, emptyToNull(article.getLevel()));
+		insert.setString(3, emptyToNull(article.getAuthors()));
+		insert.setString(4, emptyToNull(article.getTitle()));
+		insert.setString(5, emptyToNull(article.getShortDescription()));
+		insert.setString(6, emptyToNull(article.getKeywords()));
+		insert.setString(7, emptyToNull(article.getBody()));
+		insert.setString(8, emptyToNull(article.getReferenceLinks()));
+		insert.setString(9, ArticleVersions.contentHash(article));
+		insert.setTimestamp(10, new Timestamp(updatedMillis == 0 ? System.currentTimeMillis() : updatedMillis));
+		insert.addBatch();
+		if (deleteLinks != null) {
+			deleteLinks.setInt(1, article.getId());
+			deleteLinks.addBatch();
+		}
+		pendingRows++;
+
+		for (String marked : ArticleService.groupNames(article)) {
+			String group = BackupFormat.groupName(marked);
+			if (groupsSeen.add(group)) {
+				insertGroup.setString(1, group);
+				insertGroup.setBoolean(2, BackupFormat.isSpecialGroup(marked));
+				insertGroup.setString(3, group);
+				insertGroup.addBatch();
+			}
+			insertLink.setString(1, group);
+			insertLink.setInt(2, article.getId());
+			insertLink.addBatch();
+			pendingLinks = true;
+		}
+
+		endRow();
+	}
+
+	/**
+	 * Queue the deletion of one article, for a tombstone in an incremental backup
+	 *
+	 * @param articleId article to delete
+	 * @throws SQLException
+	 */
+	void delete(int articleId) throws SQLException {
+		delete.setInt(1, articleId);
+		delete.addBatch();
+		tombstone.setInt(1, articleId);
+		tombstone.addBatch();
+		pendingDeletes = true;
+		pendingRows++;
+		endRow();
+	}
+
+	private void endRow() throws SQLException {
+		if (pendingRows == batchSize) {
+			executeBatches();
+			pendingBatches++;
+			pendingRows = 0;
+			if (pendingBatches == batchesPerCommit) {
+				commit(batchSize * batchesPerCommit);
+			}
+		}
+	}
+
+	/**
+	 * Queue a list of articles
+	 *
+	 * @param articles articles to insert
+	 * @throws SQLException
+	 */
+	void addAll(List<Article> articles) throws SQLException {
+		for (Article article : articles) {
+			add(article);
+		}
+	}
+
+	/**
+	 * Send and commit whatever is left, and remove the checkpoint since the
+	 * load is complete
+	 *
+	 * @return total number of articles loaded, including any resumed ones
+	 * @throws SQLException
+	 */
+	long finish() throws SQLException {
+		int rows = pendingBatches * batchSize + pendingRows;
+		if (pendingRows > 0) {
+			executeBatches();
+		}
+		commit(rows);
+		if (checkpoint != null) {
+			checkpoint.clear();
+		}
+		System.out.println(progress("Restore complete"));
+		return committed;
+	}
+
+	// deletes first, then articles, then any new groups, then the links that reference both
+	private void executeBatches() throws SQLException {
+		if (pendingDeletes) {
+			delete.executeBatch();
+			tombstone.executeBatch();
+			pendingDeletes = false;
+		}
+		insert.executeBatch();
+		if (deleteLinks != null) {
+			deleteLinks.executeBatch();
+		}
+		if (pendingLinks) {
+			insertGroup.executeBatch();
+			insertLink.executeBatch();
+			pendingLinks = false;
+		}
+	}
+
+	private void commit(int rows) throws SQLException {
+		conn.commit();
+		committed += rows;
+		pendingRows = 0;
+		pendingBatches = 0;
+		if (checkpoint != null) {
+			checkpoint.save(committed);
+		}
+		if (rows > 0) {
+			System.out.println(progress("Restored"));
+		}
+	}
+
+	// e.g. "Restored 120000 articles (48213 articles/s)"
+	private String progress(String prefix) {
+		double seconds = (System.nanoTime() - startNanos) / 1e9;
+		long rate = seconds > 0 ? Math.round((committed - resumedFrom) / seconds) : 0;
+		return String.format("%s %d articles (%d articles/s)", prefix, committed, rate);
+	}
+
+	/**
+	 * @return number of articles committed so far
+	 */
+	long getCommitted() {
+		return committed;
+	}
+
+	/**
+	 * Close the statement and put the connection back into its original commit
+	 * mode. Anything not yet committed is rolled back.
+	 */
+	@Override
+	public void close() throws SQLException {
+		try {
+			insert.close();
+			insertGroup.close();
+			insertLink.close();
+			delete.close();
+			tombstone.close();
+			if (deleteLinks != null) {
+				deleteLinks.close();
+			}
+			if (!conn.getAutoCommit()) {
+				conn.rollback();
+			}
+		} finally {
+			conn.setAutoCommit(autoCommit);
+		}
+	}
+
+	private static String emptyToNull(String value) {
+		return value == null || value.isEmpty() ? null : value;
+	}
+
+	/***
+	 * Progress file for a restore, stored next to the backup as
+	 * &lt;backup&gt;.restore-progress. It records the backup's size and last
+	 * modified time so a checkpoint is never applied to a different file.
+	 */
+	static final class Checkpoint {
+		private final File source;
+		private final File file;
+
+		private Checkpoint(File source) {
+			this.source = source;
+			this.file = new File(source.getPath() + ".restore-progress");
+		}
+
+		/**
+		 * @param source the backup file being restored
+		 * @return the checkpoint for that backup
+		 */
+		static Checkpoint forSource(File source) {
+			return new Checkpoint(source);
+		}
+
+		/**
+		 * @return articles committed by an interrupted restore of this same backup,
+		 *         or 0 when starting fresh
+		 */
+		long resumeFrom() {
+			if (!file.exists()) {
+				return 0;
+			}
+			try {
+				List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+				if (lines.size() == 3 && Long.parseLong(lines.get(0)) == source.length()
+						&& Long.parseLong(lines.get(1)) == source.lastModified()) {
+					return Long.parseLong(lines.get(2));
+				}
+			} catch (IOException | NumberFormatException e) {
+				System.err.println("Ignoring unreadable restore checkpoint " + file + ": " + e.getMessage());
+			}
+			return 0;
+		}
+
+		void save(long committed) {
+			File tmp = new File(file.getPath() + ".tmp");
+			String content = source.length() + "\n" + source.lastModified() + "\n" + committed + "\n";
+			try {
+				Files.write(tmp.toPath(), content.getBytes(StandardCharsets.UTF_8));
+				Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+						StandardCopyOption.ATOMIC_MOVE);
+			} catch (IOException e) {
+				System.err.println("Unable to write restore checkpoint " + file + ": " + e.getMessage());
+			}
+		}
+
+		void clear() {
+			file.delete();
+		}
+	}
+}
@@ -1,17 +1,73 @@
 package simpleDatabase;
 
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.RandomAccessFile;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class CSE360Test {
     static int numPassed = 0;
     static int numFailed = 0;
 
+    // the database a test opened, closed after it whether it passed or not
+    private DatabaseHelper openDatabase;
+
+    private DatabaseHelper connect(DatabaseHelper databaseHelper) throws SQLException {
+        openDatabase = databaseHelper;
+        databaseHelper.connectToDatabase();
+        return databaseHelper;
+    }
+
+    private DatabaseHelper inMemoryDatabase(String name, int maxConnections) throws SQLException {
+        return connect(new DatabaseHelper("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", 1, maxConnections));
+    }
+
+    @AfterEach
+    public void closeDatabase() {
+        if (openDatabase != null) {
+            openDatabase.closeConnection();
+            openDatabase = null;
+        }
+    }
+
+    // answers createArticle's prompts with a beginner article titled "test article" in CSE360
+    private static void createTestArticle(DatabaseHelper databaseHelper) throws SQLException {
+        String answers = "beginner\nTester\nCSE360\ntest article\nA test\ntest\nBody\nhttps://example.com\n";
+        Terminal.attach(new Terminal(new ByteArrayInputStream(answers.getBytes(StandardCharsets.UTF_8)), OutputStream.nullOutputStream()));
+        try {
+            databaseHelper.createArticle("t");
+        } finally {
+            Terminal.detach();
+        }
+    }
+
     @Test
     public void testUsername() {
         User user1 = new User("username", "password", "email", "firstName", "middleName", "lastName", "prefName", false, false, false, false, null);
@@ -77,48 +133,35 @@ public class CSE360Test {
 
     @Test
     public void testDefaultAdminInvitationCodeExistence() throws SQLException {
-        DatabaseHelper databaseHelper = new DatabaseHelper();
-        databaseHelper.connectToDatabase();
+        DatabaseHelper databaseHelper = connect(new DatabaseHelper());
         boolean result1 = databaseHelper.doesUserExist("doesnotexist");
         assertFalse(result1, "Test 1 failed");
         numPassed++;
-        databaseHelper.closeConnection();
     }
 
     @Test
     public void testViewAllArticles() throws SQLException {
-        DatabaseHelper databaseHelper = new DatabaseHelper();
-        databaseHelper.connectToDatabase();
-        databaseHelper.viewAllArticles("s");
+        DatabaseHelper databaseHelper = connect(new DatabaseHelper());
+        databaseHelper.viewAllArticles(databaseHelper.insertShellUser(false, false, true));
         System.out.println("Test 1 passed");
         numPassed++;
-        databaseHelper.closeConnection();
     }
     
     @Test
     public void testAddArticle() throws SQLException {
-        DatabaseHelper databaseHelper = new DatabaseHelper();
-        databaseHelper.connectToDatabase();
+        DatabaseHelper databaseHelper = connect(new DatabaseHelper());
 
         // Create a mock user
         User user = new User("testUser", "password", "email", "firstName", "middleName", "lastName", "prefName", false, true, false, false, null);
         databaseHelper.register(user.getUsername(), user.getPassword(), databaseHelper.insertShellUser(false, true, false));
 
-<<<<<<< HEAD
         // Add an article
-        databaseHelper.createArticle("t");
-=======
-        /*
-        // Test 2: View all articles test
-        databaseHelper.viewAllArticles("s");
-        System.out.println("Test 2 passed");
-        numPassed++;
-        */
->>>>>>> 45eb321935656fd7c007e6158c368e35de020664
+        createTestArticle(databaseHelper);
 
         // Verify the article was added
         String query = "SELECT COUNT(*) AS count FROM articles";
-        try (Statement stmt = databaseHelper.connection.createStatement();
+        try (Connection conn = databaseHelper.getConnection();
+             Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(query)) {
             if (rs.next()) {
                 assertTrue(rs.getInt("count") > 0, "Test add article failed");
@@ -126,18 +169,16 @@ public class CSE360Test {
         }
 
         numPassed++;
-        databaseHelper.closeConnection();
     }
     
     @Test
     public void testSearchArticle() throws SQLException {
-        DatabaseHelper databaseHelper = new DatabaseHelper();
-        databaseHelper.connectToDatabase();
+        DatabaseHelper databaseHelper = connect(new DatabaseHelper());
 
         // Add an article to search for
         User user = new User("testUser", "password", "email", "firstName", "middleName", "lastName", "prefName", false, true, false, false, null);
         databaseHelper.register(user.getUsername(), user.getPassword(), databaseHelper.insertShellUser(false, true, false));
-        databaseHelper.createArticle("t");
+        createTestArticle(databaseHelper);
 
         // Search for the article
         String level = "beginner";
@@ -146,7 +187,8 @@ public class CSE360Test {
 
         // Verify the search results
         String query = "SELECT COUNT(*) AS count FROM articles WHERE level = ? AND title LIKE ?";
-        try (PreparedStatement pstmt = databaseHelper.connection.prepareStatement(query)) {
+        try (Connection conn = databaseHelper.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query)) {
             pstmt.setString(1, level);
             pstmt.setString(2, "%" + search + "%");
             try (ResultSet rs = pstmt.executeQuery()) {
@@ -157,6 +199,998 @@ public class CSE360Test {
         }
 
         numPassed++;
+    }
+
+    @Test
+    public void testConnectionPoolReturnsConnections() throws SQLException {
+        ConnectionPool pool = new ConnectionPool("jdbc:h2:mem:poolTest", "sa", "", 1, 2, 500, 60_000, 8);
+        try {
+            Connection first = pool.borrow();
+            Connection second = pool.borrow();
+            assertEquals(2, pool.getActiveCount(), "Pool test failed");
+            assertThrows(SQLException.class, pool::borrow, "Pool should be bounded by its max size");
+
+            first.close();
+            assertEquals(1, pool.getActiveCount(), "Pool test failed");
+            assertTrue(first.isClosed(), "Returned connection should report closed");
+            try (Connection third = pool.borrow()) {
+                assertFalse(third.isClosed(), "Pool test failed");
+            }
+            second.close();
+            assertEquals(0, pool.getActiveCount(), "Pool test failed");
+        } finally {
+            pool.close();
+        }
+        numPassed++;
+    }
+
+    @Test
+    public void testConnectionPoolReplacesBrokenConnections() throws SQLException {
+        ConnectionPool pool = new ConnectionPool("jdbc:h2:mem:poolTopUpTest", "sa", "", 1, 2, 500, 60_000, 8);
+        try {
+            Connection borrowed = pool.borrow();
+            assertEquals(0, pool.getIdleCount(), "Pool top-up test failed");
+            // break the physical connection underneath the pooled one
+            borrowed.unwrap(Connection.class).close();
+            borrowed.close();
+            assertEquals(1, pool.getIdleCount(), "Broken connection was not replaced up to the minimum");
+            try (Connection conn = pool.borrow()) {
+                assertFalse(conn.isClosed(), "Replacement connection is not usable");
+            }
+        } finally {
+            pool.close();
+        }
+        numPassed++;
+    }
+
+    @Test
+    public void testStatementCacheReusesStatements() throws SQLException {
+        ConnectionPool pool = new ConnectionPool("jdbc:h2:mem:cacheTest", "sa", "", 1, 1, 500, 60_000, 8);
+        try {
+            String query = "SELECT ?";
+            for (int i = 0; i < 5; i++) {
+                try (Connection conn = pool.borrow(); PreparedStatement pstmt = conn.prepareStatement(query)) {
+                    pstmt.setInt(1, i);
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        assertTrue(rs.next(), "Statement cache test failed");
+                        assertEquals(i, rs.getInt(1), "Statement cache test failed");
+                    }
+                }
+            }
+            assertEquals(1, pool.getStatementCacheMisses(), "Query should only be parsed once");
+            assertEquals(4, pool.getStatementCacheHits(), "Statement cache test failed");
+
+            // a result set left open is closed when its statement goes back to the cache
+            ResultSet forgotten;
+            try (Connection conn = pool.borrow(); PreparedStatement pstmt = conn.prepareStatement(query)) {
+                pstmt.setInt(1, 5);
+                forgotten = pstmt.executeQuery();
+            }
+            assertTrue(forgotten.isClosed(), "Cached statement kept its result set open");
+
+            // a closed handle refuses calls, since the next borrower may already hold its statement
+            PreparedStatement stale;
+            try (Connection conn = pool.borrow(); PreparedStatement pstmt = conn.prepareStatement(query)) {
+                assertSame(conn, pstmt.getConnection(), "Statement handed out the physical connection");
+                stale = pstmt;
+            }
+            assertThrows(SQLException.class, () -> stale.setInt(1, 6), "Closed statement could still be rebound");
+            assertThrows(SQLException.class, stale::executeQuery, "Closed statement could still run");
+        } finally {
+            pool.close();
+        }
+        numPassed++;
+    }
+
+    @Test
+    public void testSchemaMigrationsAreIdempotent() throws SQLException {
+        ConnectionPool pool = new ConnectionPool("jdbc:h2:mem:migrationTest", "sa", "", 1, 1);
+        try {
+            try (Connection conn = pool.borrow()) {
+                assertEquals(1, SchemaMigrations.migrate(conn, 1), "Migration test failed");
+                assertEquals(SchemaMigrations.latestVersion(), SchemaMigrations.migrate(conn), "Migration test failed");
+                assertEquals(SchemaMigrations.latestVersion(), SchemaMigrations.migrate(conn), "Re-running migrations should be a no-op");
+                assertEquals(SchemaMigrations.latestVersion(), SchemaMigrations.currentVersion(conn), "Migration test failed");
+
+                // a migration interrupted after its DDL committed runs again from the start
+                try (Statement stmt = conn.createStatement()) {
+                    for (SchemaMigrations.Step step : SchemaMigrations.MIGRATIONS) {
+                        step.body.apply(stmt);
+                    }
+                }
+            }
+        } finally {
+            pool.close();
+        }
+        numPassed++;
+    }
+
+    @Test
+    public void testSearchIndexRanksAndFilters() {
+        SearchIndex index = new SearchIndex();
+        index.index(1, "beginner", "Intro to Java", "basics of java", "java,intro", "Gosling");
+        index.index(2, "expert", "Advanced SQL", "joins and indexes", "sql,h2", "Codd");
+        index.index(3, "beginner", "Java streams", "java java java streams", "java", "Goetz");
+        index.addGroup(1, "CSE360");
+        index.addGroup(2, "CSE360-01");
+        index.addGroup(3, "CSE240");
+
+        SearchIndex.SearchResult all = index.search("Java", "ALL", "ALL", 10);
+        assertEquals(2, all.total, "Search index test failed");
+        assertEquals(3, all.ids.get(0), "Article with the most matches should rank first");
+
+        assertEquals(List.of(1), index.search("java", "ALL", "CSE360", 10).ids, "Group filter failed");
+        assertEquals(List.of(), index.search("java", "ALL", "360", 10).ids, "Group filter matched part of a name");
+        assertEquals(List.of(2), index.search("codd", "expert", "ALL", 10).ids, "Author search failed");
+        assertEquals(List.of(1, 3), index.search("java", "Beginner", "ALL", 10).ids.stream().sorted().toList(),
+                "Level filter should ignore case");
+
+        // a blank query lists the filtered articles in id order
+        assertEquals(List.of(1, 3), index.search("", "BEGINNER", "ALL", 10).ids, "Blank query level filter failed");
+        assertEquals(List.of(2), index.search("", "ALL", "CSE360-01", 10).ids, "Blank query group filter failed");
+        assertEquals(List.of(), index.search("", "expert", "CSE360", 10).ids, "Blank query should apply both filters");
+        assertEquals(3, index.search("", "ALL", "ALL", 2).total, "Blank query total failed");
+        assertEquals(List.of(1, 2), index.search("", "ALL", "ALL", 2).ids, "Blank query limit failed");
+
+        index.index(1, "Expert", "Intro to Java", "basics of java", "java,intro", "Gosling");
+        assertEquals(List.of(1, 2), index.search("", "expert", "ALL", 10).ids, "Reindexed level not filed");
+        assertEquals(List.of(1), index.search("", "ALL", "CSE360", 10).ids, "Reindexing dropped the article's groups");
+        index.removeGroup("CSE360");
+        assertEquals(List.of(), index.search("java", "ALL", "CSE360", 10).ids, "Removed group still matches");
+
+        index.remove(3);
+        assertEquals(List.of(1), index.search("java", "ALL", "ALL", 10).ids, "Removed article still found");
+        numPassed++;
+    }
+
+    @Test
+    public void testMessageWriterStaysBounded() {
+        MessageWriter writer = new MessageWriter(2);
+        User user = new User("username", "password", "email", "firstName", "middleName", "lastName", "prefName", false, false, true, false, null);
+        assertTrue(writer.offer("generic", new Message("one", user)), "Message writer test failed");
+        assertTrue(writer.offer("specific", new Message("two", user)), "Message writer test failed");
+        assertFalse(writer.offer("generic", new Message("three", user)), "Full message queue accepted a message");
+        assertEquals(2, writer.pendingCount(), "Message writer test failed");
+        assertEquals(1, writer.rejected.sum(), "Rejected message was not counted");
+        numPassed++;
+    }
+
+    @Test
+    public void testArticleCacheEvictsByWeight() {
+        ArticleCache cache = new ArticleCache(10, 800);
+        cache.put(new Article(1, "beginner", "a", null, "One", "", "", "x".repeat(100), ""), cache.generation());
+        cache.put(new Article(2, "beginner", "a", null, "Two", "", "", "x".repeat(100), ""), cache.generation());
+        assertNotNull(cache.get(1), "Article cache test failed");
+
+        // too heavy for one entry, so never cached
+        cache.put(new Article(3, "beginner", "a", null, "Three", "", "", "x".repeat(500), ""), cache.generation());
+        assertNull(cache.get(3), "Oversized article was cached");
+
+        // 2 is now least recently used and has to go to fit the new entries
+        for (int id = 4; id <= 10; id++) {
+            cache.put(new Article(id, "beginner", "a", null, "More", "", "", "x".repeat(100), ""), cache.generation());
+        }
+        assertNull(cache.get(2), "Least recently used article was not evicted");
+        assertTrue(cache.weight() <= 800, "Article cache went over its weight limit");
+        assertTrue(cache.evictions.sum() > 0, "Evictions were not counted");
+
+        long before = cache.generation();
+        cache.invalidate(1);
+        cache.put(new Article(1, "beginner", "a", null, "Stale", "", "", "", ""), before);
+        assertNull(cache.get(1), "Stale load was cached after an invalidation");
+        numPassed++;
+    }
+
+    @Test
+    public void testArticleCacheEntryLimitBoundary() {
+        // one entry may weigh at most maxWeight / 8 = 100
+        ArticleCache cache = new ArticleCache(10, 800);
+        assertTrue(cache.accepts(100), "Article at the entry limit should be cacheable");
+        assertFalse(cache.accepts(101), "Article over the entry limit should not be cacheable");
+        assertTrue(cache.accepts(0), "Empty article should be cacheable");
+
+        cache.put(new Article(1, "beginner", "a", null, "At limit", "", "", "x".repeat(100), ""), cache.generation());
+        cache.put(new Article(2, "beginner", "a", null, "Over limit", "", "", "x".repeat(101), ""), cache.generation());
+        assertNotNull(cache.get(1), "Article at the entry limit was not cached");
+        assertNull(cache.get(2), "Article over the entry limit was cached");
+        assertEquals(100, cache.weight(), "Rejected article was counted in the weight");
+        numPassed++;
+    }
+
+    @Test
+    public void testArticleIdAllocatorNeverRepeats() throws Exception {
+        ConnectionPool pool = new ConnectionPool("jdbc:h2:mem:idtest;DB_CLOSE_DELAY=-1", "sa", "", 1, 4);
+        try {
+            try (Connection conn = pool.borrow()) {
+                SchemaMigrations.migrate(conn);
+            }
+            ArticleIdAllocator first = new ArticleIdAllocator(pool);
+            ArticleIdAllocator second = new ArticleIdAllocator(pool);
+            Set<Integer> ids = ConcurrentHashMap.newKeySet();
+            Thread[] threads = new Thread[4];
+            for (int t = 0; t < threads.length; t++) {
+                ArticleIdAllocator allocator = t % 2 == 0 ? first : second;
+                threads[t] = new Thread(() -> {
+                    for (int i = 0; i < 1000; i++) {
+                        try {
+                            ids.add(allocator.next());
+                        } catch (SQLException e) {
+                            throw new RuntimeException(e);
+                        }
+                    }
+                });
+                threads[t].start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            assertEquals(4000, ids.size(), "Article id allocator test failed");
+        } finally {
+            pool.close();
+        }
+        numPassed++;
+    }
+
+    @Test
+    public void testPermissionIndexFollowsGroupChanges() throws SQLException {
+        DatabaseHelper databaseHelper = inMemoryDatabase("permissiontest", 4);
+        int userId = databaseHelper.insertShellUser(false, true, false);
+        databaseHelper.register("permUser", "password", userId);
+        User user = new User("permUser", "password", "", "firstName", "middleName", "lastName", "prefName", false, true, false, false, null);
+        ArrayList<String> groups = new ArrayList<>(List.of("CSE360-SAG"));
+
+        // not a group yet, so nothing to be refused
+        assertTrue(databaseHelper.articleAuth(user, groups), "Permission index test failed");
+        assertTrue(databaseHelper.createSpecialGroup("CSE360-SAG"), "Permission index test failed");
+        assertFalse(databaseHelper.articleAuth(user, groups), "New special group was not enforced");
+        assertFalse(databaseHelper.checkSpecialViewAccess(userId, "CSE360-SAG"), "Permission index test failed");
+
+        databaseHelper.linkUserGroup("CSE360-SAG", userId, "i", true, true);
+        assertTrue(databaseHelper.checkSpecialViewAccess(userId, "CSE360-SAG"), "Link was not picked up");
+        assertTrue(databaseHelper.checkSpecialAdminAccess(userId, "CSE360-SAG"), "Link was not picked up");
+        assertTrue(databaseHelper.articleAuth(user, groups), "Link was not picked up");
+
+        databaseHelper.delUserGroup("CSE360-SAG", userId);
+        assertFalse(databaseHelper.checkSpecialViewAccess(userId, "CSE360-SAG"), "Unlink was not picked up");
+        assertFalse(databaseHelper.checkSpecialAdminAccess(userId, "CSE360-SAG"), "Unlink was not picked up");
+
+        databaseHelper.linkUserGroup("CSE360-SAG", userId, "i", false, true);
+        assertTrue(databaseHelper.checkSpecialViewAccess(userId, "CSE360-SAG"), "Permission index test failed");
+        assertFalse(databaseHelper.checkSpecialAdminAccess(userId, "CSE360-SAG"), "View-only link granted admin rights");
+
+        databaseHelper.delEntireGroup("CSE360-SAG");
+        assertFalse(databaseHelper.checkSpecialViewAccess(userId, "CSE360-SAG"), "Deleted group still grants rights");
+        assertTrue(databaseHelper.articleAuth(user, groups), "Deleted group is still special");
+        // a new group with the old name does not inherit the old rights
+        assertTrue(databaseHelper.createSpecialGroup("CSE360-SAG"), "Permission index test failed");
+        assertFalse(databaseHelper.checkSpecialViewAccess(userId, "CSE360-SAG"), "Recreated group inherited old rights");
+        assertFalse(databaseHelper.articleAuth(user, groups), "Recreated special group was not enforced");
+        numPassed++;
+    }
+
+    @Test
+    public void testArticleServiceBatchIsAllOrNothing() throws SQLException {
+        DatabaseHelper databaseHelper = inMemoryDatabase("servicetest", 4);
+        ArticleService service = databaseHelper.getArticleService();
+
+        List<Integer> ids = service.createArticles(List.of(
+                new Article(0, "beginner", "Gosling", "CSE360,CSE360-01", "Intro to Java", "basics", "java", "body", "links"),
+                new Article(0, "expert", "Codd", "CSE360", "Advanced SQL", "joins", "sql", "body", "links")),
+                ArticleService.NO_SPECIAL_RIGHTS);
+        assertEquals(2, ids.size(), "Article service test failed");
+        assertTrue(databaseHelper.groupExist("CSE360-01"), "Missing group was not created");
+
+        assertThrows(IllegalArgumentException.class, () -> service.createArticles(List.of(
+                new Article(0, "beginner", "Suess", "CSE240", "Fine", "", "", "", ""),
+                new Article(0, "not a level", "Suess", "CSE240", "Broken", "", "", "", "")),
+                ArticleService.NO_SPECIAL_RIGHTS), "Invalid article was accepted");
+        assertFalse(databaseHelper.groupExist("CSE240"), "Rejected batch was partly written");
+
+        assertEquals(2, service.deleteArticles(ids, ArticleService.NO_SPECIAL_RIGHTS), "Article service test failed");
+        numPassed++;
+    }
+
+    @Test
+    public void testArticleListingPages() throws SQLException {
+        DatabaseHelper databaseHelper = inMemoryDatabase("pagetest", 4);
+        List<Article> articles = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            articles.add(new Article(0, "beginner", "Suess", "CSE360,CSE360-01", "Article " + i, "abstract", "", "", ""));
+        }
+        databaseHelper.getArticleService().createArticles(articles, ArticleService.NO_SPECIAL_RIGHTS);
+        int userId = databaseHelper.insertShellUser(false, false, true);
+        databaseHelper.linkUserGroup("CSE360", userId, "s", false, true);
+        databaseHelper.linkUserGroup("CSE360-01", userId, "s", false, true);
+
+        List<Integer> seen = new ArrayList<>();
+        int cursor = ArticlePage.START;
+        int pages = 0;
+        ArticlePage page;
+        do {
+            page = databaseHelper.listArticles(userId, null, null, cursor, 2);
+            page.articles.forEach(a -> seen.add(a.getId()));
+            cursor = page.nextCursor;
+            pages++;
+        } while (page.hasMore);
+        assertEquals(3, pages, "Article paging test failed");
+        assertEquals(5, new HashSet<>(seen).size(), "Articles repeated or missing across pages");
+        assertEquals(5, seen.size(), "Articles repeated or missing across pages");
+        numPassed++;
+    }
+
+    @Test
+    public void testBackupRoundTripsMultilineFields() throws Exception {
+        File file = File.createTempFile("articles", ".bak");
+        file.deleteOnExit();
+        try (BackupWriter writer = new BackupWriter(file)) {
+            writer.write(new Article(1, "beginner", "Suess", "CSE360,CSE360-01", "One", "first line\nsecond line", "", "body\n\nmore body", null));
+            writer.write(new Article(2, "expert", "Suess", null, "Two", "abstract", "", "x".repeat(2_000_000), ""));
+            writer.finish();
+        }
+        try (BackupReader reader = new BackupReader(file)) {
+            assertEquals(2, reader.getExpectedRecords(), "Backup header test failed");
+            Article first = reader.next();
+            assertEquals("body\n\nmore body", first.getBody(), "Multiline body did not survive the backup");
+            assertEquals("first line\nsecond line", first.getShortDescription(), "Backup round trip test failed");
+            assertEquals("CSE360,CSE360-01", first.getGroupId(), "Article groups were not backed up");
+            assertNull(first.getReferenceLinks(), "Backup round trip test failed");
+            assertEquals(2_000_000, reader.next().getBody().length(), "Large body did not survive the backup");
+            assertNull(reader.next(), "Backup round trip test failed");
+        }
+
+        // flip one byte in the middle of the first record
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(BackupFormat.HEADER_SIZE + 12);
+            int b = raf.read();
+            raf.seek(BackupFormat.HEADER_SIZE + 12);
+            raf.write(b ^ 1);
+        }
+        try (BackupReader reader = new BackupReader(file)) {
+            assertThrows(IOException.class, reader::next, "Damaged backup record was not detected");
+        }
+        numPassed++;
+    }
+
+    @Test
+    public void testBackupWithoutUsersRoundTrips() throws Exception {
+        DatabaseHelper databaseHelper = inMemoryDatabase("backupnousers", 4);
+        // articles but no users, as in a freshly restored system
+        List<Integer> ids = databaseHelper.getArticleService().createArticles(List.of(
+                new Article(0, "beginner", "Suess", "CSE360", "One", "", "", "body", ""),
+                new Article(0, "expert", "Suess", "CSE360", "Two", "", "", "body", "")),
+                ArticleService.NO_SPECIAL_RIGHTS);
+
+        File file = File.createTempFile("nousers", ".bak");
+        file.deleteOnExit();
+        databaseHelper.backupAllArticles("a", file.getPath());
+        assertTrue(file.length() > 0, "Articles were not backed up");
+
+        databaseHelper.deleteAllArticles("a");
+        databaseHelper.restoreAllArticles("a", file.getPath());
+        assertEquals("Two", databaseHelper.getArticleSummary(ids.get(1)).getTitle(), "Backup without users did not restore");
+        numPassed++;
+    }
+
+    @Test
+    public void testCompressedBackupIsSmaller() throws Exception {
+        File plain = File.createTempFile("plain", ".bak");
+        File packed = File.createTempFile("packed", ".bak");
+        plain.deleteOnExit();
+        packed.deleteOnExit();
+        try (BackupWriter raw = new BackupWriter(plain, 0); BackupWriter deflated = new BackupWriter(packed, 6)) {
+            for (int id = 1; id <= 200; id++) {
+                Article article = new Article(id, "beginner", "Suess", "CSE360", "Title " + id, "abstract", "", "The body of an article. ".repeat(100), "");
+                raw.write(article);
+                deflated.write(article);
+            }
+            raw.finish();
+            deflated.finish();
+            assertTrue(deflated.getBytesWritten() * 5 < raw.getBytesWritten(), "Compressed backup test failed");
+            assertEquals(raw.getRawBytes(), deflated.getRawBytes(), "Compressed backup test failed");
+        }
+        try (BackupReader reader = new BackupReader(packed)) {
+            assertEquals(100, reader.skip(100), "Compressed backup test failed");
+            assertEquals(101, reader.next().getId(), "Compressed backup did not read back");
+        }
+        numPassed++;
+    }
+
+    @Test
+    public void testIncrementalBackupReplaysChain() throws Exception {
+        DatabaseHelper databaseHelper = inMemoryDatabase("incrementaltest", 4);
+        ArticleService service = databaseHelper.getArticleService();
+        List<Integer> ids = service.createArticles(List.of(
+                new Article(0, "beginner", "Suess", "CSE360", "Kept", "", "", "body", ""),
+                new Article(0, "beginner", "Suess", "CSE360", "Changed", "", "", "body", ""),
+                new Article(0, "beginner", "Suess", "CSE360", "Deleted", "", "", "body", "")),
+                ArticleService.NO_SPECIAL_RIGHTS);
+
+        File full = File.createTempFile("full", ".bak");
+        File incremental = File.createTempFile("incremental", ".bak");
+        full.deleteOnExit();
+        incremental.deleteOnExit();
+        databaseHelper.backupAllArticles("a", full.getPath());
+
+        service.updateArticles(List.of(new Article(ids.get(1), "expert", "Suess", "CSE360", "Changed again", "", "", "new body", "")));
+        service.deleteArticles(List.of(ids.get(2)), ArticleService.NO_SPECIAL_RIGHTS);
+        int added = service.createArticle(new Article(0, "beginner", "Suess", "CSE360", "Added", "", "", "body", ""), ArticleService.NO_SPECIAL_RIGHTS);
+        databaseHelper.backupIncremental("a", full.getPath(), incremental.getPath());
+
+        databaseHelper.deleteAllArticles("a");
+        databaseHelper.restoreBackupChain("a", incremental.getPath());
+        assertNotNull(databaseHelper.getArticleSummary(ids.get(0)), "Incremental backup test failed");
+        assertEquals("Changed again", databaseHelper.getArticleSummary(ids.get(1)).getTitle(), "Changed article was not replayed");
+        assertNull(databaseHelper.getArticleSummary(ids.get(2)), "Deleted article came back");
+        assertNotNull(databaseHelper.getArticleSummary(added), "Added article was not replayed");
+        numPassed++;
+    }
+
+    @Test
+    public void testIncrementalBackupCatchesLateCommits() throws Exception {
+        DatabaseHelper databaseHelper = inMemoryDatabase("latecommittest", 4);
+        int id = databaseHelper.getArticleService().createArticle(new Article(0, "beginner", "Suess", "CSE360", "Original", "", "", "body", ""),
+                ArticleService.NO_SPECIAL_RIGHTS);
+        File full = File.createTempFile("full", ".bak");
+        File incremental = File.createTempFile("incremental", ".bak");
+        full.deleteOnExit();
+        incremental.deleteOnExit();
+
+        // the change draws its version before the full backup's mark but commits after the backup scanned
+        try (Connection late = databaseHelper.getConnection()) {
+            late.setAutoCommit(false);
+            try (Statement stmt = late.createStatement()) {
+                stmt.executeUpdate("UPDATE articles SET title = 'Committed late' WHERE id = " + id);
+            }
+            ArticleVersions.touch(late, id);
+            databaseHelper.backupAllArticles("a", full.getPath());
+            late.commit();
+        }
+        databaseHelper.backupIncremental("a", full.getPath(), incremental.getPath());
+
+        databaseHelper.deleteAllArticles("a");
+        databaseHelper.restoreBackupChain("a", incremental.getPath());
+        assertEquals("Committed late", databaseHelper.getArticleSummary(id).getTitle(), "Late commit fell between two backups");
+        numPassed++;
+    }
+
+    @Test
+    public void testParallelBackupRestoresEveryArticleOnce() throws Exception {
+        DatabaseHelper databaseHelper = inMemoryDatabase("paralleltest", 4);
+        List<Article> articles = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            String groups = i % 3 == 0 ? "CSE360,CSE365" : (i % 3 == 1 ? "CSE360" : "CSE365");
+            articles.add(new Article(0, "beginner", "Suess", groups, "Article " + i, "abstract", "", "body " + i, ""));
+        }
+        List<Integer> ids = databaseHelper.getArticleService().createArticles(articles, ArticleService.NO_SPECIAL_RIGHTS);
+
+        File set = File.createTempFile("parallel", ".bak");
+        set.deleteOnExit();
+        databaseHelper.backupGroupsParallel("a", List.of(), set.getPath());
+        assertTrue(ParallelBackup.isSegmentSet(set), "Parallel backup test failed");
+        // one segment per group and the catch-up segment, which is empty since nothing changed
+        List<File> segments = ParallelBackup.segmentFiles(set);
+        assertEquals(3, segments.size(), "Parallel backup test failed");
+        long written = 0;
+        for (File segment : segments) {
+            try (BackupReader reader = new BackupReader(segment)) {
+                written += reader.getExpectedRecords();
+            }
+        }
+        assertEquals(ids.size(), written, "Articles in both groups were written twice");
+
+        databaseHelper.restoreAllArticles("a", set.getPath());
+        for (int id : ids) {
+            assertNotNull(databaseHelper.getArticleSummary(id), "Article missing after parallel backup and restore");
+        }
+        for (File segment : ParallelBackup.segmentFiles(set)) {
+            segment.delete();
+        }
+        numPassed++;
+    }
+
+    @Test
+    public void testInterruptedRestoreResumes() throws Exception {
+        DatabaseHelper databaseHelper = inMemoryDatabase("resumetest", 4);
+        ArticleService service = databaseHelper.getArticleService();
+        List<Article> articles = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            articles.add(new Article(0, "beginner", "Suess", "CSE360", "Article " + i, "", "", String.format("resume body %02d", i), ""));
+        }
+        List<Integer> ids = service.createArticles(articles, ArticleService.NO_SPECIAL_RIGHTS);
+        File backup = File.createTempFile("resume", ".bak");
+        File progress = new File(backup.getPath() + ".restore-progress");
+        backup.deleteOnExit();
+        progress.deleteOnExit();
+        databaseHelper.backupAllArticles("a", backup.getPath(), 0);
+        long modified = backup.lastModified();
+        int notBackedUp = service.createArticle(new Article(0, "beginner", "Suess", "CSE360", "After the backup", "", "", "body", ""),
+                ArticleService.NO_SPECIAL_RIGHTS);
+
+        // damage the 18th record so the restore fails after committing its first 10 (one row per batch, 10 batches per commit)
+        byte[] bytes = Files.readAllBytes(backup.toPath());
+        int damaged = new String(bytes, StandardCharsets.ISO_8859_1).indexOf("resume body 17");
+        bytes[damaged] ^= 1;
+        Files.write(backup.toPath(), bytes);
+        backup.setLastModified(modified);
+        databaseHelper.restoreAllArticles("a", backup.getPath(), 1);
+        assertTrue(progress.exists(), "Interrupted restore left no checkpoint");
+        assertEquals(10, BulkArticleLoader.Checkpoint.forSource(backup).resumeFrom(), "Checkpoint does not match the committed chunk");
+        assertEquals(10, countRows(databaseHelper, "SELECT COUNT(*) FROM articles"), "Interrupted restore did not keep its committed chunk");
+        assertEquals(1, countRows(databaseHelper, "SELECT COUNT(*) FROM article_tombstones WHERE article_id = " + notBackedUp),
+                "Fresh restore did not tombstone the article it wiped");
+
+        // an edit to a committed article shows whether the next restore resumes or starts over
+        service.updateArticles(List.of(new Article(ids.get(0), "beginner", "Suess", "CSE360", "Kept by the resume", "", "", "resume body 00", "")));
+
+        // the repaired file is the same backup, so the next restore carries on after the committed chunk
+        bytes[damaged] ^= 1;
+        Files.write(backup.toPath(), bytes);
+        backup.setLastModified(modified);
+        databaseHelper.restoreAllArticles("a", backup.getPath(), 1);
+        assertFalse(progress.exists(), "Finished restore left its checkpoint");
+        assertEquals(0, BulkArticleLoader.Checkpoint.forSource(backup).resumeFrom(), "Finished restore left its checkpoint");
+        assertEquals("Kept by the resume", databaseHelper.getArticleSummary(ids.get(0)).getTitle(), "Restore started over instead of resuming");
+        assertEquals(25, countRows(databaseHelper, "SELECT COUNT(DISTINCT id) FROM articles"), "Resumed restore has gaps");
+        assertEquals(25, countRows(databaseHelper, "SELECT COUNT(*) FROM articles"), "Resumed restore repeated articles");
+        for (int id : ids) {
+            assertNotNull(databaseHelper.getArticleSummary(id), "Article missing after resumed restore");
+        }
+        assertNull(databaseHelper.getArticleSummary(notBackedUp), "Article from after the backup survived the restore");
+
+        // without a checkpoint the restore starts over and wipes what is there
+        int added = service.createArticle(new Article(0, "beginner", "Suess", "CSE360", "Added since", "", "", "body", ""),
+                ArticleService.NO_SPECIAL_RIGHTS);
+        databaseHelper.restoreAllArticles("a", backup.getPath(), 1);
+        assertNull(databaseHelper.getArticleSummary(added), "Fresh restore did not wipe the articles table");
+        assertEquals(1, countRows(databaseHelper, "SELECT COUNT(*) FROM article_tombstones WHERE article_id = " + added),
+                "Fresh restore did not tombstone the article it wiped");
+        assertEquals(25, countRows(databaseHelper, "SELECT COUNT(*) FROM articles"), "Fresh restore test failed");
+        numPassed++;
+    }
+
+    private static int countRows(DatabaseHelper databaseHelper, String query) throws SQLException {
+        try (Connection conn = databaseHelper.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(query)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    @Test
+    public void testRestoreGroupArticlesLeavesOtherGroups() throws Exception {
+        DatabaseHelper databaseHelper = inMemoryDatabase("grouprestoretest", 4);
+        ArticleService service = databaseHelper.getArticleService();
+        List<Integer> ids = service.createArticles(List.of(
+                new Article(0, "beginner", "Suess", "CSE360", "Edited", "", "", "body", ""),
+                new Article(0, "beginner", "Suess", "CSE360", "Deleted", "", "", "body", ""),
+                new Article(0, "beginner", "Suess", "CSE365", "Other group", "", "", "body", "")),
+                ArticleService.NO_SPECIAL_RIGHTS);
+        File backup = File.createTempFile("group", ".bak");
+        backup.deleteOnExit();
+        databaseHelper.backupAllArticles("a", backup.getPath());
+
+        service.updateArticles(List.of(
+                new Article(ids.get(0), "beginner", "Suess", "CSE360", "Edited since", "", "", "body", ""),
+                new Article(ids.get(2), "beginner", "Suess", "CSE365", "Other group edited", "", "", "body", "")));
+        service.deleteArticles(List.of(ids.get(1)), ArticleService.NO_SPECIAL_RIGHTS);
+
+        databaseHelper.restoreGroupArticles("a", backup.getPath(), "CSE360");
+        assertEquals("Edited", databaseHelper.getArticleSummary(ids.get(0)).getTitle(), "Group article was not restored");
+        assertNotNull(databaseHelper.getArticleSummary(ids.get(1)), "Deleted group article was not restored");
+        assertEquals("Other group edited", databaseHelper.getArticleSummary(ids.get(2)).getTitle(), "Group restore touched another group");
+        numPassed++;
+    }
+
+    @Test
+    public void testRestoreRecreatesSpecialGroups() throws Exception {
+        DatabaseHelper databaseHelper = inMemoryDatabase("specialbackuptest", 4);
+        int userId = databaseHelper.insertShellUser(false, true, false);
+        databaseHelper.register("sagAdmin", "password", userId);
+        assertTrue(databaseHelper.createSpecialGroup("CSE360-SAG"), "Special group restore test failed");
+        databaseHelper.linkUserGroup("CSE360-SAG", userId, "i", true, true);
+        databaseHelper.getArticleService().createArticles(List.of(
+                new Article(0, "beginner", "Suess", "CSE360,CSE360-SAG", "Secret", "", "", "secret body", "")), userId);
+        File backup = File.createTempFile("special", ".bak");
+        backup.deleteOnExit();
+        databaseHelper.backupAllArticles("a", backup.getPath());
         databaseHelper.closeConnection();
+
+        // an empty database has neither group, so the restores have to create them
+        DatabaseHelper restored = inMemoryDatabase("specialrestoretest", 4);
+        restored.restoreAllArticles("a", backup.getPath());
+        assertTrue(restored.isGroupSpecial("CSE360-SAG"), "Full restore recreated a special group as general");
+        assertFalse(restored.isGroupSpecial("CSE360"), "Full restore made a general group special");
+        User student = new User("student", "password", "", "firstName", "middleName", "lastName", "prefName", false, false, true, false, null);
+        assertFalse(restored.articleAuth(student, new ArrayList<>(List.of("CSE360-SAG"))), "Restored special group was not enforced");
+        restored.closeConnection();
+
+        DatabaseHelper groupRestored = inMemoryDatabase("specialgrouprestoretest", 4);
+        groupRestored.restoreGroupArticles("a", backup.getPath(), "CSE360-SAG");
+        assertTrue(groupRestored.isGroupSpecial("CSE360-SAG"), "Group restore recreated a special group as general");
+        assertEquals(1, groupRestored.findArticles("ALL", "CSE360-SAG", "").total, "Special group articles were not restored");
+        numPassed++;
+    }
+
+    @Test
+    public void testRestoreMergeFollowsConflictPolicy() throws Exception {
+        DatabaseHelper databaseHelper = inMemoryDatabase("mergetest", 4);
+        ArticleService service = databaseHelper.getArticleService();
+        List<Integer> ids = service.createArticles(List.of(
+                new Article(0, "beginner", "Suess", "CSE360", "Edited", "", "", "body", ""),
+                new Article(0, "beginner", "Suess", "CSE360", "Deleted", "", "", "body", ""),
+                new Article(0, "beginner", "Suess", "CSE360", "Untouched", "", "", "body", "")),
+                ArticleService.NO_SPECIAL_RIGHTS);
+        File backup = File.createTempFile("merge", ".bak");
+        backup.deleteOnExit();
+        databaseHelper.backupAllArticles("a", backup.getPath());
+
+        service.updateArticles(List.of(
+                new Article(ids.get(0), "beginner", "Suess", "CSE360", "Edited since", "", "", "body", "")));
+        service.deleteArticles(List.of(ids.get(1)), ArticleService.NO_SPECIAL_RIGHTS);
+
+        databaseHelper.restoreMerge("a", backup.getPath(), ArticleMerger.Policy.KEEP_EXISTING);
+        assertEquals("Edited since", databaseHelper.getArticleSummary(ids.get(0)).getTitle(), "Merge overwrote an existing article");
+        assertNotNull(databaseHelper.getArticleSummary(ids.get(1)), "Merge did not restore a missing article");
+        databaseHelper.restoreMerge("a", backup.getPath(), ArticleMerger.Policy.KEEP_NEWER);
+        assertEquals("Edited since", databaseHelper.getArticleSummary(ids.get(0)).getTitle(), "Merge replaced a newer article");
+        databaseHelper.restoreMerge("a", backup.getPath(), ArticleMerger.Policy.OVERWRITE);
+        assertEquals("Edited", databaseHelper.getArticleSummary(ids.get(0)).getTitle(), "Merge did not overwrite a changed article");
+        assertEquals("Untouched", databaseHelper.getArticleSummary(ids.get(2)).getTitle(), "Merge restore test failed");
+        numPassed++;
+    }
+
+    // merges a backup into six live articles, one per case the policies have to settle:
+    // 1 identical, 2 live newer, 3 backup newer, 4 live time unknown, 5 not live, 6 backup time unknown
+    private List<String> mergeWithPolicy(String name, ArticleMerger.Policy policy, long[] counts) throws Exception {
+        long earlier = 1_700_000_000_000L;
+        long later = earlier + 60_000;
+        ConnectionPool pool = new ConnectionPool("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "", 1, 2);
+        try (Connection conn = pool.borrow()) {
+            SchemaMigrations.migrate(conn);
+            try (BulkArticleLoader loader = new BulkArticleLoader(conn, 10, 1, null, 0)) {
+                loader.add(new Article(1, "beginner", "a", null, "Same", "", "", "body", ""), earlier);
+                loader.add(new Article(2, "beginner", "a", null, "Live newer", "", "", "body", ""), later);
+                loader.add(new Article(3, "beginner", "a", null, "Live older", "", "", "body", ""), earlier);
+                loader.add(new Article(4, "beginner", "a", null, "Live undated", "", "", "body", ""), earlier);
+                loader.add(new Article(6, "beginner", "a", null, "Live dated", "", "", "body", ""), earlier);
+                loader.finish();
+            }
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("UPDATE articles SET updated_on = NULL WHERE id = 4");
+            }
+
+            try (ArticleMerger merger = new ArticleMerger(conn, policy)) {
+                merger.add(new Article(1, "beginner", "a", null, "Same", "", "", "body", ""), earlier);
+                merger.add(new Article(2, "beginner", "a", null, "Backup older", "", "", "body", ""), earlier);
+                merger.add(new Article(3, "beginner", "a", null, "Backup newer", "", "", "body", ""), later);
+                merger.add(new Article(4, "beginner", "a", null, "Backup of undated", "", "", "body", ""), later);
+                merger.add(new Article(5, "beginner", "a", null, "Backup only", "", "", "body", ""), earlier);
+                merger.add(new Article(6, "beginner", "a", null, "Backup undated", "", "", "body", ""), 0);
+                merger.finish();
+                counts[0] = merger.getInserted();
+                counts[1] = merger.getOverwritten();
+                counts[2] = merger.getUnchanged();
+                counts[3] = merger.getKept();
+            }
+
+            List<String> titles = new ArrayList<>();
+            try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery("SELECT title FROM articles ORDER BY id")) {
+                while (rs.next()) {
+                    titles.add(rs.getString(1));
+                }
+            }
+            return titles;
+        } finally {
+            pool.close();
+        }
+    }
+
+    @Test
+    public void testMergeKeepExistingKeepsEveryConflict() throws Exception {
+        long[] counts = new long[4];
+        List<String> titles = mergeWithPolicy("mergekeeptest", ArticleMerger.Policy.KEEP_EXISTING, counts);
+        assertEquals(List.of("Same", "Live newer", "Live older", "Live undated", "Backup only", "Live dated"), titles,
+                "KEEP_EXISTING changed a live article");
+        assertArrayEquals(new long[] { 1, 0, 1, 4 }, counts, "KEEP_EXISTING counts are wrong");
+        numPassed++;
+    }
+
+    @Test
+    public void testMergeOverwriteReplacesEveryConflict() throws Exception {
+        long[] counts = new long[4];
+        List<String> titles = mergeWithPolicy("mergeoverwritetest", ArticleMerger.Policy.OVERWRITE, counts);
+        assertEquals(List.of("Same", "Backup older", "Backup newer", "Backup of undated", "Backup only", "Backup undated"), titles,
+                "OVERWRITE kept a live article");
+        assertArrayEquals(new long[] { 1, 4, 1, 0 }, counts, "OVERWRITE counts are wrong");
+        numPassed++;
+    }
+
+    @Test
+    public void testMergeKeepNewerReplacesOnlyOlderArticles() throws Exception {
+        long[] counts = new long[4];
+        List<String> titles = mergeWithPolicy("mergenewertest", ArticleMerger.Policy.KEEP_NEWER, counts);
+        // an unknown update time on either side keeps the live article
+        assertEquals(List.of("Same", "Live newer", "Backup newer", "Live undated", "Backup only", "Live dated"), titles,
+                "KEEP_NEWER did not compare update times");
+        assertArrayEquals(new long[] { 1, 1, 1, 3 }, counts, "KEEP_NEWER counts are wrong");
+        numPassed++;
+    }
+
+    @Test
+    public void testApiServesConcurrentSessions() throws Exception {
+        DatabaseHelper databaseHelper = inMemoryDatabase("apitest", 8);
+        List<Integer> ids = databaseHelper.getArticleService().createArticles(List.of(
+                new Article(0, "beginner", "Suess", "CSE360", "Served", "abstract", "", "the body", "")),
+                ArticleService.NO_SPECIAL_RIGHTS);
+        int userId = databaseHelper.insertShellUser(false, false, true);
+        databaseHelper.register("apiStudent", "password", userId);
+        databaseHelper.linkUserGroup("CSE360", userId, "s", false, true);
+
+        ApiServer api = new ApiServer(databaseHelper, 0);
+        api.start();
+        try {
+            HttpClient client = HttpClient.newHttpClient();
+            String base = "http://localhost:" + api.getPort() + "/api/";
+            HttpResponse<String> login = client.send(HttpRequest.newBuilder(URI.create(base + "login"))
+                    .POST(HttpRequest.BodyPublishers.ofString("{\"userName\": \"apiStudent\", \"password\": \"password\"}")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, login.statusCode(), "API login test failed");
+            String token = Json.parseObject(login.body()).get("token").toString();
+
+            List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                String path = i % 2 == 0 ? "articles" : "articles/" + ids.get(0);
+                responses.add(client.sendAsync(HttpRequest.newBuilder(URI.create(base + path))
+                        .header("Authorization", "Bearer " + token).GET().build(), HttpResponse.BodyHandlers.ofString()));
+            }
+            for (CompletableFuture<HttpResponse<String>> response : responses) {
+                assertEquals(200, response.get().statusCode(), "Concurrent API request failed");
+                assertTrue(response.get().body().contains("Served"), "API response is missing the article");
+            }
+            HttpResponse<String> anonymous = client.send(HttpRequest.newBuilder(URI.create(base + "articles")).GET().build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(401, anonymous.statusCode(), "API served a request without a session");
+        } finally {
+            api.stop();
+        }
+        numPassed++;
+    }
+
+    @Test
+    public void testApiGroupWritesReportTheirOutcome() throws Exception {
+        DatabaseHelper databaseHelper = inMemoryDatabase("apigrouptest", 4);
+        int articleId = databaseHelper.getArticleService().createArticle(new Article(0, "beginner", "Suess", "CSE360", "Linked", "", "", "body", ""),
+                ArticleService.NO_SPECIAL_RIGHTS);
+        databaseHelper.register("apiAdmin", "password", databaseHelper.insertShellUser(true, false, false));
+
+        ApiServer api = new ApiServer(databaseHelper, 0);
+        api.start();
+        try {
+            HttpClient client = HttpClient.newHttpClient();
+            String base = "http://localhost:" + api.getPort() + "/api/";
+            HttpResponse<String> login = client.send(HttpRequest.newBuilder(URI.create(base + "login"))
+                    .POST(HttpRequest.BodyPublishers.ofString("{\"userName\": \"apiAdmin\", \"password\": \"password\"}")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            String auth = "Bearer " + Json.parseObject(login.body()).get("token");
+            HttpRequest.Builder createGroup = HttpRequest.newBuilder(URI.create(base + "groups")).header("Authorization", auth)
+                    .POST(HttpRequest.BodyPublishers.ofString("{\"name\": \"CSE365\", \"special\": false}"));
+            HttpRequest.Builder link = HttpRequest.newBuilder(URI.create(base + "groups/CSE365/articles")).header("Authorization", auth)
+                    .POST(HttpRequest.BodyPublishers.ofString("{\"articleId\": " + articleId + "}"));
+            HttpRequest.Builder deleteGroup = HttpRequest.newBuilder(URI.create(base + "groups/CSE365")).header("Authorization", auth).DELETE();
+
+            assertEquals(201, client.send(createGroup.build(), HttpResponse.BodyHandlers.ofString()).statusCode(), "API group create failed");
+            assertEquals(409, client.send(createGroup.build(), HttpResponse.BodyHandlers.ofString()).statusCode(), "API created a group twice");
+            assertEquals(204, client.send(link.build(), HttpResponse.BodyHandlers.ofString()).statusCode(), "API article link failed");
+            assertEquals(409, client.send(link.build(), HttpResponse.BodyHandlers.ofString()).statusCode(), "API linked an article twice");
+            assertEquals(Set.of("CSE360", "CSE365"), new HashSet<>(databaseHelper.getGroupsForAnArticle(articleId)), "Article link was not stored");
+            assertEquals(204, client.send(deleteGroup.build(), HttpResponse.BodyHandlers.ofString()).statusCode(), "API group delete failed");
+            assertEquals(404, client.send(deleteGroup.build(), HttpResponse.BodyHandlers.ofString()).statusCode(), "API deleted a missing group");
+            assertFalse(databaseHelper.groupExist("CSE365"), "Deleted group is still registered");
+        } finally {
+            api.stop();
+        }
+        numPassed++;
+    }
+
+    @Test
+    public void testTerminalServerKeepsSessionsApart() throws Exception {
+        TerminalServer server = new TerminalServer(0, terminal -> {
+            System.out.print("Enter your name: ");
+            String name = Terminal.current().scanner().nextLine();
+            String next = Terminal.current().scanner().nextLine();
+            System.out.println("Hello " + name + ", then " + next);
+        });
+        server.start();
+        try {
+            List<Socket> sockets = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                Socket socket = new Socket("localhost", server.getPort());
+                socket.getOutputStream().write(("user" + i + "\r\n").getBytes(StandardCharsets.UTF_8));
+                sockets.add(socket);
+            }
+            // every session is waiting on its second line at once
+            for (int i = sockets.size() - 1; i >= 0; i--) {
+                Socket socket = sockets.get(i);
+                socket.getOutputStream().write(("step" + i + "\n").getBytes(StandardCharsets.UTF_8));
+                String output = new String(socket.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+                assertTrue(output.contains("Hello user" + i + ", then step" + i), "Terminal session input was mixed up");
+                socket.close();
+            }
+        } finally {
+            server.stop();
+        }
+        numPassed++;
+    }
+
+    @Test
+    public void testLoginCyclesKeepStackFlat() throws Exception {
+        DatabaseHelper databaseHelper = inMemoryDatabase("logincycles", 4);
+        databaseHelper.register("cycleStudent", "password", databaseHelper.insertShellUser(false, false, true));
+
+        int[] menuDepth = runLoginCycles(databaseHelper, "cycleStudent", 5_000, null);
+        assertFalse(databaseHelper.openSession("cycleStudent", "password").getUser().getOTP(), "Account setup did not run");
+        assertTrue(menuDepth[1] <= menuDepth[0], "Menu stack grew from " + menuDepth[0] + " to " + menuDepth[1] + " frames");
+        numPassed++;
+    }
+
+    // takes several minutes, so it only runs when asked for with -Dsoak=true
+    @Test
+    @EnabledIfSystemProperty(named = "soak", matches = "true")
+    public void testMillionLoginCyclesKeepStackAndHeapFlat() throws Exception {
+        DatabaseHelper databaseHelper = inMemoryDatabase("soaktest", 4);
+        databaseHelper.register("soakStudent", "password", databaseHelper.insertShellUser(false, false, true));
+
+        long[] usedHeap = new long[2];
+        int[] menuDepth = runLoginCycles(databaseHelper, "soakStudent", 1_000_000, usedHeap);
+        assertFalse(databaseHelper.openSession("soakStudent", "password").getUser().getOTP(), "Account setup did not run");
+        assertTrue(menuDepth[1] <= menuDepth[0], "Menu stack grew from " + menuDepth[0] + " to " + menuDepth[1] + " frames");
+        assertTrue(usedHeap[1] - usedHeap[0] < 16 * 1024 * 1024,
+                "Heap grew from " + usedHeap[0] + " to " + usedHeap[1] + " bytes over the login cycles");
+        numPassed++;
+    }
+
+    /**
+     * Log a student in and out of the console menus, the first time through
+     * account setup. The script hands the Scanner one line per read, so every
+     * prompt is sampled for the StartCSE360 frames waiting under it.
+     *
+     * @return the deepest menu stack in the first login cycle, and in all later ones
+     */
+    private int[] runLoginCycles(DatabaseHelper databaseHelper, String userName, int cycles, long[] usedHeap) throws Exception {
+        byte[] setup = ("1\n" + userName + "\npassword\nSoak\n\nTester\nSoak\nsoak@asu.edu\n1\n").getBytes(StandardCharsets.UTF_8);
+        byte[] cycle = ("1\n" + userName + "\npassword\n1\n").getBytes(StandardCharsets.UTF_8);
+        byte[] exit = "3\n".getBytes(StandardCharsets.UTF_8);
+        int[] menuDepth = new int[2];
+        InputStream script = new InputStream() {
+            private int done = -1;
+            private byte[] current = setup;
+            private int pos = 0;
+
+            @Override
+            public int read() {
+                byte[] one = new byte[1];
+                return read(one, 0, 1) == -1 ? -1 : one[0];
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                if (pos == current.length) {
+                    if (current == exit) {
+                        return -1;
+                    }
+                    done++;
+                    if (usedHeap != null && (done == cycles / 10 || done == cycles)) {
+                        System.gc();
+                        Runtime runtime = Runtime.getRuntime();
+                        usedHeap[done == cycles ? 1 : 0] = runtime.totalMemory() - runtime.freeMemory();
+                    }
+                    current = done == cycles ? exit : cycle;
+                    pos = 0;
+                }
+
+                // how many menu frames are on the stack while they wait for this line
+                int depth = 0;
+                for (StackTraceElement frame : Thread.currentThread().getStackTrace()) {
+                    if (frame.getClassName().startsWith(StartCSE360.class.getName())) {
+                        depth++;
+                    }
+                }
+                if (done >= 0) {
+                    int window = done == 0 ? 0 : 1;
+                    menuDepth[window] = Math.max(menuDepth[window], depth);
+                }
+
+                int count = 0;
+                while (count < len && pos < current.length) {
+                    byte next = current[pos++];
+                    b[off + count++] = next;
+                    if (next == '\n') {
+                        break;
+                    }
+                }
+                return count;
+            }
+        };
+
+        // the menus print with System.out, which would otherwise fill the test log
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        Terminal.attach(new Terminal(script, OutputStream.nullOutputStream()));
+        try {
+            new StartCSE360(databaseHelper).run();
+        } finally {
+            Terminal.detach();
+            System.setOut(console);
+        }
+        return menuDepth;
+    }
+
+    @Test
+    public void testBatchScriptProvisionsInChunks() throws Exception {
+        DatabaseHelper databaseHelper = inMemoryDatabase("batchtest", 4);
+        int students = BatchRunner.CHUNK_SIZE * 2;
+        StringBuilder commands = new StringBuilder("# one section of a course\ngroup,CSE360\n");
+        for (int i = 0; i < students; i++) {
+            commands.append("invite,student").append(i).append(",s\n");
+            commands.append("link,CSE360,student").append(i).append(",s,false,true\n");
+        }
+        commands.append("link,NoSuchGroup,student0,s,false,true\n");
+        commands.append("article,beginner,CSE360,\"Welcome, everyone\",Staff,\"first line\nsecond line\",intro,the body,\n");
+        File script = File.createTempFile("provision", ".csv");
+        File results = new File(script.getPath() + ".results.jsonl");
+        Files.writeString(script.toPath(), commands.toString());
+        try {
+            BatchRunner runner = databaseHelper.runBatch(script.getPath(), null);
+            assertEquals(1 + students * 2 + 1, runner.getOk(), "Batch commands did not all run");
+            assertEquals(1, runner.getErrors(), "Batch link to a missing group was not rejected");
+
+            List<String> lines = Files.readAllLines(results.toPath());
+            assertEquals(students * 2 + 4, lines.size(), "Results log needs a line per command and a summary");
+            Map<String, Object> invite = Json.parseObject(lines.get(1));
+            assertEquals("student0", invite.get("label"), "Results log is out of order");
+            assertEquals(((Long) invite.get("userId")).intValue(), databaseHelper.verifyOTP((String) invite.get("otp")),
+                    "Batch invitation code does not register the invited user");
+
+            try (Connection conn = databaseHelper.getConnection();
+                 Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM groupRights WHERE group_name = 'CSE360'")) {
+                assertTrue(rs.next() && rs.getInt(1) == students, "Batch group links are missing");
+            }
+            assertEquals(1, databaseHelper.findArticles("ALL", "CSE360", "welcome").total, "Batch article was not imported");
+        } finally {
+            script.delete();
+            results.delete();
+        }
+        numPassed++;
+    }
+
+    @Test
+    public void testBulkInvitationsGetUniqueCodes() throws Exception {
+        DatabaseHelper databaseHelper = inMemoryDatabase("invitetest", 4);
+        List<Invitations.Invitation> invitations = databaseHelper.inviteUsers(10_000, false, false, true, 60);
+
+        Set<String> codes = new HashSet<>();
+        Set<Integer> ids = new HashSet<>();
+        for (Invitations.Invitation invitation : invitations) {
+            codes.add(invitation.getCode());
+            ids.add(invitation.getUserId());
+        }
+        assertEquals(10_000, codes.size(), "Invitation codes repeat");
+        assertEquals(10_000, ids.size(), "Invited users share an id");
+        Invitations.Invitation last = invitations.get(invitations.size() - 1);
+        assertEquals(last.getUserId(), databaseHelper.verifyOTP(last.getCode()), "Invitation code does not belong to its user");
+
+        File export = File.createTempFile("invitations", ".csv");
+        try {
+            databaseHelper.exportInvitations(invitations, export.getPath());
+            List<String> lines = Files.readAllLines(export.toPath());
+            assertEquals(10_001, lines.size(), "Exported invitations are missing");
+            assertTrue(lines.get(1).startsWith(invitations.get(0).getUserId() + "," + invitations.get(0).getCode() + ",s,"),
+                    "Exported invitation does not match");
+        } finally {
+            export.delete();
+        }
+        numPassed++;
     }
-}
\ No newline at end of file
+}
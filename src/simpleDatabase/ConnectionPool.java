@@ -0,0 +1,394 @@
+package simpleDatabase;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/***
+ * A bounded pool of H2 connections shared by every DatabaseHelper operation.
+ * <p>
+ * Callers borrow a connection for a single operation and hand it back by
+ * closing it, so the usual try-with-resources blocks return the connection to
+ * the pool instead of tearing down the H2 session. The pool never holds more
+ * than maxSize physical connections. It opens minSize of them up front, and
+ * when a broken connection is discarded it opens replacements until minSize
+ * are open again. Connections opened beyond minSize under load stay idle in
+ * the pool rather than being closed when they come back.
+ * </p>
+ * <p>
+ * Every borrow is recorded with the time and the stack trace of the caller. A
+ * background task reports any connection that has been held longer than the
+ * leak threshold so forgotten close() calls show up in the logs. The same task
+ * retries the top-up to minSize if reopening a connection failed earlier.
+ * </p>
+ * <p>
+ * Each physical connection carries its own StatementCache, and prepareStatement
+ * calls on a borrowed connection are served from it.
+ * </p>
+ *
+ * @author Abhave Abhilash and Aditya Gupta
+ * @version 1.0
+ * @since 10/9/2024
+ */
+class ConnectionPool {
+
+	/** How long borrow() waits for a free connection before giving up */
+	static final long DEFAULT_BORROW_TIMEOUT_MS = 30_000;
+
+	/** How long a connection may be held before it is reported as a leak */
+	static final long DEFAULT_LEAK_THRESHOLD_MS = 60_000;
+
+	private final String url;
+	private final String user;
+	private final String pass;
+	private final int minSize;
+	private final int maxSize;
+	private final long borrowTimeoutMs;
+	private final long leakThresholdMs;
+	private final int statementCacheSize;
+
+	// permits bound the total number of connections that can be lent out at once
+	private final Semaphore permits;
+	private final LinkedBlockingDeque<Physical> idle = new LinkedBlockingDeque<>();
+	private final Map<Connection, Lease> leased = new ConcurrentHashMap<>();
+	// every live physical connection, used to add up statement cache statistics
+	private final Set<Physical> open = ConcurrentHashMap.newKeySet();
+	private final ScheduledExecutorService leakDetector;
+
+	private volatile boolean closed = false;
+
+	/**
+	 * Create a pool with the default borrow timeout and leak threshold
+	 *
+	 * @param url JDBC url of the database
+	 * @param user database user
+	 * @param pass database password
+	 * @param minSize connections opened up front and replaced when discarded
+	 * @param maxSize upper bound on open connections
+	 * @throws SQLException if the initial connections cannot be opened
+	 */
+	ConnectionPool(String url, String user, String pass, int minSize, int maxSize) throws SQLException {
+		this(url, user, pass, minSize, maxSize, DEFAULT_BORROW_TIMEOUT_MS, DEFAULT_LEAK_THRESHOLD_MS,
+				StatementCache.DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Create a pool and open minSize connections
+	 *
+	 * @param url JDBC url of the database
+	 * @param user database user
+	 * @param pass database password
+	 * @param minSize connections opened up front and replaced when discarded
+	 * @param maxSize upper bound on open connections
+	 * @param borrowTimeoutMs how long borrow() waits for a free connection
+	 * @param leakThresholdMs how long a connection may be held before it is reported
+	 * @param statementCacheSize prepared statements cached per connection, 0 to disable
+	 * @throws SQLException if the initial connections cannot be opened
+	 */
+	ConnectionPool(String url, String user, String pass, int minSize, int maxSize,
+			long borrowTimeoutMs, long leakThresholdMs, int statementCacheSize) throws SQLException {
+		if (minSize < 0 || maxSize < 1 || minSize > maxSize) {
+			throw new IllegalArgumentException("Invalid pool size: min=" + minSize + ", max=" + maxSize);
+		}
+		this.url = url;
+		this.user = user;
+		this.pass = pass;
+		this.minSize = minSize;
+		this.maxSize = maxSize;
+		this.borrowTimeoutMs = borrowTimeoutMs;
+		this.leakThresholdMs = leakThresholdMs;
+		this.statementCacheSize = statementCacheSize;
+		this.permits = new Semaphore(maxSize, true);
+
+		for (int i = 0; i < minSize; i++) {
+			idle.add(openPhysical());
+		}
+
+		leakDetector = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "connection-leak-detector");
+			t.setDaemon(true);
+			return t;
+		});
+		long period = Math.max(1000, leakThresholdMs / 2);
+		leakDetector.scheduleAtFixedRate(() -> {
+			reportLeaks();
+			topUp();
+		}, period, period, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Borrow a connection for one operation. Closing the returned connection
+	 * gives it back to the pool.
+	 *
+	 * @return a pooled connection
+	 * @throws SQLException if the pool is closed or no connection frees up in time
+	 */
+	Connection borrow() throws SQLException {
+		if (closed) {
+			throw new SQLException("Connection pool is closed");
+		}
+		try {
+			if (!permits.tryAcquire(borrowTimeoutMs, TimeUnit.MILLISECONDS)) {
+				throw new SQLException("Timed out after " + borrowTimeoutMs + "ms waiting for a database connection ("
+						+ leased.size() + "/" + maxSize + " in use)");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SQLException("Interrupted while waiting for a database connection", e);
+		}
+
+		try {
+			Physical physical = takeIdle();
+			Connection pooled = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+					new Class<?>[] { Connection.class }, new PooledConnection(physical));
+			leased.put(pooled, new Lease());
+			return pooled;
+		} catch (SQLException | RuntimeException e) {
+			permits.release();
+			throw e;
+		}
+	}
+
+	// reuse an idle connection if a healthy one is available, otherwise open a new one
+	private Physical takeIdle() throws SQLException {
+		Physical physical;
+		while ((physical = idle.pollFirst()) != null) {
+			if (!physical.connection.isClosed()) {
+				return physical;
+			}
+			closeQuietly(physical);
+		}
+		return openPhysical();
+	}
+
+	private Physical openPhysical() throws SQLException {
+		Connection connection = DriverManager.getConnection(url, user, pass);
+		Physical physical = new Physical(connection, new StatementCache(connection, statementCacheSize));
+		open.add(physical);
+		return physical;
+	}
+
+	// called by PooledConnection.close()
+	private void release(Connection pooled, Physical physical) {
+		if (leased.remove(pooled) == null) {
+			return; // already returned
+		}
+		try {
+			if (closed) {
+				closeQuietly(physical);
+			} else if (physical.connection.isClosed()) {
+				closeQuietly(physical);
+				topUp();
+			} else {
+				// never hand the next borrower a half-finished transaction
+				if (!physical.connection.getAutoCommit()) {
+					physical.connection.rollback();
+					physical.connection.setAutoCommit(true);
+				}
+				if (idle.size() >= maxSize) {
+					closeQuietly(physical);
+				} else {
+					idle.addFirst(physical);
+				}
+			}
+		} catch (SQLException e) {
+			System.err.println("DB issue returning a connection to the pool: " + e.getMessage());
+			closeQuietly(physical);
+			topUp();
+		} finally {
+			permits.release();
+		}
+	}
+
+	// open idle connections until minSize are open again
+	private synchronized void topUp() {
+		while (!closed && open.size() < minSize) {
+			try {
+				idle.addLast(openPhysical());
+			} catch (SQLException e) {
+				System.err.println("DB issue reopening a pooled connection: " + e.getMessage());
+				return;
+			}
+		}
+	}
+
+	// log every connection that has been borrowed for longer than the threshold
+	private void reportLeaks() {
+		long now = System.currentTimeMillis();
+		for (Lease lease : leased.values()) {
+			long held = now - lease.borrowedAt;
+			if (held > leakThresholdMs && !lease.reported) {
+				lease.reported = true;
+				System.err.println("Possible connection leak: connection held for " + held + "ms by "
+						+ lease.thread + ", borrowed at:");
+				lease.origin.printStackTrace();
+			}
+		}
+	}
+
+	/**
+	 * @return number of connections currently lent out
+	 */
+	int getActiveCount() {
+		return leased.size();
+	}
+
+	/**
+	 * @return number of open connections waiting to be borrowed
+	 */
+	int getIdleCount() {
+		return idle.size();
+	}
+
+	/**
+	 * @return prepared statements served from a statement cache
+	 */
+	long getStatementCacheHits() {
+		long total = 0;
+		for (Physical physical : open) {
+			total += physical.statements.hits.sum();
+		}
+		return total;
+	}
+
+	/**
+	 * @return prepared statements that had to be parsed by H2
+	 */
+	long getStatementCacheMisses() {
+		long total = 0;
+		for (Physical physical : open) {
+			total += physical.statements.misses.sum();
+		}
+		return total;
+	}
+
+	/**
+	 * @return configured minimum number of connections
+	 */
+	int getMinSize() {
+		return minSize;
+	}
+
+	/**
+	 * @return configured maximum number of connections
+	 */
+	int getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * Close every idle connection and stop handing out new ones. Connections that
+	 * are still borrowed are closed when they are returned.
+	 */
+	synchronized void close() {
+		closed = true;
+		leakDetector.shutdownNow();
+		Physical physical;
+		while ((physical = idle.pollFirst()) != null) {
+			closeQuietly(physical);
+		}
+		if (!leased.isEmpty()) {
+			System.err.println("Closing pool with " + leased.size() + " connection(s) still borrowed");
+		}
+	}
+
+	private void closeQuietly(Physical physical) {
+		open.remove(physical);
+		physical.statements.close();
+		try {
+			physical.connection.close();
+		} catch (SQLException e) {
+			System.err.println("Database error while closing connection: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * A real H2 connection together with its prepared statement cache
+	 */
+	private static final class Physical {
+		private final Connection connection;
+		private final StatementCache statements;
+
+		private Physical(Connection connection, StatementCache statements) {
+			this.connection = connection;
+			this.statements = statements;
+		}
+	}
+
+	/**
+	 * Bookkeeping for one borrowed connection, used for leak detection
+	 */
+	private static final class Lease {
+		private final long borrowedAt = System.currentTimeMillis();
+		private final String thread = Thread.currentThread().getName();
+		private final Throwable origin = new Throwable("connection borrowed here");
+		private volatile boolean reported = false;
+	}
+
+	/**
+	 * Forwards every call to the physical connection except close(), which
+	 * returns the connection to the pool instead, and prepareStatement(), which
+	 * goes through the statement cache.
+	 */
+	private final class PooledConnection implements InvocationHandler {
+		private final Physical physical;
+		private boolean returned = false;
+
+		private PooledConnection(Physical physical) {
+			this.physical = physical;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			switch (method.getName()) {
+				case "close": {
+					if (!returned) {
+						returned = true;
+						release((Connection) proxy, physical);
+					}
+					return null;
+				}
+				case "isClosed": {
+					return returned || physical.connection.isClosed();
+				}
+				case "equals": {
+					return proxy == args[0];
+				}
+				case "hashCode": {
+					return System.identityHashCode(proxy);
+				}
+				case "toString": {
+					return "PooledConnection[" + physical.connection + "]";
+				}
+				case "prepareStatement": {
+					if (returned) {
+						throw new SQLException("Connection has already been returned to the pool");
+					}
+					return physical.statements.prepare((Connection) proxy, method, args);
+				}
+				default: {
+					if (returned) {
+						throw new SQLException("Connection has already been returned to the pool");
+					}
+					try {
+						return method.invoke(physical.connection, args);
+					} catch (InvocationTargetException e) {
+						throw e.getCause();
+					}
+				}
+			}
+		}
+	}
+}
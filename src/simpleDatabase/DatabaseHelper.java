@@ -1,12 +1,12 @@
 package simpleDatabase;
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -35,17 +35,73 @@ class DatabaseHelper {
 	static final String USER = "sa";
 	static final String PASS = "";
 
-	public Connection connection = null;
-	private Statement statement = null;
+	// Connection pool sizing - every operation borrows one connection and returns it when done
+	static final int POOL_MIN_SIZE = 2;
+	static final int POOL_MAX_SIZE = 16;
 
-	private Scanner scanner = new Scanner(System.in);
+	private final String dbUrl;
+	private final int poolMinSize;
+	private final int poolMaxSize;
+	private ConnectionPool pool = null;
+
+	// full-text index behind searchArticle, kept current by every article write path
+	private final SearchIndex searchIndex = new SearchIndex();
+
+	// per-user group rights as bitsets, used by the article authorization checks
+	private PermissionIndex permissions = null;
+
+	// hands out article ids in blocks reserved from a database sequence
+	private ArticleIdAllocator idAllocator = null;
+
+	// every group and its special flag, so group checks need no query
+	private final GroupRegistry groupRegistry = new GroupRegistry();
+
+	// recently viewed articles
+	private final ArticleCache articleCache = new ArticleCache();
+
+	// the article create/update/delete logic behind the console prompts
+	private ArticleService articleService = null;
+
+	// articles per page in the console listings
+	private static final int ARTICLE_PAGE_SIZE = 20;
+
+	// most search hits listed at once
+	static final int SEARCH_RESULT_LIMIT = 100;
+
+	// the console, or the terminal session the calling thread is serving
+	private static Scanner scanner() {
+		return Terminal.current().scanner();
+	}
 	// PreparedStatement pstmt
 
 	/**
 	 * Blank constructor
 	 */
 	public DatabaseHelper() {
+		this(POOL_MIN_SIZE, POOL_MAX_SIZE);
+	}
+
+	/**
+	 * Constructor with a custom connection pool size
+	 * 
+	 * @param poolMinSize connections kept open at all times
+	 * @param poolMaxSize most connections that can be in use at once
+	 */
+	public DatabaseHelper(int poolMinSize, int poolMaxSize) {
+		this(DB_URL, poolMinSize, poolMaxSize);
+	}
 
+	/**
+	 * Constructor for a database other than the default one
+	 * 
+	 * @param dbUrl JDBC url of the database
+	 * @param poolMinSize connections kept open at all times
+	 * @param poolMaxSize most connections that can be in use at once
+	 */
+	public DatabaseHelper(String dbUrl, int poolMinSize, int poolMaxSize) {
+		this.dbUrl = dbUrl;
+		this.poolMinSize = poolMinSize;
+		this.poolMaxSize = poolMaxSize;
 	}
 
 	/**
@@ -57,84 +113,100 @@ class DatabaseHelper {
 		try {
 			Class.forName(JDBC_DRIVER); // Load the JDBC driver
 			System.out.println("Connecting to database...");
-			connection = DriverManager.getConnection(DB_URL, USER, PASS);
-			statement = connection.createStatement();
-			createTables(); // Create the necessary tables if they don't exist
+			pool = new ConnectionPool(dbUrl, USER, PASS, poolMinSize, poolMaxSize);
+			createTables(); // Create the necessary tables if they don't exist and migrate the schema
+			rebuildSearchIndex();
+			permissions = new PermissionIndex(pool);
+			permissions.load();
+			groupRegistry.load(pool);
+			idAllocator = new ArticleIdAllocator(pool);
+			HelpSystem.start(pool);
+			articleService = new ArticleService(pool, idAllocator, groupRegistry, searchIndex, articleCache, permissions, encryptionHelper);
 		} catch (ClassNotFoundException e) {
 			System.err.println("JDBC Driver not found: " + e.getMessage());
 		}
 	}
 
 	/**
-	 * create and initiate our user and otp tables
+	 * Borrow a connection from the pool. The caller must close it, which returns
+	 * it to the pool.
+	 * 
+	 * @return a pooled connection
+	 * @throws SQLException
+	 */
+	public Connection getConnection() throws SQLException {
+		if (pool == null) {
+			throw new SQLException("Not connected to the database");
+		}
+		return pool.borrow();
+	}
+
+	/**
+	 * @return number of prepared statements served from the per-connection caches
+	 */
+	public long getStatementCacheHits() {
+		return pool == null ? 0 : pool.getStatementCacheHits();
+	}
+
+	/**
+	 * @return number of prepared statements that H2 had to parse and plan
+	 */
+	public long getStatementCacheMisses() {
+		return pool == null ? 0 : pool.getStatementCacheMisses();
+	}
+
+	/**
+	 * @return fraction of article views served from the article cache
+	 */
+	public double getArticleCacheHitRate() {
+		return articleCache.hitRate();
+	}
+
+	/**
+	 * @return number of articles evicted from the article cache to make room
+	 */
+	public long getArticleCacheEvictions() {
+		return articleCache.evictions.sum();
+	}
+
+	/**
+	 * @return the non-interactive article API, for creating, updating and deleting
+	 *         articles without the console prompts
+	 */
+	ArticleService getArticleService() {
+		return articleService;
+	}
+
+	/**
+	 * create our tables if they don't exist and apply any pending schema migrations
 	 * 
 	 * @throws SQLException
 	 */
 	private void createTables() throws SQLException {
-		// String dropUsers = "DROP TABLE IF EXISTS cse360users";
-		// statement.execute(dropUsers);
-		String userTable = "CREATE TABLE IF NOT EXISTS cse360users ("
-
-				+ "id INT AUTO_INCREMENT PRIMARY KEY, "
-				+ "userName VARCHAR(255), "
-				+ "email VARCHAR(255), "
-				+ "password VARCHAR(255), "
-				// first name
-				+ "firstName VARCHAR(255), "
-				// last name
-				+ "lastName VARCHAR(255), "
-				// middle name
-				+ "middleName VARCHAR(255), "
-				// preferred first
-				+ "preferredFirst VARCHAR(255), "
-				// user role sia
-				+ "adminFlag BOOLEAN DEFAULT FALSE, "
-				+ "teachFlag BOOLEAN DEFAULT FALSE, "
-				+ "studFlag BOOLEAN DEFAULT FALSE, "
-				+ "otpFlag BOOLEAN DEFAULT FALSE) ";
-		statement.execute(userTable);
-
-		// create otp table, with id, otp, expiry time and user role(s)
-		String otpTable = "CREATE TABLE IF NOT EXISTS otpTable ("
-				+ "otp VARCHAR(255) PRIMARY KEY, "
-				+ "expiryTime TIMESTAMP, "
-				+ "user_id INT, "
-				+ "FOREIGN KEY(user_id) REFERENCES cse360users(id) ON DELETE CASCADE)";
-		statement.execute(otpTable);
-
-		String articlesTable = "CREATE TABLE IF NOT EXISTS articles ("
-				+ "id INT AUTO_INCREMENT PRIMARY KEY, "
-				+ "level VARCHAR(20), " // level (beginner, intermediate, advanced, expert)
-				+ "authors VARCHAR(100), "
-				+ "title VARCHAR(255) NOT NULL, " // title
-				+ "short_description CLOB, " // short_description/abstract
-				+ "keywords VARCHAR(255), " // keywords
-				+ "body CLOB, " // body
-				+ "reference_links VARCHAR(255)" // reference_links
-				+ ")";
-		statement.execute(articlesTable);
-
-		String groups = "CREATE TABLE IF NOT EXISTS groups ("
-			+ "name VARCHAR(255) PRIMARY KEY, "
-			+ "specialFlag BOOLEAN DEFAULT FALSE)";
-		statement.execute(groups);
-
-		String articleGroupsTable = "CREATE TABLE IF NOT EXISTS articleGroups ("
-			+ "group_name VARCHAR(255), "
-			+ "article_id INT, " 
-			+ "FOREIGN KEY(group_name) REFERENCES groups(name) ON DELETE CASCADE, "
-			+ "FOREIGN KEY(article_id) REFERENCES articles(id) ON DELETE CASCADE)";
-		statement.execute(articleGroupsTable);
-
-		String groupRightsTable = "CREATE TABLE IF NOT EXISTS groupRights ("
-			+ "user_id INT, "
-			+ "group_name VARCHAR(255), "
-			+ "accessRole VARCHAR(1), "
-			+ "adminRightsFlag BOOLEAN DEFAULT FALSE, "
-			+ "viewRightsFlag BOOLEAN DEFAULT FALSE, "
-			+ "FOREIGN KEY(user_id) REFERENCES cse360users(id) ON DELETE CASCADE, "
-			+ "FOREIGN KEY(group_name) REFERENCES groups(name) ON DELETE CASCADE)";
-		statement.execute(groupRightsTable);
+		try (Connection conn = pool.borrow()) {
+			SchemaMigrations.migrate(conn);
+		}
+	}
+
+	/**
+	 * Load every article and its group links into the search index
+	 * 
+	 * @throws SQLException
+	 */
+	private void rebuildSearchIndex() throws SQLException {
+		searchIndex.clear();
+		try (Connection conn = pool.borrow(); Statement stmt = conn.createStatement()) {
+			try (ResultSet rs = stmt.executeQuery("SELECT id, level, title, short_description, keywords, authors FROM articles")) {
+				while (rs.next()) {
+					searchIndex.index(rs.getInt(1), rs.getString(2), rs.getString(3), rs.getString(4), rs.getString(5), rs.getString(6));
+				}
+			}
+			try (ResultSet rs = stmt.executeQuery("SELECT article_id, group_name FROM articleGroups")) {
+				while (rs.next()) {
+					searchIndex.addGroup(rs.getInt(1), rs.getString(2));
+				}
+			}
+		}
 	}
 
 	/**
@@ -145,38 +217,59 @@ class DatabaseHelper {
 	 */
 	public boolean isDatabaseEmpty() throws SQLException {
 		String query = "SELECT COUNT(*) AS count FROM cse360users";
-		ResultSet resultSet = statement.executeQuery(query);
-		if (resultSet.next()) {
-			return resultSet.getInt("count") == 0;
+		try (Connection conn = pool.borrow(); Statement statement = conn.createStatement();
+				ResultSet resultSet = statement.executeQuery(query)) {
+			if (resultSet.next()) {
+				return resultSet.getInt("count") == 0;
+			}
 		}
 		return true;
 	}
 
-	public boolean groupExist(String checkGroup) {
-		String query = "SELECT COUNT(*) AS count FROM groups WHERE name = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-			pstmt.setString(1, checkGroup);
-			try (ResultSet rs = pstmt.executeQuery()) {
-				return rs.next() && rs.getInt(1) > 0; // Check if count > 0
+	/**
+	 * Check if there are any articles to back up
+	 * 
+	 * @return true if the articles table has at least one row
+	 * @throws SQLException
+	 */
+	public boolean hasArticles() throws SQLException {
+		String query = "SELECT COUNT(*) AS count FROM articles";
+		try (Connection conn = pool.borrow(); Statement statement = conn.createStatement();
+				ResultSet resultSet = statement.executeQuery(query)) {
+			if (resultSet.next()) {
+				return resultSet.getInt("count") > 0;
 			}
-		} catch (SQLException e) {
-			System.err.println("DB error checking if group exists: " + e.getMessage());
 		}
-		return false;	
+		return false;
+	}
+
+	/**
+	 * Check if a group exists. Answered from the group registry, no query.
+	 * 
+	 * @param checkGroup group name
+	 * @return true if the group exists
+	 */
+	public boolean groupExist(String checkGroup) {
+		return groupRegistry.exists(checkGroup);
+	}
+
+	/**
+	 * @return the name of every group, in no particular order. Answered from the
+	 *         group registry, no query.
+	 */
+	public List<String> listGroupNames() {
+		return groupRegistry.names();
 	}
-	
 
+	/**
+	 * Check if a group is a special access group. Answered from the group
+	 * registry, no query.
+	 * 
+	 * @param checkGroup group name
+	 * @return true if the group exists and is special
+	 */
 	public boolean isGroupSpecial(String checkGroup) {
-		String query = "SELECT specialFlag from groups where name = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-			pstmt.setString(1, checkGroup);
-			try (ResultSet rs = pstmt.executeQuery()) {
-				return rs.next() && rs.getBoolean(1);
-			}
-		} catch (SQLException e) {
-			System.err.println("DB error checking if group is speical: " + e.getMessage());
-		}
-		return false;
+		return groupRegistry.isSpecial(checkGroup);
 	}
 
 	/*
@@ -187,7 +280,7 @@ class DatabaseHelper {
 	 
 	public void addUser(User user) throws SQLException {
 		String insertUser = "INSERT INTO cse360users (userName, email, password, firstName, middleName, lastName, preferredFirst, role, otpFlag) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
-		try (PreparedStatement pstmt = connection.prepareStatement(insertUser)) {
+		try (Connection conn = pool.borrow(); PreparedStatement pstmt = conn.prepareStatement(insertUser)) {
 			pstmt.setString(1, user.getUsername());
 			pstmt.setString(2, user.getEmail());
 			pstmt.setString(3, user.getPassword());
@@ -213,7 +306,7 @@ class DatabaseHelper {
 	 */
 	public boolean register(String userName, String password, int userID) throws SQLException {
 		String insertUser = "UPDATE cse360users SET userName = ?, password = ?, otpFlag = ? WHERE id = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(insertUser)) {
+		try (Connection conn = pool.borrow(); PreparedStatement pstmt = conn.prepareStatement(insertUser)) {
 			pstmt.setString(1, userName);
 			pstmt.setString(2, password);
 			pstmt.setBoolean(3, true);
@@ -238,12 +331,27 @@ class DatabaseHelper {
 	 * @throws SQLException
 	 */
 	public User login(String userName, String password) throws SQLException {
+		Session session = openSession(userName, password);
+		return session == null ? null : session.getUser();
+	}
+
+	/**
+	 * Log a user in and start their session. The session keeps the user's id so
+	 * it never has to be looked up again.
+	 * 
+	 * @param userName
+	 * @param password
+	 * @return the session, or null if the credentials do not match a user
+	 * @throws SQLException
+	 */
+	public Session openSession(String userName, String password) throws SQLException {
 		String query = "SELECT * FROM cse360users WHERE userName = ? AND password = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+		try (Connection conn = pool.borrow(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 			pstmt.setString(1, userName);
 			pstmt.setString(2, password);
 			try (ResultSet rs = pstmt.executeQuery()) {
 				if (rs.next()) {
+					int id = rs.getInt("id");
 					// Extracting values from the result set
 					String email = rs.getString("email");
 					String firstName = rs.getString("firstName");
@@ -257,8 +365,9 @@ class DatabaseHelper {
 					LocalDateTime otpExpiration = LocalDateTime.now(); // default value
 
 					// Constructing and returning the User object
-					return new User(userName, password, email, firstName, middleName, lastName,
+					User user = new User(userName, password, email, firstName, middleName, lastName,
 							preferredFirst, aFlag, tFlag, sFlag, otpFlag, otpExpiration);
+					return new Session(id, user, permissions);
 				} else {
 					return null; // User not found
 				}
@@ -275,7 +384,7 @@ class DatabaseHelper {
 	public void updateUserRoles(User user) throws SQLException {
 		String query = "UPDATE cse360users SET adminFlag = ?, teachFlag = ?, studFlag = ? WHERE userName = ? and email = ?";
 
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+		try (Connection conn = pool.borrow(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 			pstmt.setBoolean(1, user.getRoles()[0]);
 			pstmt.setBoolean(2, user.getRoles()[1]);
 			pstmt.setBoolean(3, user.getRoles()[2]);
@@ -295,7 +404,7 @@ class DatabaseHelper {
 	public boolean updateUser(User user) throws SQLException {
 		String query = "UPDATE cse360users SET firstName = ?, middleName = ?, lastName = ?, preferredFirst = ?, email = ?, otpFlag = ? WHERE userName = ? and password = ?";
 
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+		try (Connection conn = pool.borrow(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 			pstmt.setString(1, user.getFirstName());
 			pstmt.setString(2, user.getMiddleName());
 			pstmt.setString(3, user.getLastName());
@@ -323,7 +432,7 @@ class DatabaseHelper {
 	 */
 	public User findUser(String userName, String email) throws SQLException {
 		String query = "SELECT * FROM cse360users WHERE userName = ? AND email = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+		try (Connection conn = pool.borrow(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 			pstmt.setString(1, userName);
 			pstmt.setString(2, email);
 			try (ResultSet rs = pstmt.executeQuery()) {
@@ -361,7 +470,7 @@ class DatabaseHelper {
 	public boolean[] getUserRoles(String userName, String email) {
 		String query = "SELECT adminFlag, teachFlag, studFlag FROM cse360users WHERE userName = ? and email = ?";
 		boolean[] roles = new boolean[3];
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+		try (Connection conn = pool.borrow(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 			pstmt.setString(1, userName);
 			pstmt.setString(2, email);
 		
@@ -385,7 +494,7 @@ class DatabaseHelper {
 
 	public boolean userExist(String userName, String email) {
 		String query = "SELECT COUNT(*) FROM cse360users WHERE userName = ? AND email = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+		try (Connection conn = pool.borrow(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 			pstmt.setString(1, userName);
 			pstmt.setString(2, email);
 			try (ResultSet rs = pstmt.executeQuery()) {
@@ -405,7 +514,7 @@ class DatabaseHelper {
 	 */
 	public boolean doesUserExist(String userName) {
 		String query = "SELECT COUNT(*) FROM cse360users WHERE userName = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+		try (Connection conn = pool.borrow(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 			pstmt.setString(1, userName);
 			try (ResultSet rs = pstmt.executeQuery()) {
 				return rs.next() && rs.getInt(1) > 0;
@@ -425,7 +534,7 @@ class DatabaseHelper {
 	 */
 	public boolean doesUserExistBoth(String userName, String password) {
 		String query = "SELECT COUNT(*) FROM cse360users WHERE userName = ? AND password = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+		try (Connection conn = pool.borrow(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 
 			pstmt.setString(1, userName);
 			pstmt.setString(2, password);
@@ -446,7 +555,7 @@ class DatabaseHelper {
 	 */
 	public boolean doesUserExistEmail(String email) {
 		String query = "SELECT COUNT(*) FROM cse360users WHERE email = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+		try (Connection conn = pool.borrow(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 
 			pstmt.setString(1, email);
 			try (ResultSet rs = pstmt.executeQuery()) {
@@ -465,7 +574,7 @@ class DatabaseHelper {
 	 */
 	public void displayUsersByAdmin() throws SQLException {
 		String sql = "SELECT userName, email, preferredFirst, adminFlag, teachFlag, studFlag FROM cse360users";
-		try (Statement stmt = connection.createStatement();
+		try (Connection conn = pool.borrow(); Statement stmt = conn.createStatement();
 				ResultSet rs = stmt.executeQuery(sql)) {
 
 			while (rs.next()) {
@@ -498,7 +607,7 @@ class DatabaseHelper {
 	 */
 	public void displayUsersByUser() throws SQLException {
 		String sql = "SELECT * FROM cse360users";
-		try (Statement stmt = connection.createStatement();
+		try (Connection conn = pool.borrow(); Statement stmt = conn.createStatement();
 				ResultSet rs = stmt.executeQuery(sql)) {
 
 			while (rs.next()) {
@@ -528,7 +637,7 @@ class DatabaseHelper {
 
 	public boolean deleteUserAccount(String userName, String email) throws SQLException {
 		String deleteQuery = "DELETE FROM cse360users WHERE userName = ? and email = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(deleteQuery)) {
+		try (Connection conn = pool.borrow(); PreparedStatement pstmt = conn.prepareStatement(deleteQuery)) {
 			pstmt.setString(1, userName);
 			pstmt.setString(2, email);
 			int rowsAffected = pstmt.executeUpdate();
@@ -543,10 +652,7 @@ class DatabaseHelper {
 	 * Create OTP and store it in the database
 	 */
 	public String createOTP(int userID) {
-		String otp = "";
-		for (int i = 0; i < 6; i++) {
-			otp += (int) (Math.random() * 10);
-		}
+		String otp = Invitations.newCode();
 		String expiryTime = LocalDateTime.now().plusMinutes(5).toString();
 		try {
 			insertOTP(otp, expiryTime, userID);
@@ -556,9 +662,21 @@ class DatabaseHelper {
 		return otp;
 	}
 
+	/**
+	 * Start a session for a user that is already loaded, e.g. right after they
+	 * finished setting up their account. Looks the id up once.
+	 * 
+	 * @param user
+	 * @return the session, or null if the user is not in the database
+	 */
+	public Session sessionFor(User user) {
+		int id = getUserId(user.getUsername(), user.getEmail());
+		return id == -1 ? null : new Session(id, user, permissions);
+	}
+
 	public int getUserId(String userName, String email) {
 		String query = "SELECT id FROM cse360users WHERE userName = ? AND email = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+		try (Connection conn = pool.borrow(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 			pstmt.setString(1, userName);
 			pstmt.setString(2, email);
 			try (ResultSet rs = pstmt.executeQuery()) {
@@ -575,7 +693,7 @@ class DatabaseHelper {
 
 	public int firstAdmin(String userName, String password) throws SQLException{
 		String insertShell = "INSERT INTO cse360users (userName, email, password, firstName, middleName, lastName, preferredFirst, adminFlag, teachFlag, studFlag, otpFlag) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-		try (PreparedStatement pstmt = connection.prepareStatement(insertShell)) {
+		try (Connection conn = pool.borrow(); PreparedStatement pstmt = conn.prepareStatement(insertShell)) {
 			pstmt.setString(1, userName);
 			pstmt.setString(2, "");
 			pstmt.setString(3, password);
@@ -617,7 +735,7 @@ class DatabaseHelper {
 	 */
 	public int insertShellUser(boolean admin, boolean instruct, boolean stud) throws SQLException{
 		String insertShell = "INSERT INTO cse360users (userName, email, password, firstName, middleName, lastName, preferredFirst, adminFlag, teachFlag, studFlag, otpFlag) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-		try (PreparedStatement pstmt = connection.prepareStatement(insertShell, Statement.RETURN_GENERATED_KEYS)) {
+		try (Connection conn = pool.borrow(); PreparedStatement pstmt = conn.prepareStatement(insertShell, Statement.RETURN_GENERATED_KEYS)) {
 			pstmt.setString(1, "");
 			pstmt.setString(2, "");
 			pstmt.setString(3, "");
@@ -650,17 +768,66 @@ class DatabaseHelper {
 	}
 
 	/**
-	 * Create a random article id
+	 * Invite many users at once: count shell users with the same roles, each with
+	 * its own one time password, in one transaction. Either every invitation is
+	 * created or none are.
 	 * 
-	 * @return the id of the article
+	 * @param count number of users to invite
+	 * @param admin
+	 * @param instruct
+	 * @param stud
+	 * @param validMinutes how long the codes stay valid
+	 * @return the invitations with their user ids and codes
+	 * @throws SQLException if the invitations could not be created; nothing was saved
 	 */
-	public int createArticleId() {
-		String id = "";
-		for (int i = 0; i < 6; i++) {
-			id += (int) (Math.random() * 10);
+	public List<Invitations.Invitation> inviteUsers(int count, boolean admin, boolean instruct, boolean stud, int validMinutes) throws SQLException {
+		if (count < 1 || validMinutes < 1) {
+			throw new IllegalArgumentException("Count and minutes must be positive");
+		}
+		LocalDateTime expires = LocalDateTime.now().plusMinutes(validMinutes);
+		List<Invitations.Invitation> invitations = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			invitations.add(new Invitations.Invitation(admin, instruct, stud, expires));
+		}
+		try (Connection conn = pool.borrow()) {
+			boolean autoCommit = conn.getAutoCommit();
+			conn.setAutoCommit(false);
+			try {
+				Invitations.insert(conn, invitations);
+				conn.commit();
+			} catch (SQLException e) {
+				conn.rollback();
+				System.err.println("DB issue inviting users in bulk: " + e.getMessage());
+				throw e;
+			} finally {
+				conn.setAutoCommit(autoCommit);
+			}
 		}
-		int res = Integer.parseInt(id);
-		return res;
+		return invitations;
+	}
+
+	/**
+	 * Write invitations and their codes to a CSV file, to be handed on to the
+	 * invited users
+	 * 
+	 * @param invitations
+	 * @param file
+	 * @throws IOException
+	 */
+	public void exportInvitations(List<Invitations.Invitation> invitations, String file) throws IOException {
+		Invitations.export(invitations, new File(file));
+		System.out.println("Wrote " + invitations.size() + " invitation codes to " + file);
+	}
+
+	/**
+	 * Allocate a new article id. Ids are never handed out twice, even across
+	 * several instances sharing the same database.
+	 * 
+	 * @return the id of the article
+	 * @throws SQLException if no id block could be reserved
+	 */
+	public int createArticleId() throws SQLException {
+		return idAllocator.next();
 	}
 
 	/**
@@ -672,7 +839,7 @@ class DatabaseHelper {
 	 */
 	public void insertOTP(String otp, String expiryTime, int userID) throws SQLException {
 		String insertOTP = "INSERT INTO otpTable (otp, expiryTime, user_id) VALUES (?, ?, ?)";
-		try (PreparedStatement pstmt = connection.prepareStatement(insertOTP)) {
+		try (Connection conn = pool.borrow(); PreparedStatement pstmt = conn.prepareStatement(insertOTP)) {
 			pstmt.setString(1, otp);
 			pstmt.setString(2, expiryTime);
 			pstmt.setInt(3, userID);
@@ -692,7 +859,7 @@ class DatabaseHelper {
 	 */
 	public int verifyOTP(String otp) throws SQLException {
 		String query = "SELECT user_id, expiryTime FROM otpTable WHERE otp = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+		try (Connection conn = pool.borrow(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 			pstmt.setString(1, otp);
 			try (ResultSet rs = pstmt.executeQuery()) {
 				if (rs.next()) {
@@ -728,7 +895,7 @@ class DatabaseHelper {
 	 */
 	public String getRolesFromOTP(String otp) throws SQLException {
 		String query = "SELECT * FROM otpTable WHERE otp = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+		try (Connection conn = pool.borrow(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 			pstmt.setString(1, otp);
 			try (ResultSet rs = pstmt.executeQuery()) {
 				if (rs.next()) {
@@ -748,7 +915,7 @@ class DatabaseHelper {
 	 */
 	public void deleteOTP(String otp) throws SQLException {
 		String deleteOTP = "DELETE FROM otpTable WHERE otp = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(deleteOTP)) {
+		try (Connection conn = pool.borrow(); PreparedStatement pstmt = conn.prepareStatement(deleteOTP)) {
 			pstmt.setString(1, otp);
 			pstmt.executeUpdate();
 		}
@@ -763,7 +930,7 @@ class DatabaseHelper {
 	 */
 	public Boolean isOTPExpired(String otp) throws SQLException {
 		String query = "SELECT * FROM otpTable WHERE otp = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+		try (Connection conn = pool.borrow(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 			pstmt.setString(1, otp);
 			try (ResultSet rs = pstmt.executeQuery()) {
 				if (rs.next()) {
@@ -780,17 +947,9 @@ class DatabaseHelper {
 	 * close connections with databases
 	 */
 	public void closeConnection() {
-		try {
-			if (statement != null)
-				statement.close();
-		} catch (SQLException se2) {
-			System.err.println("Database error while closing connection: " + se2.getMessage());
-		}
-		try {
-			if (connection != null)
-				connection.close();
-		} catch (SQLException se) {
-			se.printStackTrace();
+		if (pool != null) {
+			HelpSystem.stop();
+			pool.close();
 		}
 	}
 
@@ -802,74 +961,23 @@ class DatabaseHelper {
 	 * @throws Exception
 	 */
 	public void backup(String role, String file) throws Exception {
-		if (role.equals("s")) {
-			System.out.println("Invalid role");
-			return;
-		}
-		// Check to see if there is anything to back up at all
-		if (isDatabaseEmpty()) {
-			System.out.println("There are no articles in the system to back up.");
-			return;
-		}
-
-		// Get all entries in the table
-		String sql = "SELECT * FROM articles";
-		Statement stmt = connection.createStatement();
-		ResultSet rs = stmt.executeQuery(sql);
-
-		try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
-
-			// Each article will have 6 lines in the text file, every 6 lines corresponds to
-			// an entry
-			while (rs.next()) {
-				// For each entry - get all fields and store them in their encrypted states
-				int id = rs.getInt("id");
-				String idEnter = "" + id;
-				String level = rs.getString("level");
-				String group_id = rs.getString("group_id");
-				String title = rs.getString("title");
-				String short_description = rs.getString("short_description");
-				String keywords = rs.getString("keywords");
-				String body = rs.getString("body");
-				String references = rs.getString("reference_links");
-
-				// write each field on its own line
-				writer.write(idEnter);
-				writer.newLine();
-				writer.write(level);
-				writer.newLine();
-				writer.write(group_id);
-				writer.newLine();
-				writer.write(title);
-				writer.newLine();
-				writer.write(short_description);
-				writer.newLine();
-				writer.write(keywords);
-				writer.newLine();
-				writer.write(body);
-				writer.newLine();
-				writer.write(references);
-				writer.newLine();
-			}
-			System.out.println("Successfully backed up system");
-		} catch (IOException e) {
-			e.printStackTrace();
-		}
+		backupAllArticles(role, file);
 	}
 
 	public void restore(String role){
 		System.out.println("Here are your restoration options: ");
 		System.out.println("1. Restore all articles");
 		System.out.println("2. Restore a general group or Special Access Group of articles");
+		System.out.println("3. Merge articles from a backup into the system");
 		System.out.println("Please enter the restoration option you would like to proceed with: ");
-		String restoreOption = scanner.nextLine();
+		String restoreOption = scanner().nextLine();
 		String fileName = "";
 
 		// swtich case method
 		switch (restoreOption){
 			case "1": {
 				System.out.println("Please enter the name of the file you would like to restore from: ");
-				fileName = scanner.nextLine();
+				fileName = scanner().nextLine();
 				try {
 					restoreAllArticles(role, fileName);
 				} catch (Exception e) {
@@ -879,12 +987,39 @@ class DatabaseHelper {
 			}
 			case "2": {
 				System.out.println("Please enter the name of the general group or Special Access Group of articles you would like to restore: ");
-				String group = scanner.nextLine();
+				String group = scanner().nextLine();
 				System.out.println("Please enter the name of the file you would like to restore from: ");
-				fileName = scanner.nextLine();
+				fileName = scanner().nextLine();
 				restoreGroupArticles(role, fileName, group);
 				break;
 			}
+			case "3": {
+				System.out.println("Please enter the name of the file you would like to merge from: ");
+				fileName = scanner().nextLine();
+				System.out.println("When an article differs from the backup: 1. Keep the existing article 2. Overwrite it 3. Keep the newer one");
+				ArticleMerger.Policy policy;
+				switch (scanner().nextLine()) {
+					case "1":
+						policy = ArticleMerger.Policy.KEEP_EXISTING;
+						break;
+					case "2":
+						policy = ArticleMerger.Policy.OVERWRITE;
+						break;
+					case "3":
+						policy = ArticleMerger.Policy.KEEP_NEWER;
+						break;
+					default: {
+						System.out.println("Invalid Option. Try again later.");
+						return;
+					}
+				}
+				try {
+					restoreMerge(role, fileName, policy);
+				} catch (Exception e) {
+					System.err.println("Error during restoration: " + e.getMessage());
+				}
+				break;
+			}
 			default: {
 				System.out.println("Invalid Option. Try again later.");
 				break;
@@ -893,12 +1028,107 @@ class DatabaseHelper {
 
 	}
 
+	/**
+	 * Restore one group's articles from a backup without touching the rest of
+	 * the system. The backup is streamed and only the articles in the group are
+	 * kept; they are upserted in batches, so existing copies are overwritten and
+	 * deleted ones come back, and linked to the group again. Their links to
+	 * other groups are kept, and restored for groups that still exist. Articles
+	 * added to the group since the backup are left alone.
+	 * 
+	 * @param role
+	 * @param fileName backup file, segment set or backup of the group itself
+	 * @param group the group to restore
+	 */
 	public void restoreGroupArticles(String role, String fileName, String group){
-		System.out.println("Restoring group articles");
+		if (role.equals("s")) {
+			System.out.println("Invalid role");
+			return;
+		}
+		File f = new File(fileName);
+		if (!f.exists()) {
+			System.out.println("File does not exist");
+			return;
+		}
+
+		long scanned = 0;
+		long restored = 0;
+		try (Connection conn = pool.borrow();
+				BulkArticleLoader loader = new BulkArticleLoader(conn, BulkArticleLoader.DEFAULT_BATCH_SIZE,
+						BulkArticleLoader.DEFAULT_BATCHES_PER_COMMIT, null, 0, BulkArticleLoader.Mode.UPSERT)) {
+			List<File> sources = ParallelBackup.isSegmentSet(f) ? ParallelBackup.segmentFiles(f) : List.of(f);
+			for (File source : sources) {
+				try (BackupReader reader = new BackupReader(source)) {
+					if (reader.getExpectedRecords() < 0) {
+						System.out.println("This backup is from before article groups were recorded; restore all articles instead.");
+						return;
+					}
+					Article article;
+					while ((article = reader.next()) != null) {
+						scanned++;
+						if (reader.wasTombstone()) {
+							continue;
+						}
+						// names as written in the backup, special access groups marked
+						List<String> groups = ArticleService.groupNames(article);
+						if (!groups.contains(group) && !groups.contains(BackupFormat.SPECIAL_GROUP_MARK + group)) {
+							continue;
+						}
+						// only relink groups that still exist, besides the one being restored
+						List<String> keep = new ArrayList<>();
+						for (String name : groups) {
+							String plain = BackupFormat.groupName(name);
+							if (plain.equals(group) || groupRegistry.exists(plain)) {
+								keep.add(name);
+							}
+						}
+						article.setGroupId(String.join(",", keep));
+						loader.add(article, reader.lastUpdated());
+						restored++;
+					}
+				}
+			}
+			loader.finish();
+			if (restored == 0) {
+				System.out.println("No articles of group " + group + " found in " + fileName);
+			} else {
+				System.out.println("Restored " + restored + " articles of group " + group + " (" + scanned + " records read)");
+			}
+		} catch (IOException e) {
+			System.err.println("Backup file issue: " + e.getMessage());
+		} catch (SQLException e) {
+			System.err.println("DB issue restoring group articles: " + e.getMessage());
+		} finally {
+			if (restored > 0) {
+				articleCache.clear();
+				try {
+					rebuildSearchIndex();
+					idAllocator.resync();
+					groupRegistry.load(pool);
+					permissions.load();
+				} catch (SQLException e) {
+					System.err.println("DB issue after restoring group articles: " + e.getMessage());
+				}
+			}
+		}
 	}
 
 	// restore from user specified file
 	public void restoreAllArticles(String role, String file) throws Exception {
+		restoreAllArticles(role, file, BulkArticleLoader.DEFAULT_BATCH_SIZE);
+	}
+
+	/**
+	 * Replace every article with the contents of a backup file. Articles are
+	 * inserted in batches and committed in chunks; if the restore is interrupted,
+	 * running it again on the same file resumes after the last committed chunk.
+	 * 
+	 * @param role
+	 * @param file
+	 * @param batchSize number of articles sent to the database per batch
+	 * @throws Exception
+	 */
+	public void restoreAllArticles(String role, String file, int batchSize) throws Exception {
 		if (role.equals("s")) {
 			System.out.println("Invalid role");
 			return;
@@ -910,43 +1140,65 @@ class DatabaseHelper {
 			System.out.println("File does not exist");
 			return;
 		}
+		BackupManifest manifest = BackupManifest.load(f);
+		if (manifest != null && BackupManifest.INCREMENTAL.equals(manifest.type)) {
+			restoreBackupChain(role, file);
+			return;
+		}
+
+		BulkArticleLoader.Checkpoint checkpoint = BulkArticleLoader.Checkpoint.forSource(f);
+		long resumeFrom = checkpoint.resumeFrom();
+
+		// a parallel backup is a set of segment files, read one after the other. The same
+		// article can be in more than one of them, and the last copy read wins.
+		boolean segmentSet;
+		try {
+			segmentSet = ParallelBackup.isSegmentSet(f);
+		} catch (IOException e) {
+			System.err.println("Backup file issue: " + e.getMessage());
+			return;
+		}
+		try (Connection conn = pool.borrow();
+				BulkArticleLoader loader = new BulkArticleLoader(conn, batchSize,
+						BulkArticleLoader.DEFAULT_BATCHES_PER_COMMIT, checkpoint, resumeFrom,
+						segmentSet ? BulkArticleLoader.Mode.UPSERT : BulkArticleLoader.Mode.INSERT)) {
+			List<File> sources = segmentSet ? ParallelBackup.segmentFiles(f) : List.of(f);
+
+			if (resumeFrom == 0) {
+				// clear the articles table - part of the first chunk's transaction, so a failure
+				// before the first commit leaves the old articles in place
+				try (Statement statement = conn.createStatement()) {
+					ArticleVersions.tombstoneAll(statement);
+					statement.execute("DELETE FROM articles");
+				}
+			} else {
+				System.out.println("Resuming restore after " + resumeFrom + " articles");
+			}
 
-		// clear the articles table
-		String clearArticles = "DELETE FROM articles";
-		statement.execute(clearArticles);
-
-
-		// read each line of the file and insert into the article database
-		try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-			String line;
-			while ((line = reader.readLine()) != null) {
-				System.out.println(line);
-				int id = Integer.parseInt(line);
-				String level = reader.readLine();
-				String authors = reader.readLine();
-				String title = reader.readLine();
-				String shortDescription = reader.readLine();
-				String keywords = reader.readLine();
-				String body = reader.readLine();
-				String referenceLinks = reader.readLine();
-
-				// insert into the database or update
-				String insertArticle = "INSERT INTO articles (id, level, authors, title, short_description, keywords, body, reference_links) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
-				try (PreparedStatement pstmt = connection.prepareStatement(insertArticle)) {
-					pstmt.setInt(1, id);
-					pstmt.setString(2, level.isEmpty() ? null : level);
-					pstmt.setString(3, authors.isEmpty() ? null : authors);
-					pstmt.setString(4, title.isEmpty() ? null : title);
-					pstmt.setString(5, shortDescription.isEmpty() ? null : shortDescription);
-					pstmt.setString(6, keywords.isEmpty() ? null : keywords);
-					pstmt.setString(7, body.isEmpty() ? null : body);
-					pstmt.setString(8, referenceLinks.isEmpty() ? null : referenceLinks);
-					pstmt.executeUpdate();
+			long toSkip = resumeFrom;
+			for (File source : sources) {
+				try (BackupReader reader = new BackupReader(source)) {
+					// already committed by the interrupted run
+					toSkip -= reader.skip(toSkip);
+					Article article;
+					while ((article = reader.next()) != null) {
+						loader.add(article, reader.lastUpdated());
+					}
+					if (reader.getExpectedRecords() >= 0) {
+						System.out.println("Read " + source + ": " + reader.describe());
+					}
 				}
 			}
+			loader.finish();
 			System.out.println("Successfully restored system");
 		} catch (IOException e) {
-			e.printStackTrace();
+			System.err.println("Backup file issue: " + e.getMessage());
+		} finally {
+			articleCache.clear();
+			rebuildSearchIndex();
+			idAllocator.resync();
+			groupRegistry.load(pool);
+			permissions.load();
 		}
 	}
 
@@ -955,8 +1207,10 @@ class DatabaseHelper {
 		System.out.println("Here are your backup options: ");
 			System.out.println("1. Backup all articles");
 			System.out.println("2. Backup a general group or Special Access Group of articles");
+			System.out.println("3. Backup only the changes since an earlier backup");
+			System.out.println("4. Backup several groups in parallel");
 			System.out.println("Please enter the restoration option you would like to proceed with: ");
-			String backUp = scanner.nextLine();
+			String backUp = scanner().nextLine();
 			String fileName = "";
 
 		
@@ -965,7 +1219,7 @@ class DatabaseHelper {
 				case "1": {
 
 					System.out.println("Please enter the name of the file you would like to backup to: ");
-					fileName = scanner.nextLine();
+					fileName = scanner().nextLine();
 					try {
 						backupAllArticles(role, fileName);
 					} catch (Exception e) {
@@ -977,9 +1231,9 @@ class DatabaseHelper {
 				case "2": {
 
 					System.out.println("Please enter the name of the general group or Special Access Group of articles you would like to backup: ");
-					String group = scanner.nextLine();
+					String group = scanner().nextLine();
 					System.out.println("Please enter the name of the file you would like to backup to: ");
-					fileName = scanner.nextLine();
+					fileName = scanner().nextLine();
 					try {
 						backupGroupArticles(role, fileName, group);
 					} catch (SQLException | IOException e) {
@@ -988,6 +1242,39 @@ class DatabaseHelper {
 					break;
 				}
 
+				case "3": {
+
+					System.out.println("Please enter the name of the earlier backup file: ");
+					String baseFile = scanner().nextLine();
+					System.out.println("Please enter the name of the file you would like to backup to: ");
+					fileName = scanner().nextLine();
+					try {
+						backupIncremental(role, baseFile, fileName);
+					} catch (SQLException e) {
+						System.err.println("Error during backup: " + e.getMessage());
+					}
+					break;
+				}
+
+				case "4": {
+
+					System.out.println("Please enter the groups to backup, separated by commas (leave empty for all groups): ");
+					List<String> groups = new ArrayList<>();
+					for (String group : scanner().nextLine().split(",")) {
+						if (!group.isBlank()) {
+							groups.add(group.trim());
+						}
+					}
+					System.out.println("Please enter the name of the file you would like to backup to: ");
+					fileName = scanner().nextLine();
+					try {
+						backupGroupsParallel(role, groups, fileName);
+					} catch (SQLException e) {
+						System.err.println("Error during backup: " + e.getMessage());
+					}
+					break;
+				}
+
 				default: {
 					System.out.println("Invalid Option. Try again later.");
 					break;
@@ -999,350 +1286,361 @@ class DatabaseHelper {
 	// backupAllArticles
 	// 1. backup all help articles to an external file
 	public void backupAllArticles(String role, String file) throws Exception {
+		backupAllArticles(role, file, BackupFormat.DEFAULT_COMPRESSION_LEVEL);
+	}
+
+	/**
+	 * Backup every article to a file
+	 * 
+	 * @param role
+	 * @param file
+	 * @param compressionLevel 0 (not compressed) to 9 (smallest, slowest)
+	 * @throws Exception
+	 */
+	public void backupAllArticles(String role, String file, int compressionLevel) throws Exception {
 		if (role.equals("s")) {
 			System.out.println("Invalid role");
 			return;
 		}
 		// Check to see if there is anything to back up at all
-		if (isDatabaseEmpty()) {
+		if (!hasArticles()) {
 			System.out.println("There are no articles in the system to back up.");
 			return;
 		}
 
-		// Get all entries in the table
-		String sql = "SELECT * FROM articles";
-		Statement stmt = connection.createStatement();
-		ResultSet rs = stmt.executeQuery(sql);
-
-		try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
-
-			// Each article will have 6 lines in the text file, every 6 lines corresponds to
-			// an entry
-			while (rs.next()) {
-				// For each entry - get all fields and store them in their encrypted states
-				int id = rs.getInt("id");
-				String level = rs.getString("level");
-				String authors = rs.getString("authors");
-				String title = rs.getString("title");
-				String shortDescription = rs.getString("short_description");
-				String keywords = rs.getString("keywords");
-				String body = rs.getString("body");
-				String referenceLinks = rs.getString("reference_links");
-
-				// write each field on its own line
-				writer.write(String.valueOf(id));
-				writer.newLine();
-				writer.write(level);
-				writer.newLine();
-				writer.write(authors);
-				writer.newLine();
-				writer.write(title);
-				writer.newLine();
-				writer.write(shortDescription);
-				writer.newLine();
-				writer.write(keywords);
-				writer.newLine();
-				writer.write(body);
-				writer.newLine();
-				writer.write(referenceLinks);
-				writer.newLine();
-			}
-			System.out.println("Successfully backed up system");
+		// bodies are backed up as stored, so special access articles stay encrypted
+		String articlesQuery = "SELECT " + BackupWriter.COLUMNS + " FROM articles ORDER BY id";
+		String linksQuery = "SELECT " + BackupWriter.LINK_COLUMNS + " FROM articleGroups l ORDER BY l.article_id";
+
+		try (Connection conn = pool.borrow()) {
+			// taken first, so a change made while the backup runs, or committed after it with
+			// a lower version, is in the next incremental (see ArticleVersions.scanFrom)
+			long mark = ArticleVersions.mark(conn);
+			try (Statement articleStmt = conn.createStatement(); Statement linkStmt = conn.createStatement();
+					ResultSet articles = articleStmt.executeQuery(articlesQuery);
+					ResultSet links = linkStmt.executeQuery(linksQuery);
+					BackupWriter writer = new BackupWriter(new File(file), compressionLevel)) {
+				writer.writeArticles(articles, links);
+				writer.finish();
+				new BackupManifest(BackupManifest.FULL, new File(file), null, 0, mark, writer.getRecords(), 0).save();
+				System.out.println("Successfully backed up " + writer.getRecords() + " articles to " + file + ": "
+						+ writer.describe());
+			}
 		} catch (IOException e) {
-			e.printStackTrace();
+			System.err.println("Backup file issue: " + e.getMessage());
 		}
 	}
 
-
-	public void backupGroupArticles(String role, String fileName, String articleGroup) throws SQLException, IOException {
-        // SQL query to select articles from the specified group
-
+	/**
+	 * Backup several groups at once, one worker thread and connection per
+	 * segment (see ParallelBackup). The result is restored like any other backup.
+	 * 
+	 * @param role
+	 * @param groups groups to back up, or an empty list for every group
+	 * @param file where the segment manifest goes; segment files are written next to it
+	 * @throws SQLException
+	 */
+	public void backupGroupsParallel(String role, List<String> groups, String file) throws SQLException {
 		if (role.equals("s")) {
 			System.out.println("Invalid role");
 			return;
 		}
-	
-
-        String sqlQuery = "SELECT a.* FROM articleGroups ag JOIN articles a ON ag.article_id = a.id WHERE ag.group_name = ?";
-        
-        // Try-with-resources for database connection and prepared statement
-        PreparedStatement pstmt = connection.prepareStatement(sqlQuery);
-        BufferedWriter writer = new BufferedWriter(new FileWriter(fileName));
-            
-            // Set the group parameter
-        pstmt.setString(1, articleGroup);
-            
-            // Execute the query
-            try (ResultSet rs = pstmt.executeQuery()) {
-                int articleCount = 0;
-                
-                // Process each result
-                while (rs.next()) {
-                    // Write article details to file
-					writer.write("group_name: " + articleGroup);
-					writer.newLine();
-					writer.write("ID: " + rs.getString("id"));
-					writer.newLine();
-					writer.write("Level: " + rs.getString("level"));
-					writer.newLine();
-					writer.write("Authors: " + rs.getString("authors"));
-					writer.newLine();
-                    writer.write("Title: " + rs.getString("title"));
-                    writer.newLine();
-					writer.write("Short Description: " + rs.getString("short_description"));
-					writer.newLine();
-					writer.write("Keywords: " + rs.getString("keywords"));
-					writer.newLine();
-                    writer.write("Body: " + rs.getString("body"));
-                    writer.newLine();
-					writer.write("Reference Links: " + rs.getString("reference_links"));
-					writer.newLine();
-                    writer.write("-".repeat(50)); // Article separator
-                    writer.newLine();
-                    
-                    articleCount++;
-                }
-                
-                // Check if any articles were found
-                if (articleCount == 0) {
-                    System.out.println("No articles found in group: " + articleGroup);
-                } else {
-                    System.out.println("Successfully backed up " + articleCount + 
-                                       " articles from group '" + articleGroup + "' to " + fileName);
-                }
-				writer.close();
-            }
-    }
-		
+		List<String> selected = groups.isEmpty() ? groupRegistry.names() : groups;
+		for (String group : selected) {
+			if (!groupExist(group)) {
+				System.out.println("Group " + group + " does not exist");
+				return;
+			}
+		}
+		try {
+			ParallelBackup backup = new ParallelBackup(pool, ParallelBackup.defaultThreads(pool),
+					ParallelBackup.DEFAULT_SEGMENT_ARTICLES, BackupFormat.DEFAULT_COMPRESSION_LEVEL);
+			if (backup.backup(selected, new File(file)) == 0) {
+				System.out.println("No articles found in those groups");
+			}
+		} catch (IOException e) {
+			System.err.println("Backup file issue: " + e.getMessage());
+		}
+	}
 
-	// 1. remove all existing help articles
-	public void deleteAllArticles(String role) throws SQLException {
+	/**
+	 * Backup only what changed since an earlier full or incremental backup:
+	 * tombstones for the articles deleted since, then every article created or
+	 * changed since. The new backup's manifest points at the earlier one, and
+	 * restoring it replays the whole chain.
+	 * 
+	 * @param role
+	 * @param baseFile the earlier backup
+	 * @param file where to write the incremental backup
+	 * @throws SQLException
+	 */
+	public void backupIncremental(String role, String baseFile, String file) throws SQLException {
 		if (role.equals("s")) {
 			System.out.println("Invalid role");
 			return;
 		}
-	
 
-        String sqlQuery = "SELECT a.* FROM articleGroups ag JOIN articles a ON ag.article_id = a.id WHERE ag.group_name = ?";
-        
-        // Try-with-resources for database connection and prepared statement
-        PreparedStatement pstmt = connection.prepareStatement(sqlQuery);
-        BufferedWriter writer = new BufferedWriter(new FileWriter(fileName));
-            
-            // Set the group parameter
-        pstmt.setString(1, articleGroup);
-            
-            // Execute the query
-            try (ResultSet rs = pstmt.executeQuery()) {
-                int articleCount = 0;
-                
-                // Process each result
-                while (rs.next()) {
-                    // Write article details to file
-					writer.write("group_name: " + articleGroup);
-					writer.newLine();
-					writer.write("ID: " + rs.getString("id"));
-					writer.newLine();
-					writer.write("Level: " + rs.getString("level"));
-					writer.newLine();
-					writer.write("Authors: " + rs.getString("authors"));
-					writer.newLine();
-                    writer.write("Title: " + rs.getString("title"));
-                    writer.newLine();
-					writer.write("Short Description: " + rs.getString("short_description"));
-					writer.newLine();
-					writer.write("Keywords: " + rs.getString("keywords"));
-					writer.newLine();
-                    writer.write("Body: " + rs.getString("body"));
-                    writer.newLine();
-					writer.write("Reference Links: " + rs.getString("reference_links"));
-					writer.newLine();
-                    writer.write("-".repeat(50)); // Article separator
-                    writer.newLine();
-                    
-                    articleCount++;
-                }
-                
-                // Check if any articles were found
-                if (articleCount == 0) {
-                    System.out.println("No articles found in group: " + articleGroup);
-                } else {
-                    System.out.println("Successfully backed up " + articleCount + 
-                                       " articles from group '" + articleGroup + "' to " + fileName);
-                }
-				writer.close();
-            }
-    }
-		
+		String tombstonesQuery = "SELECT article_id FROM article_tombstones WHERE version > ? ORDER BY article_id";
+		String articlesQuery = "SELECT " + BackupWriter.COLUMNS + " FROM articles WHERE version > ? ORDER BY id";
+		String linksQuery = "SELECT " + BackupWriter.LINK_COLUMNS + " FROM articleGroups l JOIN articles a ON a.id = l.article_id "
+				+ "WHERE a.version > ? ORDER BY l.article_id";
 
-	// 1. remove all existing help articles
+		try (Connection conn = pool.borrow()) {
+			BackupManifest base = BackupManifest.load(new File(baseFile));
+			if (base == null) {
+				System.out.println("Backup " + baseFile + " has no manifest, so there is nothing to build on. Take a full backup first.");
+				return;
+			}
+			long mark = ArticleVersions.mark(conn);
+			long tombstones = 0;
+			try (PreparedStatement tombstoneStmt = conn.prepareStatement(tombstonesQuery);
+					PreparedStatement articleStmt = conn.prepareStatement(articlesQuery);
+					PreparedStatement linkStmt = conn.prepareStatement(linksQuery);
+					BackupWriter writer = new BackupWriter(new File(file))) {
+				// reads back into the base's range for writes that committed after it scanned
+				long from = ArticleVersions.scanFrom(base.version);
+				// tombstones first, so replaying them never removes an article this backup brings back
+				tombstoneStmt.setLong(1, from);
+				try (ResultSet rs = tombstoneStmt.executeQuery()) {
+					while (rs.next()) {
+						writer.writeTombstone(rs.getInt(1));
+						tombstones++;
+					}
+				}
+				articleStmt.setLong(1, from);
+				linkStmt.setLong(1, from);
+				try (ResultSet articles = articleStmt.executeQuery(); ResultSet links = linkStmt.executeQuery()) {
+					writer.writeArticles(articles, links);
+				}
+				writer.finish();
+				long changed = writer.getRecords() - tombstones;
+				new BackupManifest(BackupManifest.INCREMENTAL, new File(file), new File(baseFile), base.version, mark,
+						changed, tombstones).save();
+				System.out.println("Successfully backed up " + changed + " changed and " + tombstones
+						+ " deleted articles to " + file + ": " + writer.describe());
+			}
+		} catch (IOException e) {
+			System.err.println("Backup file issue: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Restore a backup together with everything it builds on: the full backup
+	 * at the start of its chain, then each incremental backup in order.
+	 * 
+	 * @param role
+	 * @param file the newest backup of the chain
+	 * @throws Exception
+	 */
+	public void restoreBackupChain(String role, String file) throws Exception {
+		if (role.equals("s")) {
+			System.out.println("Invalid role");
+			return;
+		}
+		List<BackupManifest> chain;
+		try {
+			chain = BackupManifest.chain(new File(file));
+		} catch (IOException e) {
+			System.err.println("Backup file issue: " + e.getMessage());
+			return;
+		}
+		for (BackupManifest manifest : chain) {
+			if (!manifest.backup.exists()) {
+				System.out.println("Backup " + manifest.backup + " in the chain does not exist");
+				return;
+			}
+		}
+
+		restoreAllArticles(role, chain.get(0).backup.getPath());
+		for (BackupManifest manifest : chain.subList(1, chain.size())) {
+			applyIncremental(manifest.backup);
+		}
+	}
+
+	// replay one incremental backup: delete the tombstoned articles, upsert the rest
+	private void applyIncremental(File file) throws SQLException {
+		try (Connection conn = pool.borrow();
+				BulkArticleLoader loader = new BulkArticleLoader(conn, BulkArticleLoader.DEFAULT_BATCH_SIZE,
+						BulkArticleLoader.DEFAULT_BATCHES_PER_COMMIT, null, 0, BulkArticleLoader.Mode.REPLACE);
+				BackupReader reader = new BackupReader(file)) {
+			Article article;
+			while ((article = reader.next()) != null) {
+				if (reader.wasTombstone()) {
+					loader.delete(article.getId());
+				} else {
+					loader.add(article, reader.lastUpdated());
+				}
+			}
+			loader.finish();
+			System.out.println("Applied incremental backup " + file + ": " + reader.describe());
+		} catch (IOException e) {
+			System.err.println("Backup file issue: " + e.getMessage());
+		} finally {
+			articleCache.clear();
+			rebuildSearchIndex();
+			idAllocator.resync();
+			groupRegistry.load(pool);
+			permissions.load();
+		}
+	}
+
+
+	public void backupGroupArticles(String role, String fileName, String articleGroup) throws SQLException, IOException {
+		backupGroupArticles(role, fileName, articleGroup, BackupFormat.DEFAULT_COMPRESSION_LEVEL);
+	}
+
+	/**
+	 * Backup the articles of one group to a file
+	 * 
+	 * @param role
+	 * @param fileName
+	 * @param articleGroup
+	 * @param compressionLevel 0 (not compressed) to 9 (smallest, slowest)
+	 * @throws SQLException
+	 * @throws IOException
+	 */
+	public void backupGroupArticles(String role, String fileName, String articleGroup, int compressionLevel)
+			throws SQLException, IOException {
+		if (role.equals("s")) {
+			System.out.println("Invalid role");
+			return;
+		}
+
+		// the group's articles, and every group each of them belongs to
+		String articlesQuery = "SELECT " + BackupWriter.COLUMNS + " FROM articles a WHERE EXISTS "
+				+ "(SELECT 1 FROM articleGroups g WHERE g.article_id = a.id AND g.group_name = ?) ORDER BY id";
+		String linksQuery = "SELECT " + BackupWriter.LINK_COLUMNS + " FROM articleGroups l WHERE EXISTS "
+				+ "(SELECT 1 FROM articleGroups g WHERE g.article_id = l.article_id AND g.group_name = ?) "
+				+ "ORDER BY l.article_id";
+
+		try (Connection conn = pool.borrow(); PreparedStatement articleStmt = conn.prepareStatement(articlesQuery);
+				PreparedStatement linkStmt = conn.prepareStatement(linksQuery)) {
+			articleStmt.setString(1, articleGroup);
+			linkStmt.setString(1, articleGroup);
+			try (ResultSet articles = articleStmt.executeQuery(); ResultSet links = linkStmt.executeQuery();
+					BackupWriter writer = new BackupWriter(new File(fileName), compressionLevel)) {
+				writer.writeArticles(articles, links);
+				if (writer.getRecords() == 0) {
+					System.out.println("No articles found in group: " + articleGroup);
+					return;
+				}
+				writer.finish();
+				System.out.println("Successfully backed up " + writer.getRecords() + " articles from group '"
+						+ articleGroup + "' to " + fileName + ": " + writer.describe());
+			}
+		}
+	}
+
+	// 1. remove all existing help articles
 	public void deleteAllArticles(String role) throws SQLException {
 		if (role.equals("s")) {
 			System.out.println("Invalid role");
 			return;
 		}
 		String deleteAllArticles = "DELETE FROM articles";
-		try (Statement stmt = connection.createStatement()) {
-			stmt.executeUpdate(deleteAllArticles);
+		try (Connection conn = pool.borrow(); Statement stmt = conn.createStatement()) {
+			conn.setAutoCommit(false);
+			try {
+				ArticleVersions.tombstoneAll(stmt);
+				stmt.executeUpdate(deleteAllArticles);
+				conn.commit();
+			} catch (SQLException e) {
+				conn.rollback();
+				throw e;
+			} finally {
+				conn.setAutoCommit(true);
+			}
 		}
+		searchIndex.clear();
+		articleCache.clear();
 	}
 
 	/**
-	 * Restore the articles from a file
+	 * Merge the articles from a backup into the system, keeping the live copy
+	 * of any article that differs from the backed up one
 	 * 
 	 * @param roles
 	 * @param file
 	 * @throws Exception
 	 */
 	public void restoreMerge(String roles, String file) throws Exception {
-		// if (roles.equals("s")) {
-		// 	System.out.println("Invalid role");
-		// 	return;
-		// }
-		// boolean myFlag = false;
-
-		// try (BufferedReader reads = new BufferedReader(new FileReader(file))) {
-		// 	// counter keeps track of lines - every 7 we need to insert an article into the
-		// 	// table
-		// 	int counter = 0;
-		// 	// line is what the lines from the file will contain
-		// 	String line = "";
-		// 	String id = "";
-		// 	int tmpId = -1;
-		// 	String level = "";
-		// 	String group_id = "";
-		// 	String title = "";
-		// 	String short_description = "";
-		// 	String keywords = "";
-		// 	String body = "";
-		// 	String reference_links = "";
-
-		// 	// read the file line by line
-		// 	while ((line = reads.readLine()) != null) {
-		// 		switch ((counter % 8)) {
-
-		// 			case 0 -> {
-		// 				if (counter == 0) {
-		// 					id = line;
-		// 					tmpId = Integer.parseInt(id);
-		// 					String possQuery = "Select count(*) from articles where id = ?";
-		// 					try (PreparedStatement pstmt2 = connection.prepareStatement(possQuery)) {
-		// 						pstmt2.setInt(1, tmpId);
-		// 						try (ResultSet rs = pstmt2.executeQuery()) {
-		// 							if (rs.next()) {
-		// 								// If the count is greater than 0, the user exists
-		// 								if (rs.getInt(1) == 0)
-		// 									myFlag = true;
-		// 							}
-		// 						}
-		// 					}
-		// 					break;
-		// 				}
-		// 				// ignore the id since it will auto generate upon table entry
-		// 				String insertArticle = "INSERT INTO articles (level, group_id, title, short_description, keywords, body, reference_links, id) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
-		// 				System.out.println("Inserting article: " + id);
-		// 				if (myFlag) {
-		// 					try (PreparedStatement pstmt = connection.prepareStatement(insertArticle)) {
-
-		// 						// pstmt.setString(1, id);
-		// 						pstmt.setString(1, level);
-		// 						pstmt.setString(2, group_id);
-		// 						pstmt.setString(3, title);
-		// 						pstmt.setString(4, short_description);
-		// 						pstmt.setString(5, keywords);
-		// 						pstmt.setString(6, body);
-		// 						pstmt.setString(7, reference_links);
-		// 						pstmt.setInt(8, tmpId);
-
-		// 						pstmt.executeUpdate();
-		// 						System.out.println("An article has been added successfully to the system!");
-		// 						myFlag = false;
-		// 					}
-		// 				}
-
-		// 				if (counter > 0) {
-		// 					id = line;
-		// 					tmpId = Integer.parseInt(id);
-		// 					String possQuery = "Select count(*) from articles where id = ?";
-		// 					try (PreparedStatement pstmt2 = connection.prepareStatement(possQuery)) {
-		// 						pstmt2.setInt(1, tmpId);
-		// 						try (ResultSet rs = pstmt2.executeQuery()) {
-		// 							if (rs.next()) {
-		// 								// If the count is greater than 0, the user exists
-		// 								if (rs.getInt(1) == 0)
-		// 									myFlag = true;
-		// 							}
-		// 						}
-		// 					}
-		// 				}
-		// 				break;
-		// 			}
-
-		// 			case 1 -> {
-		// 				level = line;
-		// 				break;
-		// 			}
-		// 			case 2 -> {
-		// 				group_id = line;
-		// 				break;
-		// 			}
-		// 			case 3 -> {
-		// 				title = line;
-		// 				break;
-		// 			}
-		// 			case 4 -> {
-		// 				short_description = line;
-		// 				break;
-		// 			}
-		// 			case 5 -> {
-		// 				keywords = line;
-		// 				break;
-		// 			}
-		// 			case 6 -> {
-		// 				body = line;
-		// 				break;
-		// 			}
-
-		// 			case 7 -> {
-		// 				reference_links = line;
-		// 				break;
-		// 			}
-		// 			/*
-		// 			 * case 8 -> {
-		// 			 * reference_links = line;
-		// 			 * }
-		// 			 */
-		// 			default -> {
-		// 				System.out.println("Something went wrong. Try again later.");
-		// 			}
-		// 		}
-		// 		counter++;
-		// 	}
-
-		// 	if (counter > 0 && myFlag) {
-		// 		String insertArticle = "INSERT INTO articles (level, group_id, title, short_description, keywords, body, reference_links, id) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
-		// 		try (PreparedStatement pstmt = connection.prepareStatement(insertArticle)) {
+		restoreMerge(roles, file, ArticleMerger.Policy.KEEP_EXISTING);
+	}
 
-		// 			// pstmt.setString(1, id);
-		// 			pstmt.setString(1, level);
-		// 			pstmt.setString(2, title);
-		// 			pstmt.setString(3, group_id);
-		// 			pstmt.setString(4, short_description);
-		// 			pstmt.setString(5, keywords);
-		// 			pstmt.setString(6, body);
-		// 			pstmt.setString(7, reference_links);
-		// 			tmpId = Integer.parseInt(id);
-		// 			pstmt.setInt(8, tmpId);
+	/**
+	 * Merge the articles from a backup into the system without clearing it.
+	 * Missing articles are inserted, articles whose content hash matches the
+	 * backup are left untouched, and the rest are settled by the policy.
+	 * Tombstones in an incremental backup are ignored - a merge never deletes.
+	 * 
+	 * @param roles
+	 * @param file backup file or segment set
+	 * @param policy what to do with articles that differ from the backup
+	 * @throws Exception
+	 */
+	public void restoreMerge(String roles, String file, ArticleMerger.Policy policy) throws Exception {
+		if (roles.equals("s")) {
+			System.out.println("Invalid role");
+			return;
+		}
+		File f = new File(file);
+		if (!f.exists()) {
+			System.out.println("File does not exist");
+			return;
+		}
 
-		// 			pstmt.executeUpdate();
-		// 			System.out.println("An article has been added successfully to the system!");
-		// 		}
-		// 	}
+		try (Connection conn = pool.borrow(); ArticleMerger merger = new ArticleMerger(conn, policy)) {
+			List<File> sources = ParallelBackup.isSegmentSet(f) ? ParallelBackup.segmentFiles(f) : List.of(f);
+			for (File source : sources) {
+				try (BackupReader reader = new BackupReader(source)) {
+					Article article;
+					while ((article = reader.next()) != null) {
+						if (!reader.wasTombstone()) {
+							merger.add(article, reader.lastUpdated());
+						}
+					}
+				}
+			}
+			merger.finish();
+			System.out.println("Merged " + file + ": " + merger.summary());
+		} catch (IOException e) {
+			System.err.println("Backup file issue: " + e.getMessage());
+		} finally {
+			articleCache.clear();
+			rebuildSearchIndex();
+			idAllocator.resync();
+			groupRegistry.load(pool);
+			permissions.load();
+		}
+	}
 
-		// } catch (IOException e) {
-		// 	e.printStackTrace();
-		// }
-		System.out.println("Restoring from backup file...");
+	/**
+	 * Run a provisioning script of groups, invitations, group links and articles
+	 * without the menus; see BatchRunner for its format. Commands are written a
+	 * chunk per transaction, and every one gets a line in a JSON lines results
+	 * log.
+	 *
+	 * @param scriptFile
+	 * @param resultsFile where the results log goes; null for scriptFile.results.jsonl
+	 * @return the runner with the counts of the run, or null if the script could not be run
+	 */
+	public BatchRunner runBatch(String scriptFile, String resultsFile) {
+		File script = new File(scriptFile);
+		if (!script.exists()) {
+			System.out.println("File does not exist");
+			return null;
+		}
+		File results = new File(resultsFile == null ? scriptFile + ".results.jsonl" : resultsFile);
+		BatchRunner runner = new BatchRunner(pool, groupRegistry, permissions, articleService);
+		try (Reader in = Files.newBufferedReader(script.toPath(), StandardCharsets.UTF_8);
+				Writer out = Files.newBufferedWriter(results.toPath(), StandardCharsets.UTF_8)) {
+			runner.run(in, out);
+		} catch (IOException e) {
+			System.err.println("Batch file issue: " + e.getMessage());
+			return null;
+		}
+		System.out.println("Ran " + scriptFile + ": " + runner.summary() + ". Results are in " + results);
+		return runner;
 	}
 
 	/**
@@ -1360,7 +1658,7 @@ class DatabaseHelper {
 		// if (!isDatabaseEmpty()) {
 		// 	String sql = "TRUNCATE TABLE articles";
 
-		// 	try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+		// 	try (Connection conn = pool.borrow(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
 		// 		pstmt.executeUpdate();
 		// 		System.out.println("Successfully cleared out all articles");
 		// 	} catch (SQLException e) {
@@ -1397,7 +1695,7 @@ class DatabaseHelper {
 		// 				// ignore the id since it will auto generate upon table entry
 		// 				String insertArticle = "INSERT INTO articles (level, group_id, title, short_description, keywords, body, reference_links, id) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
 		// 				System.out.println("Inserting article: " + id);
-		// 				try (PreparedStatement pstmt = connection.prepareStatement(insertArticle)) {
+		// 				try (Connection conn = pool.borrow(); PreparedStatement pstmt = conn.prepareStatement(insertArticle)) {
 
 		// 					// pstmt.setString(1, id);
 		// 					pstmt.setString(1, level);
@@ -1462,7 +1760,7 @@ class DatabaseHelper {
 
 		// 	if (counter > 0) {
 		// 		String insertArticle = "INSERT INTO articles (level, group_id, title, short_description, keywords, body, reference_links, id) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
-		// 		try (PreparedStatement pstmt = connection.prepareStatement(insertArticle)) {
+		// 		try (Connection conn = pool.borrow(); PreparedStatement pstmt = conn.prepareStatement(insertArticle)) {
 
 		// 			// pstmt.setString(1, id);
 		// 			pstmt.setString(1, level);
@@ -1495,13 +1793,10 @@ class DatabaseHelper {
 	public void createGroups(String[] groups) throws SQLException {
 		for(String curGroup : groups) {
 			if(!groupExist(curGroup)) {
-				String insertGroup = "INSERT INTO groups (name, specialFlag) VALUES (?, ?)";
-				try(PreparedStatement pstmt = connection.prepareStatement(insertGroup)) {
-					pstmt.setString(1, curGroup);
-					pstmt.setBoolean(2, false);
-
-					pstmt.executeUpdate();
-					System.out.println("A new general article group: " + curGroup + " has been made.");
+				try {
+					if (insertGroup(curGroup, false)) {
+						System.out.println("A new general article group: " + curGroup + " has been made.");
+					}
 				} catch (SQLException e) {
 					System.err.println("DB error while creating new general groups: " + e.getMessage());
 				}
@@ -1509,9 +1804,35 @@ class DatabaseHelper {
 		}
 	}
 
+	/**
+	 * Create one group without printing anything, for callers such as the API
+	 * that report the outcome themselves
+	 * 
+	 * @param name
+	 * @param special true for a special access group
+	 * @return false if a group with that name already exists
+	 * @throws SQLException
+	 */
+	boolean insertGroup(String name, boolean special) throws SQLException {
+		String insertGroup = "INSERT INTO groups (name, specialFlag) SELECT ?, ? WHERE NOT EXISTS (SELECT 1 FROM groups WHERE name = ?)";
+		try (Connection conn = pool.borrow(); PreparedStatement pstmt = conn.prepareStatement(insertGroup)) {
+			pstmt.setString(1, name);
+			pstmt.setBoolean(2, special);
+			pstmt.setString(3, name);
+			if (pstmt.executeUpdate() == 0) {
+				return false;
+			}
+		}
+		groupRegistry.added(name, special);
+		if (special) {
+			permissions.specialGroupCreated(name);
+		}
+		return true;
+	}
+
 	public void listAllGroups(boolean general) throws SQLException{
 		String query = "SELECT name from groups where specialFlag = ?";
-		try(PreparedStatement pstmt = connection.prepareStatement(query)) {
+		try (Connection conn = pool.borrow(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 			pstmt.setBoolean(1, general);
 			try(ResultSet rs = pstmt.executeQuery()) {
 				System.out.println("Here are the group names: ");
@@ -1530,17 +1851,15 @@ class DatabaseHelper {
 			return false;
 		}
 
-		String insertGroup = "INSERT INTO groups (name, specialFlag) VALUES (?, ?)";
-				try(PreparedStatement pstmt = connection.prepareStatement(insertGroup)) {
-					pstmt.setString(1, name);
-					pstmt.setBoolean(2, true);
-
-					pstmt.executeUpdate();
-					System.out.println("A new special access group: " + name + " has been made.");
-					return true;
-				} catch(SQLException e) {
-					System.err.println("DB issue making SAG: " + e.getMessage());
-				}
+		try {
+			if (insertGroup(name, true)) {
+				System.out.println("A new special access group: " + name + " has been made.");
+				return true;
+			}
+			System.out.println("This group either already exits or is a special group already. Please try again later.");
+		} catch(SQLException e) {
+			System.err.println("DB issue making SAG: " + e.getMessage());
+		}
 		return false;
 	}
 
@@ -1557,16 +1876,43 @@ class DatabaseHelper {
 			return;
 		}
 
-		String insertQuery = "INSERT INTO articleGroups (group_name, article_id) VALUES (?, ?)";
-		try (PreparedStatement pstmt = connection.prepareStatement(insertQuery)) {
+		try {
+			if (addArticleToGroup(groupName, articleID)) {
+				System.out.println("Article linked successfully");
+			} else {
+				System.out.println("The article is already in that group");
+			}
+		} catch (SQLException e) {
+			System.err.println("DB issue while linking article to group: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Link an article to a group without printing anything, for callers such as
+	 * the API that report the outcome themselves
+	 * 
+	 * @param groupName
+	 * @param articleID
+	 * @return false if the article is already in the group
+	 * @throws SQLException if the link cannot be written, e.g. the group or article is gone
+	 */
+	boolean addArticleToGroup(String groupName, int articleID) throws SQLException {
+		String insertQuery = "INSERT INTO articleGroups (group_name, article_id) SELECT ?, ? "
+				+ "WHERE NOT EXISTS (SELECT 1 FROM articleGroups WHERE group_name = ? AND article_id = ?)";
+		try (Connection conn = pool.borrow(); PreparedStatement pstmt = conn.prepareStatement(insertQuery)) {
+			conn.setAutoCommit(false);
 			pstmt.setString(1, groupName);
 			pstmt.setInt(2, articleID);
-
-			pstmt.executeUpdate();
-			System.out.println("Article linked successfully");
-		} catch (SQLException e) {
-			System.err.println("DB issue while linking article to group");
+			pstmt.setString(3, groupName);
+			pstmt.setInt(4, articleID);
+			if (pstmt.executeUpdate() == 0) {
+				return false;
+			}
+			ArticleVersions.touch(conn, articleID);
+			conn.commit();
 		}
+		searchIndex.addGroup(articleID, groupName);
+		return true;
 	}
 
 	/**
@@ -1581,13 +1927,14 @@ class DatabaseHelper {
 	 */
 	public void linkUserGroup(String groupName, int userId, String roleFlag, boolean adminPerms, boolean viewPerms) throws SQLException {
 		String linkQuery = "INSERT INTO groupRights (user_id, group_name, accessRole, adminRightsFlag, viewRightsFlag) VALUES (?, ?, ?, ?, ?)";
-		try (PreparedStatement pstmt = connection.prepareStatement(linkQuery)) {
+		try (Connection conn = pool.borrow(); PreparedStatement pstmt = conn.prepareStatement(linkQuery)) {
 			pstmt.setInt(1, userId);
 			pstmt.setString(2, groupName);
 			pstmt.setString(3, roleFlag);
 			pstmt.setBoolean(4, adminPerms);
 			pstmt.setBoolean(5, viewPerms);
 			pstmt.executeUpdate();
+			permissions.invalidateUser(userId);
 			System.out.println("User successfully linked to group: " + groupName);
 		} catch (SQLException e) {
 			System.err.println("DB issue linking user to group: " + e.getMessage());
@@ -1604,26 +1951,52 @@ class DatabaseHelper {
 	 */
 	public void delUserGroup(String gName, int userId) throws SQLException{
 		String delQuery = "DELETE FROM groupRights WHERE group_name = ? AND user_id = ?";
-		try(PreparedStatement pstmt = connection.prepareStatement(delQuery)) {
+		try (Connection conn = pool.borrow(); PreparedStatement pstmt = conn.prepareStatement(delQuery)) {
 			pstmt.setString(1, gName);
 			pstmt.setInt(2, userId);
 
 			pstmt.executeUpdate();	
+			permissions.invalidateUser(userId);
 		} catch (SQLException e) {
 			System.err.println("DB issue with deleting a user's access to a speical group: " + e.getMessage());
 		}
 	}
 	
 	public void delEntireGroup(String gName) throws SQLException {
-		String delQuery = "DELETE FROM groups where name = ?";
-		try(PreparedStatement pstmt = connection.prepareStatement(delQuery)) {
-			pstmt.setString(1, gName);
-			int rowsAffected = pstmt.executeUpdate();
-			if(rowsAffected >= 1) System.out.println("A group was deleted");
+		try {
+			if(deleteGroup(gName)) System.out.println("A group was deleted");
 			else System.out.println("There was no group to delete");
 		} catch(SQLException e) {
-			System.err.println("DB issue with trying to delete an entire group");
+			System.err.println("DB issue with trying to delete an entire group: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Delete a group and its links without printing anything, for callers such
+	 * as the API that report the outcome themselves. The in-memory registry,
+	 * search index and permission index are only updated if a group was deleted.
+	 * 
+	 * @param gName
+	 * @return false if there was no such group
+	 * @throws SQLException
+	 */
+	boolean deleteGroup(String gName) throws SQLException {
+		String delQuery = "DELETE FROM groups where name = ?";
+		try (Connection conn = pool.borrow(); PreparedStatement pstmt = conn.prepareStatement(delQuery)) {
+			conn.setAutoCommit(false);
+			// the group's links go with it, which changes its articles
+			ArticleVersions.touchGroup(conn, gName);
+			pstmt.setString(1, gName);
+			if (pstmt.executeUpdate() == 0) {
+				conn.rollback();
+				return false;
+			}
+			conn.commit();
 		}
+		groupRegistry.removed(gName);
+		searchIndex.removeGroup(gName);
+		permissions.groupDeleted(gName);
+		return true;
 	}
 	
 
@@ -1646,14 +2019,14 @@ class DatabaseHelper {
 		}
 
 		System.out.println("Enter article level (beginner, intermediate, advanced, expert): ");
-		String level = scanner.nextLine();
+		String level = scanner().nextLine();
 
 		System.out.println("Enter the authors of this article (Please make sure there are no spaces and that they are comma separated) (e.g. Einstein,Oppenheimer,Suess): ");
-		String authors = scanner.nextLine();
+		String authors = scanner().nextLine();
 
 		System.out.println(
 				"Enter group ID (Please make sure there are no spaces and that they are comma separated) (e.g. CSE360,CSE360-01,CSE360-02): ");
-		String groupId = scanner.nextLine() + ",";
+		String groupId = scanner().nextLine() + ",";
 
 		String[] groups = groupId.trim().split(",");
 		boolean failed = false;
@@ -1667,64 +2040,40 @@ class DatabaseHelper {
 		}
 		if(failed) return;
 
-		createGroups(groups);
-
 		System.out.println("Enter article title: ");
-		String title = scanner.nextLine();
+		String title = scanner().nextLine();
 
 		System.out.println("Enter short description: ");
-		String shortDescription = scanner.nextLine();
+		String shortDescription = scanner().nextLine();
 
 		System.out.println("Enter keywords (comma separated): ");
-		String[] keywords = scanner.nextLine().split(",");
+		String keywords = scanner().nextLine();
 
 		System.out.println("Enter article body: ");
-		String body = scanner.nextLine();
-
-		// article encryption
-		//String encryptedBody = encryptionHelper.encrypt(body);
+		String body = scanner().nextLine();
 
 		System.out.println("Enter reference links (comma separated): ");
-		String[] referenceLinks = scanner.nextLine().split(",");
+		String referenceLinks = scanner().nextLine();
 
-		int tempId = createArticleId();
-
-		String insertArticle = "INSERT INTO articles (level, title, short_description, keywords, body, reference_links, id, authors) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
-		try (PreparedStatement pstmt = connection.prepareStatement(insertArticle)) {
-			pstmt.setString(1, level);
-			pstmt.setString(2, title);
-			pstmt.setString(3, shortDescription);
-			pstmt.setArray(4, connection.createArrayOf("VARCHAR", keywords));
-			pstmt.setString(5, body);
-			pstmt.setArray(6, connection.createArrayOf("VARCHAR", referenceLinks));
-			pstmt.setInt(7, tempId);
-			pstmt.setString(8, authors);
-
-			pstmt.executeUpdate();
+		Article article = new Article(0, level, authors, groupId, title, shortDescription, keywords, body, referenceLinks);
+		try {
+			int id = articleService.createArticle(article, ArticleService.NO_SPECIAL_RIGHTS);
+			System.out.println("Article created with ID: " + id);
+		} catch (IllegalArgumentException e) {
+			System.out.println(e.getMessage());
 		} catch (SQLException e) {
-			System.err.println("DB issue while inserting article into table");
+			System.err.println("DB issue while inserting article into table: " + e.getMessage());
 		}
-
-		//link each group to an article
-		for(String curGroup : groups) linkArticleGroup(curGroup, tempId);
 	}
 
 	//Only to check if Instructors have Admin Rights for a SAG
 	public boolean checkSpecialAdminAccess(int instructId, String groupName) throws SQLException {
-		String checkSpecial = "SELECT adminRightsFlag FROM groupRights WHERE user_id = ? AND group_name = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(checkSpecial)) {
-			pstmt.setInt(1, instructId);
-			pstmt.setString(2, groupName);
-			try (ResultSet rs = pstmt.executeQuery()) {
-				if (rs.next()) {
-					return rs.getBoolean(1);
-				}
-			}
+		try {
+			return permissions.canAdmin(instructId, groupName);
 		} catch (SQLException e) {
 			System.err.println("DB issue: Unable to check admin access for the group: " + groupName + ". " + e.getMessage());
 			throw e; // Re-throw for better error handling
 		}
-		return false;
 	}
 	
 	/**
@@ -1736,16 +2085,8 @@ class DatabaseHelper {
 	 * @throws SQLException
 	 */
 	public boolean checkSpecialViewAccess(int userId, String groupName) throws SQLException {
-		String checkSpecial = "SELECT viewRightsFlag from groupRights where user_id = ? and group_name = ?";
-		try(PreparedStatement pstmt = connection.prepareStatement(checkSpecial)) {
-			pstmt.setInt(1, userId);
-			pstmt.setString(2, groupName);
-
-			try(ResultSet rs = pstmt.executeQuery()) {
-				if(rs.next()) {
-					return rs.getBoolean(1);
-				}
-			}
+		try {
+			return permissions.canView(userId, groupName);
 		} catch (SQLException e) {
 			System.err.println("DB issue: unable to check if user has view access to a special group");
 		}
@@ -1753,75 +2094,65 @@ class DatabaseHelper {
 	}
 
 	public void createInstructArticle(User curUser) throws SQLException {
-		
-		int curId = getUserId(curUser.getUsername(), curUser.getEmail());
-		if (curId == -1) {
+		Session session = sessionFor(curUser);
+		if (session == null) {
 			System.out.println("User not found. Cannot create article.");
 			return;
 		}
+		createInstructArticle(session);
+	}
+
+	/**
+	 * Create an article as an instructor, prompting for its fields
+	 * 
+	 * @param session the instructor's session
+	 * @throws SQLException
+	 */
+	public void createInstructArticle(Session session) throws SQLException {
+		int curId = session.getUserId();
 
 		System.out.println("Enter article level (Beginner, Intermediate, Advanced, or Expert): ");
-		String level = scanner.nextLine();
+		String level = scanner().nextLine();
 		System.out.println("Enter authors (comma-seprated with no spaces): ");
-		String authors = scanner.nextLine();
+		String authors = scanner().nextLine();
 		authors.concat(",");
 		System.out.println("Enter group IDs (comma-seprated with no spaces): ");
-		String groupId = scanner.nextLine();
+		String groupId = scanner().nextLine();
 		groupId.concat(",");
 		String[] groups = groupId.split(",");
 
-		boolean needEncryption = false;
 		for (String group : groups) {
 			if (groupExist(group)) {
 				if (isGroupSpecial(group) && !checkSpecialAdminAccess(curId, group)) {
 					System.out.println("No admin rights for special group: " + group);
 					return;
 				}
-				needEncryption = true;
 			} else {
 				System.out.println("Group " + group + " does not exist.");
 			}
 		}
 
-		createGroups(groups);
-
 		System.out.println("Enter article title: ");
-        String title = scanner.nextLine();
+        String title = scanner().nextLine();
         System.out.println("Enter description: ");
-        String shortDescription = scanner.nextLine();
+        String shortDescription = scanner().nextLine();
         System.out.println("Enter keywords (comma-seprated with no spaces): ");
-        String[] keywords = scanner.nextLine().split(",");
+        String keywords = scanner().nextLine();
         System.out.println("Enter body: ");
-        String body = scanner.nextLine();
-
-        if (needEncryption) {
-            body = encryptionHelper.encrypt(body);
-        }
-
+        String body = scanner().nextLine();
         System.out.println("Enter reference links (comma-seprated with no spaces): ");
-        String[] referenceLinks = scanner.nextLine().split(",");
-
-        int tempId = createArticleId();
-        String insertArticle = "INSERT INTO articles (level, title, short_description, keywords, body, reference_links, id, authors) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
-
-        try (PreparedStatement pstmt = connection.prepareStatement(insertArticle)) {
-            pstmt.setString(1, level);
-            pstmt.setString(2, title);
-            pstmt.setString(3, shortDescription);
-            pstmt.setArray(4, connection.createArrayOf("VARCHAR", keywords));
-            pstmt.setString(5, body);
-            pstmt.setArray(6, connection.createArrayOf("VARCHAR", referenceLinks));
-            pstmt.setInt(7, tempId);
-            pstmt.setString(8, authors);
-            pstmt.executeUpdate();
+        String referenceLinks = scanner().nextLine();
+
+        // bodies of articles in special access groups are encrypted by the service
+        Article article = new Article(0, level, authors, groupId, title, shortDescription, keywords, body, referenceLinks);
+        try {
+            int id = articleService.createArticle(article, curId);
+            System.out.println("Article created with ID: " + id);
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
         } catch(SQLException e) {
 			System.err.println("DB issue: could not properly create article for instructor: " + e.getMessage());
 		}
-
-        // Link groups to article
-        for (String group : groups) {
-            linkArticleGroup(group, tempId);
-        }
 	}
 
 
@@ -1838,18 +2169,18 @@ class DatabaseHelper {
 		}
 
 		System.out.println("Enter article ID: ");
-		int id = Integer.parseInt(scanner.nextLine());
+		int id = Integer.parseInt(scanner().nextLine());
 
 		System.out.println("Enter article level (beginner, intermediate, advanced, expert): ");
-		String level = scanner.nextLine();
+		String level = scanner().nextLine();
 
 		System.out.println("Enter author(s) (Please make sure there are no spaces and that they are comma separated) (e.g. Einstein,Oppenheimer,Suess)");
-		String authors = scanner.nextLine();
+		String authors = scanner().nextLine();
 		authors.concat(",");
 
 		System.out.println(
 				"Enter group ID (Please make sure there are no spaces and that they are comma separated) (e.g. CSE360,CSE360-01,CSE360-02): ");
-		String groupId = scanner.nextLine() + ",";
+		String groupId = scanner().nextLine() + ",";
 
 		String[] groups = groupId.trim().split(",");
 		boolean failed = false;
@@ -1863,134 +2194,145 @@ class DatabaseHelper {
 		}
 		if(failed) return;
 
-		createGroups(groups);
-
 		System.out.println("Enter article title: ");
-		String title = scanner.nextLine();
+		String title = scanner().nextLine();
 
 		System.out.println("Enter short description: ");
-		String shortDescription = scanner.nextLine();
+		String shortDescription = scanner().nextLine();
 
 		System.out.println("Enter keywords (comma separated): ");
-		String keywords = scanner.nextLine();
+		String keywords = scanner().nextLine();
 
 		System.out.println("Enter article body: ");
-		String body = scanner.nextLine();
+		String body = scanner().nextLine();
 
 		System.out.println("Enter reference links (comma separated): ");
-		String referenceLinks = scanner.nextLine();
-
-		String updateArticle = "UPDATE articles SET level = ?, title = ?, short_description = ?, keywords = ?, body = ?, reference_links = ?, authors = ? WHERE id = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(updateArticle)) {
-			pstmt.setString(1, level);
-			pstmt.setString(2, title);
-			pstmt.setString(3, shortDescription);
-			pstmt.setString(4, keywords);
-			pstmt.setString(5, body);
-			pstmt.setString(6, referenceLinks);
-			pstmt.setString(7, authors);
-			pstmt.setInt(8, id);
-			pstmt.executeUpdate();
+		String referenceLinks = scanner().nextLine();
+
+		Article article = new Article(id, level, authors, groupId, title, shortDescription, keywords, body, referenceLinks);
+		try {
+			if (articleService.updateArticles(List.of(article)) == 0) {
+				System.out.println("There is no article with ID: " + id);
+			}
+		} catch (IllegalArgumentException e) {
+			System.out.println(e.getMessage());
 		} catch(SQLException e) {
-			System.err.println("DB issue while instructor updating articles");
+			System.err.println("DB issue while instructor updating articles: " + e.getMessage());
 		}
 	}
 
 	/**
-	 * View all articles in the database
+	 * Fetch one page of the articles a user can view, through the groups they
+	 * are linked to. Each article is listed once even if several of its groups
+	 * match.
 	 * 
-	 * @param role
+	 * @param userId user whose groups to list
+	 * @param group only list articles in this group, or null for any group
+	 * @param level only list articles of this level, or null for any level
+	 * @param afterId cursor: the previous page's nextCursor, or ArticlePage.START
+	 * @param pageSize most articles on the page
+	 * @return the page
 	 * @throws SQLException
 	 */
-	public void viewAllArticles(int userId) throws SQLException {	
-
-		System.out.println("All articles you can view:");
-
-
-		String query = "SELECT articles.id, articles.short_description, articles.authors, articles.title FROM groupRights JOIN groups on groupRights.group_name = groups.name JOIN articleGroups on groups.name = articleGroups.group_name JOIN articles on articleGroups.article_id = articles.id WHERE groupRights.user_id = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-			pstmt.setInt(1, userId);
-			try(ResultSet rs = pstmt.executeQuery()) {
+	public ArticlePage listArticles(int userId, String group, String level, int afterId, int pageSize) throws SQLException {
+		String query = "SELECT articles.id, articles.short_description, articles.authors, articles.title FROM articles "
+		+ "WHERE articles.id > ? "
+		+ (level == null ? "" : "AND articles.level = ? ")
+		+ "AND EXISTS (SELECT 1 FROM articleGroups JOIN groupRights on articleGroups.group_name = groupRights.group_name "
+		+ "WHERE articleGroups.article_id = articles.id AND groupRights.user_id = ?"
+		+ (group == null ? "" : " AND articleGroups.group_name = ?") + ") "
+		+ "ORDER BY articles.id LIMIT ?";
+		List<Article> articles = new ArrayList<>(pageSize);
+		boolean hasMore = false;
+		try (Connection conn = pool.borrow(); PreparedStatement pstmt = conn.prepareStatement(query)) {
+			int param = 1;
+			pstmt.setInt(param++, afterId);
+			if (level != null) pstmt.setString(param++, level);
+			pstmt.setInt(param++, userId);
+			if (group != null) pstmt.setString(param++, group);
+			// one extra row tells us whether there is another page
+			pstmt.setInt(param, pageSize + 1);
+			try (ResultSet rs = pstmt.executeQuery()) {
 				while (rs.next()) {
-				int id = rs.getInt(1);
-				String authors = rs.getString(3);
-				String shortDescription = rs.getString(2);
-				String title = rs.getString(4);
-
-				System.out.println("ID: " + id);
-				System.out.println("Authors: " + authors);
-				System.out.println("Title: " + title);
-				System.out.println("Short Description: " + shortDescription);	
+					if (articles.size() == pageSize) {
+						hasMore = true;
+						break;
+					}
+					articles.add(new Article(rs.getInt(1), null, rs.getString(3), null, rs.getString(4), rs.getString(2), null, null, null));
 				}
 			}
+		}
+		int nextCursor = articles.isEmpty() ? afterId : articles.get(articles.size() - 1).getId();
+		return new ArticlePage(articles, nextCursor, hasMore);
+	}
 
+	/**
+	 * Print a listing one page at a time, asking before each further page
+	 */
+	private void printArticlePages(int userId, String group, String level, String idLabel) throws SQLException {
+		int cursor = ArticlePage.START;
+		while (true) {
+			ArticlePage page = listArticles(userId, group, level, cursor, ARTICLE_PAGE_SIZE);
+			for (Article article : page.articles) {
+				System.out.println(idLabel + article.getId());
+				System.out.println("Authors: " + article.getAuthors());
+				System.out.println("Title: " + article.getTitle());
+				System.out.println("Short Description: " + article.getShortDescription());
+			}
+			if (!page.hasMore) {
+				return;
+			}
+			System.out.println("Press Enter for more articles, or type q to stop: ");
+			if (scanner().nextLine().trim().equalsIgnoreCase("q")) {
+				return;
+			}
+			cursor = page.nextCursor;
+		}
+	}
+
+	/**
+	 * View all articles the user can see, a page at a time
+	 * 
+	 * @param userId
+	 * @throws SQLException
+	 */
+	public void viewAllArticles(int userId) throws SQLException {
+		System.out.println("All articles you can view:");
+		try {
+			printArticlePages(userId, null, null, "ID: ");
 		} catch(SQLException e) {
 			System.err.println("DB issue trying to view all articles: " + e.getMessage());
 		}
 	}
 
+	/**
+	 * View the articles of one group, a page at a time
+	 * 
+	 * @param uId
+	 * @param group
+	 * @throws SQLException
+	 */
 	public void viewGroupedArticles(int uId, String group) throws SQLException {
-
-		String query = "SELECT articles.id, articles.short_description, articles.authors, articles.title FROM groupRights "
-		+ "JOIN groups on groupRights.group_name = groups.name " 
-		+ "JOIN articleGroups on groups.name = articleGroups.group_name "
-		+ "JOIN articles on articleGroups.article_id = articles.id "
-		+ "WHERE groupRights.user_id = ? AND groups.name = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-			pstmt.setInt(1, uId);
-			pstmt.setString(2, group);
-			ResultSet rs = pstmt.executeQuery();
-				while (rs.next()) {
-					int id = rs.getInt(1);
-					String authors = rs.getString(3);
-					String shortDescription = rs.getString(2);
-					String title = rs.getString(4);
-				
-
-					System.out.println("Article ID: " + id);
-					System.out.println("Authors: " + authors);
-					System.out.println("Title: " + title);
-					System.out.println("Short Description: " + shortDescription);	
-				}
-			
+		try {
+			printArticlePages(uId, group, null, "Article ID: ");
 		} catch (SQLException e) {
-				System.err.println("DB issue while viewing Grouped articles: " + e.getMessage());
-			}
+			System.err.println("DB issue while viewing Grouped articles: " + e.getMessage());
+		}
 	}
 
-	public void viewContentArticles(int uId, String contentLevel) throws SQLException {	
-		
-		String query = "SELECT articles.id, articles.short_description, articles.authors, articles.title FROM groupRights "
-		+ "JOIN groups on groupRights.group_name = groups.name " 
-		+ "JOIN articleGroups on groups.name = articleGroups.group_name "
-		+ "JOIN articles on articleGroups.article_id = articles.id "
-		+ "WHERE groupRights.user_id = ? AND articles.level = ?";
-
-
-		// String query = "SELECT articles.id, articles.short_description, articles.authors, articles.title FROM articles "
-		// + "JOIN articleGroups on articleGroups.article_id = articles.id "
-		// + "JOIN groups on articleGroups.group_name = groups.name "
-		// + "WHERE articles.level = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-			pstmt.setInt(1, uId);
-			pstmt.setString(2, contentLevel);
-			ResultSet rs = pstmt.executeQuery();
-				while (rs.next()) {
-					int id = rs.getInt(1);
-					String authors = rs.getString(3);
-					String shortDescription = rs.getString(2);
-					String title = rs.getString(4);
-				
-
-					System.out.println("Article ID: " + id);
-					System.out.println("Authors: " + authors);
-					System.out.println("Title: " + title);
-					System.out.println("Short Description: " + shortDescription);	
-				}
-			
+	/**
+	 * View the articles of one level, a page at a time
+	 * 
+	 * @param uId
+	 * @param contentLevel
+	 * @throws SQLException
+	 */
+	public void viewContentArticles(int uId, String contentLevel) throws SQLException {
+		try {
+			printArticlePages(uId, null, contentLevel, "Article ID: ");
 		} catch (SQLException e) {
-				System.err.println("DB issue while viewing Grouped articles: " + e.getMessage());
-			}
+			System.err.println("DB issue while viewing Grouped articles: " + e.getMessage());
+		}
 	}
 	
 
@@ -2006,7 +2348,7 @@ class DatabaseHelper {
 		+ "JOIN articleGroups on groups.name = articleGroups.group_name "
 		+ "JOIN articles on articleGroups.article_id = articles.id "
 		+ "WHERE articles.id = ?";
-		try(PreparedStatement pstmt = connection.prepareStatement(query)) {
+		try (Connection conn = pool.borrow(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 			pstmt.setInt(1, articleId);
 
 			ResultSet rs = pstmt.executeQuery();
@@ -2031,13 +2373,19 @@ class DatabaseHelper {
 	 */
 	public boolean articleAuth(User curUser, ArrayList<String> groups) throws SQLException{
 		int userId = getUserId(curUser.getUsername(), curUser.getEmail());
-		for(int i = 0; i < groups.size(); i++) {
-			String curGroup = groups.get(i);
-			if(isGroupSpecial(curGroup)) {
-				if(!checkSpecialViewAccess(userId, curGroup)) return false;
-			}
-		}
-		return true;
+		return permissions.canViewAllSpecial(userId, groups);
+	}
+
+	/**
+	 * Check if a session's user has access to a list of groups
+	 * 
+	 * @param session
+	 * @param groups
+	 * @return true if the user has access, false otherwise
+	 * @throws SQLException
+	 */
+	public boolean articleAuth(Session session, List<String> groups) throws SQLException {
+		return session.canViewArticle(groups);
 	}
 
 	/**
@@ -2050,13 +2398,19 @@ class DatabaseHelper {
 	 */
 	public boolean articleDelAuth(User curUser, ArrayList<String> groups) throws SQLException{
 		int userId = getUserId(curUser.getUsername(), curUser.getEmail());
-		for(int i = 0; i < groups.size(); i++) {
-			String curGroup = groups.get(i);
-			if(isGroupSpecial(curGroup)) {
-				if(!checkSpecialAdminAccess(userId, curGroup)) return false;
-			}
-		}
-		return true;
+		return permissions.canAdminAllSpecial(userId, groups);
+	}
+
+	/**
+	 * Check if a session's user has deletion access to a list of groups
+	 * 
+	 * @param session
+	 * @param groups
+	 * @return true if the user has deletion access, false otherwise
+	 * @throws SQLException
+	 */
+	public boolean articleDelAuth(Session session, List<String> groups) throws SQLException {
+		return session.canDeleteArticle(groups);
 	}
 
 	/**
@@ -2069,14 +2423,20 @@ class DatabaseHelper {
 	 */
 	public boolean articleEncrypted(User curUser, ArrayList<String> groups) throws SQLException{
 		int userId = getUserId(curUser.getUsername(), curUser.getEmail());
-		for(int i = 0; i < groups.size(); i++) {
-			String curGroup = groups.get(i);
-			if(isGroupSpecial(curGroup)) {
-				if(checkSpecialViewAccess(userId, curGroup)) return true;
-			}
-		}
-		return false;
-	}	
+		return permissions.canViewAnySpecial(userId, groups);
+	}
+
+	/**
+	 * Check if a session's user has encrypted access to a list of groups
+	 * 
+	 * @param session
+	 * @param groups
+	 * @return true if the user has encrypted access, false otherwise
+	 * @throws SQLException
+	 */
+	public boolean articleEncrypted(Session session, List<String> groups) throws SQLException {
+		return session.seesDecrypted(groups);
+	}
 
 	/**
 	 * View an article from the database
@@ -2094,31 +2454,116 @@ class DatabaseHelper {
 
 		int id = Integer.parseInt(articleId);
 
-		String query = "SELECT * FROM articles WHERE id = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+		showArticle(id, encrypted);
+	}
+
+	/**
+	 * Load every article column except the body
+	 * 
+	 * @param id article id
+	 * @return the article with a null body, or null if it does not exist
+	 * @throws SQLException
+	 */
+	public Article getArticleSummary(int id) throws SQLException {
+		String query = "SELECT " + SUMMARY_COLUMNS + " FROM articles WHERE id = ?";
+		try (Connection conn = pool.borrow(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 			pstmt.setInt(1, id);
 			try (ResultSet rs = pstmt.executeQuery()) {
-				while (rs.next()) {
-					String level = rs.getString("level");
-					String authors = rs.getString("authors");
-					String title = rs.getString("title");
-					String shortDescription = rs.getString("short_description");
-					String keywords = rs.getString("keywords");
-					String body = rs.getString("body");
-					if(encrypted) body = encryptionHelper.decrypt(body);
-					String referenceLinks = rs.getString("reference_links");
-
-					System.out.println("ID: " + id);
-					System.out.println("Level: " + level);
-					System.out.println("Authors: " + authors);
-					System.out.println("Title: " + title);
-					System.out.println("Short Description: " + shortDescription);
-					System.out.println("Keywords: " + keywords);
-					System.out.println("Body: " + body);
-					System.out.println("Reference Links: " + referenceLinks);
+				return rs.next() ? summaryFrom(rs) : null;
+			}
+		}
+	}
+
+	// the columns listings and searches need - everything but the body CLOB
+	private static final String SUMMARY_COLUMNS = "id, level, authors, title, short_description, keywords, reference_links";
+
+	private static Article summaryFrom(ResultSet rs) throws SQLException {
+		return new Article(rs.getInt("id"), rs.getString("level"), rs.getString("authors"), null, rs.getString("title"),
+				rs.getString("short_description"), rs.getString("keywords"), null, rs.getString("reference_links"));
+	}
+
+	/**
+	 * Open a streaming reader over an article's body. The body is read from the
+	 * database as it is consumed, never loaded whole. The caller must close the
+	 * reader, which also releases its pooled connection.
+	 * 
+	 * @param id article id
+	 * @param encrypted whether the body is stored encrypted and should be decrypted
+	 * @return the body, or null if the article does not exist or has no body
+	 * @throws SQLException
+	 */
+	public Reader openArticleBody(int id, boolean encrypted) throws SQLException {
+		Reader body = ArticleBodyReader.open(pool, id);
+		return body != null && encrypted ? encryptionHelper.decrypt(body) : body;
+	}
+
+	/**
+	 * Print an article, from the article cache when it is there. Articles small
+	 * enough to cache are loaded whole and cached; larger bodies are streamed.
+	 */
+	private void showArticle(int id, boolean encrypted) throws SQLException {
+		Article article = articleCache.get(id);
+		if (article == null) {
+			long loadedAt = articleCache.generation();
+			long bodyLength;
+			String query = "SELECT " + SUMMARY_COLUMNS + ", LENGTH(body) AS body_length FROM articles WHERE id = ?";
+			try (Connection conn = pool.borrow(); PreparedStatement pstmt = conn.prepareStatement(query)) {
+				pstmt.setInt(1, id);
+				try (ResultSet rs = pstmt.executeQuery()) {
+					if (!rs.next()) {
+						return;
+					}
+					article = summaryFrom(rs);
+					bodyLength = rs.getLong("body_length");
+				}
+			}
+			if (articleCache.accepts(bodyLength)) {
+				try (Reader body = openArticleBody(id, false)) {
+					if (body != null) {
+						StringWriter text = new StringWriter((int) bodyLength);
+						body.transferTo(text);
+						article.setBody(text.toString());
+					}
+					articleCache.put(article, loadedAt);
+				} catch (IOException e) {
+					System.err.println("Unable to read article body: " + e.getMessage());
 				}
 			}
 		}
+		printArticle(article, encrypted);
+	}
+
+	/**
+	 * Print an article. A body already on the article is printed as is, otherwise
+	 * it is streamed to the console from the database.
+	 */
+	private void printArticle(Article article, boolean encrypted) throws SQLException {
+		System.out.println("ID: " + article.getId());
+		System.out.println("Level: " + article.getLevel());
+		System.out.println("Authors: " + article.getAuthors());
+		System.out.println("Title: " + article.getTitle());
+		System.out.println("Short Description: " + article.getShortDescription());
+		System.out.println("Keywords: " + article.getKeywords());
+		System.out.print("Body: ");
+		if (article.getBody() != null) {
+			System.out.println(encrypted ? encryptionHelper.decrypt(article.getBody()) : article.getBody());
+			System.out.println("Reference Links: " + article.getReferenceLinks());
+			return;
+		}
+		try (Reader body = openArticleBody(article.getId(), encrypted)) {
+			if (body == null) {
+				System.out.print("null");
+			} else {
+				char[] buf = new char[8192];
+				for (int n; (n = body.read(buf)) != -1;) {
+					System.out.print(new String(buf, 0, n));
+				}
+			}
+		} catch (IOException e) {
+			System.err.println("Unable to read article body: " + e.getMessage());
+		}
+		System.out.println();
+		System.out.println("Reference Links: " + article.getReferenceLinks());
 	}
 
 	/**
@@ -2129,23 +2574,32 @@ class DatabaseHelper {
 	 * @throws SQLException
 	 */
 	public boolean deleteArticle(User curUser) throws SQLException {
+		Session session = sessionFor(curUser);
+		if (session == null) {
+			System.out.println("User not found. Cannot delete article.");
+			return false;
+		}
+		return deleteArticle(session);
+	}
+
+	/**
+	 * Delete an article from the database, prompting for its id
+	 * 
+	 * @param session the deleting user's session
+	 * @return boolean that represents if article was deleted
+	 * @throws SQLException
+	 */
+	public boolean deleteArticle(Session session) throws SQLException {
 
 		System.out.println("Enter article ID: ");
-		int id = Integer.parseInt(scanner.nextLine());
+		int id = Integer.parseInt(scanner().nextLine());
 
-		ArrayList<String> temp = getGroupsForAnArticle(id);
-		if(!articleDelAuth(curUser, temp)) {
+		try {
+			return articleService.deleteArticles(List.of(id), session.getUserId()) > 0;
+		} catch (IllegalArgumentException e) {
 			System.out.println("You are not authorized to delete this article.");
-			return false;
-		}
-
-		String deleteArticle = "DELETE FROM articles WHERE id = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(deleteArticle)) {
-			pstmt.setInt(1, id);
-			int rowsAffected = pstmt.executeUpdate();
-			return rowsAffected > 0;
 		} catch(SQLException e) {
-			System.err.println("DB issue while trying to delete an article");
+			System.err.println("DB issue while trying to delete an article: " + e.getMessage());
 		}
 		return false;
 	}
@@ -2166,7 +2620,7 @@ class DatabaseHelper {
 				+ "JOIN groupRights on cse360users.id = groupRights.user_id "
 				+ "WHERE groupRights.group_name = ? AND groupRights.accessRole = ? AND groupRights.adminRightsFlag = ?";
 
-				try(PreparedStatement pstmt = connection.prepareStatement(sql)) {
+				try (Connection conn = pool.borrow(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
 					pstmt.setString(1, gName);
 					pstmt.setString(2, roleFlag);
 					pstmt.setBoolean(3, true);
@@ -2190,7 +2644,7 @@ class DatabaseHelper {
 				+ "JOIN groupRights on cse360users.id = groupRights.user_id "
 				+ "WHERE groupRights.group_name = ? AND groupRights.accessRole = ? AND groupRights.viewRightsFlag = ?";
 
-				try(PreparedStatement pstmt = connection.prepareStatement(sql)) {
+				try (Connection conn = pool.borrow(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
 					pstmt.setString(1, gName);
 					pstmt.setString(2, roleFlag);
 					pstmt.setBoolean(3, true);
@@ -2232,7 +2686,7 @@ class DatabaseHelper {
 			+ "ON cse360users.id = groupRights.user_id " 
 			+ "WHERE groupRights.group_name = ?";
 
-				try(PreparedStatement pstmt = connection.prepareStatement(sql)) {
+				try (Connection conn = pool.borrow(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
 					pstmt.setString(1, gName);
 
 					try(ResultSet rs = pstmt.executeQuery()) {
@@ -2265,7 +2719,7 @@ class DatabaseHelper {
 	public boolean canDeleteAdmin(int userId) throws SQLException{
 		String query = "SELECT DISTINCT(group_name) from groupRights "
 		+ "WHERE user_id = ? AND adminRightsFlag = ?";
-		try(PreparedStatement pstmt = connection.prepareStatement(query)) {
+		try (Connection conn = pool.borrow(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 			pstmt.setInt(1, userId);
 			pstmt.setBoolean(2, true);
 
@@ -2288,7 +2742,7 @@ class DatabaseHelper {
 		String query = "SELECT accessRole FROM groupRights "
 		+ "WHERE user_id = ? AND group_name = ? AND adminRightsFlag = ?";
 
-		try(PreparedStatement pstmt = connection.prepareStatement(query)) {
+		try (Connection conn = pool.borrow(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 			pstmt.setInt(1, userId);
 			pstmt.setString(2, gName);
 			pstmt.setBoolean(3, true);
@@ -2305,7 +2759,7 @@ class DatabaseHelper {
 		String query = "SELECT COUNT(accessRole) FROM groupRights "
 		+ "WHERE adminRightsFlag = ? AND group_name =?";
 
-		try(PreparedStatement pstmt = connection.prepareStatement(query)) {
+		try (Connection conn = pool.borrow(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 			pstmt.setBoolean(1, true);
 			pstmt.setString(2, gName);
 
@@ -2321,67 +2775,84 @@ class DatabaseHelper {
 		return false;
 	}
 
+	/**
+	 * Rank the articles matching a search, without any console interaction
+	 * 
+	 * @param level level to match ignoring case, or "ALL"
+	 * @param group name of a group the article must be in, or "ALL"
+	 * @param search search text, blank for every article
+	 * @return the best SEARCH_RESULT_LIMIT ids and the total number of matches
+	 */
+	SearchIndex.SearchResult findArticles(String level, String group, String search) {
+		// ranked in memory; only the articles that will be listed are fetched
+		return searchIndex.search(search.strip(), level.strip(), group.strip(), SEARCH_RESULT_LIMIT);
+	}
+
+	/**
+	 * Load the summaries - every column but the body - of several articles
+	 * 
+	 * @param ids article ids
+	 * @return the articles in the same order, leaving out any that do not exist
+	 * @throws SQLException
+	 */
+	public List<Article> getArticleSummaries(List<Integer> ids) throws SQLException {
+		List<Article> articles = new ArrayList<>(ids.size());
+		String query = "SELECT " + SUMMARY_COLUMNS + " FROM articles WHERE id = ?";
+		try (Connection conn = pool.borrow(); PreparedStatement pstmt = conn.prepareStatement(query)) {
+			for (int articleId : ids) {
+				pstmt.setInt(1, articleId);
+				try (ResultSet rs = pstmt.executeQuery()) {
+					if (rs.next()) {
+						articles.add(summaryFrom(rs));
+					}
+				}
+			}
+		}
+		return articles;
+	}
+
 	public void searchArticle(String role, String level, String group, String search) { 
 		role = role.strip();
 		level = level.strip();
 		group = group.strip();
 		search = search.strip();
-		
-		String query = "SELECT a.* FROM articles a "
-					 + "JOIN articleGroups ag ON a.id = ag.article_id "
-					 + "WHERE (? = 'ALL' OR a.level = ?) "
-					 + "AND (? = 'ALL' OR ag.group_name LIKE ?) "
-					 + "AND (a.title LIKE ? OR a.short_description LIKE ? OR a.keywords LIKE ?)";
-		try (PreparedStatement pstmt = connection.prepareStatement(query, ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY)) {
-			pstmt.setString(1, level);
-			pstmt.setString(2, level);
-			pstmt.setString(3, group);
-			pstmt.setString(4, group.equals("ALL") ? "%" : "%" + group + "%");
-			pstmt.setString(5, "%" + search + "%");
-			pstmt.setString(6, "%" + search + "%");
-			pstmt.setString(7, "%" + search + "%");
-			try (ResultSet rs = pstmt.executeQuery()) {
-				List<Article> articles = new ArrayList<>();
-				while (rs.next()) {
-					int id = rs.getInt("id");
-					String articleLevel = rs.getString("level");
-					String authors = rs.getString("authors");
-					String title = rs.getString("title");
-					String shortDescription = rs.getString("short_description");
-					String keywords = rs.getString("keywords");
-					String body = rs.getString("body");
-					String referenceLinks = rs.getString("reference_links");
-					articles.add(new Article(id, articleLevel, authors, title, shortDescription, keywords, body, referenceLinks));
-				}
-				System.out.println("Search Level: " + level + "\t\tTotal Results: " + articles.size());
-				
-				for (int i = 0; i < articles.size(); i++) {
-					System.out.println("Option: " + (i + 1) + "\nTitle: " + articles.get(i).getTitle() + "\nAbstract: " + articles.get(i).getShortDescription());
-				}
 
-				System.out.println("Which article would you like to view?");
+		SearchIndex.SearchResult result = findArticles(level, group, search);
+		// summaries only - the chosen article's body is streamed when it is shown
+		try {
+			List<Article> articles = getArticleSummaries(result.ids);
 
-				String choice = scanner.nextLine();
+			System.out.println("Search Level: " + level + "\t\tTotal Results: " + result.total);
+			if (result.total > articles.size()) {
+				System.out.println("Showing the best " + articles.size() + " matches");
+			}
+			
+			for (int i = 0; i < articles.size(); i++) {
+				System.out.println("Option: " + (i + 1) + "\nTitle: " + articles.get(i).getTitle() + "\nAbstract: " + articles.get(i).getShortDescription());
+			}
 
-				if (!choice.matches("\\d+")) {
-					System.out.println("Invalid input. Please enter a valid article number.");
-					return;
-				}
+			System.out.println("Which article would you like to view?");
 
-				int articleIndex = Integer.parseInt(choice) - 1;
-				
-				if(articles.size() == 0) {
-					System.out.println("There are no articles matching your criteria. Please try again later.");
-					return;
-				}
+			String choice = scanner().nextLine();
 
-				if (articleIndex < 0 || articleIndex >= articles.size()) {
-					System.out.println("Invalid article selection. Please try again.");
-					return;
-				}
+			if (!choice.matches("\\d+")) {
+				System.out.println("Invalid input. Please enter a valid article number.");
+				return;
+			}
 
-				System.out.println(articles.get(articleIndex));
+			int articleIndex = Integer.parseInt(choice) - 1;
+			
+			if(articles.size() == 0) {
+				System.out.println("There are no articles matching your criteria. Please try again later.");
+				return;
 			}
+
+			if (articleIndex < 0 || articleIndex >= articles.size()) {
+				System.out.println("Invalid article selection. Please try again.");
+				return;
+			}
+
+			showArticle(articles.get(articleIndex).getId(), false);
 		} catch (SQLException e) {
 			System.err.println("Database error while searching for articles: " + e.getMessage());
 		}
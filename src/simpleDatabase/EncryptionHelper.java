@@ -1,5 +1,10 @@
 package simpleDatabase;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.nio.charset.StandardCharsets;
 import java.util.Base64;
 
@@ -33,4 +38,36 @@ public class EncryptionHelper {
         byte[] decodedBytes = Base64.getDecoder().decode(encryptedText);
         return new String(decodedBytes, StandardCharsets.UTF_8);
     }
+
+    /**
+     * Decrypts a Base64 encoded stream as it is read, without loading it all
+     * @param encryptedText Reader over the Base64 text; closed with the returned reader
+     * @return A reader over the decrypted plaintext
+     */
+    public Reader decrypt(Reader encryptedText) {
+        BufferedReader chars = new BufferedReader(encryptedText);
+        // Base64 text is plain ASCII, so each char is one byte
+        InputStream bytes = new InputStream() {
+            @Override
+            public int read() throws IOException {
+                return chars.read();
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                char[] buf = new char[len];
+                int n = chars.read(buf, 0, len);
+                for (int i = 0; i < n; i++) {
+                    b[off + i] = (byte) buf[i];
+                }
+                return n;
+            }
+
+            @Override
+            public void close() throws IOException {
+                chars.close();
+            }
+        };
+        return new InputStreamReader(Base64.getDecoder().wrap(bytes), StandardCharsets.UTF_8);
+    }
 }
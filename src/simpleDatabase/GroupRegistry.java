@@ -0,0 +1,118 @@
+package simpleDatabase;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/***
+ * In-memory copy of the groups table.
+ * <p>
+ * The groups table only holds a name and a special access flag per group, is
+ * small, and changes far less often than it is read. It is loaded once on
+ * startup and groupExist and isGroupSpecial then answer from this map without
+ * touching the database. Every code path that inserts or deletes groups -
+ * createGroups, createSpecialGroup, delEntireGroup and ArticleService -
+ * updates the registry after its write succeeds.
+ * </p>
+ * <p>
+ * load() builds a new map and publishes it with one volatile write, so a
+ * reader sees either the old registry or the new one, never a half-filled
+ * map. If a group was added or removed while the table was being read, the
+ * read is repeated so that change is not lost.
+ * </p>
+ *
+ * @author Abhave Abhilash and Aditya Gupta
+ * @version 1.0
+ * @since 10/9/2024
+ */
+class GroupRegistry {
+
+	// group name -> special access flag; replaced as a whole by load()
+	private volatile Map<String, Boolean> groups = new ConcurrentHashMap<>();
+	// added() and removed() calls so far, guarded by this
+	private long changes = 0;
+
+	/**
+	 * Replace the registry with the current contents of the groups table
+	 *
+	 * @param pool pool to read through
+	 * @throws SQLException
+	 */
+	void load(ConnectionPool pool) throws SQLException {
+		while (true) {
+			long seen;
+			synchronized (this) {
+				seen = changes;
+			}
+			Map<String, Boolean> loaded = new ConcurrentHashMap<>();
+			try (Connection conn = pool.borrow(); Statement stmt = conn.createStatement();
+					ResultSet rs = stmt.executeQuery("SELECT name, specialFlag FROM groups")) {
+				while (rs.next()) {
+					loaded.put(rs.getString(1), rs.getBoolean(2));
+				}
+			}
+			synchronized (this) {
+				if (changes == seen) {
+					groups = loaded;
+					return;
+				}
+			}
+		}
+	}
+
+	/**
+	 * @param name group name
+	 * @return true if the group exists
+	 */
+	boolean exists(String name) {
+		return name != null && groups.containsKey(name);
+	}
+
+	/**
+	 * @param name group name
+	 * @return true if the group exists and is a special access group
+	 */
+	boolean isSpecial(String name) {
+		return name != null && groups.getOrDefault(name, false);
+	}
+
+	/**
+	 * Record a group that was just inserted
+	 *
+	 * @param name group name
+	 * @param special its special access flag
+	 */
+	synchronized void added(String name, boolean special) {
+		groups.put(name, special);
+		changes++;
+	}
+
+	/**
+	 * Record a group that was just deleted
+	 *
+	 * @param name group name
+	 */
+	synchronized void removed(String name) {
+		groups.remove(name);
+		changes++;
+	}
+
+	/**
+	 * @return the names of every group
+	 */
+	List<String> names() {
+		return new ArrayList<>(groups.keySet());
+	}
+
+	/**
+	 * @return number of groups
+	 */
+	int size() {
+		return groups.size();
+	}
+}
@@ -1,68 +1,59 @@
 package simpleDatabase;
 
-import java.util.ArrayList;
-import java.util.List;
-
 /**
  * System for managing help messages between users
+ *
+ * <p>
+ * Messages are handed to a MessageWriter, which stores them in the
+ * help_messages table from a background thread. Sending only queues the
+ * message, so it returns immediately and is safe from any number of threads.
+ * DatabaseHelper starts the writer when it connects and flushes it when the
+ * connection is closed.
+ * </p>
  */
 public class HelpSystem {
-    /** List to store all help messages */
-    private static List<Message> helpMessages = new ArrayList<>();
+    /** Queue and background writer for all help messages */
+    private static final MessageWriter writer = new MessageWriter(MessageWriter.DEFAULT_CAPACITY);
 
     /**
      * Sends a generic help message from one user to another
      * @param message The message content to send
      * @param user The user sending/receiving the message
+     * @return false if too many messages are waiting to be saved and this one was not accepted
      */
-    public static void sendGenericMessage(String message, User user) {
-        Message msg = new Message(message, user);
-        helpMessages.add(msg);
+    public static boolean sendGenericMessage(String message, User user) {
+        return writer.offer("generic", new Message(message, user));
     }
 
     /**
      * Sends a specific help message from one user to another
      * @param message The message content to send
      * @param user The user sending/receiving the message
+     * @return false if too many messages are waiting to be saved and this one was not accepted
      */
-    public static void sendSpecificMessage(String message, User user) {
-        Message msg = new Message(message, user);
-        helpMessages.add(msg);
+    public static boolean sendSpecificMessage(String message, User user) {
+        return writer.offer("specific", new Message(message, user));
     }
-}
-
-/**
- * Class representing a help message between users
- */
-class Message {
-    /** The content of the message */
-    private String message;
-    /** The user associated with this message */
-    private User user;
 
     /**
-     * Creates a new Message
-     * @param message The content of the message
-     * @param user The user associated with the message
+     * Start saving messages to the database
+     * @param pool The pool to write through
      */
-    public Message(String message, User user) {
-        this.message = message;
-        this.user = user;
+    static void start(ConnectionPool pool) {
+        writer.start(pool);
     }
 
     /**
-     * Gets the message content
-     * @return The message content
+     * Save every queued message and stop the background writer
      */
-    public String getMessage() {
-        return message;
+    static void stop() {
+        writer.stop();
     }
 
     /**
-     * Gets the user associated with this message
-     * @return The user
+     * @return The background writer, for its metrics
      */
-    public User getUser() {
-        return user;
+    static MessageWriter getWriter() {
+        return writer;
     }
-}
\ No newline at end of file
+}
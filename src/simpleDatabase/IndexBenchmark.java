@@ -0,0 +1,218 @@
+package simpleDatabase;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Random;
+
+/***
+ * Measures how the DatabaseHelper lookups scale before and after the index
+ * migrations in SchemaMigrations.
+ * <p>
+ * Seeds a scratch H2 database (100k users and 1M articles by default), runs
+ * each lookup against the baseline schema (version 1), applies the remaining
+ * migrations and runs the same lookups again. Usage:
+ * </p>
+ *
+ * <pre>
+ * java simpleDatabase.IndexBenchmark [users] [articles] [lookups]
+ * </pre>
+ *
+ * @author Abhave Abhilash and Aditya Gupta
+ * @version 1.0
+ * @since 10/9/2024
+ */
+class IndexBenchmark {
+
+	private static final int GROUPS = 200;
+
+	private final ConnectionPool pool;
+	private final int users;
+	private final int articles;
+	private final int lookups;
+	private final Random random = new Random(360);
+
+	private IndexBenchmark(ConnectionPool pool, int users, int articles, int lookups) {
+		this.pool = pool;
+		this.users = users;
+		this.articles = articles;
+		this.lookups = lookups;
+	}
+
+	public static void main(String[] args) throws Exception {
+		int users = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+		int articles = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+		int lookups = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+
+		File dir = new File(System.getProperty("java.io.tmpdir"), "cse360-index-bench-" + System.nanoTime());
+		String url = "jdbc:h2:" + new File(dir, "bench").getAbsolutePath();
+		Class.forName(DatabaseHelper.JDBC_DRIVER);
+		ConnectionPool pool = new ConnectionPool(url, DatabaseHelper.USER, DatabaseHelper.PASS, 1, 2);
+		try {
+			IndexBenchmark bench = new IndexBenchmark(pool, users, articles, lookups);
+			try (Connection conn = pool.borrow()) {
+				SchemaMigrations.migrate(conn, 1);
+			}
+			System.out.println("Seeding " + users + " users and " + articles + " articles...");
+			bench.seed();
+
+			System.out.println("\nBaseline schema (primary keys only):");
+			bench.runLookups();
+
+			long start = System.nanoTime();
+			try (Connection conn = pool.borrow()) {
+				SchemaMigrations.migrate(conn);
+			}
+			System.out.printf("%nIndexes built in %.1f s%n", (System.nanoTime() - start) / 1e9);
+
+			System.out.println("\nMigrated schema (version " + SchemaMigrations.latestVersion() + "):");
+			bench.runLookups();
+		} finally {
+			pool.close();
+			for (File f : dir.listFiles() == null ? new File[0] : dir.listFiles()) {
+				f.delete();
+			}
+			dir.delete();
+		}
+	}
+
+	// bulk load users, groups, rights, articles, article links and otps
+	private void seed() throws SQLException {
+		try (Connection conn = pool.borrow()) {
+			conn.setAutoCommit(false);
+			try (PreparedStatement pstmt = conn.prepareStatement(
+					"INSERT INTO cse360users (userName, email, password, studFlag) VALUES (?, ?, ?, TRUE)")) {
+				for (int i = 0; i < users; i++) {
+					pstmt.setString(1, "user" + i);
+					pstmt.setString(2, "user" + i + "@asu.edu");
+					pstmt.setString(3, "pw" + i);
+					pstmt.addBatch();
+					flush(conn, pstmt, i);
+				}
+				pstmt.executeBatch();
+			}
+			try (PreparedStatement pstmt = conn.prepareStatement("INSERT INTO groups (name, specialFlag) VALUES (?, ?)")) {
+				for (int g = 0; g < GROUPS; g++) {
+					pstmt.setString(1, "group" + g);
+					pstmt.setBoolean(2, g % 10 == 0);
+					pstmt.addBatch();
+				}
+				pstmt.executeBatch();
+			}
+			try (PreparedStatement pstmt = conn.prepareStatement(
+					"INSERT INTO groupRights (user_id, group_name, accessRole, adminRightsFlag, viewRightsFlag) VALUES (?, ?, 's', FALSE, TRUE)")) {
+				for (int i = 1; i <= users; i++) {
+					pstmt.setInt(1, i);
+					pstmt.setString(2, "group" + (i % GROUPS));
+					pstmt.addBatch();
+					flush(conn, pstmt, i);
+				}
+				pstmt.executeBatch();
+			}
+			String[] levels = { "beginner", "intermediate", "advanced", "expert" };
+			try (PreparedStatement article = conn.prepareStatement(
+					"INSERT INTO articles (id, level, authors, title, short_description, keywords, body) VALUES (?, ?, 'bench', ?, 'abstract', 'keys', 'body')");
+					PreparedStatement link = conn.prepareStatement("INSERT INTO articleGroups (group_name, article_id) VALUES (?, ?)")) {
+				for (int i = 1; i <= articles; i++) {
+					article.setInt(1, i);
+					article.setString(2, levels[i % levels.length]);
+					article.setString(3, "Article " + i);
+					article.addBatch();
+					link.setString(1, "group" + (i % GROUPS));
+					link.setInt(2, i);
+					link.addBatch();
+					if (i % 1000 == 0) {
+						article.executeBatch();
+						link.executeBatch();
+						conn.commit();
+					}
+				}
+				article.executeBatch();
+				link.executeBatch();
+			}
+			try (PreparedStatement pstmt = conn.prepareStatement(
+					"INSERT INTO otpTable (otp, expiryTime, user_id) VALUES (?, DATEADD('MINUTE', 5, CURRENT_TIMESTAMP), ?)")) {
+				for (int i = 1; i <= users; i++) {
+					pstmt.setString(1, String.format("%08d", i));
+					pstmt.setInt(2, i);
+					pstmt.addBatch();
+					flush(conn, pstmt, i);
+				}
+				pstmt.executeBatch();
+			}
+			conn.commit();
+			conn.setAutoCommit(true);
+		}
+	}
+
+	private static void flush(Connection conn, PreparedStatement pstmt, int i) throws SQLException {
+		if (i % 1000 == 0) {
+			pstmt.executeBatch();
+			conn.commit();
+		}
+	}
+
+	// same SQL as the DatabaseHelper methods named in each label
+	private void runLookups() throws SQLException {
+		time("getUserId(userName, email)", "SELECT id FROM cse360users WHERE userName = ? AND email = ?", pstmt -> {
+			int u = random.nextInt(users);
+			pstmt.setString(1, "user" + u);
+			pstmt.setString(2, "user" + u + "@asu.edu");
+		});
+		time("login(userName, password)", "SELECT * FROM cse360users WHERE userName = ? AND password = ?", pstmt -> {
+			int u = random.nextInt(users);
+			pstmt.setString(1, "user" + u);
+			pstmt.setString(2, "pw" + u);
+		});
+		time("checkSpecialViewAccess", "SELECT viewRightsFlag from groupRights where user_id = ? and group_name = ?", pstmt -> {
+			int u = random.nextInt(users) + 1;
+			pstmt.setInt(1, u);
+			pstmt.setString(2, "group" + (u % GROUPS));
+		});
+		time("viewGroupedArticles (first page)", "SELECT articles.id, articles.short_description, articles.authors, articles.title FROM articles "
+				+ "WHERE articles.id > ? "
+				+ "AND EXISTS (SELECT 1 FROM articleGroups JOIN groupRights on articleGroups.group_name = groupRights.group_name "
+				+ "WHERE articleGroups.article_id = articles.id AND groupRights.user_id = ? AND articleGroups.group_name = ?) "
+				+ "ORDER BY articles.id LIMIT 21", pstmt -> {
+			int u = random.nextInt(users) + 1;
+			pstmt.setInt(1, ArticlePage.START);
+			pstmt.setInt(2, u);
+			pstmt.setString(3, "group" + (u % GROUPS));
+		});
+		time("getGroupsForAnArticle", "SELECT name from groups "
+				+ "JOIN articleGroups on groups.name = articleGroups.group_name "
+				+ "JOIN articles on articleGroups.article_id = articles.id "
+				+ "WHERE articles.id = ?", pstmt -> {
+			pstmt.setInt(1, random.nextInt(articles) + 1);
+		});
+		time("verifyOTP", "SELECT user_id, expiryTime FROM otpTable WHERE otp = ?", pstmt -> {
+			pstmt.setString(1, String.format("%08d", random.nextInt(users) + 1));
+		});
+	}
+
+	private interface Binder {
+		void bind(PreparedStatement pstmt) throws SQLException;
+	}
+
+	private void time(String label, String sql, Binder binder) throws SQLException {
+		long total = 0;
+		long worst = 0;
+		try (Connection conn = pool.borrow(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
+			for (int i = 0; i < lookups; i++) {
+				binder.bind(pstmt);
+				long start = System.nanoTime();
+				try (ResultSet rs = pstmt.executeQuery()) {
+					while (rs.next()) {
+						// drain
+					}
+				}
+				long elapsed = System.nanoTime() - start;
+				total += elapsed;
+				worst = Math.max(worst, elapsed);
+			}
+		}
+		System.out.printf("  %-30s avg %10.1f us   max %10.1f us%n", label, total / 1e3 / lookups, worst / 1e3);
+	}
+}
@@ -0,0 +1,72 @@
+package simpleDatabase;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+/***
+ * Measures bulk invitations against creating them one row at a time.
+ * <p>
+ * A scratch H2 database first gets the same number of invitations through
+ * insertShellUser and insertOTP, one autocommit row each, which is how they
+ * were created before Invitations. It then runs inviteUsers several times.
+ * The first rounds include class loading and JIT warm-up, so the later ones
+ * are the steady state. Usage:
+ * </p>
+ *
+ * <pre>
+ * java simpleDatabase.InvitationBenchmark [invitations] [rounds]
+ * </pre>
+ *
+ * @author Abhave Abhilash and Aditya Gupta
+ * @version 1.0
+ * @since 10/9/2024
+ */
+class InvitationBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+		int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+		File dir = new File(System.getProperty("java.io.tmpdir"), "cse360-invite-bench-" + System.nanoTime());
+		DatabaseHelper databaseHelper = new DatabaseHelper("jdbc:h2:" + new File(dir, "bench").getAbsolutePath(), 1, 2);
+		try {
+			databaseHelper.connectToDatabase();
+
+			// insertShellUser prints a line per user
+			PrintStream console = System.out;
+			System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+			long start = System.nanoTime();
+			try {
+				insertOneByOne(databaseHelper, count);
+			} finally {
+				System.setOut(console);
+			}
+			System.out.printf("One row at a time: %d invitations in %d ms%n", count, (System.nanoTime() - start) / 1_000_000);
+
+			for (int round = 1; round <= rounds; round++) {
+				start = System.nanoTime();
+				databaseHelper.inviteUsers(count, false, false, true, 60);
+				System.out.printf("inviteUsers round %d: %d invitations in %d ms%n", round, count, (System.nanoTime() - start) / 1_000_000);
+			}
+		} finally {
+			databaseHelper.closeConnection();
+			for (File f : dir.listFiles() == null ? new File[0] : dir.listFiles()) {
+				f.delete();
+			}
+			dir.delete();
+		}
+	}
+
+	// the old path: a shell user and a code per invitation, each its own autocommit insert
+	private static void insertOneByOne(DatabaseHelper databaseHelper, int count) throws SQLException {
+		String expires = Timestamp.valueOf(LocalDateTime.now().plusMinutes(60)).toString();
+		for (int i = 0; i < count; i++) {
+			int userId = databaseHelper.insertShellUser(false, false, true);
+			databaseHelper.insertOTP(Invitations.newCode(), expires, userId);
+		}
+	}
+}
@@ -0,0 +1,233 @@
+package simpleDatabase;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.SecureRandom;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/***
+ * Invites users in bulk: a shell user and a one time password for each.
+ * <p>
+ * The shell users are inserted BATCH_SIZE rows per executeBatch() and their
+ * ids read back from the batch's generated keys. Each invitation then gets a
+ * code of CODE_LENGTH characters drawn from SecureRandom. No two codes in a
+ * call are the same, and each slice of codes is checked against otpTable with
+ * one query, so a code already in use is replaced before anything is
+ * inserted. The codes go into otpTable in batches as well. Everything runs on
+ * the caller's connection and transaction.
+ * </p>
+ * <p>
+ * The alphabet leaves out 0, O, 1 and I so a code can be read out or typed
+ * without mix-ups. Twelve of its 32 characters give 60 random bits per code.
+ * </p>
+ *
+ * @author Abhave Abhilash and Aditya Gupta
+ * @version 1.0
+ * @since 10/9/2024
+ */
+final class Invitations {
+
+	/** Rows per executeBatch(), and codes per lookup query */
+	static final int BATCH_SIZE = 1000;
+
+	/** Characters in a code */
+	static final int CODE_LENGTH = 12;
+
+	private static final char[] ALPHABET = "ABCDEFGHJKLMNPQRSTUVWXYZ23456789".toCharArray();
+	private static final SecureRandom RANDOM = new SecureRandom();
+
+	private static final String INSERT_USER = "INSERT INTO cse360users (userName, email, password, firstName, middleName, lastName, preferredFirst, adminFlag, teachFlag, studFlag, otpFlag) "
+			+ "VALUES ('', '', '', '', '', '', '', ?, ?, ?, FALSE)";
+	private static final String INSERT_OTP = "INSERT INTO otpTable (otp, expiryTime, user_id) VALUES (?, ?, ?)";
+
+	private Invitations() {
+	}
+
+	/**
+	 * @return a new random code
+	 */
+	static String newCode() {
+		char[] code = new char[CODE_LENGTH];
+		for (int i = 0; i < code.length; i++) {
+			code[i] = ALPHABET[RANDOM.nextInt(ALPHABET.length)];
+		}
+		return new String(code);
+	}
+
+	/**
+	 * Insert a shell user and a code for every invitation, filling in their
+	 * user ids and codes. Nothing is committed.
+	 *
+	 * @param conn connection to insert through, normally in manual commit
+	 * @param invitations the invitations to create
+	 * @throws SQLException
+	 */
+	static void insert(Connection conn, List<Invitation> invitations) throws SQLException {
+		try (PreparedStatement users = conn.prepareStatement(INSERT_USER, Statement.RETURN_GENERATED_KEYS)) {
+			for (int start = 0; start < invitations.size(); start += BATCH_SIZE) {
+				List<Invitation> slice = invitations.subList(start, Math.min(start + BATCH_SIZE, invitations.size()));
+				for (Invitation invitation : slice) {
+					users.setBoolean(1, invitation.admin);
+					users.setBoolean(2, invitation.instructor);
+					users.setBoolean(3, invitation.student);
+					users.addBatch();
+				}
+				users.executeBatch();
+				try (ResultSet keys = users.getGeneratedKeys()) {
+					for (int i = 0; i < slice.size(); i++) {
+						if (!keys.next()) {
+							throw new SQLException("Only " + i + " of " + slice.size() + " shell user ids were returned");
+						}
+						slice.get(i).userId = keys.getInt(1);
+					}
+				}
+			}
+		}
+
+		assignCodes(conn, invitations);
+
+		try (PreparedStatement otps = conn.prepareStatement(INSERT_OTP)) {
+			int pending = 0;
+			for (Invitation invitation : invitations) {
+				otps.setString(1, invitation.code);
+				otps.setTimestamp(2, Timestamp.valueOf(invitation.expires));
+				otps.setInt(3, invitation.userId);
+				otps.addBatch();
+				if (++pending == BATCH_SIZE) {
+					otps.executeBatch();
+					pending = 0;
+				}
+			}
+			if (pending > 0) {
+				otps.executeBatch();
+			}
+		}
+	}
+
+	// a code for every invitation, unique among them and not yet in otpTable
+	private static void assignCodes(Connection conn, List<Invitation> invitations) throws SQLException {
+		Set<String> issued = new HashSet<>(invitations.size() * 2);
+		for (Invitation invitation : invitations) {
+			invitation.code = uniqueCode(issued);
+		}
+		StringBuilder query = new StringBuilder("SELECT otp FROM otpTable WHERE otp IN (");
+		for (int i = 0; i < BATCH_SIZE; i++) {
+			query.append(i == 0 ? "?" : ", ?");
+		}
+		query.append(')');
+		try (PreparedStatement lookup = conn.prepareStatement(query.toString())) {
+			for (int start = 0; start < invitations.size(); start += BATCH_SIZE) {
+				List<Invitation> slice = invitations.subList(start, Math.min(start + BATCH_SIZE, invitations.size()));
+				Set<String> taken;
+				while (!(taken = taken(lookup, slice)).isEmpty()) {
+					for (Invitation invitation : slice) {
+						if (taken.contains(invitation.code)) {
+							invitation.code = uniqueCode(issued);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	private static String uniqueCode(Set<String> issued) {
+		String code;
+		do {
+			code = newCode();
+		} while (!issued.add(code));
+		return code;
+	}
+
+	// the slice's codes that are already in otpTable
+	private static Set<String> taken(PreparedStatement lookup, List<Invitation> slice) throws SQLException {
+		for (int i = 0; i < BATCH_SIZE; i++) {
+			// unused slots get a code no invitation has
+			lookup.setString(i + 1, i < slice.size() ? slice.get(i).code : "");
+		}
+		Set<String> taken = new HashSet<>();
+		try (ResultSet rs = lookup.executeQuery()) {
+			while (rs.next()) {
+				taken.add(rs.getString(1));
+			}
+		}
+		return taken;
+	}
+
+	/**
+	 * Write invitations to a CSV file with the header
+	 * user_id,otp,roles,expires, roles being letters from a, i and s
+	 *
+	 * @param invitations invitations with their ids and codes
+	 * @param file file to write
+	 * @throws IOException
+	 */
+	static void export(List<Invitation> invitations, File file) throws IOException {
+		try (Writer out = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+			out.write("user_id,otp,roles,expires\n");
+			for (Invitation invitation : invitations) {
+				out.write(invitation.userId + "," + invitation.code + "," + invitation.roles() + "," + invitation.expires + "\n");
+			}
+		}
+	}
+
+	/**
+	 * One invited user: the roles and expiry asked for, and once inserted their
+	 * user id and code
+	 */
+	static final class Invitation {
+		private final boolean admin;
+		private final boolean instructor;
+		private final boolean student;
+		private final LocalDateTime expires;
+		private int userId = -1;
+		private String code;
+
+		/**
+		 * @param admin administrator role
+		 * @param instructor instructor role
+		 * @param student student role
+		 * @param expires when the code stops working
+		 */
+		Invitation(boolean admin, boolean instructor, boolean student, LocalDateTime expires) {
+			this.admin = admin;
+			this.instructor = instructor;
+			this.student = student;
+			this.expires = expires;
+		}
+
+		/**
+		 * @return the shell user's id, -1 until inserted
+		 */
+		int getUserId() {
+			return userId;
+		}
+
+		/**
+		 * @return the one time password, null until inserted
+		 */
+		String getCode() {
+			return code;
+		}
+
+		LocalDateTime getExpires() {
+			return expires;
+		}
+
+		// e.g. "is" for an instructor and student
+		private String roles() {
+			return (admin ? "a" : "") + (instructor ? "i" : "") + (student ? "s" : "");
+		}
+	}
+}
@@ -0,0 +1,314 @@
+package simpleDatabase;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/***
+ * The little JSON the HTTP API needs, without a library.
+ * <p>
+ * parseObject reads a request body: one flat object whose values are strings,
+ * numbers, booleans or null. Writer builds a response a token at a time into a
+ * StringBuilder, adding commas and escaping strings as it goes.
+ * </p>
+ *
+ * @author Abhave Abhilash and Aditya Gupta
+ * @version 1.0
+ * @since 10/9/2024
+ */
+final class Json {
+
+	private Json() {
+	}
+
+	/**
+	 * Parse a flat JSON object
+	 *
+	 * @param text the JSON
+	 * @return its members in order; numbers are Long or Double
+	 * @throws IllegalArgumentException if the text is not a flat JSON object
+	 */
+	static Map<String, Object> parseObject(String text) {
+		return new Parser(text).object();
+	}
+
+	private static void appendQuoted(StringBuilder out, String value) {
+		out.append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+				case '"':
+					out.append("\\\"");
+					break;
+				case '\\':
+					out.append("\\\\");
+					break;
+				case '\n':
+					out.append("\\n");
+					break;
+				case '\r':
+					out.append("\\r");
+					break;
+				case '\t':
+					out.append("\\t");
+					break;
+				default:
+					if (c < 0x20) {
+						out.append(String.format("\\u%04x", (int) c));
+					} else {
+						out.append(c);
+					}
+			}
+		}
+		out.append('"');
+	}
+
+	/**
+	 * Writes one JSON document. Names and values are written in the order they
+	 * are given; the writer only keeps track of where commas go.
+	 */
+	static final class Writer {
+		private final StringBuilder out = new StringBuilder();
+		private boolean comma = false;
+
+		Writer beginObject() {
+			separate();
+			out.append('{');
+			comma = false;
+			return this;
+		}
+
+		Writer endObject() {
+			out.append('}');
+			comma = true;
+			return this;
+		}
+
+		Writer beginArray() {
+			separate();
+			out.append('[');
+			comma = false;
+			return this;
+		}
+
+		Writer endArray() {
+			out.append(']');
+			comma = true;
+			return this;
+		}
+
+		Writer name(String name) {
+			separate();
+			appendQuoted(out, name);
+			out.append(':');
+			comma = false;
+			return this;
+		}
+
+		Writer value(String value) {
+			separate();
+			if (value == null) {
+				out.append("null");
+			} else {
+				appendQuoted(out, value);
+			}
+			comma = true;
+			return this;
+		}
+
+		Writer value(long value) {
+			separate();
+			out.append(value);
+			comma = true;
+			return this;
+		}
+
+		Writer value(boolean value) {
+			separate();
+			out.append(value);
+			comma = true;
+			return this;
+		}
+
+		Writer field(String name, String value) {
+			return name(name).value(value);
+		}
+
+		Writer field(String name, long value) {
+			return name(name).value(value);
+		}
+
+		Writer field(String name, boolean value) {
+			return name(name).value(value);
+		}
+
+		private void separate() {
+			if (comma) {
+				out.append(',');
+			}
+		}
+
+		@Override
+		public String toString() {
+			return out.toString();
+		}
+	}
+
+	// recursive descent over one flat object
+	private static final class Parser {
+		private final String text;
+		private int pos = 0;
+
+		private Parser(String text) {
+			this.text = text;
+		}
+
+		private Map<String, Object> object() {
+			Map<String, Object> members = new LinkedHashMap<>();
+			expect('{');
+			if (peek() == '}') {
+				pos++;
+			} else {
+				while (true) {
+					String name = string();
+					expect(':');
+					members.put(name, value());
+					char next = next();
+					if (next == '}') {
+						break;
+					}
+					if (next != ',') {
+						throw error("expected , or }");
+					}
+				}
+			}
+			if (peek() != 0) {
+				throw error("unexpected text after the object");
+			}
+			return members;
+		}
+
+		private Object value() {
+			char c = peek();
+			if (c == '"') {
+				return string();
+			}
+			if (c == '-' || (c >= '0' && c <= '9')) {
+				return number();
+			}
+			if (text.startsWith("true", pos)) {
+				pos += 4;
+				return Boolean.TRUE;
+			}
+			if (text.startsWith("false", pos)) {
+				pos += 5;
+				return Boolean.FALSE;
+			}
+			if (text.startsWith("null", pos)) {
+				pos += 4;
+				return null;
+			}
+			throw error(c == '{' || c == '[' ? "nested values are not supported" : "expected a value");
+		}
+
+		private String string() {
+			expect('"');
+			StringBuilder value = new StringBuilder();
+			while (true) {
+				if (pos >= text.length()) {
+					throw error("unterminated string");
+				}
+				char c = text.charAt(pos++);
+				if (c == '"') {
+					return value.toString();
+				}
+				if (c != '\\') {
+					value.append(c);
+					continue;
+				}
+				if (pos >= text.length()) {
+					throw error("unterminated string");
+				}
+				char escaped = text.charAt(pos++);
+				switch (escaped) {
+					case '"':
+					case '\\':
+					case '/':
+						value.append(escaped);
+						break;
+					case 'b':
+						value.append('\b');
+						break;
+					case 'f':
+						value.append('\f');
+						break;
+					case 'n':
+						value.append('\n');
+						break;
+					case 'r':
+						value.append('\r');
+						break;
+					case 't':
+						value.append('\t');
+						break;
+					case 'u':
+						if (pos + 4 > text.length()) {
+							throw error("bad unicode escape");
+						}
+						try {
+							value.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+						} catch (NumberFormatException e) {
+							throw error("bad unicode escape");
+						}
+						pos += 4;
+						break;
+					default:
+						throw error("bad escape");
+				}
+			}
+		}
+
+		private Object number() {
+			int start = pos;
+			while (pos < text.length() && "+-0123456789.eE".indexOf(text.charAt(pos)) >= 0) {
+				pos++;
+			}
+			String number = text.substring(start, pos);
+			try {
+				if (number.contains(".") || number.contains("e") || number.contains("E")) {
+					return Double.parseDouble(number);
+				}
+				return Long.parseLong(number);
+			} catch (NumberFormatException e) {
+				throw error("bad number");
+			}
+		}
+
+		private void expect(char c) {
+			if (next() != c) {
+				throw error("expected " + c);
+			}
+		}
+
+		// next non-blank character, consumed
+		private char next() {
+			char c = peek();
+			if (c == 0) {
+				throw error("unexpected end of JSON");
+			}
+			pos++;
+			return c;
+		}
+
+		// next non-blank character, or 0 at the end
+		private char peek() {
+			while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+				pos++;
+			}
+			return pos < text.length() ? text.charAt(pos) : 0;
+		}
+
+		private IllegalArgumentException error(String message) {
+			return new IllegalArgumentException("Bad JSON at " + pos + ": " + message);
+		}
+	}
+}
@@ -0,0 +1,37 @@
+package simpleDatabase;
+
+/**
+ * Class representing a help message between users
+ */
+class Message {
+    /** The content of the message */
+    private String message;
+    /** The user associated with this message */
+    private User user;
+
+    /**
+     * Creates a new Message
+     * @param message The content of the message
+     * @param user The user associated with the message
+     */
+    public Message(String message, User user) {
+        this.message = message;
+        this.user = user;
+    }
+
+    /**
+     * Gets the message content
+     * @return The message content
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * Gets the user associated with this message
+     * @return The user
+     */
+    public User getUser() {
+        return user;
+    }
+}
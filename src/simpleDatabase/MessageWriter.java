@@ -0,0 +1,205 @@
+package simpleDatabase;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/***
+ * Writes help messages to the help_messages table in the background.
+ * <p>
+ * Senders only append the message to a lock-free queue and wake the writer
+ * thread, so sending never waits on the database. The queue is bounded: a
+ * slot is reserved with a compare-and-set on the pending count before the
+ * message is queued, and a message that does not fit is refused rather than
+ * growing the heap.
+ * </p>
+ * <p>
+ * The writer drains up to BATCH_SIZE messages at a time and inserts them with
+ * one JDBC batch and one commit (group commit), so a burst of messages costs
+ * a handful of transactions. If a write fails the batch is kept and retried.
+ * Messages sent before the database is connected wait in the queue until
+ * start() is called; stop() writes whatever is left before returning.
+ * </p>
+ *
+ * @author Abhave Abhilash and Aditya Gupta
+ * @version 1.0
+ * @since 10/9/2024
+ */
+class MessageWriter {
+
+	/** Default most messages waiting to be written */
+	static final int DEFAULT_CAPACITY = 10_000;
+
+	/** Most messages per insert batch and commit */
+	static final int BATCH_SIZE = 500;
+
+	// how long the writer sleeps when there is nothing to do, and after a failed write
+	private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(200);
+	private static final long RETRY_PARK_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+	private static final String INSERT_MESSAGE = "INSERT INTO help_messages (kind, user_name, email, message, sent_on) VALUES (?, ?, ?, ?, ?)";
+
+	private final int capacity;
+	private final ConcurrentLinkedQueue<Pending> queue = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger pending = new AtomicInteger();
+
+	private volatile ConnectionPool pool;
+	private volatile Thread thread;
+	private volatile boolean running = false;
+
+	final LongAdder written = new LongAdder();
+	final LongAdder rejected = new LongAdder();
+
+	/**
+	 * @param capacity most messages waiting to be written
+	 */
+	MessageWriter(int capacity) {
+		this.capacity = capacity;
+	}
+
+	/**
+	 * Queue a message for writing. Never blocks.
+	 *
+	 * @param kind "generic" or "specific"
+	 * @param message the message
+	 * @return false if the queue is full and the message was not accepted
+	 */
+	boolean offer(String kind, Message message) {
+		int n;
+		do {
+			n = pending.get();
+			if (n >= capacity) {
+				rejected.increment();
+				return false;
+			}
+		} while (!pending.compareAndSet(n, n + 1));
+
+		queue.offer(new Pending(kind, message, LocalDateTime.now()));
+		Thread writer = thread;
+		if (writer != null) {
+			LockSupport.unpark(writer);
+		}
+		return true;
+	}
+
+	/**
+	 * Start writing queued messages through the given pool
+	 *
+	 * @param pool pool to write through
+	 */
+	synchronized void start(ConnectionPool pool) {
+		if (running) {
+			return;
+		}
+		this.pool = pool;
+		running = true;
+		Thread writer = new Thread(this::run, "help-message-writer");
+		writer.setDaemon(true);
+		thread = writer;
+		writer.start();
+	}
+
+	/**
+	 * Write everything still queued and stop the writer thread
+	 */
+	synchronized void stop() {
+		Thread writer = thread;
+		if (!running || writer == null) {
+			return;
+		}
+		running = false;
+		LockSupport.unpark(writer);
+		try {
+			writer.join(TimeUnit.SECONDS.toMillis(10));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		thread = null;
+	}
+
+	/**
+	 * @return number of messages waiting to be written
+	 */
+	int pendingCount() {
+		return pending.get();
+	}
+
+	private void run() {
+		List<Pending> batch = new ArrayList<>(BATCH_SIZE);
+		while (true) {
+			boolean stopping = !running;
+			if (batch.isEmpty()) {
+				for (Pending next; batch.size() < BATCH_SIZE && (next = queue.poll()) != null;) {
+					batch.add(next);
+				}
+			}
+			if (batch.isEmpty()) {
+				if (stopping) {
+					return;
+				}
+				LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+				continue;
+			}
+
+			try {
+				write(batch);
+				pending.addAndGet(-batch.size());
+				written.add(batch.size());
+				batch.clear();
+			} catch (SQLException e) {
+				System.err.println("DB issue writing help messages: " + e.getMessage());
+				if (stopping) {
+					System.err.println(pending.get() + " help messages could not be saved");
+					return;
+				}
+				LockSupport.parkNanos(this, RETRY_PARK_NANOS);
+			}
+		}
+	}
+
+	private void write(List<Pending> batch) throws SQLException {
+		try (Connection conn = pool.borrow(); PreparedStatement pstmt = conn.prepareStatement(INSERT_MESSAGE)) {
+			conn.setAutoCommit(false);
+			try {
+				for (Pending p : batch) {
+					User user = p.message.getUser();
+					pstmt.setString(1, p.kind);
+					pstmt.setString(2, user == null ? null : user.getUsername());
+					pstmt.setString(3, user == null ? null : user.getEmail());
+					pstmt.setString(4, p.message.getMessage());
+					pstmt.setTimestamp(5, Timestamp.valueOf(p.sentOn));
+					pstmt.addBatch();
+				}
+				pstmt.executeBatch();
+				conn.commit();
+			} catch (SQLException e) {
+				conn.rollback();
+				throw e;
+			}
+		}
+	}
+
+	/**
+	 * A queued message and when it was sent
+	 */
+	private static final class Pending {
+		private final String kind;
+		private final Message message;
+		private final LocalDateTime sentOn;
+
+		private Pending(String kind, Message message, LocalDateTime sentOn) {
+			this.kind = kind;
+			this.message = message;
+			this.sentOn = sentOn;
+		}
+	}
+}
@@ -0,0 +1,360 @@
+package simpleDatabase;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/***
+ * Backs up many groups at once on a pool of worker threads.
+ * <p>
+ * The work is first split into segments: one per group, or several id ranges
+ * for a group with more than segmentArticles articles. Each worker borrows its
+ * own connection and writes its segment to its own file (&lt;file&gt;.001,
+ * &lt;file&gt;.002, ...) with a BackupWriter, so reading, compressing and writing
+ * all run in parallel. An article in several of the groups is written once,
+ * in the segment of the first of those groups by name.
+ * </p>
+ * <p>
+ * The segments are read on separate connections at slightly different times,
+ * so the set is not a single point-in-time snapshot. To make sure nothing that
+ * changes while it runs is lost, the lowest and highest id range of each group
+ * are left open-ended. An ArticleVersions mark is also taken before planning.
+ * Once the segments are written, a final catch-up segment holds every article
+ * of the groups with a version above the mark. That covers articles created,
+ * edited or relinked to another group during the backup. An article can
+ * therefore appear in more than one segment, and restoreAllArticles loads a
+ * segment set in UPSERT mode so the last copy read wins. Articles deleted
+ * during the backup may still be in it, and a write that was already in
+ * progress when the mark was taken is only certain to be included if it
+ * committed before its group's segment was read.
+ * </p>
+ * <p>
+ * Once every segment is written, &lt;file&gt; itself is written as a small
+ * manifest listing the segments. restoreAllArticles reads such a set as if it
+ * were one backup, in segment order. If any segment fails, the ones already written are removed
+ * and no manifest is written.
+ * </p>
+ *
+ * @author Abhave Abhilash and Aditya Gupta
+ * @version 1.0
+ * @since 10/9/2024
+ */
+class ParallelBackup {
+
+	/** Most articles per segment before a group is split into id ranges */
+	static final int DEFAULT_SEGMENT_ARTICLES = 50_000;
+
+	// first line of a segment set manifest
+	private static final String SET_HEADER = "#CSE360 backup segments";
+
+	// group name recorded for the catch-up segment
+	private static final String CHANGED = "changed during backup";
+
+	private final ConnectionPool pool;
+	private final int threads;
+	private final int segmentArticles;
+	private final int compressionLevel;
+
+	/**
+	 * @param pool pool to read through; each worker holds one connection
+	 * @param threads number of workers
+	 * @param segmentArticles most articles per segment
+	 * @param compressionLevel Deflater level for the segment files
+	 */
+	ParallelBackup(ConnectionPool pool, int threads, int segmentArticles, int compressionLevel) {
+		if (threads < 1 || segmentArticles < 1) {
+			throw new IllegalArgumentException("Threads and segment size must be positive");
+		}
+		this.pool = pool;
+		this.threads = threads;
+		this.segmentArticles = segmentArticles;
+		this.compressionLevel = compressionLevel;
+	}
+
+	/**
+	 * @param pool the pool the workers will use
+	 * @return one worker per core, leaving a connection free for everyone else
+	 */
+	static int defaultThreads(ConnectionPool pool) {
+		return Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), pool.getMaxSize() - 1));
+	}
+
+	/**
+	 * Back up the articles of the given groups
+	 *
+	 * @param groups groups to back up
+	 * @param file where the segment set manifest goes; segments are written next to it
+	 * @return number of articles backed up
+	 * @throws SQLException
+	 * @throws IOException
+	 */
+	long backup(List<String> groups, File file) throws SQLException, IOException {
+		long startNanos = System.nanoTime();
+		List<String> sorted = new ArrayList<>(new TreeSet<>(groups));
+		long mark;
+		try (Connection conn = pool.borrow()) {
+			mark = ArticleVersions.mark(conn);
+		}
+		List<Segment> segments = plan(sorted);
+		for (int i = 0; i < segments.size(); i++) {
+			segments.get(i).file = new File(String.format("%s.%03d", file.getPath(), i + 1));
+		}
+		Segment changed = new Segment(CHANGED, sorted, Integer.MIN_VALUE, Integer.MAX_VALUE);
+		changed.file = new File(String.format("%s.%03d", file.getPath(), segments.size() + 1));
+
+		ExecutorService workers = Executors.newFixedThreadPool(Math.min(threads, Math.max(1, segments.size())));
+		List<Future<BackupWriter>> results = new ArrayList<>();
+		boolean complete = false;
+		try {
+			for (Segment segment : segments) {
+				results.add(workers.submit(() -> write(segment)));
+			}
+			long articles = 0;
+			long stored = 0;
+			long raw = 0;
+			for (int i = 0; i < results.size(); i++) {
+				BackupWriter writer = results.get(i).get();
+				segments.get(i).written = writer.getRecords();
+				articles += writer.getRecords();
+				stored += writer.getBytesWritten();
+				raw += writer.getRawBytes();
+			}
+			// only after every segment is read, so it sees what changed while they ran
+			segments.add(changed);
+			BackupWriter writer = writeChanged(changed, mark);
+			changed.written = writer.getRecords();
+			articles += writer.getRecords();
+			stored += writer.getBytesWritten();
+			raw += writer.getRawBytes();
+			writeSet(file, segments);
+			complete = true;
+			System.out.println("Backed up " + articles + " articles in " + segments.size() + " segments on "
+					+ threads + " threads: " + BackupFormat.describe(stored, raw, System.nanoTime() - startNanos));
+			return articles;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Backup was interrupted");
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof SQLException) {
+				throw (SQLException) cause;
+			}
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			throw new IOException("Backup segment failed: " + cause, cause);
+		} finally {
+			workers.shutdownNow();
+			if (!complete) {
+				try {
+					// let interrupted workers remove their temporary files first
+					workers.awaitTermination(30, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				for (Segment segment : segments) {
+					segment.file.delete();
+				}
+				changed.file.delete();
+			}
+		}
+	}
+
+	/**
+	 * @param file a file about to be restored
+	 * @return true if it is a segment set manifest written by backup()
+	 * @throws IOException
+	 */
+	static boolean isSegmentSet(File file) throws IOException {
+		try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.ISO_8859_1)) {
+			return SET_HEADER.equals(reader.readLine());
+		}
+	}
+
+	/**
+	 * @param file a segment set manifest
+	 * @return its segment files, in order
+	 * @throws IOException if the manifest is damaged or a segment is missing
+	 */
+	static List<File> segmentFiles(File file) throws IOException {
+		Properties props = new Properties();
+		try (Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+			props.load(reader);
+		}
+		List<File> files = new ArrayList<>();
+		try {
+			int count = Integer.parseInt(props.getProperty("segments"));
+			for (int i = 1; i <= count; i++) {
+				File segment = new File(file.getAbsoluteFile().getParentFile(), props.getProperty("segment." + i + ".file"));
+				if (!segment.exists()) {
+					throw new IOException("Backup segment " + segment + " is missing");
+				}
+				files.add(segment);
+			}
+		} catch (NumberFormatException | NullPointerException e) {
+			throw new IOException("Backup segment manifest " + file + " is damaged");
+		}
+		return files;
+	}
+
+	// one segment per group, or per id range of a large group. The outer ranges are
+	// open-ended so articles added while the backup runs are not left out.
+	private List<Segment> plan(List<String> groups) throws SQLException {
+		List<Segment> segments = new ArrayList<>();
+		try (Connection conn = pool.borrow()) {
+			for (int g = 0; g < groups.size(); g++) {
+				List<String> earlier = groups.subList(0, g);
+				String query = "SELECT COUNT(*), MIN(a.id), MAX(a.id) FROM articles a WHERE " + filter(earlier.size(), false);
+				try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+					bind(pstmt, 1, groups.get(g), earlier);
+					try (ResultSet rs = pstmt.executeQuery()) {
+						rs.next();
+						long count = rs.getLong(1);
+						if (count == 0) {
+							segments.add(new Segment(groups.get(g), earlier, Integer.MIN_VALUE, Integer.MAX_VALUE));
+							continue;
+						}
+						int min = rs.getInt(2);
+						int max = rs.getInt(3);
+						// equal id ranges; ids are allocated in order, so these hold similar counts
+						long parts = (count + segmentArticles - 1) / segmentArticles;
+						long width = ((long) max - min + parts) / parts;
+						for (long from = min; from <= max; from += width) {
+							long to = from + width - 1;
+							segments.add(new Segment(groups.get(g), earlier, from == min ? Integer.MIN_VALUE : (int) from,
+									to >= max ? Integer.MAX_VALUE : (int) to));
+						}
+					}
+				}
+			}
+		}
+		return segments;
+	}
+
+	private BackupWriter write(Segment segment) throws SQLException, IOException {
+		String articlesQuery = "SELECT " + BackupWriter.COLUMNS + " FROM articles a WHERE "
+				+ filter(segment.earlier.size(), true) + " ORDER BY a.id";
+		String linksQuery = "SELECT " + BackupWriter.LINK_COLUMNS + " FROM articleGroups l JOIN articles a ON a.id = l.article_id WHERE "
+				+ filter(segment.earlier.size(), true) + " ORDER BY l.article_id";
+		try (Connection conn = pool.borrow(); PreparedStatement articleStmt = conn.prepareStatement(articlesQuery);
+				PreparedStatement linkStmt = conn.prepareStatement(linksQuery)) {
+			for (PreparedStatement pstmt : List.of(articleStmt, linkStmt)) {
+				pstmt.setInt(1, segment.from);
+				pstmt.setInt(2, segment.to);
+				bind(pstmt, 3, segment.group, segment.earlier);
+			}
+			try (ResultSet articles = articleStmt.executeQuery(); ResultSet links = linkStmt.executeQuery();
+					BackupWriter writer = new BackupWriter(segment.file, compressionLevel)) {
+				writer.writeArticles(articles, links);
+				writer.finish();
+				return writer;
+			}
+		}
+	}
+
+	// every article of the groups written since the version, wherever the segments put it
+	private BackupWriter writeChanged(Segment segment, long since) throws SQLException, IOException {
+		String inGroups = "a.version > ? AND " + (segment.earlier.isEmpty() ? "FALSE"
+				: "EXISTS (SELECT 1 FROM articleGroups g WHERE g.article_id = a.id AND g.group_name IN ("
+						+ "?, ".repeat(segment.earlier.size() - 1) + "?))");
+		String articlesQuery = "SELECT " + BackupWriter.COLUMNS + " FROM articles a WHERE " + inGroups + " ORDER BY a.id";
+		String linksQuery = "SELECT " + BackupWriter.LINK_COLUMNS + " FROM articleGroups l JOIN articles a ON a.id = l.article_id WHERE "
+				+ inGroups + " ORDER BY l.article_id";
+		try (Connection conn = pool.borrow(); PreparedStatement articleStmt = conn.prepareStatement(articlesQuery);
+				PreparedStatement linkStmt = conn.prepareStatement(linksQuery)) {
+			for (PreparedStatement pstmt : List.of(articleStmt, linkStmt)) {
+				pstmt.setLong(1, since);
+				int index = 2;
+				for (String group : segment.earlier) {
+					pstmt.setString(index++, group);
+				}
+			}
+			try (ResultSet articles = articleStmt.executeQuery(); ResultSet links = linkStmt.executeQuery();
+					BackupWriter writer = new BackupWriter(segment.file, compressionLevel)) {
+				writer.writeArticles(articles, links);
+				writer.finish();
+				return writer;
+			}
+		}
+	}
+
+	// articles a in the group, and in none of the groups before it
+	private static String filter(int earlier, boolean range) {
+		StringBuilder sql = new StringBuilder();
+		if (range) {
+			sql.append("a.id BETWEEN ? AND ? AND ");
+		}
+		sql.append("EXISTS (SELECT 1 FROM articleGroups g WHERE g.article_id = a.id AND g.group_name = ?)");
+		if (earlier > 0) {
+			sql.append(" AND NOT EXISTS (SELECT 1 FROM articleGroups x WHERE x.article_id = a.id AND x.group_name IN (");
+			for (int i = 0; i < earlier; i++) {
+				sql.append(i == 0 ? "?" : ", ?");
+			}
+			sql.append("))");
+		}
+		return sql.toString();
+	}
+
+	private static void bind(PreparedStatement pstmt, int index, String group, List<String> earlier) throws SQLException {
+		pstmt.setString(index++, group);
+		for (String name : earlier) {
+			pstmt.setString(index++, name);
+		}
+	}
+
+	private static void writeSet(File file, List<Segment> segments) throws IOException {
+		Properties props = new Properties();
+		props.setProperty("segments", String.valueOf(segments.size()));
+		for (int i = 0; i < segments.size(); i++) {
+			Segment segment = segments.get(i);
+			String key = "segment." + (i + 1) + ".";
+			props.setProperty(key + "file", segment.file.getName());
+			props.setProperty(key + "group", segment.group);
+			props.setProperty(key + "ids", segment.from + "-" + segment.to);
+			props.setProperty(key + "articles", String.valueOf(segment.written));
+		}
+		File tmp = new File(file.getPath() + ".tmp");
+		try (Writer writer = Files.newBufferedWriter(tmp.toPath(), StandardCharsets.UTF_8)) {
+			props.store(writer, SET_HEADER.substring(1));
+		}
+		Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * The articles of one group within an id range, and the file they go to. For
+	 * the catch-up segment, earlier holds every group in the backup.
+	 */
+	private static final class Segment {
+		private final String group;
+		private final List<String> earlier;
+		private final int from;
+		private final int to;
+		private File file;
+		private long written;
+
+		private Segment(String group, List<String> earlier, int from, int to) {
+			this.group = group;
+			this.earlier = earlier;
+			this.from = from;
+			this.to = to;
+		}
+	}
+}
@@ -0,0 +1,272 @@
+package simpleDatabase;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/***
+ * In-memory index of each user's effective group rights.
+ * <p>
+ * Every existing group is given a small ordinal, and each user's rights are held
+ * as two bitsets over those ordinals - one for view rights and one for admin
+ * rights - next to a bitset of which groups are special access groups. An
+ * authorization check is then a couple of bit tests instead of one
+ * isGroupSpecial query plus one groupRights query per group.
+ * </p>
+ * <p>
+ * A user's rights are loaded from groupRights with a single query the first
+ * time they are needed. DatabaseHelper keeps the index exact by calling
+ * invalidateUser from linkUserGroup and delUserGroup, groupDeleted from
+ * delEntireGroup and specialGroupCreated from createSpecialGroup.
+ * </p>
+ * <p>
+ * Ordinals are only handed out for groups read from the database or created
+ * through specialGroupCreated, never for a name that merely appears in a
+ * check, so the ordinal table is bounded by the groups that ever existed. A
+ * deleted group keeps its ordinal so a stale bit can never be read as a right
+ * on an unrelated group.
+ * </p>
+ *
+ * @author Abhave Abhilash and Aditya Gupta
+ * @version 1.0
+ * @since 10/9/2024
+ */
+class PermissionIndex {
+
+	private final ConnectionPool pool;
+	private final Map<String, Integer> ordinals = new ConcurrentHashMap<>();
+	private final AtomicInteger nextOrdinal = new AtomicInteger();
+	private final Map<Integer, UserRights> users = new ConcurrentHashMap<>();
+
+	// bumped on every invalidation so a load that raced with a write is not cached
+	private final AtomicLong generation = new AtomicLong();
+	// rights loaded before this generation predate a group delete and are reloaded
+	private volatile long validFrom = 0;
+
+	// replaced, never mutated, so readers need no lock
+	private volatile BitSet special = new BitSet();
+
+	/**
+	 * @param pool pool to load rights through
+	 */
+	PermissionIndex(ConnectionPool pool) {
+		this.pool = pool;
+	}
+
+	/**
+	 * Load which groups are special access groups. Called on startup and after
+	 * every restore, since a restore can bring special groups back.
+	 *
+	 * @throws SQLException
+	 */
+	void load() throws SQLException {
+		BitSet loaded = new BitSet();
+		try (Connection conn = pool.borrow(); Statement stmt = conn.createStatement();
+				ResultSet rs = stmt.executeQuery("SELECT name FROM groups WHERE specialFlag = TRUE")) {
+			while (rs.next()) {
+				loaded.set(intern(rs.getString(1)));
+			}
+		}
+		special = loaded;
+		validFrom = generation.incrementAndGet();
+		users.clear();
+	}
+
+	/**
+	 * @param group group name
+	 * @return true if the group is a special access group
+	 */
+	boolean isSpecial(String group) {
+		return has(special, group);
+	}
+
+	/**
+	 * @param userId
+	 * @param group
+	 * @return the user's view rights flag for the group
+	 * @throws SQLException
+	 */
+	boolean canView(int userId, String group) throws SQLException {
+		return has(rights(userId).view, group);
+	}
+
+	/**
+	 * @param userId
+	 * @param group
+	 * @return the user's admin rights flag for the group
+	 * @throws SQLException
+	 */
+	boolean canAdmin(int userId, String group) throws SQLException {
+		return has(rights(userId).admin, group);
+	}
+
+	/**
+	 * @param userId
+	 * @param groups the groups an article belongs to
+	 * @return true if the user has view rights on every special group in the list
+	 * @throws SQLException
+	 */
+	boolean canViewAllSpecial(int userId, List<String> groups) throws SQLException {
+		return missingFromSpecial(rights(userId).view, groups) < 0;
+	}
+
+	/**
+	 * @param userId
+	 * @param groups the groups an article belongs to
+	 * @return true if the user has admin rights on every special group in the list
+	 * @throws SQLException
+	 */
+	boolean canAdminAllSpecial(int userId, List<String> groups) throws SQLException {
+		return missingFromSpecial(rights(userId).admin, groups) < 0;
+	}
+
+	/**
+	 * @param userId
+	 * @param groups the groups an article belongs to
+	 * @return true if the user has view rights on at least one special group in the list
+	 * @throws SQLException
+	 */
+	boolean canViewAnySpecial(int userId, List<String> groups) throws SQLException {
+		BitSet view = rights(userId).view;
+		BitSet specialNow = special;
+		for (String group : groups) {
+			if (has(specialNow, group) && has(view, group)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	// ordinal of the first special group the user lacks the right for, or -1
+	private int missingFromSpecial(BitSet granted, List<String> groups) {
+		BitSet specialNow = special;
+		for (String group : groups) {
+			Integer ord = ordinals.get(group);
+			if (ord != null && specialNow.get(ord) && !granted.get(ord)) {
+				return ord;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Forget a user's cached rights, e.g. after they were linked to or removed
+	 * from a group
+	 *
+	 * @param userId
+	 */
+	void invalidateUser(int userId) {
+		generation.incrementAndGet();
+		users.remove(userId);
+	}
+
+	/**
+	 * A group was deleted - its rights rows are gone (ON DELETE CASCADE), so
+	 * un-mark it as special and reload every user's rights on their next check
+	 *
+	 * @param group
+	 */
+	void groupDeleted(String group) {
+		Integer ord = ordinals.get(group);
+		if (ord == null) {
+			return;
+		}
+		setSpecial(ord, false);
+		validFrom = generation.incrementAndGet();
+	}
+
+	/**
+	 * A new special access group was created
+	 *
+	 * @param group
+	 */
+	void specialGroupCreated(String group) {
+		setSpecial(intern(group), true);
+	}
+
+	private synchronized void setSpecial(int ord, boolean value) {
+		BitSet copy = (BitSet) special.clone();
+		copy.set(ord, value);
+		special = copy;
+	}
+
+	// only for names known to be groups in the database
+	private int intern(String group) {
+		Integer ord = ordinals.get(group);
+		if (ord != null) {
+			return ord;
+		}
+		return ordinals.computeIfAbsent(group, g -> nextOrdinal.getAndIncrement());
+	}
+
+	// a group without an ordinal has never existed, so nobody holds a right on it
+	private boolean has(BitSet bits, String group) {
+		Integer ord = ordinals.get(group);
+		return ord != null && bits.get(ord);
+	}
+
+	// cached rights for a user, loading them with one query on a miss
+	private UserRights rights(int userId) throws SQLException {
+		UserRights cached = users.get(userId);
+		if (cached != null && cached.stamp >= validFrom) {
+			return cached;
+		}
+
+		long gen = generation.get();
+		BitSet view = new BitSet();
+		BitSet admin = new BitSet();
+		String query = "SELECT group_name, viewRightsFlag, adminRightsFlag FROM groupRights WHERE user_id = ?";
+		try (Connection conn = pool.borrow(); PreparedStatement pstmt = conn.prepareStatement(query)) {
+			pstmt.setInt(1, userId);
+			try (ResultSet rs = pstmt.executeQuery()) {
+				while (rs.next()) {
+					int ord = intern(rs.getString(1));
+					if (rs.getBoolean(2)) view.set(ord);
+					if (rs.getBoolean(3)) admin.set(ord);
+				}
+			}
+		}
+		UserRights loaded = new UserRights(view, admin, gen);
+		// only cache if nothing was invalidated while we were reading. The check runs
+		// inside compute, so an invalidateUser that bumps the generation right after it
+		// still removes the entry, since its remove waits for compute to finish.
+		users.compute(userId, (id, current) -> {
+			if (current != null && current.stamp >= validFrom) {
+				return current;
+			}
+			return generation.get() == gen ? loaded : null;
+		});
+		return loaded;
+	}
+
+	/**
+	 * @return number of users whose rights are cached
+	 */
+	int cachedUsers() {
+		return users.size();
+	}
+
+	/**
+	 * One user's rights and the generation they were loaded at. Immutable -
+	 * changes replace the whole object.
+	 */
+	private static final class UserRights {
+		private final BitSet view;
+		private final BitSet admin;
+		private final long stamp;
+
+		private UserRights(BitSet view, BitSet admin, long stamp) {
+			this.view = view;
+			this.admin = admin;
+			this.stamp = stamp;
+		}
+	}
+}
@@ -0,0 +1,294 @@
+package simpleDatabase;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/***
+ * Versioned schema migrations for the H2 database.
+ * <p>
+ * The schema_version table records every migration that has been applied.
+ * On startup DatabaseHelper calls migrate(), which runs the missing migrations
+ * in order and records each one as it finishes. Migrations are only ever added
+ * to the end of the list - never edit one that has already shipped.
+ * </p>
+ * <p>
+ * H2 commits every DDL statement on its own, so a migration that fails halfway
+ * cannot be rolled back - the tables, columns and indexes it already created
+ * stay. Every migration is therefore written to be idempotent (IF NOT EXISTS,
+ * updates limited to rows that still need them) so that the next start simply
+ * runs it again over whatever the failed attempt left behind. New migrations
+ * must follow the same rule.
+ * </p>
+ * <p>
+ * Version 1 is the original set of tables (all CREATE TABLE IF NOT EXISTS, so
+ * databases created before this class existed simply get stamped with it).
+ * The migrations after it add the secondary indexes that back the lookups in
+ * DatabaseHelper.
+ * </p>
+ *
+ * @author Abhave Abhilash and Aditya Gupta
+ * @version 1.0
+ * @since 10/9/2024
+ */
+class SchemaMigrations {
+
+	/**
+	 * The body of one migration
+	 */
+	interface Migration {
+		void apply(Statement stmt) throws SQLException;
+	}
+
+	/**
+	 * A migration together with the version it brings the schema to
+	 */
+	static final class Step {
+		final int version;
+		final String description;
+		final Migration body;
+
+		Step(int version, String description, Migration body) {
+			this.version = version;
+			this.description = description;
+			this.body = body;
+		}
+	}
+
+	/** Every migration, in the order they must be applied */
+	static final List<Step> MIGRATIONS = List.of(
+		new Step(1, "baseline tables", SchemaMigrations::createBaselineTables),
+
+		// getUserId, findUser, userExist, getUserRoles, updateUserRoles and deleteUserAccount all
+		// look users up by (userName, email); doesUserExist uses the userName prefix of the same index.
+		// Shell users are inserted with empty userName/email so these cannot be unique.
+		new Step(2, "index users by userName and email", stmt -> {
+			stmt.execute("CREATE INDEX IF NOT EXISTS idx_users_name_email ON cse360users(userName, email)");
+		}),
+		// login and doesUserExistBoth
+		new Step(3, "index users by userName and password", stmt -> {
+			stmt.execute("CREATE INDEX IF NOT EXISTS idx_users_name_password ON cse360users(userName, password)");
+		}),
+		// doesUserExistEmail
+		new Step(4, "index users by email", stmt -> {
+			stmt.execute("CREATE INDEX IF NOT EXISTS idx_users_email ON cse360users(email)");
+		}),
+		// checkSpecialViewAccess, checkSpecialAdminAccess, isUserAdminOfGroup, delUserGroup and the
+		// groupRights.user_id side of the article listing joins
+		new Step(5, "index group rights by user and group", stmt -> {
+			stmt.execute("CREATE INDEX IF NOT EXISTS idx_group_rights_user_group ON groupRights(user_id, group_name)");
+		}),
+		// multAdminsToGroup, listSpecUsers and listAllGroupUsers
+		new Step(6, "index group rights by group and admin flag", stmt -> {
+			stmt.execute("CREATE INDEX IF NOT EXISTS idx_group_rights_group_admin ON groupRights(group_name, adminRightsFlag)");
+		}),
+		// an article is linked to a group at most once; drop any duplicate links first so the
+		// unique index can be built on existing databases
+		new Step(7, "unique index on article group links", stmt -> {
+			stmt.execute("DELETE FROM articleGroups a WHERE EXISTS (SELECT 1 FROM articleGroups b "
+					+ "WHERE b.group_name = a.group_name AND b.article_id = a.article_id AND b._ROWID_ < a._ROWID_)");
+			stmt.execute("CREATE UNIQUE INDEX IF NOT EXISTS idx_article_groups_group_article ON articleGroups(group_name, article_id)");
+		}),
+		// getGroupsForAnArticle and the cascade from articles
+		new Step(8, "index article group links by article", stmt -> {
+			stmt.execute("CREATE INDEX IF NOT EXISTS idx_article_groups_article ON articleGroups(article_id)");
+		}),
+		// viewContentArticles and the level filter in searchArticle
+		new Step(9, "index articles by level", stmt -> {
+			stmt.execute("CREATE INDEX IF NOT EXISTS idx_articles_level ON articles(level, id)");
+		}),
+		// verifyOTP already hits the otp primary key; this covers the cascade from cse360users
+		new Step(10, "index otps by user", stmt -> {
+			stmt.execute("CREATE INDEX IF NOT EXISTS idx_otp_user ON otpTable(user_id)");
+		}),
+		// block sequence for ArticleIdAllocator, starting above every id createArticleId ever produced
+		new Step(11, "article id block sequence", stmt -> {
+			long firstFree = ArticleIdAllocator.firstFreeBlock(stmt);
+			stmt.execute("CREATE SEQUENCE IF NOT EXISTS " + ArticleIdAllocator.SEQUENCE + " START WITH " + firstFree);
+		}),
+		// HelpSystem messages, written by MessageWriter
+		new Step(12, "help messages table", stmt -> {
+			stmt.execute("CREATE TABLE IF NOT EXISTS help_messages ("
+					+ "id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+					+ "kind VARCHAR(10) NOT NULL, " // generic or specific
+					+ "user_name VARCHAR(255), "
+					+ "email VARCHAR(255), "
+					+ "message CLOB, "
+					+ "sent_on TIMESTAMP)");
+			stmt.execute("CREATE INDEX IF NOT EXISTS idx_help_messages_kind_sent ON help_messages(kind, sent_on)");
+		}),
+		// change tracking for incremental backups, see ArticleVersions
+		new Step(13, "article versions and tombstones", stmt -> {
+			stmt.execute("CREATE SEQUENCE IF NOT EXISTS " + ArticleVersions.SEQUENCE);
+			stmt.execute("ALTER TABLE articles ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT " + ArticleVersions.NEXT_VERSION);
+			stmt.execute("UPDATE articles SET version = " + ArticleVersions.NEXT_VERSION + " WHERE version IS NULL");
+			stmt.execute("CREATE INDEX IF NOT EXISTS idx_articles_version ON articles(version)");
+			stmt.execute("CREATE TABLE IF NOT EXISTS article_tombstones ("
+					+ "article_id INT PRIMARY KEY, "
+					+ "version BIGINT NOT NULL, "
+					+ "deleted_on TIMESTAMP)");
+			stmt.execute("CREATE INDEX IF NOT EXISTS idx_article_tombstones_version ON article_tombstones(version)");
+		}),
+		// merge restores compare content hashes and update times, see ArticleVersions.
+		// Existing articles get a hash but no update time, since it is not known.
+		new Step(14, "article content hashes and update times", stmt -> {
+			stmt.execute("ALTER TABLE articles ADD COLUMN IF NOT EXISTS content_hash VARCHAR(64)");
+			stmt.execute("ALTER TABLE articles ADD COLUMN IF NOT EXISTS updated_on TIMESTAMP");
+			stmt.execute("ALTER TABLE articles ALTER COLUMN updated_on SET DEFAULT CURRENT_TIMESTAMP");
+			ArticleVersions.backfillHashes(stmt.getConnection());
+		})
+	);
+
+	/**
+	 * @return the newest schema version this build knows about
+	 */
+	static int latestVersion() {
+		return MIGRATIONS.get(MIGRATIONS.size() - 1).version;
+	}
+
+	/**
+	 * Bring the schema up to the latest version
+	 *
+	 * @param conn connection to migrate
+	 * @return the schema version after migrating
+	 * @throws SQLException
+	 */
+	static int migrate(Connection conn) throws SQLException {
+		return migrate(conn, latestVersion());
+	}
+
+	/**
+	 * Apply every missing migration up to and including targetVersion
+	 *
+	 * @param conn connection to migrate
+	 * @param targetVersion last version to apply
+	 * @return the schema version after migrating
+	 * @throws SQLException if a migration fails; it is not recorded and runs again next time
+	 */
+	static int migrate(Connection conn, int targetVersion) throws SQLException {
+		try (Statement stmt = conn.createStatement()) {
+			stmt.execute("CREATE TABLE IF NOT EXISTS schema_version ("
+					+ "version INT PRIMARY KEY, "
+					+ "description VARCHAR(255), "
+					+ "applied_on TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+		}
+
+		int current = currentVersion(conn);
+		boolean autoCommit = conn.getAutoCommit();
+		try {
+			conn.setAutoCommit(false);
+			for (Step step : MIGRATIONS) {
+				if (step.version <= current || step.version > targetVersion) {
+					continue;
+				}
+				try (Statement stmt = conn.createStatement();
+						PreparedStatement record = conn.prepareStatement(
+								"INSERT INTO schema_version (version, description) VALUES (?, ?)")) {
+					step.body.apply(stmt);
+					record.setInt(1, step.version);
+					record.setString(2, step.description);
+					record.executeUpdate();
+					conn.commit();
+					current = step.version;
+					System.out.println("Applied schema migration " + step.version + ": " + step.description);
+				} catch (SQLException e) {
+					// only undoes the data changes, DDL is already committed
+					conn.rollback();
+					System.err.println("DB issue applying schema migration " + step.version + ": " + e.getMessage());
+					throw e;
+				}
+			}
+		} finally {
+			conn.setAutoCommit(autoCommit);
+		}
+		return current;
+	}
+
+	/**
+	 * @param conn connection to check
+	 * @return the highest applied migration, 0 for a schema that has never been migrated
+	 * @throws SQLException
+	 */
+	static int currentVersion(Connection conn) throws SQLException {
+		try (Statement stmt = conn.createStatement();
+				ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(version), 0) FROM schema_version")) {
+			return rs.next() ? rs.getInt(1) : 0;
+		}
+	}
+
+	/**
+	 * create and initiate our user, otp, article and group tables
+	 *
+	 * @param statement
+	 * @throws SQLException
+	 */
+	private static void createBaselineTables(Statement statement) throws SQLException {
+		// String dropUsers = "DROP TABLE IF EXISTS cse360users";
+		// statement.execute(dropUsers);
+		String userTable = "CREATE TABLE IF NOT EXISTS cse360users ("
+
+				+ "id INT AUTO_INCREMENT PRIMARY KEY, "
+				+ "userName VARCHAR(255), "
+				+ "email VARCHAR(255), "
+				+ "password VARCHAR(255), "
+				// first name
+				+ "firstName VARCHAR(255), "
+				// last name
+				+ "lastName VARCHAR(255), "
+				// middle name
+				+ "middleName VARCHAR(255), "
+				// preferred first
+				+ "preferredFirst VARCHAR(255), "
+				// user role sia
+				+ "adminFlag BOOLEAN DEFAULT FALSE, "
+				+ "teachFlag BOOLEAN DEFAULT FALSE, "
+				+ "studFlag BOOLEAN DEFAULT FALSE, "
+				+ "otpFlag BOOLEAN DEFAULT FALSE) ";
+		statement.execute(userTable);
+
+		// create otp table, with id, otp, expiry time and user role(s)
+		String otpTable = "CREATE TABLE IF NOT EXISTS otpTable ("
+				+ "otp VARCHAR(255) PRIMARY KEY, "
+				+ "expiryTime TIMESTAMP, "
+				+ "user_id INT, "
+				+ "FOREIGN KEY(user_id) REFERENCES cse360users(id) ON DELETE CASCADE)";
+		statement.execute(otpTable);
+
+		String articlesTable = "CREATE TABLE IF NOT EXISTS articles ("
+				+ "id INT AUTO_INCREMENT PRIMARY KEY, "
+				+ "level VARCHAR(20), " // level (beginner, intermediate, advanced, expert)
+				+ "authors VARCHAR(100), "
+				+ "title VARCHAR(255) NOT NULL, " // title
+				+ "short_description CLOB, " // short_description/abstract
+				+ "keywords VARCHAR(255), " // keywords
+				+ "body CLOB, " // body
+				+ "reference_links VARCHAR(255)" // reference_links
+				+ ")";
+		statement.execute(articlesTable);
+
+		String groups = "CREATE TABLE IF NOT EXISTS groups ("
+			+ "name VARCHAR(255) PRIMARY KEY, "
+			+ "specialFlag BOOLEAN DEFAULT FALSE)";
+		statement.execute(groups);
+
+		String articleGroupsTable = "CREATE TABLE IF NOT EXISTS articleGroups ("
+			+ "group_name VARCHAR(255), "
+			+ "article_id INT, "
+			+ "FOREIGN KEY(group_name) REFERENCES groups(name) ON DELETE CASCADE, "
+			+ "FOREIGN KEY(article_id) REFERENCES articles(id) ON DELETE CASCADE)";
+		statement.execute(articleGroupsTable);
+
+		String groupRightsTable = "CREATE TABLE IF NOT EXISTS groupRights ("
+			+ "user_id INT, "
+			+ "group_name VARCHAR(255), "
+			+ "accessRole VARCHAR(1), "
+			+ "adminRightsFlag BOOLEAN DEFAULT FALSE, "
+			+ "viewRightsFlag BOOLEAN DEFAULT FALSE, "
+			+ "FOREIGN KEY(user_id) REFERENCES cse360users(id) ON DELETE CASCADE, "
+			+ "FOREIGN KEY(group_name) REFERENCES groups(name) ON DELETE CASCADE)";
+		statement.execute(groupRightsTable);
+	}
+}
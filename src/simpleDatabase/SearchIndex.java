@@ -0,0 +1,387 @@
+package simpleDatabase;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/***
+ * In-memory inverted index over article titles, short descriptions, keywords
+ * and authors, ranked with BM25.
+ * <p>
+ * Each term maps to a posting list of (article id, weighted term frequency)
+ * pairs kept sorted by article id in primitive arrays. A term found in the
+ * title counts for more than one found in the short description, see the
+ * field weights below. The index also keeps each article's level and groups,
+ * plus the ids filed under each level and group, so searchArticle can apply
+ * its filters without touching the database. Levels are compared ignoring
+ * case; groups must match a whole group name.
+ * </p>
+ * <p>
+ * DatabaseHelper builds the index on startup and keeps it current from the
+ * article create, update, delete and restore paths. Reads and writes are
+ * guarded by a read/write lock so concurrent searches do not block each other.
+ * </p>
+ *
+ * @author Abhave Abhilash and Aditya Gupta
+ * @version 1.0
+ * @since 10/9/2024
+ */
+class SearchIndex {
+
+	// BM25 tuning - the usual defaults
+	private static final double K1 = 1.2;
+	private static final double B = 0.75;
+
+	// how much one occurrence of a term in each field is worth
+	private static final float TITLE_WEIGHT = 3f;
+	private static final float KEYWORD_WEIGHT = 2f;
+	private static final float AUTHOR_WEIGHT = 1.5f;
+	private static final float DESCRIPTION_WEIGHT = 1f;
+
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+	private final Map<String, Postings> postings = new HashMap<>();
+	private final Map<Integer, Doc> docs = new HashMap<>();
+	private final Map<String, Set<Integer>> byLevel = new HashMap<>();
+	private final Map<String, Set<Integer>> byGroup = new HashMap<>();
+	private double totalLength = 0;
+
+	/**
+	 * Add an article to the index, replacing it if it is already indexed. Groups
+	 * already recorded for the article are kept.
+	 *
+	 * @param id article id
+	 * @param level article level
+	 * @param title
+	 * @param shortDescription
+	 * @param keywords
+	 * @param authors
+	 */
+	void index(int id, String level, String title, String shortDescription, String keywords, String authors) {
+		Map<String, Float> terms = new HashMap<>();
+		addField(terms, title, TITLE_WEIGHT);
+		addField(terms, keywords, KEYWORD_WEIGHT);
+		addField(terms, authors, AUTHOR_WEIGHT);
+		addField(terms, shortDescription, DESCRIPTION_WEIGHT);
+
+		lock.writeLock().lock();
+		try {
+			Doc old = removeLocked(id);
+			Doc doc = new Doc(normalizeLevel(level), old == null ? new LinkedHashSet<>() : old.groups, terms.keySet().toArray(new String[0]));
+			for (Map.Entry<String, Float> term : terms.entrySet()) {
+				postings.computeIfAbsent(term.getKey(), t -> new Postings()).put(id, term.getValue());
+				doc.length += term.getValue();
+			}
+			docs.put(id, doc);
+			file(byLevel, doc.level, id);
+			for (String group : doc.groups) {
+				file(byGroup, group, id);
+			}
+			totalLength += doc.length;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Record that an article has been linked to a group
+	 *
+	 * @param id article id
+	 * @param group group name
+	 */
+	void addGroup(int id, String group) {
+		lock.writeLock().lock();
+		try {
+			Doc doc = docs.get(id);
+			if (doc != null && doc.groups.add(group)) {
+				file(byGroup, group, id);
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Remove a group from every article, e.g. when the group is deleted
+	 *
+	 * @param group group name
+	 */
+	void removeGroup(String group) {
+		lock.writeLock().lock();
+		try {
+			Set<Integer> ids = byGroup.remove(group);
+			if (ids != null) {
+				for (int id : ids) {
+					docs.get(id).groups.remove(group);
+				}
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Remove an article from the index
+	 *
+	 * @param id article id
+	 */
+	void remove(int id) {
+		lock.writeLock().lock();
+		try {
+			removeLocked(id);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	private Doc removeLocked(int id) {
+		Doc doc = docs.remove(id);
+		if (doc != null) {
+			totalLength -= doc.length;
+			unfile(byLevel, doc.level, id);
+			for (String group : doc.groups) {
+				unfile(byGroup, group, id);
+			}
+			for (String term : doc.terms) {
+				Postings list = postings.get(term);
+				if (list != null && list.remove(id) && list.size == 0) {
+					postings.remove(term);
+				}
+			}
+		}
+		return doc;
+	}
+
+	private static void file(Map<String, Set<Integer>> lists, String key, int id) {
+		lists.computeIfAbsent(key, k -> new TreeSet<>()).add(id);
+	}
+
+	private static void unfile(Map<String, Set<Integer>> lists, String key, int id) {
+		Set<Integer> ids = lists.get(key);
+		if (ids != null && ids.remove(id) && ids.isEmpty()) {
+			lists.remove(key);
+		}
+	}
+
+	/**
+	 * Drop everything from the index
+	 */
+	void clear() {
+		lock.writeLock().lock();
+		try {
+			postings.clear();
+			docs.clear();
+			byLevel.clear();
+			byGroup.clear();
+			totalLength = 0;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * @return number of indexed articles
+	 */
+	int size() {
+		lock.readLock().lock();
+		try {
+			return docs.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Find articles matching a search.
+	 * <p>
+	 * The query is tokenized the same way as the articles; an article matches if
+	 * it contains any query term, and results are ordered by BM25 score. An empty
+	 * query matches every article that passes the filters, in id order, and only
+	 * walks the articles filed under the requested group or level.
+	 * </p>
+	 *
+	 * @param query search text
+	 * @param level level to match ignoring case, or "ALL"
+	 * @param group name of a group the article must be in, or "ALL"
+	 * @param limit most ids to return
+	 * @return matching article ids, best match first
+	 */
+	SearchResult search(String query, String level, String group, int limit) {
+		Set<String> queryTerms = new LinkedHashSet<>(tokenize(query));
+		level = level.equals("ALL") ? level : normalizeLevel(level);
+
+		lock.readLock().lock();
+		try {
+			if (queryTerms.isEmpty()) {
+				// start from the smaller of the group and level lists, both already in id order
+				Set<Integer> candidates;
+				if (group.equals("ALL") && level.equals("ALL")) {
+					candidates = new TreeSet<>(docs.keySet());
+				} else {
+					Set<Integer> inGroup = group.equals("ALL") ? null : byGroup.getOrDefault(group, Set.of());
+					Set<Integer> atLevel = level.equals("ALL") ? null : byLevel.getOrDefault(level, Set.of());
+					candidates = inGroup == null || (atLevel != null && atLevel.size() < inGroup.size()) ? atLevel : inGroup;
+				}
+				List<Integer> ids = new ArrayList<>();
+				int total = 0;
+				for (int id : candidates) {
+					if (matchesFilters(docs.get(id), level, group)) {
+						total++;
+						if (ids.size() < limit) ids.add(id);
+					}
+				}
+				return new SearchResult(total, ids);
+			}
+
+			// accumulate BM25 scores term by term
+			double avgLength = docs.isEmpty() ? 1 : totalLength / docs.size();
+			Map<Integer, Double> scores = new HashMap<>();
+			for (String term : queryTerms) {
+				Postings list = postings.get(term);
+				if (list == null) continue;
+				double idf = Math.log(1 + (docs.size() - list.size + 0.5) / (list.size + 0.5));
+				for (int i = 0; i < list.size; i++) {
+					Doc doc = docs.get(list.ids[i]);
+					double tf = list.freqs[i];
+					double norm = tf * (K1 + 1) / (tf + K1 * (1 - B + B * doc.length / avgLength));
+					scores.merge(list.ids[i], idf * norm, Double::sum);
+				}
+			}
+
+			// keep the best `limit` matches that pass the filters
+			PriorityQueue<Map.Entry<Integer, Double>> top = new PriorityQueue<>(
+					(a, b) -> a.getValue().equals(b.getValue()) ? b.getKey() - a.getKey() : Double.compare(a.getValue(), b.getValue()));
+			int total = 0;
+			for (Map.Entry<Integer, Double> entry : scores.entrySet()) {
+				if (!matchesFilters(docs.get(entry.getKey()), level, group)) continue;
+				total++;
+				top.add(entry);
+				if (top.size() > limit) top.poll();
+			}
+			Integer[] ranked = new Integer[top.size()];
+			for (int i = ranked.length - 1; i >= 0; i--) {
+				ranked[i] = top.poll().getKey();
+			}
+			return new SearchResult(total, Arrays.asList(ranked));
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	// level must already be normalized
+	private static boolean matchesFilters(Doc doc, String level, String group) {
+		if (!level.equals("ALL") && !level.equals(doc.level)) {
+			return false;
+		}
+		return group.equals("ALL") || doc.groups.contains(group);
+	}
+
+	private static String normalizeLevel(String level) {
+		return level == null ? "" : level.strip().toLowerCase();
+	}
+
+	private static void addField(Map<String, Float> terms, String text, float weight) {
+		for (String token : tokenize(text)) {
+			terms.merge(token, weight, Float::sum);
+		}
+	}
+
+	/**
+	 * Split text into lower-case terms on anything that is not a letter or digit
+	 *
+	 * @param text text to split, may be null
+	 * @return the terms in order, including repeats
+	 */
+	static List<String> tokenize(String text) {
+		List<String> tokens = new ArrayList<>();
+		if (text == null) {
+			return tokens;
+		}
+		int start = -1;
+		for (int i = 0; i <= text.length(); i++) {
+			boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+			if (wordChar && start < 0) {
+				start = i;
+			} else if (!wordChar && start >= 0) {
+				tokens.add(text.substring(start, i).toLowerCase());
+				start = -1;
+			}
+		}
+		return tokens;
+	}
+
+	/**
+	 * The ids returned by a search and how many articles matched in total
+	 */
+	static final class SearchResult {
+		final int total;
+		final List<Integer> ids;
+
+		SearchResult(int total, List<Integer> ids) {
+			this.total = total;
+			this.ids = ids;
+		}
+	}
+
+	/**
+	 * What the index remembers about one article
+	 */
+	private static final class Doc {
+		private final String level;
+		private final Set<String> groups;
+		private final String[] terms;
+		private double length = 0;
+
+		private Doc(String level, Set<String> groups, String[] terms) {
+			this.level = level;
+			this.groups = groups == null ? new HashSet<>() : groups;
+			this.terms = terms;
+		}
+	}
+
+	/**
+	 * Posting list for one term: article ids in ascending order with the
+	 * weighted frequency of the term in each article
+	 */
+	private static final class Postings {
+		private int[] ids = new int[4];
+		private float[] freqs = new float[4];
+		private int size = 0;
+
+		private void put(int id, float freq) {
+			int pos = Arrays.binarySearch(ids, 0, size, id);
+			if (pos >= 0) {
+				freqs[pos] = freq;
+				return;
+			}
+			pos = -pos - 1;
+			if (size == ids.length) {
+				ids = Arrays.copyOf(ids, size * 2);
+				freqs = Arrays.copyOf(freqs, size * 2);
+			}
+			System.arraycopy(ids, pos, ids, pos + 1, size - pos);
+			System.arraycopy(freqs, pos, freqs, pos + 1, size - pos);
+			ids[pos] = id;
+			freqs[pos] = freq;
+			size++;
+		}
+
+		private boolean remove(int id) {
+			int pos = Arrays.binarySearch(ids, 0, size, id);
+			if (pos < 0) {
+				return false;
+			}
+			System.arraycopy(ids, pos + 1, ids, pos, size - pos - 1);
+			System.arraycopy(freqs, pos + 1, freqs, pos, size - pos - 1);
+			size--;
+			return true;
+		}
+	}
+}
@@ -0,0 +1,103 @@
+package simpleDatabase;
+
+import java.sql.SQLException;
+import java.util.List;
+
+/***
+ * The logged in user for one session.
+ * <p>
+ * Created by DatabaseHelper.openSession at login, it carries the user's
+ * database id next to the User, so the menus and the article checks never
+ * have to look the id up again by username and email. The role flags are the
+ * ones read at login. Group rights come from the PermissionIndex, which loads
+ * them once per user and is kept current when rights change, so a session
+ * always sees an up to date answer without querying on every check.
+ * </p>
+ *
+ * @author Abhave Abhilash and Aditya Gupta
+ * @version 1.0
+ * @since 10/9/2024
+ */
+class Session {
+
+	private final int userId;
+	private final User user;
+	private final PermissionIndex permissions;
+
+	Session(int userId, User user, PermissionIndex permissions) {
+		this.userId = userId;
+		this.user = user;
+		this.permissions = permissions;
+	}
+
+	/**
+	 * @return the user's row id in cse360users
+	 */
+	int getUserId() {
+		return userId;
+	}
+
+	/**
+	 * @return the logged in user
+	 */
+	User getUser() {
+		return user;
+	}
+
+	boolean isAdmin() {
+		return user.getRoles()[0];
+	}
+
+	boolean isInstructor() {
+		return user.getRoles()[1];
+	}
+
+	boolean isStudent() {
+		return user.getRoles()[2];
+	}
+
+	/**
+	 * @param group
+	 * @return true if the user has view rights for the group
+	 * @throws SQLException
+	 */
+	boolean canView(String group) throws SQLException {
+		return permissions.canView(userId, group);
+	}
+
+	/**
+	 * @param group
+	 * @return true if the user has admin rights for the group
+	 * @throws SQLException
+	 */
+	boolean canAdmin(String group) throws SQLException {
+		return permissions.canAdmin(userId, group);
+	}
+
+	/**
+	 * @param groups the groups an article belongs to
+	 * @return true if the user may view the article
+	 * @throws SQLException
+	 */
+	boolean canViewArticle(List<String> groups) throws SQLException {
+		return permissions.canViewAllSpecial(userId, groups);
+	}
+
+	/**
+	 * @param groups the groups an article belongs to
+	 * @return true if the user may delete the article
+	 * @throws SQLException
+	 */
+	boolean canDeleteArticle(List<String> groups) throws SQLException {
+		return permissions.canAdminAllSpecial(userId, groups);
+	}
+
+	/**
+	 * @param groups the groups an article belongs to
+	 * @return true if the article's body is encrypted and this user gets it decrypted
+	 * @throws SQLException
+	 */
+	boolean seesDecrypted(List<String> groups) throws SQLException {
+		return permissions.canViewAnySpecial(userId, groups);
+	}
+}
@@ -35,225 +35,106 @@ import java.util.Scanner;
  */
 public class StartCSE360 {
 
-<<<<<<< HEAD
-    /**
-     * Database helper instance for database operations.
-     * Provides methods for interacting with the underlying H2 database.
-     */
-    private static final DatabaseHelper databaseHelper = new DatabaseHelper();
-
-    /**
-     * Scanner instance for reading user input.
-     * Used throughout the application for command-line interaction.
-     */
-    private static final Scanner scanner = new Scanner(System.in);
-
-    /**
-     * Main entry point for the application.
-     * Initializes database connection and handles the main application flow.
-     *
-     * @param args Command line arguments (not used)
-     * @throws Exception If there are database connection or operation errors
-     */
-    public static void main(String[] args) throws Exception {
-        try {
-            databaseHelper.connectToDatabase();
-
-            if (databaseHelper.isDatabaseEmpty()) {
-                System.out.println("In-Memory Database is empty");
-                setupAdministrator();
-            }
-            mainLogin();
-
-        } catch (SQLException e) {
-            System.err.println("Database error: " + e.getMessage());
-            e.printStackTrace();
-        } finally {
-            System.out.println("Good Bye!!");
-            databaseHelper.closeConnection();
-        }
-    }
-
-    /**
-     * Sets up the initial administrator account.
-     * Called when database is empty to create first admin user.
-     *
-     * @throws SQLException If there are database operation errors
-     */
-    private static void setupAdministrator() throws SQLException {
-        System.out.println("Setting up the Administrator access");
-        System.out.print("Enter Admin Username: ");
-        String userName = scanner.nextLine();
-        System.out.print("Enter Admin Password: ");
-        String password = scanner.nextLine();
-        System.out.print("Confirm Admin Password: ");
-        String confirmPassword = scanner.nextLine();
-
-        while (!password.equals(confirmPassword)) {
-            System.out.print("Invalid. Please re-enter Admin Password to confirm: ");
-            confirmPassword = scanner.nextLine();
-        }
-
-        int firstAdminId = databaseHelper.firstAdmin(userName, password);
-        if (firstAdminId != -1)
-            System.out.println("Administrator setup completed.");
-    }
-
-    /**
-     * Completes account setup for users invited by administrators.
-     * Collects personal information and sets up initial access.
-     *
-     * @param currentUser The user object to update with personal information
-     * @throws SQLException If there are database operation errors
-     * @throws Exception If there are other system errors
-     */
-    private static void settingUpAccount(User currentUser) throws SQLException, Exception {
-        String first = "";
-        String preferred = "";
-        String last = "";
-        String middle = "";
-        String email = "";
-
-        System.out.println("Finish Setting up Your Account");
-
-        System.out.print("Enter Your First Name: ");
-        first = scanner.nextLine();
-        System.out.print("Enter Your Middle Name: ");
-        middle = scanner.nextLine();
-        System.out.print("Enter Your Last Name: ");
-        last = scanner.nextLine();
-        System.out.print("Enter Your Preferred First Name: ");
-        preferred = scanner.nextLine();
-        System.out.print("Enter Your Email: ");
-        email = scanner.nextLine();
-
-        currentUser.setFirstName(first);
-        currentUser.setMiddleName(middle);
-        currentUser.setLastName(last);
-        currentUser.setPreferredName(preferred);
-        currentUser.setEmail(email);
-        currentUser.setOTPFlag(false);
-
-        if (!databaseHelper.updateUser(currentUser)) {
-            System.out.println(
-                    "No user was properly updating with the personal information above. Please try again later.");
-            return;
-        }
-
-        System.out.println("Congrats! You have finished setting up your account.");
-        boolean[] curUserRoles = currentUser.getRoles();
-        if (curUserRoles[0] && (!curUserRoles[1] && !curUserRoles[2]))
-            adminHome(currentUser);
-        else if (curUserRoles[1] && (!curUserRoles[0] && !curUserRoles[2]))
-            instructorHome(currentUser);
-        else if (curUserRoles[2] && (!curUserRoles[1] && !curUserRoles[0]))
-            studentHome(currentUser);
-        else
-            sessionRoleSelection(currentUser);
-    }
+	/**
+	 * The databaseHelper object this console UI passes values to so that it can
+	 * interact with the database. Every terminal session has its own StartCSE360
+	 * but they all share one helper.
+	 */
+	private final DatabaseHelper databaseHelper;
 
-    /**
-     * Handles role selection for users with multiple roles.
-     * Allows users to choose which role to use for the current session.
-     *
-     * @param currentUser The current user object
-     * @throws SQLException If there are database operation errors
-     * @throws Exception If there are other system errors
-     */
-    private static void sessionRoleSelection(User currentUser) throws SQLException, Exception {
-        boolean[] roles = currentUser.getRoles();
-        String choice = "";
-
-        System.out.println("You have multiple roles, but may only use the system through the view of one of them.");
-        System.out.println("Your Roles: ");
-        if (roles[0])
-            System.out.println("1. Administrator");
-        if (roles[2])
-            System.out.println("2. Student");
-        if (roles[1])
-            System.out.println("3. Instructor");
-
-        System.out.print("Please select your role for the session: ");
-        choice = scanner.nextLine();
-
-        while (!choice.equals("1") && !choice.equals("2") && !choice.equals("3")) {
-            System.out.print("Invalid option. Please select your role from the list above again: ");
-            choice = scanner.nextLine();
-        }
-
-        System.out.print("You have successfully selected the role: ");
-        switch (choice) {
-            case "1": {
-                System.out.println("Administrator.");
-                adminHome(currentUser);
-                break;
-            }
-            case "2": {
-                System.out.println("Student.");
-                studentHome(currentUser);
-                break;
-            }
-            case "3": {
-                System.out.println("Instructor.");
-                instructorHome(currentUser);
-                break;
-            }
-            default: {
-                System.out.println(
-                        "There was an error on our end. We are navigation you back to the login page. Please try again at a later time.");
-                break;
-            }
-        }
-    }
+	/**
+	 * The scanner used to take in all text inputs. Core of the console-based UI.
+	 * Each terminal session has its own; outside a TerminalServer session this
+	 * is the console's.
+	 */
+	private static Scanner scanner() {
+		return Terminal.current().scanner();
+	}
 
-    /**
-     * Handles the student home interface and operations.
-     * Provides access to student-specific functionality like viewing articles and sending messages.
-     *
-     * @param curUser The current student user
-     * @throws SQLException If there are database operation errors
-     * @throws Exception If there are other system errors
-     */
-    private static void studentHome(User curUser) throws SQLException, Exception {
-=======
 	/**
-	 * The global databaseHelper object so that we can pass values to methods in
-	 * that file and interact with the database
+	 * The screens of the console UI. Each screen method shows its menu until the
+	 * user leaves it and then returns the Route to the next screen instead of
+	 * calling it.
 	 */
-	private static final DatabaseHelper databaseHelper = new DatabaseHelper();
+	private enum Screen {
+		LOGIN, ACCOUNT_SETUP, ROLE_SELECTION, ADMIN_HOME, INSTRUCTOR_HOME, STUDENT_HOME, EXIT
+	}
 
 	/**
-	 * The scanner used to take in all text inputs for the entire system. Core of
-	 * the console-based UI
+	 * Where the UI goes next: a screen, and the user or session it is shown for
 	 */
-	private static final Scanner scanner = new Scanner(System.in);
+	private static final class Route {
+		private static final Route LOGIN = new Route(Screen.LOGIN, null, null);
+		private static final Route EXIT = new Route(Screen.EXIT, null, null);
+
+		private final Screen screen;
+		private final User user;
+		private final Session session;
+
+		private Route(Screen screen, User user, Session session) {
+			this.screen = screen;
+			this.user = user;
+			this.session = session;
+		}
+
+		private static Route accountSetup(User user) {
+			return new Route(Screen.ACCOUNT_SETUP, user, null);
+		}
+
+		private static Route to(Screen screen, Session session) {
+			return new Route(screen, session.getUser(), session);
+		}
+	}
 
-	// P3: Removed constructor since Java makes a blank one by default
+	/**
+	 * @param databaseHelper connected helper the menus work through
+	 */
+	StartCSE360(DatabaseHelper databaseHelper) {
+		this.databaseHelper = databaseHelper;
+	}
 
 	/**
 	 * This is the start of the application that connects to an H2 database that
 	 * stores all critical information.
 	 * This sets up the flow for user interaction with the system.
+	 * <p>
+	 * Run with --serve [port] to serve the menus to terminal users over TCP
+	 * instead of the console; see TerminalServer. Run with --batch script
+	 * [results] to run a provisioning script instead; see BatchRunner.
+	 * </p>
 	 * 
 	 * @param args This parameter holds the arguments from the command line
 	 * @throws Exception Throws an Exception if there is a SQL error from the helper
 	 *                   file and logs the issue
 	 */
 	public static void main(String[] args) throws Exception {
+		DatabaseHelper databaseHelper = new DatabaseHelper();
+		StartCSE360 console = new StartCSE360(databaseHelper);
 
 		try {
 
 			databaseHelper.connectToDatabase(); // Connect to the database
 
+			// a provisioning script runs without any prompts, not even the first admin setup
+			if (args.length > 1 && args[0].equals("--batch")) {
+				databaseHelper.runBatch(args[1], args.length > 2 ? args[2] : null);
+				return;
+			}
+
 			// Check if the database is empty (no users registered)
 			if (databaseHelper.isDatabaseEmpty()) {
 				System.out.println("In-Memory Database  is empty");
 				// set up administrator access
-				setupAdministrator();
+				console.setupAdministrator();
+			}
+
+			if (args.length > 0 && args[0].equals("--serve")) {
+				serveTerminals(databaseHelper, args.length > 1 ? Integer.parseInt(args[1]) : TerminalServer.DEFAULT_PORT);
+				return;
 			}
 			// called here as need to reroute to main login after initial setup or if there
 			// are other users
-			mainLogin();
+			console.run();
 
 			// catch any database errors and log
 		} catch (SQLException e) {
@@ -267,6 +148,83 @@ public class StartCSE360 {
 		}
 	}
 
+	/**
+	 * Serve the login menu to every terminal that connects, until the console
+	 * enters "quit". All the sessions share this process's database connection
+	 * pool.
+	 * 
+	 * @param databaseHelper connected helper the sessions share
+	 * @param port           port to listen on
+	 * @throws Exception Throws an Exception if the port cannot be bound
+	 */
+	private static void serveTerminals(DatabaseHelper databaseHelper, int port) throws Exception {
+		TerminalServer server = new TerminalServer(port, terminal -> {
+			System.out.println("Welcome to the CSE360 help system.");
+			new StartCSE360(databaseHelper).run();
+		});
+		server.start();
+		System.out.println("Type quit to stop serving.");
+		while (!scanner().nextLine().strip().equalsIgnoreCase("quit")) {
+			System.out.println(server.getConnectionCount() + " terminal(s) connected. Type quit to stop serving.");
+		}
+		server.stop();
+	}
+
+	/**
+	 * Runs the console UI from the main login until the user exits the system
+	 * <p>
+	 * The screens never call one another. Each returns the Route to the next
+	 * screen and this loop shows it, so the stack stays the same depth however
+	 * many times users log in and out, and nothing from a finished session is
+	 * left reachable from an older frame.
+	 * </p>
+	 * 
+	 * @throws Exception Throws an Exception if there is a SQL error from the helper
+	 *                   file and logs the issue
+	 */
+	void run() throws Exception {
+		Route route = Route.LOGIN;
+		while (route.screen != Screen.EXIT) {
+			route = show(route);
+		}
+	}
+
+	// show one screen and return where it leads
+	private Route show(Route route) throws Exception {
+		switch (route.screen) {
+			case LOGIN:
+				return mainLogin();
+			case ACCOUNT_SETUP:
+				return settingUpAccount(route.user);
+			case ROLE_SELECTION:
+				return sessionRoleSelection(route.session);
+			case ADMIN_HOME:
+				return adminHome(route.session);
+			case INSTRUCTOR_HOME:
+				return instructorHome(route.session);
+			case STUDENT_HOME:
+				return studentHome(route.session);
+			default:
+				return Route.EXIT;
+		}
+	}
+
+	/**
+	 * Routes to a specific user home if they only have one role; if not, the
+	 * user gets to choose which home menu to go to
+	 */
+	private static Route homeFor(Session session) {
+		boolean[] curUserRoles = session.getUser().getRoles();
+		if (curUserRoles[0] && (!curUserRoles[1] && !curUserRoles[2]))
+			return Route.to(Screen.ADMIN_HOME, session);
+		else if (curUserRoles[1] && (!curUserRoles[0] && !curUserRoles[2]))
+			return Route.to(Screen.INSTRUCTOR_HOME, session);
+		else if (curUserRoles[2] && (!curUserRoles[1] && !curUserRoles[0]))
+			return Route.to(Screen.STUDENT_HOME, session);
+		else
+			return Route.to(Screen.ROLE_SELECTION, session);
+	}
+
 	/**
 	 * Asks for and stores first admin login info
 	 * <p>
@@ -279,19 +237,19 @@ public class StartCSE360 {
 	 * @throws SQLException Throws error if there is a SQL error from our
 	 *                      interaction with the database
 	 */
-	private static void setupAdministrator() throws SQLException {
+	private void setupAdministrator() throws SQLException {
 		System.out.println("Setting up the Administrator access");
 		System.out.print("Enter Admin Username: ");
-		String userName = scanner.nextLine();
+		String userName = scanner().nextLine();
 		System.out.print("Enter Admin Password: ");
-		String password = scanner.nextLine();
+		String password = scanner().nextLine();
 		System.out.print("Confirm Admin Password: ");
-		String confirmPassword = scanner.nextLine();
+		String confirmPassword = scanner().nextLine();
 
 		// Must have matching password and confirm password so loop till it is right
 		while (!password.equals(confirmPassword)) {
 			System.out.print("Invalid. Please re-enter Admin Password to confirm: ");
-			confirmPassword = scanner.nextLine();
+			confirmPassword = scanner().nextLine();
 		}
 
 		// insert login info to the table
@@ -311,12 +269,13 @@ public class StartCSE360 {
 	 * 
 	 * @param currentUser This parameter is an user object that holds all the
 	 *                    information for the current User
+	 * @return The Route to the screen the user goes to next
 	 * @throws SQLException Throws error if there is a SQL error from our
 	 *                      interaction with the database
 	 * @throws Exception    Throws an Exception if there is a SQL error from the
 	 *                      helper file and logs the issue
 	 */
-	private static void settingUpAccount(User currentUser) throws SQLException, Exception {
+	private Route settingUpAccount(User currentUser) throws SQLException, Exception {
 
 		// fields we need information for
 		String first = "";
@@ -329,15 +288,15 @@ public class StartCSE360 {
 
 		// Asking for user input to get the information required
 		System.out.print("Enter Your First Name: ");
-		first = scanner.nextLine();
+		first = scanner().nextLine();
 		System.out.print("Enter Your Middle Name: ");
-		middle = scanner.nextLine();
+		middle = scanner().nextLine();
 		System.out.print("Enter Your Last Name: ");
-		last = scanner.nextLine();
+		last = scanner().nextLine();
 		System.out.print("Enter Your Preferred First Name: ");
-		preferred = scanner.nextLine();
+		preferred = scanner().nextLine();
 		System.out.print("Enter Your Email: ");
-		email = scanner.nextLine();
+		email = scanner().nextLine();
 
 		// populates a User object we can send to the helper method
 		currentUser.setFirstName(first);
@@ -351,22 +310,16 @@ public class StartCSE360 {
 		if (!databaseHelper.updateUser(currentUser)) {
 			System.out.println(
 					"No user was properly updating with the personal information above. Please try again later.");
-			return;
+			return Route.LOGIN;
 		}
 
 		System.out.println("Congrats! You have finished setting up your account.");
-		// Routes to a specific user home if they only have one role
-		boolean[] curUserRoles = currentUser.getRoles();
-		if (curUserRoles[0] && (!curUserRoles[1] && !curUserRoles[2]))
-			adminHome(currentUser);
-		else if (curUserRoles[1] && (!curUserRoles[0] && !curUserRoles[2]))
-			instructorHome(currentUser);
-		else if (curUserRoles[2] && (!curUserRoles[1] && !curUserRoles[0]))
-			studentHome(currentUser);
-		// if not - the user gets to choose which home menu to go to
-		else
-			sessionRoleSelection(currentUser);
-
+		Session session = databaseHelper.sessionFor(currentUser);
+		if (session == null) {
+			System.out.println("Your account could not be found. Please log in again.");
+			return Route.LOGIN;
+		}
+		return homeFor(session);
 	}
 
 	/**
@@ -380,12 +333,14 @@ public class StartCSE360 {
 	 * 
 	 * @param currentUser This parameter is an user object that holds all the
 	 *                    information for the current User
+	 * @return The Route to the screen the user goes to next
 	 * @throws SQLException Throws error if there is a SQL error from our
 	 *                      interaction with the database
 	 * @throws Exception    Throws an Exception if there is a SQL error from the
 	 *                      helper file and logs the issue
 	 */
-	private static void sessionRoleSelection(User currentUser) throws SQLException, Exception {
+	private Route sessionRoleSelection(Session session) throws SQLException, Exception {
+		User currentUser = session.getUser();
 
 		// Get roles from the curUser
 		boolean[] roles = currentUser.getRoles();
@@ -403,12 +358,12 @@ public class StartCSE360 {
 
 		// Allow user to select which profile or home menu they would like to view
 		System.out.print("Please select your role for the session: ");
-		choice = scanner.nextLine();
+		choice = scanner().nextLine();
 
 		// Wait for valid choice
 		while (!choice.equals("1") && !choice.equals("2") && !choice.equals("3")) {
 			System.out.print("Invalid option. Please select your role from the list above again: ");
-			choice = scanner.nextLine();
+			choice = scanner().nextLine();
 		}
 
 		// Navigate to the proper menu based on which role was selected
@@ -417,23 +372,20 @@ public class StartCSE360 {
 		switch (choice) {
 			case "1": {
 				System.out.println("Administrator.");
-				adminHome(currentUser);
-				break;
+				return Route.to(Screen.ADMIN_HOME, session);
 			}
 			case "2": {
 				System.out.println("Student.");
-				studentHome(currentUser);
-				break;
+				return Route.to(Screen.STUDENT_HOME, session);
 			}
 			case "3": {
 				System.out.println("Instructor.");
-				instructorHome(currentUser);
-				break;
+				return Route.to(Screen.INSTRUCTOR_HOME, session);
 			}
 			default: {
 				System.out.println(
 						"There was an error on our end. We are navigation you back to the login page. Please try again at a later time.");
-				break;
+				return Route.LOGIN;
 			}
 		}
 	}
@@ -455,13 +407,14 @@ public class StartCSE360 {
 	 * allowed access to.
 	 * </p>
 	 * 
+	 * @return The Route to the screen the user goes to next
 	 * @throws SQLException Throws error if there is a SQL error from our
 	 *                      interaction with the database
 	 * @throws Exception    Throws an Exception if there is a SQL error from the
 	 *                      helper file and logs the issue
 	 */
-	private static void studentHome(User curUser) throws SQLException, Exception {
->>>>>>> 45eb321935656fd7c007e6158c368e35de020664
+	private Route studentHome(Session session) throws SQLException, Exception {
+		User curUser = session.getUser();
         String option = "";
         do {
             System.out.println("Welcome to the student home.");
@@ -471,7 +424,7 @@ public class StartCSE360 {
             System.out.println("3. Send a specific message");
             System.out.println("4. Search for an article");
             System.out.println("5. View Article by ID");
-            option = scanner.nextLine();
+            option = scanner().nextLine();
 
             switch (option) {
                 case "1": {
@@ -480,71 +433,27 @@ public class StartCSE360 {
                 }
                 case "2": {
                     System.out.println("Please type your general message below: ");
-                    String genMessage = scanner.nextLine();
-                    HelpSystem.sendGenericMessage(genMessage, curUser);
-                    System.out.println("Your message has been sent and stored to improve our system in the future.");
+                    String genMessage = scanner().nextLine();
+                    if (HelpSystem.sendGenericMessage(genMessage, curUser))
+                        System.out.println("Your message has been sent and stored to improve our system in the future.");
+                    else
+                        System.out.println("The help system is busy right now. Please send your message again later.");
                     break;
                 }
                 case "3": {
                     System.out.println("Please enter your specific message below. Make sure to include exactly what you need and/or cannot find: ");
-                    String specMessage = scanner.nextLine();
-                    HelpSystem.sendSpecificMessage(specMessage, curUser);
-                    System.out.println("Your message has been sent and stored to improve our system in the future.");
+                    String specMessage = scanner().nextLine();
+                    if (HelpSystem.sendSpecificMessage(specMessage, curUser))
+                        System.out.println("Your message has been sent and stored to improve our system in the future.");
+                    else
+                        System.out.println("The help system is busy right now. Please send your message again later.");
                     break;
                 }
                 case "4": {
-<<<<<<< HEAD
-                    System.out.println("Please search for an article via content level:\n1: Beginner\n2: Intermediate\n3: Advanced\n4: Expert");
-                    int choice = scanner.nextInt();
-                    scanner.nextLine();
-                    String level = "ALL";
-
-                    switch (choice) {
-                        case 1:
-                            level = "Beginner";
-                            break;
-                        case 2:
-                            level = "Intermediate";
-                            break;
-                        case 3:
-                            level = "Advanced";
-                            break;
-                        case 4:
-                            level = "Expert";
-                            break;
-                        default:
-                            break;
-                    }
-
-                    System.out.println("Please search for an article via group name: ");
-                    String group = scanner.nextLine();
-
-                    System.out.println("Please search for an article via words, names, or phrases in the Title, Author(s), or Abstract. Say any if you don't want to search: ");
-                    String searchCond = scanner.nextLine();
-
-                    if (searchCond.equals("any")) {
-                        searchCond = "";
-                    }
-
-                    databaseHelper.searchArticle("s", level, group, searchCond);
-                    break;
-                }
-                case "5": {
-                    System.out.println(
-                            "Please enter the group of articles you would like. If your input does not match any existing groups, all articles will be returned: ");
-                    String groupChosen = scanner.nextLine();
-                    boolean groupExists = false;
-                    if (groupExists) {
-                        System.out.println("Here are the articles in the group: " + groupChosen);
-                    } else {
-                        System.out.println(
-                                "We could not find any group of articles matching the criteria you entered. Here are all the articles in the system: ");
-                    }
-=======
     				// ask for content level
     				System.out.println("Please search for an article via content level:\n1: Beginner\n2: Intermediate\n3: Advanced\n4: Expert");
-    				String choice = scanner.nextLine();
-    				scanner.nextLine();
+    				String choice = scanner().nextLine();
+    				scanner().nextLine();
     				String level = "ALL";
 
     				switch (choice) {
@@ -566,13 +475,13 @@ public class StartCSE360 {
 
     				// ask for group
     				System.out.println("Please search for an article via group name. Leave blank to see all articles: ");
-    				String group = scanner.nextLine();
+    				String group = scanner().nextLine();
     				if (group.equals("")) {
     					group = "ALL";
     				}
 
     				System.out.println("Please search for an article via words, names, or phrases in the Title, Author(s), or Abstract. Say any if you don't want to search: ");
-    				String searchCond = scanner.nextLine();
+    				String searchCond = scanner().nextLine();
 
     				if (searchCond.equals("any")) {
     					searchCond = "";
@@ -584,7 +493,7 @@ public class StartCSE360 {
     			}
                 case "5": {
                     System.out.println("Please enter the id of the article you would like to view: ");
-					String articleID = scanner.nextLine();
+					String articleID = scanner().nextLine();
 					int aId = Integer.parseInt(articleID);
 					ArrayList<String> temp = databaseHelper.getGroupsForAnArticle(aId);
 					boolean encrypted = false;
@@ -597,7 +506,6 @@ public class StartCSE360 {
 					databaseHelper.viewArticle("t", articleID, encrypted);
 
 					
->>>>>>> 45eb321935656fd7c007e6158c368e35de020664
                     break;
                 }
                 default: {
@@ -606,517 +514,8 @@ public class StartCSE360 {
                 }
             }
         } while (!option.equals("1"));
-        mainLogin();
+        return Route.LOGIN;
     }
-<<<<<<< HEAD
-
-    /**
-     * Handles the main login interface and authentication.
-     * Supports returning users, new users with OTP, and system exit.
-     *
-     * @throws SQLException If there are database operation errors
-     * @throws Exception If there are other system errors
-     */
-    private static void mainLogin() throws SQLException, Exception {
-        String choice = "";
-        String userName = "";
-        String password = "";
-        String oTP = "";
-
-        System.out.print(
-                "Are you a returning user? (Note - If you had your account reset, choose 2) 1. Yes 2. No 3. Exit System ");
-        choice = scanner.nextLine();
-
-        while (!choice.equals("1") && !choice.equals("2") && !choice.equals("3")) {
-            System.out.println("Invalid option selected. Please try again");
-            System.out.print("Are you a returning user? 1. Yes 2. No 3. Exit the System: ");
-            choice = scanner.nextLine();
-        }
-
-        if (choice.equals("1")) {
-            while (true) {
-                String[] credentials = get_user_credentials();
-                userName = credentials[0];
-                password = credentials[1];
-
-                if (databaseHelper.doesUserExistBoth(userName, password)) {
-                    User user = databaseHelper.login(userName, password);
-                    if (user != null) {
-                        System.out.println("You have successfully logged in.");
-                        if (user.getOTP()) {
-                            settingUpAccount(user);
-                            break;
-                        }
-                    } else
-                        System.out.println("User is being returned as null.");
-
-                    boolean[] curUserRoles = user.getRoles();
-                    if (curUserRoles[0] && (!curUserRoles[1] && !curUserRoles[2]))
-                        adminHome(user);
-                    else if (curUserRoles[1] && (!curUserRoles[0] && !curUserRoles[2]))
-                        instructorHome(user);
-                    else if (curUserRoles[2] && (!curUserRoles[1] && !curUserRoles[0]))
-                        studentHome(user);
-                    else
-                        sessionRoleSelection(user);
-
-                    break;
-                } else
-                    System.out.println("Invalid credentials! Try again");
-            }
-        } else if (choice.equals("2")) {
-            System.out.println("You have been invited to the system or had your account reset by an administrator.");
-
-            while (true) {
-                System.out.print("Enter your One Time Password: ");
-                oTP = scanner.nextLine();
-
-                int userId = databaseHelper.verifyOTP(oTP);
-                if (userId != -1) {
-                    System.out.println(
-                            "If you had your account reset, Please re-enter your previous username and new password.");
-                    System.out.println(
-                            "If you are a first-time user, continue on to set up your initial username and password.");
-
-                    String[] credentials = get_user_credentials();
-                    if (databaseHelper.register(credentials[0], credentials[1], userId)) {
-                        System.out.println("Thank you for registering! Please note: ");
-                        System.out.println(
-                                "The next time you login with these credentials, you will be directed to finish setting up your account. Bye!");
-                    } else {
-                        System.out.println("No user was registered properly. Please try agian later.");
-                    }
-
-                    break;
-                } else
-                    System.out.println("Your OTP is either incorrect or no longer valid. Please try again.");
-            }
-
-            mainLogin();
-        } else {
-            System.out.println("You are now leaving the system.");
-            return;
-        }
-    }
-
-    /**
-     * Handles the administrator home interface and operations.
-     * Provides access to administrative functions like user management and system configuration.
-     *
-     * @param curUser The current administrator user
-     * @throws SQLException If there are database operation errors
-     * @throws Exception If there are other system errors
-     */
-    private static void adminHome(User curUser) throws SQLException, Exception {
-        String choice = "";
-
-        System.out.println("Welcome to the Home Page for Admins!");
-        do {
-            System.out.println("Here are the actions you can perform: ");
-
-            System.out.println("1. Invite a user to the system");
-            System.out.println("2. Reset a user account");
-            System.out.println("3. Delete a user account");
-            System.out.println("4. List the user accounts");
-            System.out.println("5. Add or Remove a role from a user");
-            System.out.println("6. Create an Article");
-            System.out.println("7. View a group of Articles in short Form");
-            System.out.println("8. View all Articles in short Form");
-            System.out.println("9. Delete an Article");
-            System.out.println("10. Restore Options");
-            System.out.println("11. Backup Options");
-            System.out.println("12. List all users in a general group");
-            System.out.println("13. Add a user to a general group");
-            System.out.println("14. Remove a user from a general group");
-            System.out.println("15. Create a Special Access Group and Invite an Instructor");
-            System.out.println("16. Manage Access Rights to a Special Access Group");
-            System.out.println("17. Logout");
-
-            choice = scanner.nextLine();
-            switch (choice) {
-                case "1": {
-                    boolean aFlag = false;
-                    boolean tFlag = false;
-                    boolean sFlag = false;
-                    String roleSelect = "";
-
-                    System.out.println("Here are the possible roles this user can have: ");
-
-                    System.out.println("1. Administrator only");
-                    System.out.println("2. Student only");
-                    System.out.println("3. Instructor only");
-                    System.out.println("4. Administrator and Student only");
-                    System.out.println("5. Administrator and Instructor only");
-                    System.out.println("6. Student and Instructor only");
-                    System.out.println("7. Administrator, Student, and Instructor");
-
-                    System.out.print("Please select an option: ");
-                    roleSelect = scanner.nextLine();
-
-                    switch (roleSelect) {
-                        case "1": {
-                            aFlag = true;
-                            break;
-                        }
-                        case "2": {
-                            sFlag = true;
-                            break;
-                        }
-                        case "3": {
-                            tFlag = true;
-                            break;
-                        }
-                        case "4": {
-                            aFlag = true;
-                            sFlag = true;
-                            break;
-                        }
-                        case "5": {
-                            aFlag = true;
-                            tFlag = true;
-                            break;
-                        }
-                        case "6": {
-                            tFlag = true;
-                            sFlag = true;
-                            break;
-                        }
-                        case "7": {
-                            aFlag = true;
-                            tFlag = true;
-                            sFlag = true;
-                            break;
-                        }
-                        default:
-                            System.out.println("Invalid option.");
-                            break;
-                    }
-
-                    if (aFlag || tFlag || sFlag) {
-                        int shellUserID = databaseHelper.insertShellUser(aFlag, tFlag, sFlag);
-                        if (shellUserID == -1) {
-                            System.out.println("DB issue");
-                            break;
-                        }
-
-                        System.out.print("Here is the OTP sent: ");
-                        System.out.println(databaseHelper.createOTP(shellUserID));
-                        System.out.println("You have successfully invited a student to join the system!");
-                        System.out
-                                .println("One Time Password has been sent to this user to enable their registration.");
-                    } else
-                        System.out.println("There was an issue with inviting the user. Please try again later.");
-                    break;
-                }
-                case "2": {
-                    String usernameReset, emailReset;
-                    String[] reset = get_user_identifiers();
-                    usernameReset = reset[0];
-                    emailReset = reset[1];
-                    if (!databaseHelper.userExist(usernameReset, emailReset)) {
-                        System.out.println("There is no user with the provided specifications.");
-                        break;
-                    }
-
-                    boolean[] curRoles = databaseHelper.getUserRoles(usernameReset, emailReset);
-                    if (databaseHelper.deleteUserAccount(usernameReset, emailReset)) {
-                        System.out.println(
-                                "You have successfully reset a user in the system. They will be notified of this change. They will have the same roles as before once signed back in");
-                        int shellUserID = databaseHelper.insertShellUser(curRoles[0], curRoles[1], curRoles[2]);
-
-                        if (shellUserID == -1) {
-                            System.out.println("DB issue");
-                            break;
-                        }
-
-                        System.out.print("Here is the OTP sent: ");
-                        System.out.println(databaseHelper.createOTP(shellUserID));
-
-                    } else
-                        System.out.println(
-                                "There was an error on our end and specified user has not been reset - please try again later.");
-                    break;
-                }
-                case "3": {
-                    String usernameDelete, emailDelete;
-                    String[] delete = get_user_identifiers();
-                    usernameDelete = delete[0];
-                    emailDelete = delete[1];
-
-                    if (!databaseHelper.userExist(usernameDelete, emailDelete)) {
-                        System.out.println("There is no user with the provided specifications.");
-                        break;
-                    }
-
-                    if (databaseHelper.deleteUserAccount(usernameDelete, emailDelete))
-                        System.out.println("You have successfully deleted a user.");
-                    else
-                        System.out.println("There was an error on our end. Please try again later");
-
-                    break;
-                }
-                case "4": {
-                    databaseHelper.displayUsersByAdmin();
-                    break;
-                }
-                case "5": {
-                    String usernameAdjust, emailAdjust;
-                    String[] adjust = get_user_identifiers();
-                    usernameAdjust = adjust[0];
-                    emailAdjust = adjust[1];
-
-                    if (!databaseHelper.userExist(usernameAdjust, emailAdjust)) {
-                        System.out.println("There is no user with the provided specifications.");
-                        break;
-                    }
-
-                    User currentUser = databaseHelper.findUser(usernameAdjust, emailAdjust);
-                    boolean[] userRoles = curUser.getRoles();
-
-                    boolean aFlag = userRoles[0];
-                    boolean tFlag = userRoles[1];
-                    boolean sFlag = userRoles[2];
-                    System.out.println(
-                            "Please choose if you would like to add or remove a role from this user? 1. Add 2. Remove");
-                    String option = scanner.nextLine();
-
-                    if (option.equals("1")) {
-                        if (userRoles[0] && (userRoles[1] && userRoles[2])) {
-                            System.out.println("This user already has all the roles.");
-                            break;
-                        }
-                        System.out.println("You are now adding a role to this user. Here are the options: ");
-                        if (!userRoles[0])
-                            System.out.println("1. Administrator");
-                        if (!userRoles[2])
-                            System.out.println("2. Student");
-                        if (!userRoles[1])
-                            System.out.println("3. Instructor");
-                        System.out.print("Please select a role: ");
-                        String rolePick = scanner.nextLine();
-
-                        switch (rolePick) {
-                            case "1": {
-                                if (userRoles[0]) {
-                                    System.out.println(
-                                            "You have selected a role that this user already has. The user's roles will remain the same");
-                                    break;
-                                }
-                                aFlag = true;
-                                System.out.println("You have successfully added the Administrator role to this user");
-                                break;
-                            }
-                            case "2": {
-                                if (userRoles[2]) {
-                                    System.out.println(
-                                            "You have selected a role that this user already has. The user's roles will remain the same");
-                                    break;
-                                }
-                                sFlag = true;
-                                System.out.println("You have successfully added the Student role to this user");
-                                break;
-                            }
-                            case "3": {
-                                if (userRoles[1]) {
-                                    System.out.println(
-                                            "You have selected a role that this user already has. The user's roles will remain the same");
-                                    break;
-                                }
-                                tFlag = true;
-                                System.out.println("You have successfully added the Instructor role to this user");
-                                break;
-                            }
-                            default:
-                                System.out.println("Invalid option. The user will remain unchanged.");
-                                break;
-                        }
-                    } else if (option.equals("2")) {
-                        if (!userRoles[0] && (!userRoles[1] && !userRoles[2])) {
-                            System.out.println("This user has no roles to remove.");
-                            break;
-                        }
-
-                        System.out.println("You are now removing a role to this user. Here are the options: ");
-                        if (userRoles[0])
-                            System.out.println("1. Administrator");
-                        if (userRoles[2])
-                            System.out.println("2. Student");
-                        if (userRoles[1])
-                            System.out.println("3. Instructor");
-                        System.out.print("Please select a role: ");
-                        String rolePick = scanner.nextLine();
-
-                        switch (rolePick) {
-                            case "1": {
-                                if (!userRoles[0]) {
-                                    System.out.println(
-                                            "You have selected a role that this user does not have. The user's roles will remain the same");
-                                    break;
-                                }
-                                aFlag = false;
-                                System.out.println("You have successfully removed the Administrator role from this user");
-                                break;
-                            }
-                            case "2": {
-                                if (!userRoles[2]) {
-                                    System.out.println(
-                                            "You have selected a role that this user does not have. The user's roles will remain the same");
-                                    break;
-                                }
-                                sFlag = false;
-                                System.out.println("You have successfully removed the Student role from this user");
-                                break;
-                            }
-                            case "3": {
-                                if (!userRoles[1]) {
-                                    System.out.println(
-                                            "You have selected a role that this user does not have. The user's roles will remain the same");
-                                    break;
-                                }
-                                tFlag = false;
-                                System.out.println("You have successfully removed the Instructor role from this user");
-                                break;
-                            }
-                            default:
-                                System.out.println("Invalid option. The user will remain unchanged.");
-                                break;
-                        }
-                    } else {
-                        System.out.println("Invalid Option. The user will remain unchanged.");
-                        break;
-                    }
-
-                    userRoles[0] = aFlag;
-                    userRoles[1] = tFlag;
-                    userRoles[2] = sFlag;
-                    currentUser.setRoles(userRoles);
-                    databaseHelper.updateUserRoles(currentUser);
-                    break;
-                }
-                case "6": {
-                    databaseHelper.createArticle("a");
-                    break;
-                }
-                case "7": {
-                    System.out.println("Please enter the name of the group of articles you would like to view: ");
-                    String groupName = scanner.nextLine();
-                    if (!databaseHelper.groupExist(groupName) || databaseHelper.isGroupSpecial(groupName)) {
-                        System.out.println(
-                                "You have either entered a group that does not exist or a Special Access Group which administrators are not allowed to view. Please try again later.");
-                        break;
-                    }
-
-                    System.out.println("Here are the articles: ");
-                    databaseHelper.viewGroupedArticles("a", groupName);
-                    break;
-                }
-                case "8": {
-                    System.out.println("Here are the articles: ");
-                    databaseHelper.viewAllArticles("a");
-                    break;
-                }
-                case "9": {
-                    boolean success = databaseHelper.deleteArticle(curUser);
-                    if (success)
-                        System.out.println("Article was properly deleted");
-                    else
-                        System.out.println("Article was not able to be deleted");
-                    break;
-                }
-                case "10": {
-                    System.out.println("Here are your restoration options: ");
-                    System.out.println("1. Restore all articles");
-                    System.out.println("2. Restore a general group or Special Access Group of articles");
-                    System.out.println("Please enter the restoration option you would like to proceed with: ");
-                    String restoreOption = scanner.nextLine();
-                    String fileName = "";
-                    switch (restoreOption) {
-                        case "1": {
-                            System.out.println("Please enter the name of the file you would like to restore from: ");
-                            fileName = scanner.nextLine();
-                            System.out.println(
-                                    "Would you like to clear all articles in the system before restoring? Please note that if you do not, we will not restore duplicating articles. 1. Yes 2. No");
-                            String answer = scanner.nextLine();
-                            if (answer.equals("1"))
-                                databaseHelper.restore("a", fileName);
-                            else if (answer.equals("2"))
-                                databaseHelper.restoreMerge("a", fileName);
-                            else
-                                System.out.println("Invalid choice! Try again");
-                            break;
-                        }
-                        case "2": {
-                            System.out.println("Please enter the name of the general or Special Access Group: ");
-                            String group = scanner.nextLine();
-                            System.out.println("Please enter the name of the file you would like to restore from: ");
-                            fileName = scanner.nextLine();
-                            System.out.println(
-                                    "Would you like to clear all articles in the system before restoring? Please note that if you do not, we will not restore duplicating articles. 1. Yes 2. No");
-                            String answer = scanner.nextLine();
-                            if (answer.equals("1"))
-                                databaseHelper.restore("a", fileName);
-                            else if (answer.equals("2"))
-                                databaseHelper.restoreMerge("a", fileName);
-                            else
-                                System.out.println("Invalid choice! Try again");
-                            break;
-                        }
-                        default: {
-                            System.out.println("Invalid Option. Try again later.");
-                            break;
-                        }
-                    }
-                    break;
-                }
-                case "11": {
-                    System.out.println("Here are your backup options: ");
-                    System.out.println("1. Backup all articles");
-                    System.out.println("2. Backup a general group or Special Access Group of articles");
-                    System.out.println("Please enter the restoration option you would like to proceed with: ");
-                    String backUp = scanner.nextLine();
-                    String fileName = "";
-
-                    switch (backUp) {
-                        case "1": {
-                            System.out.println("Please enter the name of the file you would like to backup to: ");
-                            fileName = scanner.nextLine();
-                            databaseHelper.backup("a", fileName);
-                            break;
-                        }
-                        case "2": {
-                            System.out.println(
-                                    "Please enter the name of the general group or Special Access Group of articles you would like to backup: ");
-                            String group = scanner.nextLine();
-					switch (backUp) {
-
-						case "1": {
-
-							System.out.println("Please enter the name of the file you would like to backup to: ");
-							fileName = scanner.nextLine();
-							// db method to restore all articles to <fileName>.txt
-							databaseHelper.backup("a", fileName);
-							break;
-						}
-
-						case "2": {
-
-							System.out.println(
-									"Please enter the name of the general group or Special Access Group of articles you would like to backup: ");
-							String group = scanner.nextLine();
-							// check if group exists in system - if no - say invalid and exit
-							System.out.println("Please enter the name of the file you would like to backup to: ");
-							fileName = scanner.nextLine();
-							// db method to restore g articles to <fileName>.txt
-							break;
-						}
-
-						default: {
-							System.out.println("Invalid Option. Try again later.");
-							break;
-						}
-
-					}
-=======
 	/**
 	 * Main Login for all users entering the system
 	 * 
@@ -1131,12 +530,13 @@ public class StartCSE360 {
 	 * A user can also exit the entire system from here after ending their session.
 	 * </p>
 	 * 
+	 * @return The Route to the screen the user goes to next
 	 * @throws SQLException Throws error if there is a SQL error from our
 	 *                      interaction with the database
 	 * @throws Exception    Throws an Exception if there is a SQL error from the
 	 *                      helper file and logs the issue
 	 */
-	private static void mainLogin() throws SQLException, Exception {
+	private Route mainLogin() throws SQLException, Exception {
 		String choice = "";
 		String userName = "";
 		String password = "";
@@ -1145,13 +545,13 @@ public class StartCSE360 {
 		// Input for returning user and deals with invalid input
 		System.out.print(
 				"Are you a returning user? (Note - If you had your account reset, choose 2) 1. Yes 2. No 3. Exit System ");
-		choice = scanner.nextLine();
+		choice = scanner().nextLine();
 
 		// Deals with invalid options - loops till valid choice
 		while (!choice.equals("1") && !choice.equals("2") && !choice.equals("3")) {
 			System.out.println("Invalid option selected. Please try again");
 			System.out.print("Are you a returning user? 1. Yes 2. No 3. Exit the System: ");
-			choice = scanner.nextLine();
+			choice = scanner().nextLine();
 		}
 
 		// Choice 1: Returning user
@@ -1164,34 +564,24 @@ public class StartCSE360 {
 				// Check if user exists and credentials are valid
 				if (databaseHelper.doesUserExistBoth(userName, password)) {
 
-					User user = databaseHelper.login(userName, password);
+					Session session = databaseHelper.openSession(userName, password);
+					User user = session == null ? null : session.getUser();
 					// if a user exists in the database and had an OTP - they must finish setting up
 					// their account and will be routed there
 					if (user != null) {
 						System.out.println("You have successfully logged in.");
 						if (user.getOTP()) {
-							settingUpAccount(user);
-							break;
+							return Route.accountSetup(user);
 						}
-					} else
+					} else {
 						System.out.println("User is being returned as null."); // Error Message log as user was already
 																				// shown to be in system yet is not
 																				// being returned properly
+						return Route.LOGIN;
+					}
 
 					// routes to different home pages depending on roles of the user
-					// P3: Change to different Homes once setup and get rid of regHome
-					boolean[] curUserRoles = user.getRoles();
-					if (curUserRoles[0] && (!curUserRoles[1] && !curUserRoles[2]))
-						adminHome(user);
-					else if (curUserRoles[1] && (!curUserRoles[0] && !curUserRoles[2]))
-						instructorHome(user);
-					else if (curUserRoles[2] && (!curUserRoles[1] && !curUserRoles[0]))
-						studentHome(user);
-					// if not - the user gets to choose which home menu to go to
-					else
-						sessionRoleSelection(user);
-
-					break;
+					return homeFor(session);
 				} else
 					System.out.println("Invalid credentials! Try again"); // if user does not exist - will be asked to
 																			// log in again
@@ -1205,7 +595,7 @@ public class StartCSE360 {
 
 			while (true) {
 				System.out.print("Enter your One Time Password: ");
-				oTP = scanner.nextLine();
+				oTP = scanner().nextLine();
 
 				// if OTP is still valid then reset or set up credentials for first time
 				int userId = databaseHelper.verifyOTP(oTP);
@@ -1236,12 +626,12 @@ public class StartCSE360 {
 																												// again
 			}
 
-			mainLogin(); // route back to the top so user can login again to finish setting up account
+			return Route.LOGIN; // route back to the top so user can login again to finish setting up account
 
 			// Exit System
 		} else {
 			System.out.println("You are now leaving the system.");
-			return;
+			return Route.EXIT;
 		}
 	}
 
@@ -1257,12 +647,14 @@ public class StartCSE360 {
 	 * from users, and much more.
 	 * </p>
 	 * 
+	 * @return The Route to the screen the user goes to next
 	 * @throws SQLException Throws error if there is a SQL error from our
 	 *                      interaction with the database
 	 * @throws Exception    Throws an Exception if there is a SQL error from the
 	 *                      helper file and logs the issue
 	 */
-	private static void adminHome(User curUser) throws SQLException, Exception {
+	private Route adminHome(Session session) throws SQLException, Exception {
+		User curUser = session.getUser();
 		String choice = "";
 
 		System.out.println("Welcome to the Home Page for Admins!");
@@ -1289,7 +681,7 @@ public class StartCSE360 {
 			System.out.println("16. Manage Access Rights to a Special Access Group");
 			System.out.println("17. Logout");
 
-			choice = scanner.nextLine();
+			choice = scanner().nextLine();
 			switch (choice) {
 
 				// User invitation to the system
@@ -1311,7 +703,7 @@ public class StartCSE360 {
 					System.out.println("7. Administrator, Student, and Instructor");
 
 					System.out.print("Please select an option: ");
-					roleSelect = scanner.nextLine();
+					roleSelect = scanner().nextLine();
 
 					switch (roleSelect) {
 						case "1": {
@@ -1458,7 +850,7 @@ public class StartCSE360 {
 					boolean sFlag = userRoles[2];
 					System.out.println(
 							"Please choose if you would like to add or remove a role from this user? 1. Add 2. Remove");
-					String option = scanner.nextLine();
+					String option = scanner().nextLine();
 
 					if (option.equals("1")) {
 
@@ -1475,7 +867,7 @@ public class StartCSE360 {
 						if (!userRoles[1])
 							System.out.println("3. Instructor");
 						System.out.print("Please select a role: ");
-						String rolePick = scanner.nextLine();
+						String rolePick = scanner().nextLine();
 
 						switch (rolePick) {
 
@@ -1544,7 +936,7 @@ public class StartCSE360 {
 						if (userRoles[1])
 							System.out.println("3. Instructor");
 						System.out.print("Please select a role: ");
-						String rolePick = scanner.nextLine();
+						String rolePick = scanner().nextLine();
 
 						switch (rolePick) {
 
@@ -1624,13 +1016,13 @@ public class StartCSE360 {
 				case "7": {
 
 					System.out.println("Please enter the name of the group of articles you would like to view: ");
-					String groupName = scanner.nextLine();
+					String groupName = scanner().nextLine();
 					if (!databaseHelper.groupExist(groupName)) {
 						System.out.println("The group you entered does not exist. Please enter an existing group next time.");
 						break;
 					}
 					
-					int aId = databaseHelper.getUserId(curUser.getUsername(), curUser.getEmail());
+					int aId = session.getUserId();
 					if(databaseHelper.isGroupSpecial(groupName)) {	
 						if(!databaseHelper.checkSpecialAdminAccess(aId, groupName)) {
 							System.out.println("The group you entered is a special access group that you do not have access to. Please enter a group that you have access to next time.");
@@ -1647,7 +1039,7 @@ public class StartCSE360 {
 				case "8": {
 
 					System.out.println("Here are the articles: ");
-					int uId = databaseHelper.getUserId(curUser.getUsername(), curUser.getEmail());
+					int uId = session.getUserId();
 					databaseHelper.viewAllArticles(uId);
 					break;
 				}
@@ -1655,7 +1047,7 @@ public class StartCSE360 {
 				// Delete an Article
 				case "9": {
 
-					boolean success = databaseHelper.deleteArticle(curUser);
+					boolean success = databaseHelper.deleteArticle(session);
 					if (success)
 						System.out.println("Article was properly deleted");
 					else
@@ -1672,7 +1064,6 @@ public class StartCSE360 {
 				// Backup Options
 				case "11": {
 					databaseHelper.backupMethod("a");
->>>>>>> 45eb321935656fd7c007e6158c368e35de020664
 					break;
 				}
 
@@ -1681,7 +1072,7 @@ public class StartCSE360 {
 
 					System.out
 							.println("Please enter the name of the general group whose users you would like to list: ");
-					String group = scanner.nextLine();
+					String group = scanner().nextLine();
 					if(!databaseHelper.groupExist(group)) {
 						System.out.println("This is not a valid group.");
 						break;
@@ -1698,7 +1089,7 @@ public class StartCSE360 {
 				case "13": {
 
 					System.out.println("Please enter the name of the general group: ");
-					String group = scanner.nextLine();
+					String group = scanner().nextLine();
 					// check if group exists - if no = invalid choice and break
 					if(!databaseHelper.groupExist(group)) {
 						System.out.println("This group does not exist");
@@ -1726,7 +1117,7 @@ public class StartCSE360 {
 						if (userRoles[1])
 							System.out.println("3. Instructor");
 
-					String roleToAdd = scanner.nextLine();
+					String roleToAdd = scanner().nextLine();
 					if (roleToAdd.equals("1") && userRoles[0]) {
 						// add as student = only view rights
 						databaseHelper.linkUserGroup(group, uId, "a", true, true);
@@ -1746,7 +1137,7 @@ public class StartCSE360 {
 				case "14": {
 
 					System.out.println("Please enter the name of the general group: ");
-					String group = scanner.nextLine();
+					String group = scanner().nextLine();
 					// check if group exists - if no = invalid choice and break
 					if(!databaseHelper.groupExist(group)) {
 						System.out.println("This group does not exist.");
@@ -1778,7 +1169,7 @@ public class StartCSE360 {
 					// Check in DB if there is at least one instructor - if no, say you need to have
 					// an instructor in the system first
 					System.out.println("Please enter the name of the Special Access Group you would like to create: ");
-					String groupName = scanner.nextLine();
+					String groupName = scanner().nextLine();
 					// db function that creates group
 					if (!databaseHelper.createSpecialGroup(groupName))
 						break;
@@ -1812,7 +1203,7 @@ public class StartCSE360 {
 
 				// Manage Rights to a Special Access Group
 				case "16": {
-					specialAccessGroupAdminRights(curUser);
+					specialAccessGroupAdminRights(session);
 					break;
 				}
 
@@ -1830,7 +1221,7 @@ public class StartCSE360 {
 			}
 		} while (!choice.equals("17")); // Keep looping until admin chooses to logout
 
-		mainLogin(); // route back to main login after admin ends their session
+		return Route.LOGIN; // route back to main login after admin ends their session
 	}
 
 	/**
@@ -1842,12 +1233,14 @@ public class StartCSE360 {
 	 * backing up, and restoring articles.
 	 * </p>
 	 * 
+	 * @return The Route to the screen the user goes to next
 	 * @throws SQLException Throws error if there is a SQL error from our
 	 *                      interaction with the database
 	 * @throws Exception    Throws an Exception if there is a SQL error from the
 	 *                      helper file and logs the issue
 	 */
-	private static void instructorHome(User curUser) throws SQLException, Exception {
+	private Route instructorHome(Session session) throws SQLException, Exception {
+		User curUser = session.getUser();
 
 		// Need more group checking for finding articles
 		String choice = "";
@@ -1874,21 +1267,21 @@ public class StartCSE360 {
 			System.out.println("17. Special Access Group Management");
 			System.out.println("18. Logout");
 
-			choice = scanner.nextLine();
+			choice = scanner().nextLine();
 
 			switch (choice) {
 
 				case "1": {
-					databaseHelper.createInstructArticle(curUser);
+					databaseHelper.createInstructArticle(session);
 					break;
 				}
 				case "2": {
 					System.out.println("Please enter the id of the article you would like to view: ");
-					String articleID = scanner.nextLine();
+					String articleID = scanner().nextLine();
 					int aId = Integer.parseInt(articleID);
 					ArrayList<String> temp = databaseHelper.getGroupsForAnArticle(aId);
-					if (databaseHelper.articleAuth(curUser, temp)) {
-						if (databaseHelper.articleEncrypted(curUser, temp))
+					if (databaseHelper.articleAuth(session, temp)) {
+						if (databaseHelper.articleEncrypted(session, temp))
 							databaseHelper.viewArticle("t", articleID, true);
 						else
 							databaseHelper.viewArticle("t", articleID, false);
@@ -1900,8 +1293,8 @@ public class StartCSE360 {
 				}
 				case "3": {
 					System.out.println("Please enter the name of the group of articles you would like to view: ");
-					String groupName = scanner.nextLine();
-					int uId = databaseHelper.getUserId(curUser.getUsername(), curUser.getEmail());
+					String groupName = scanner().nextLine();
+					int uId = session.getUserId();
 					if (!databaseHelper.checkSpecialViewAccess(uId, groupName)) {
 						System.out.println("You do not have viewing rights for this group of articles");
 						break;
@@ -1914,18 +1307,18 @@ public class StartCSE360 {
 				case "4": {
 					System.out.println(
 							"Please enter the content level of articles you would like. Any other input besides Beginner, Intermediate, Advanced, or Expert will return all articles: ");
-					String contentLevel = scanner.nextLine();
+					String contentLevel = scanner().nextLine();
 					if (!contentLevel.equals("Beginner") && !contentLevel.equals("Intermediate")
 							&& !contentLevel.equals("Advanced") && !contentLevel.equals("Expert")) {
 						System.out.println(
 								"Your input did not match any specified content level. Here are all the articles in the system: ");
 						// P3: return all articles
-						int uId = databaseHelper.getUserId(curUser.getUsername(), curUser.getEmail());
+						int uId = session.getUserId();
 						databaseHelper.viewAllArticles(uId);
 					} else {
 						System.out.println("Here are the articles in the content level: " + contentLevel);
 						// P3: dbHelper function call with level passed in
-						int uId = databaseHelper.getUserId(curUser.getUsername(), curUser.getEmail());
+						int uId = session.getUserId();
 						databaseHelper.viewContentArticles(uId, contentLevel);
 					}
 					break;
@@ -1933,7 +1326,7 @@ public class StartCSE360 {
 
 				case "5": {
 					System.out.println("Here are the articles: ");
-					int uId = databaseHelper.getUserId(curUser.getUsername(), curUser.getEmail());
+					int uId = session.getUserId();
 					databaseHelper.viewAllArticles(uId);
 					break;
 				}
@@ -1943,7 +1336,7 @@ public class StartCSE360 {
 					break;
 				}
 				case "7": {
-					boolean success = databaseHelper.deleteArticle(curUser);
+					boolean success = databaseHelper.deleteArticle(session);
 					if (success)
 						System.out.println("Article was properly deleted");
 					else
@@ -1964,7 +1357,7 @@ public class StartCSE360 {
 				case "10": {
 					System.out.println(
 							"Please search for an article via words, names, or phrases in the Title, Author(s), or Abstract: ");
-					String searchCond = scanner.nextLine();
+					String searchCond = scanner().nextLine();
 					// P3: Send to DB to find all associated articles - need condition block to say
 					// whether any articles matching criteria were found
 					break;
@@ -1973,10 +1366,10 @@ public class StartCSE360 {
 				case "11": {
 
 					System.out.println("Please enter the name of the general article group you would like to create: ");
-					String group = scanner.nextLine();
+					String group = scanner().nextLine();
 					String[] tmp = {group};
 					databaseHelper.createGroups(tmp);
-					int tId = databaseHelper.getUserId(curUser.getUsername(), curUser.getEmail());
+					int tId = session.getUserId();
 					databaseHelper.linkUserGroup(group, tId, "t", true, true);
 					// insert entry into tmp table
 					break;
@@ -1992,12 +1385,12 @@ public class StartCSE360 {
 				case "13": {
 
 					System.out.println("Please enter the name of the general article group you would like to delete: ");
-					String group = scanner.nextLine();
+					String group = scanner().nextLine();
 					if(!databaseHelper.groupExist(group)) {
 						System.out.println("This group does not exist");
 						break;
 					}
-					int uId = databaseHelper.getUserId(curUser.getUsername(), curUser.getEmail());
+					int uId = session.getUserId();
 					if(!databaseHelper.checkSpecialAdminAccess(uId, group)) {
 						System.out.println("You do not have admin rights over this group");
 						break;
@@ -2009,7 +1402,7 @@ public class StartCSE360 {
 
 				case "14": {
 					System.out.println("Please enter the general group name: ");
-					String group = scanner.nextLine();
+					String group = scanner().nextLine();
 					if(!databaseHelper.groupExist(group)) {
 						System.out.println("This group does not exist");
 						break;
@@ -2033,7 +1426,7 @@ public class StartCSE360 {
 				case "15": {
 					//listallGroupUsers
 					System.out.println("Please enter the general group name: ");
-					String group = scanner.nextLine();
+					String group = scanner().nextLine();
 					if(!databaseHelper.groupExist(group)) {
 						System.out.println("This group does not exist");
 						break;
@@ -2046,7 +1439,7 @@ public class StartCSE360 {
 				case "16": {
 
 					System.out.println("Please enter general article group name: ");
-					String group = scanner.nextLine();
+					String group = scanner().nextLine();
 					// check if valid group then move on to user
 					if(!databaseHelper.groupExist(group)) {
 						System.out.println("This group does not exist");
@@ -2070,7 +1463,7 @@ public class StartCSE360 {
 				// Manage Rights to a Special Access Group
 				case "17": {
 
-					specialAccessGroupAdminRights(curUser);
+					specialAccessGroupAdminRights(session);
 					break;
 				}
 
@@ -2087,8 +1480,8 @@ public class StartCSE360 {
 
 		} while (!choice.equals("18")); // Loop until Instructor ends their session
 
-		mainLogin(); // route back to main login as user has ended their current session as
-						// instructor
+		return Route.LOGIN; // route back to main login as user has ended their current session as
+							// instructor
 
 	}
 
@@ -2101,13 +1494,13 @@ public class StartCSE360 {
 	 * 
 	 * @return Array of 2 Strings containing the username and password in that order
 	 */
-	private static String[] get_user_credentials() {
+	private String[] get_user_credentials() {
 		String[] credentials = new String[2];
 
 		System.out.print("Enter Username: ");
-		credentials[0] = scanner.nextLine();
+		credentials[0] = scanner().nextLine();
 		System.out.print("Enter Password: ");
-		credentials[1] = scanner.nextLine();
+		credentials[1] = scanner().nextLine();
 
 		return credentials;
 	}
@@ -2121,27 +1514,28 @@ public class StartCSE360 {
 	 * 
 	 * @return Array of 2 Strings containing the username and email in that order
 	 */
-	private static String[] get_user_identifiers() {
+	private String[] get_user_identifiers() {
 		String[] identifiers = new String[2];
 
 		System.out.print("Enter User's username: ");
-		identifiers[0] = scanner.nextLine();
+		identifiers[0] = scanner().nextLine();
 		System.out.print("Enter User's email: ");
-		identifiers[1] = scanner.nextLine();
+		identifiers[1] = scanner().nextLine();
 
 		return identifiers;
 	}
 
-	private static void specialAccessGroupAdminRights(User curUser) throws SQLException{
+	private void specialAccessGroupAdminRights(Session session) throws SQLException{
+		User curUser = session.getUser();
 			try {
 				String access;
 				System.out.println("Please enter the name of the Special Access Group: ");
-				String group = scanner.nextLine();
+				String group = scanner().nextLine();
 				if(!databaseHelper.isGroupSpecial(group)){
 					System.out.println("This is not a special group.");
 					return;
 				}
-				int aId = databaseHelper.getUserId(curUser.getUsername(), curUser.getEmail());
+				int aId = session.getUserId();
 				if (!databaseHelper.checkSpecialAdminAccess(aId, group)) {
 					System.out.println("You do not have access to this Special Access Group.");
 					return;
@@ -2163,7 +1557,7 @@ public class StartCSE360 {
 				System.out.println("8. List of all students with decrypted view rights");
 				System.out.println("9. Grant an administrator access to this group");
 				System.out.println("10. Exit this menu");
-				access = scanner.nextLine();
+				access = scanner().nextLine();
 
 				switch (access) {
 
@@ -2189,7 +1583,7 @@ public class StartCSE360 {
 							System.out.println("1. Student");
 						if (userRoles[1])
 							System.out.println("2. Instructor");
-						String roleToAdd = scanner.nextLine();
+						String roleToAdd = scanner().nextLine();
 						// add && studentFlag or && teachFlag to conditions so that only if option
 						// selected and role user has match do they get added - otherwise adding to
 						// system without a role
@@ -0,0 +1,247 @@
+package simpleDatabase;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/***
+ * LRU cache of prepared statements for one physical connection.
+ * <p>
+ * Statements are keyed by their SQL text (plus any result set or generated key
+ * options). The helper methods keep calling conn.prepareStatement(sql) inside
+ * try-with-resources as before - the pooled connection routes that call here,
+ * and closing the statement closes any result set it still has open, clears
+ * its parameters and puts it back in the cache, so H2 only parses and plans
+ * each query once per connection.
+ * </p>
+ * <p>
+ * A connection is only ever used by one thread at a time, so the cache itself
+ * is not synchronized. The hit/miss/eviction counters are read from other
+ * threads and use LongAdder.
+ * </p>
+ *
+ * @author Abhave Abhilash and Aditya Gupta
+ * @version 1.0
+ * @since 10/9/2024
+ */
+class StatementCache {
+
+	/** Default number of statements kept open per connection */
+	static final int DEFAULT_CAPACITY = 64;
+
+	private final Connection physical;
+	private final int capacity;
+	private final Map<String, Entry> entries;
+
+	final LongAdder hits = new LongAdder();
+	final LongAdder misses = new LongAdder();
+	final LongAdder evictions = new LongAdder();
+
+	/**
+	 * @param physical the real H2 connection the statements belong to
+	 * @param capacity most statements kept open at once
+	 */
+	StatementCache(Connection physical, int capacity) {
+		this.physical = physical;
+		this.capacity = capacity;
+		// access-ordered so the eldest entry is always the least recently used one
+		this.entries = new LinkedHashMap<>(16, 0.75f, true);
+	}
+
+	/**
+	 * Prepare a statement, reusing a cached one when the same SQL has been seen
+	 * before on this connection
+	 *
+	 * @param owner the pooled connection the caller borrowed, returned by the
+	 *            statement's getConnection()
+	 * @param method the prepareStatement overload that was called
+	 * @param args the arguments it was called with, the SQL text first
+	 * @return a statement whose close() returns it to the cache
+	 * @throws SQLException
+	 */
+	PreparedStatement prepare(Connection owner, Method method, Object[] args) throws SQLException {
+		String key = args.length == 1 ? (String) args[0] : Arrays.toString(args);
+		Entry entry = entries.get(key);
+		if (entry != null && !entry.inUse) {
+			hits.increment();
+			return entry.handOut(owner);
+		}
+		misses.increment();
+
+		PreparedStatement real = invokePrepare(method, args);
+		if (entry != null || capacity == 0) {
+			// same SQL is already open on this connection (nested use) - hand out an uncached statement
+			Entry uncached = new Entry(real);
+			uncached.evicted = true;
+			return uncached.handOut(owner);
+		}
+
+		entry = new Entry(real);
+		entries.put(key, entry);
+		evictOverflow();
+		return entry.handOut(owner);
+	}
+
+	private PreparedStatement invokePrepare(Method method, Object[] args) throws SQLException {
+		try {
+			return (PreparedStatement) method.invoke(physical, args);
+		} catch (InvocationTargetException e) {
+			if (e.getCause() instanceof SQLException) {
+				throw (SQLException) e.getCause();
+			}
+			throw new SQLException("Unable to prepare statement", e.getCause());
+		} catch (IllegalAccessException e) {
+			throw new SQLException("Unable to prepare statement", e);
+		}
+	}
+
+	// drop least recently used statements until we are back under capacity
+	private void evictOverflow() {
+		Iterator<Entry> it = entries.values().iterator();
+		while (entries.size() > capacity && it.hasNext()) {
+			Entry eldest = it.next();
+			it.remove();
+			evictions.increment();
+			eldest.evicted = true;
+			if (!eldest.inUse) {
+				eldest.closeQuietly();
+			}
+		}
+	}
+
+	/**
+	 * @return number of statements currently cached
+	 */
+	int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Close every cached statement. Called when the physical connection is closed.
+	 */
+	void close() {
+		for (Entry entry : entries.values()) {
+			entry.closeQuietly();
+		}
+		entries.clear();
+	}
+
+	/**
+	 * One cached statement and the proxy handed out to callers. Once the
+	 * caller closes the proxy it refuses every call, since by then the
+	 * statement may belong to the connection's next borrower.
+	 */
+	private static final class Entry implements InvocationHandler {
+		private final PreparedStatement real;
+		private final PreparedStatement handle;
+		private boolean inUse = false;
+		private boolean evicted = false;
+		// the pooled connection of the current borrower, never the physical one
+		private Connection owner;
+		// the latest result sets handed out, re-executing the statement closes earlier ones
+		private ResultSet results;
+		private ResultSet keys;
+
+		private Entry(PreparedStatement real) {
+			this.real = real;
+			this.handle = (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+					new Class<?>[] { PreparedStatement.class }, this);
+		}
+
+		private PreparedStatement handOut(Connection owner) {
+			this.owner = owner;
+			inUse = true;
+			return handle;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			switch (method.getName()) {
+				case "close": {
+					if (inUse) {
+						inUse = false;
+						owner = null;
+						if (evicted) {
+							real.close();
+						} else {
+							closeResults();
+							real.clearParameters();
+							real.clearBatch();
+						}
+					}
+					return null;
+				}
+				case "isClosed": {
+					return !inUse || real.isClosed();
+				}
+				case "equals": {
+					return proxy == args[0];
+				}
+				case "hashCode": {
+					return System.identityHashCode(proxy);
+				}
+				case "toString": {
+					return "CachedStatement[" + real + "]";
+				}
+				case "getConnection": {
+					if (!inUse) {
+						throw new SQLException("Statement is closed");
+					}
+					return owner;
+				}
+				default: {
+					if (!inUse) {
+						throw new SQLException("Statement is closed");
+					}
+					Object result;
+					try {
+						result = method.invoke(real, args);
+					} catch (InvocationTargetException e) {
+						throw e.getCause();
+					}
+					if (result instanceof ResultSet) {
+						if (method.getName().equals("getGeneratedKeys")) {
+							keys = (ResultSet) result;
+						} else {
+							results = (ResultSet) result;
+						}
+					}
+					return result;
+				}
+			}
+		}
+
+		// a caller that forgot to close its result set must not leave it open on the cached statement
+		private void closeResults() throws SQLException {
+			try {
+				if (results != null) {
+					results.close();
+				}
+				if (keys != null) {
+					keys.close();
+				}
+			} finally {
+				results = null;
+				keys = null;
+			}
+		}
+
+		private void closeQuietly() {
+			try {
+				real.close();
+			} catch (SQLException e) {
+				System.err.println("Database error while closing cached statement: " + e.getMessage());
+			}
+		}
+	}
+}
@@ -0,0 +1,289 @@
+package simpleDatabase;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Scanner;
+
+/***
+ * The text input and output of one user session.
+ * <p>
+ * The menus in StartCSE360 and the prompts in DatabaseHelper read through
+ * current().scanner(), so they take input from whichever terminal the calling
+ * thread is serving: the console by default, or a TerminalServer connection
+ * once attach() has been called on the session's thread. Every terminal has
+ * its own Scanner, so no session ever sees input buffered for another.
+ * </p>
+ * <p>
+ * The menus print with System.out. routeSystemOut() replaces System.out with a
+ * stream that forwards each write to the current thread's terminal, so the
+ * existing prints reach the right user without being passed a stream. That
+ * stream shares no lock between sessions, so a client that stops reading only
+ * stalls its own session.
+ * System.err is left alone and stays the server's log.
+ * </p>
+ *
+ * @author Abhave Abhilash and Aditya Gupta
+ * @version 1.0
+ * @since 10/9/2024
+ */
+class Terminal {
+
+	private static final Terminal CONSOLE = new Terminal(System.in, System.out);
+	private static final ThreadLocal<Terminal> CURRENT = new ThreadLocal<>();
+	private static boolean routed = false;
+
+	private final InputStream input;
+	private final PrintStream out;
+	private Scanner scanner;
+
+	/**
+	 * @param in where the session's input comes from
+	 * @param out where its output goes
+	 */
+	Terminal(InputStream in, OutputStream out) {
+		this.input = in;
+		this.out = out instanceof PrintStream ? (PrintStream) out : new PrintStream(out, true, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * @return the terminal the calling thread serves, or the console
+	 */
+	static Terminal current() {
+		Terminal terminal = CURRENT.get();
+		return terminal == null ? CONSOLE : terminal;
+	}
+
+	/**
+	 * Serve a terminal from the calling thread until detach()
+	 *
+	 * @param terminal the session's terminal
+	 */
+	static void attach(Terminal terminal) {
+		CURRENT.set(terminal);
+	}
+
+	static void detach() {
+		CURRENT.remove();
+	}
+
+	/**
+	 * Send System.out to the current thread's terminal from now on. Safe to
+	 * call more than once.
+	 */
+	static synchronized void routeSystemOut() {
+		if (routed) {
+			return;
+		}
+		System.setOut(new RoutedStream());
+		routed = true;
+	}
+
+	/**
+	 * The System.out installed by routeSystemOut(). A plain PrintStream would
+	 * lock itself around every write, so one session waiting for its client to
+	 * read would hold up the output of all the others. Every method here goes
+	 * straight to the current terminal's stream and locks only that.
+	 */
+	private static final class RoutedStream extends PrintStream {
+
+		RoutedStream() {
+			super(OutputStream.nullOutputStream(), true, StandardCharsets.UTF_8);
+		}
+
+		private static PrintStream target() {
+			return current().out;
+		}
+
+		@Override
+		public void write(int b) {
+			target().write(b);
+		}
+
+		@Override
+		public void write(byte[] buf, int off, int len) {
+			target().write(buf, off, len);
+		}
+
+		@Override
+		public void write(byte[] buf) {
+			target().write(buf, 0, buf.length);
+		}
+
+		@Override
+		public void writeBytes(byte[] buf) {
+			target().write(buf, 0, buf.length);
+		}
+
+		@Override
+		public void flush() {
+			target().flush();
+		}
+
+		// the terminals are closed by their owners, never through System.out
+		@Override
+		public void close() {
+		}
+
+		@Override
+		public boolean checkError() {
+			return target().checkError();
+		}
+
+		@Override
+		public void print(boolean b) {
+			target().print(b);
+		}
+
+		@Override
+		public void print(char c) {
+			target().print(c);
+		}
+
+		@Override
+		public void print(int i) {
+			target().print(i);
+		}
+
+		@Override
+		public void print(long l) {
+			target().print(l);
+		}
+
+		@Override
+		public void print(float f) {
+			target().print(f);
+		}
+
+		@Override
+		public void print(double d) {
+			target().print(d);
+		}
+
+		@Override
+		public void print(char[] s) {
+			target().print(s);
+		}
+
+		@Override
+		public void print(String s) {
+			target().print(s);
+		}
+
+		@Override
+		public void print(Object obj) {
+			target().print(obj);
+		}
+
+		@Override
+		public void println() {
+			target().println();
+		}
+
+		@Override
+		public void println(boolean x) {
+			target().println(x);
+		}
+
+		@Override
+		public void println(char x) {
+			target().println(x);
+		}
+
+		@Override
+		public void println(int x) {
+			target().println(x);
+		}
+
+		@Override
+		public void println(long x) {
+			target().println(x);
+		}
+
+		@Override
+		public void println(float x) {
+			target().println(x);
+		}
+
+		@Override
+		public void println(double x) {
+			target().println(x);
+		}
+
+		@Override
+		public void println(char[] x) {
+			target().println(x);
+		}
+
+		@Override
+		public void println(String x) {
+			target().println(x);
+		}
+
+		@Override
+		public void println(Object x) {
+			target().println(x);
+		}
+
+		@Override
+		public PrintStream printf(String format, Object... args) {
+			target().printf(format, args);
+			return this;
+		}
+
+		@Override
+		public PrintStream printf(Locale l, String format, Object... args) {
+			target().printf(l, format, args);
+			return this;
+		}
+
+		@Override
+		public PrintStream format(String format, Object... args) {
+			target().format(format, args);
+			return this;
+		}
+
+		@Override
+		public PrintStream format(Locale l, String format, Object... args) {
+			target().format(l, format, args);
+			return this;
+		}
+
+		@Override
+		public PrintStream append(CharSequence csq) {
+			target().append(csq);
+			return this;
+		}
+
+		@Override
+		public PrintStream append(CharSequence csq, int start, int end) {
+			target().append(csq, start, end);
+			return this;
+		}
+
+		@Override
+		public PrintStream append(char c) {
+			target().append(c);
+			return this;
+		}
+	}
+
+	/**
+	 * @return the scanner over this terminal's input, created on first use
+	 */
+	synchronized Scanner scanner() {
+		if (scanner == null) {
+			scanner = new Scanner(input, StandardCharsets.UTF_8);
+		}
+		return scanner;
+	}
+
+	/**
+	 * @return this terminal's output
+	 */
+	PrintStream out() {
+		return out;
+	}
+}
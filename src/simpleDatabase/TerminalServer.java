@@ -0,0 +1,407 @@
+package simpleDatabase;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/***
+ * Serves the console menus to many terminal users (telnet, nc) at once over
+ * TCP, against the one DatabaseHelper and connection pool of this process.
+ * <p>
+ * A single selector thread does all the socket work: it accepts connections,
+ * reads whatever bytes arrive and writes queued output when a socket can take
+ * it, never blocking on any one client. Each connection gets a Terminal whose
+ * input is fed by the selector and whose output is queued for it, and its menu
+ * flow runs on its own virtual thread with that Terminal attached, so the
+ * blocking Scanner and System.out code of the menus works unchanged and one
+ * slow user never holds up another.
+ * </p>
+ * <p>
+ * Both directions are bounded. A connection stops being read while
+ * MAX_BUFFERED bytes of its input are waiting for the menu, and a menu thread
+ * that has MAX_BUFFERED bytes of output queued waits for the client to catch
+ * up. When the client disconnects, the menu sees the end of its input and its
+ * flow ends; when the flow ends, the connection is closed once its output has
+ * been sent.
+ * </p>
+ *
+ * @author Abhave Abhilash and Aditya Gupta
+ * @version 1.0
+ * @since 10/9/2024
+ */
+class TerminalServer {
+
+	static final int DEFAULT_PORT = 2360;
+
+	/** Most bytes buffered in either direction for one connection */
+	static final int MAX_BUFFERED = 64 * 1024;
+
+	/**
+	 * The menu flow run for each connection, on the connection's own thread
+	 * with its Terminal attached
+	 */
+	interface Flow {
+		void run(Terminal terminal) throws Exception;
+	}
+
+	private final Flow flow;
+	private final Selector selector;
+	private final ServerSocketChannel server;
+	private final Set<Connection> connections = ConcurrentHashMap.newKeySet();
+	// connections whose interest ops the selector thread has to update
+	private final Queue<Connection> changed = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger nextId = new AtomicInteger();
+	private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(8192);
+	private volatile boolean running = false;
+	private Thread selectorThread;
+
+	/**
+	 * @param port port to listen on, 0 for any free port
+	 * @param flow what each connection runs
+	 * @throws IOException if the port cannot be bound
+	 */
+	TerminalServer(int port, Flow flow) throws IOException {
+		this.flow = flow;
+		this.selector = Selector.open();
+		this.server = ServerSocketChannel.open();
+		server.bind(new InetSocketAddress(port));
+		server.configureBlocking(false);
+		server.register(selector, SelectionKey.OP_ACCEPT);
+	}
+
+	/**
+	 * Start accepting connections. System.out is routed to the terminals from
+	 * here on.
+	 */
+	void start() {
+		Terminal.routeSystemOut();
+		running = true;
+		selectorThread = new Thread(this::selectLoop, "terminal-selector");
+		selectorThread.start();
+		System.out.println("Terminal server listening on port " + getPort());
+	}
+
+	/**
+	 * @return the port the server is bound to
+	 */
+	int getPort() {
+		return server.socket().getLocalPort();
+	}
+
+	/**
+	 * @return number of connected terminals
+	 */
+	int getConnectionCount() {
+		return connections.size();
+	}
+
+	/**
+	 * Close every connection and stop the selector. Running menu flows see
+	 * the end of their input and finish.
+	 */
+	void stop() {
+		running = false;
+		selector.wakeup();
+		try {
+			if (selectorThread != null) {
+				selectorThread.join(5000);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void selectLoop() {
+		try {
+			while (running) {
+				selector.select();
+				Connection connection;
+				while ((connection = changed.poll()) != null) {
+					connection.updateInterest();
+				}
+				Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+				while (keys.hasNext()) {
+					SelectionKey key = keys.next();
+					keys.remove();
+					if (!key.isValid()) {
+						continue;
+					}
+					if (key.isAcceptable()) {
+						accept();
+						continue;
+					}
+					Connection conn = (Connection) key.attachment();
+					try {
+						if (key.isReadable()) {
+							conn.read();
+						}
+						if (key.isValid() && key.isWritable()) {
+							conn.write();
+						}
+					} catch (IOException e) {
+						conn.close();
+					}
+				}
+			}
+		} catch (IOException | ClosedSelectorException e) {
+			if (running) {
+				System.err.println("Terminal server stopped: " + e.getMessage());
+			}
+		} finally {
+			for (Connection conn : connections) {
+				conn.close();
+			}
+			try {
+				server.close();
+				selector.close();
+			} catch (IOException e) {
+				System.err.println("Terminal server issue while closing: " + e.getMessage());
+			}
+		}
+	}
+
+	private void accept() throws IOException {
+		SocketChannel channel = server.accept();
+		if (channel == null) {
+			return;
+		}
+		channel.configureBlocking(false);
+		Connection conn = new Connection(nextId.incrementAndGet(), channel);
+		conn.key = channel.register(selector, SelectionKey.OP_READ, conn);
+		connections.add(conn);
+		Thread.ofVirtual().name("terminal-" + conn.id).start(() -> runFlow(conn));
+	}
+
+	private void runFlow(Connection conn) {
+		Terminal terminal = new Terminal(conn.input, conn.output);
+		Terminal.attach(terminal);
+		try {
+			flow.run(terminal);
+		} catch (NoSuchElementException | IllegalStateException e) {
+			// the client disconnected while a menu was waiting for input
+		} catch (Exception e) {
+			System.err.println("Terminal session " + conn.id + " failed: " + e);
+		} finally {
+			terminal.out().flush();
+			Terminal.detach();
+			conn.finish();
+		}
+	}
+
+	/**
+	 * One client: the socket, the input waiting for its menu and the output
+	 * waiting for its socket. The lock guards both buffers; the selector
+	 * thread and the menu thread meet only here.
+	 */
+	private final class Connection {
+		private final int id;
+		private final SocketChannel channel;
+		private final ReentrantLock lock = new ReentrantLock();
+		private final Condition inputReady = lock.newCondition();
+		private final Condition outputDrained = lock.newCondition();
+		private final ArrayDeque<ByteBuffer> inbox = new ArrayDeque<>();
+		private final ArrayDeque<ByteBuffer> outbox = new ArrayDeque<>();
+		private SelectionKey key;
+		private int inboxBytes = 0;
+		private int outboxBytes = 0;
+		private boolean endOfInput = false;
+		private boolean finished = false;
+		private boolean closed = false;
+
+		private final InputStream input = new InputStream() {
+			@Override
+			public int read() throws IOException {
+				byte[] one = new byte[1];
+				return read(one, 0, 1) == -1 ? -1 : one[0] & 0xff;
+			}
+
+			@Override
+			public int read(byte[] b, int off, int len) throws IOException {
+				if (len == 0) {
+					return 0;
+				}
+				lock.lock();
+				try {
+					while (inbox.isEmpty()) {
+						if (endOfInput) {
+							return -1;
+						}
+						inputReady.awaitUninterruptibly();
+					}
+					ByteBuffer chunk = inbox.peek();
+					int count = Math.min(len, chunk.remaining());
+					chunk.get(b, off, count);
+					if (!chunk.hasRemaining()) {
+						inbox.poll();
+					}
+					boolean wasPaused = inboxBytes >= MAX_BUFFERED;
+					inboxBytes -= count;
+					if (wasPaused && inboxBytes < MAX_BUFFERED) {
+						interestChanged();
+					}
+					return count;
+				} finally {
+					lock.unlock();
+				}
+			}
+		};
+
+		private final OutputStream output = new OutputStream() {
+			@Override
+			public void write(int b) throws IOException {
+				write(new byte[] { (byte) b }, 0, 1);
+			}
+
+			@Override
+			public void write(byte[] b, int off, int len) throws IOException {
+				lock.lock();
+				try {
+					while (outboxBytes >= MAX_BUFFERED && !closed) {
+						outputDrained.awaitUninterruptibly();
+					}
+					if (closed) {
+						throw new IOException("Terminal " + id + " is closed");
+					}
+					ByteBuffer chunk = ByteBuffer.allocate(len);
+					chunk.put(b, off, len).flip();
+					outbox.add(chunk);
+					outboxBytes += len;
+				} finally {
+					lock.unlock();
+				}
+				interestChanged();
+			}
+		};
+
+		private Connection(int id, SocketChannel channel) {
+			this.id = id;
+			this.channel = channel;
+		}
+
+		// selector thread: hand what arrived to the menu
+		private void read() throws IOException {
+			readBuffer.clear();
+			int count = channel.read(readBuffer);
+			lock.lock();
+			try {
+				if (count == -1) {
+					endOfInput = true;
+					inputReady.signalAll();
+					key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+					return;
+				}
+				readBuffer.flip();
+				ByteBuffer chunk = ByteBuffer.allocate(count);
+				chunk.put(readBuffer).flip();
+				inbox.add(chunk);
+				inboxBytes += count;
+				inputReady.signalAll();
+				if (inboxBytes >= MAX_BUFFERED) {
+					// the menu is behind; stop reading until it catches up
+					key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+				}
+			} finally {
+				lock.unlock();
+			}
+		}
+
+		// selector thread: send as much queued output as the socket takes
+		private void write() throws IOException {
+			lock.lock();
+			try {
+				while (!outbox.isEmpty()) {
+					ByteBuffer chunk = outbox.peek();
+					int count = channel.write(chunk);
+					outboxBytes -= count;
+					if (chunk.hasRemaining()) {
+						break;
+					}
+					outbox.poll();
+				}
+				outputDrained.signalAll();
+			} finally {
+				lock.unlock();
+			}
+			updateInterest();
+		}
+
+		// selector thread: read while there is room, write while there is output
+		private void updateInterest() {
+			lock.lock();
+			try {
+				if (closed || !key.isValid()) {
+					return;
+				}
+				if (finished && outbox.isEmpty()) {
+					close();
+					return;
+				}
+				int ops = 0;
+				if (!endOfInput && inboxBytes < MAX_BUFFERED) {
+					ops |= SelectionKey.OP_READ;
+				}
+				if (!outbox.isEmpty()) {
+					ops |= SelectionKey.OP_WRITE;
+				}
+				key.interestOps(ops);
+			} finally {
+				lock.unlock();
+			}
+		}
+
+		// menu thread: the flow has ended; close once the output is sent
+		private void finish() {
+			lock.lock();
+			try {
+				finished = true;
+			} finally {
+				lock.unlock();
+			}
+			interestChanged();
+		}
+
+		private void interestChanged() {
+			changed.add(this);
+			selector.wakeup();
+		}
+
+		private void close() {
+			lock.lock();
+			try {
+				if (closed) {
+					return;
+				}
+				closed = true;
+				endOfInput = true;
+				inputReady.signalAll();
+				outputDrained.signalAll();
+			} finally {
+				lock.unlock();
+			}
+			connections.remove(this);
+			key.cancel();
+			try {
+				channel.close();
+			} catch (IOException e) {
+				System.err.println("Terminal " + id + " issue while closing: " + e.getMessage());
+			}
+		}
+	}
+}